@@ -0,0 +1,149 @@
+package shadow.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+
+/**
+ * Compares JMH results written as JSON against those of an earlier run. A benchmark has regressed
+ * when its score is worse than the baseline by more than the threshold percentage and by more than
+ * the combined error of the two scores, so that noisy benchmarks do not fail the comparison.
+ */
+public class BaselineComparison {
+  public static final double DEFAULT_THRESHOLD = 10.0;
+
+  private final Map<String, Result> baseline;
+  private final Map<String, Result> current;
+  private final double threshold;
+
+  /* Score of one benchmark with one set of parameters. */
+  private static class Result {
+    private final String mode;
+    private final String unit;
+    private final double score;
+    private final double error;
+
+    private Result(JsonNode node) {
+      JsonNode metric = node.path("primaryMetric");
+      mode = node.path("mode").asText();
+      unit = metric.path("scoreUnit").asText();
+      score = metric.path("score").asDouble();
+      // JMH writes "NaN" when there are too few iterations to estimate the error
+      double scoreError = metric.path("scoreError").asDouble(0.0);
+      error = Double.isNaN(scoreError) ? 0.0 : scoreError;
+    }
+
+    /* Throughput gets better as it increases; every other mode measures time. */
+    private boolean higherIsBetter() {
+      return mode.equals("thrpt");
+    }
+  }
+
+  /**
+   * Creates a comparison between two result files.
+   *
+   * @param baseline results to compare against
+   * @param current new results
+   * @param threshold percentage by which a score must get worse to be a regression
+   * @throws IOException thrown if either file cannot be read
+   */
+  public BaselineComparison(Path baseline, Path current, double threshold) throws IOException {
+    this.baseline = read(baseline);
+    this.current = read(current);
+    this.threshold = threshold;
+  }
+
+  private static Map<String, Result> read(Path file) throws IOException {
+    Map<String, Result> results = new TreeMap<>();
+    for (JsonNode node : new ObjectMapper().readTree(file.toFile()))
+      results.put(getKey(node), new Result(node));
+    return results;
+  }
+
+  /* Benchmark name followed by its parameters in a fixed order. */
+  private static String getKey(JsonNode node) {
+    StringBuilder key = new StringBuilder(node.path("benchmark").asText());
+    JsonNode params = node.path("params");
+    if (params.isObject()) {
+      Map<String, String> sorted = new TreeMap<>();
+      params
+          .fields()
+          .forEachRemaining(entry -> sorted.put(entry.getKey(), entry.getValue().asText()));
+      for (Map.Entry<String, String> entry : sorted.entrySet())
+        key.append(' ').append(entry.getKey()).append('=').append(entry.getValue());
+    }
+    return key.toString();
+  }
+
+  /**
+   * Gets the benchmarks whose scores have regressed. Benchmarks found in only one of the files are
+   * ignored.
+   *
+   * @return keys of the regressed benchmarks
+   */
+  public List<String> getRegressions() {
+    List<String> regressions = new ArrayList<>();
+    for (Map.Entry<String, Result> entry : current.entrySet()) {
+      Result before = baseline.get(entry.getKey());
+      if (before != null && isRegression(before, entry.getValue()))
+        regressions.add(entry.getKey());
+    }
+    return regressions;
+  }
+
+  private boolean isRegression(Result before, Result after) {
+    double worsening =
+        after.higherIsBetter() ? before.score - after.score : after.score - before.score;
+    return worsening > Math.abs(before.score) * threshold / 100.0
+        && worsening > before.error + after.error;
+  }
+
+  /**
+   * Prints each benchmark found in both files with its change from the baseline.
+   *
+   * @param out stream to print to
+   */
+  public void print(PrintStream out) {
+    Set<String> regressions = new HashSet<>(getRegressions());
+    for (Map.Entry<String, Result> entry : current.entrySet()) {
+      Result before = baseline.get(entry.getKey());
+      if (before == null) continue;
+
+      Result after = entry.getValue();
+      double change =
+          before.score == 0.0 ? 0.0 : (after.score - before.score) / before.score * 100.0;
+      out.printf(
+          "%-70s %12.3f -> %12.3f %-8s %+7.1f%%%s%n",
+          entry.getKey(),
+          before.score,
+          after.score,
+          after.unit,
+          change,
+          regressions.contains(entry.getKey()) ? "  REGRESSION" : "");
+    }
+  }
+
+  /**
+   * Compares two result files from the command line, exiting with status 1 if there are any
+   * regressions.
+   *
+   * @param args baseline file, current file, and an optional threshold percentage
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2 || args.length > 3) {
+      System.err.println("Usage: BaselineComparison <baseline.json> <current.json> [threshold]");
+      System.exit(2);
+    }
+
+    double threshold = args.length == 3 ? Double.parseDouble(args[2]) : DEFAULT_THRESHOLD;
+    BaselineComparison comparison =
+        new BaselineComparison(Paths.get(args[0]), Paths.get(args[1]), threshold);
+    comparison.print(System.out);
+    if (!comparison.getRegressions().isEmpty()) System.exit(1);
+  }
+}
@@ -0,0 +1,78 @@
+package shadow.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Runs the benchmarks and optionally compares them against a baseline. The options below are
+ * handled here, and everything else is passed on to JMH, so benchmarks can still be selected with
+ * a regular expression or given different iteration counts.
+ *
+ * <ul>
+ *   <li><code>--results &lt;file&gt;</code>: where to write the JSON results (default
+ *       <code>benchmarks.json</code>)
+ *   <li><code>--baseline &lt;file&gt;</code>: results of an earlier run to compare against
+ *   <li><code>--threshold &lt;percent&gt;</code>: how much worse a score must be to count as a
+ *       regression (default 10)
+ * </ul>
+ *
+ * When a baseline is given, the exit status is 1 if any benchmark regressed.
+ */
+public class BenchmarkRunner {
+  public static void main(String[] args) throws Exception {
+    Path results = Paths.get("benchmarks.json");
+    Path baseline = null;
+    double threshold = BaselineComparison.DEFAULT_THRESHOLD;
+
+    List<String> jmhArgs = new ArrayList<>();
+    for (int i = 0; i < args.length; ++i) {
+      switch (args[i]) {
+        case "--results" -> results = Paths.get(getValue(args, ++i));
+        case "--baseline" -> baseline = Paths.get(getValue(args, ++i));
+        case "--threshold" -> threshold = Double.parseDouble(getValue(args, ++i));
+        default -> jmhArgs.add(args[i]);
+      }
+    }
+
+    Options options;
+    try {
+      options =
+          new OptionsBuilder()
+              .parent(new CommandLineOptions(jmhArgs.toArray(new String[0])))
+              .resultFormat(ResultFormatType.JSON)
+              .result(results.toString())
+              .build();
+    } catch (CommandLineOptionException e) {
+      System.err.println(e.getMessage());
+      System.exit(2);
+      return;
+    }
+
+    new Runner(options).run();
+
+    if (baseline != null) {
+      BaselineComparison comparison = new BaselineComparison(baseline, results, threshold);
+      System.out.println();
+      System.out.println("Compared with " + baseline + ":");
+      comparison.print(System.out);
+      if (!comparison.getRegressions().isEmpty()) System.exit(1);
+    }
+  }
+
+  private static String getValue(String[] args, int index) {
+    if (index >= args.length) {
+      System.err.println("Missing value for " + args[index - 1]);
+      System.exit(2);
+    }
+    return args[index];
+  }
+}
@@ -0,0 +1,45 @@
+package shadow.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import shadow.CompilationContext;
+import shadow.parse.Context;
+
+import java.nio.file.Path;
+
+/**
+ * A class from the standard library that has been type-checked and had its constants evaluated,
+ * ready for code generation. Shared by the benchmarks for the back end.
+ */
+@State(Scope.Benchmark)
+public class CheckedClass {
+  @Param({"shadow:standard@String", "shadow:standard@BigInteger", "shadow:utility@HashMap"})
+  public String className;
+
+  private Path config;
+  private CompilationContext compilation;
+  private Context node;
+
+  @Setup
+  public void setup() throws Exception {
+    config = Fixtures.copyStandardLibrary();
+    // HashMap brings in the utility classes as well as the standard ones
+    Path main = Fixtures.getLibraryFile(config, "utility/HashMap.shadow");
+    compilation = Fixtures.createCompilation(main, config);
+    try (CompilationContext.Scope ignored = compilation.enter()) {
+      node = Fixtures.findClass(Fixtures.typeCheck(compilation, main), className);
+    }
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    Fixtures.delete(config);
+  }
+
+  public CompilationContext getCompilation() {
+    return compilation;
+  }
+
+  public Context getNode() {
+    return node;
+  }
+}
@@ -0,0 +1,169 @@
+package shadow.benchmark;
+
+import shadow.CompilationContext;
+import shadow.Configuration;
+import shadow.ConfigurationException;
+import shadow.Loggers;
+import shadow.ShadowException;
+import shadow.interpreter.ConstantFieldInterpreter;
+import shadow.parse.Context;
+import shadow.typecheck.ErrorReporter;
+import shadow.typecheck.TypeChecker;
+import shadow.typecheck.type.Type;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Builds the inputs that benchmarks share. Sources come from the <code>src/shadow</code> and <code>
+ * tests</code> directories of the repository, found through the <code>shadow.root</code> system
+ * property (the working directory by default).
+ *
+ * <p>Type-checking fixtures are copies of the standard library in a temporary directory, without
+ * any <code>.meta</code> files or build manifest, so every file is parsed and checked from source
+ * no matter what has been built in the repository.
+ */
+public final class Fixtures {
+  private Fixtures() {}
+
+  public static Path getRoot() {
+    return Paths.get(System.getProperty("shadow.root", ".")).toAbsolutePath().normalize();
+  }
+
+  /**
+   * Resolves a path relative to the repository.
+   *
+   * @param path path such as <code>src/shadow/standard/String.shadow</code>
+   * @return absolute path
+   * @throws IOException thrown if the file does not exist
+   */
+  public static Path resolve(String path) throws IOException {
+    Path file = getRoot().resolve(path);
+    if (!Files.exists(file))
+      throw new IOException(file + " not found; set -Dshadow.root to the repository directory");
+    return file;
+  }
+
+  /**
+   * Copies the <code>.shadow</code> files of the standard library into a new directory, along
+   * with a configuration file that uses the copies as the system source.
+   *
+   * @return path to the configuration file
+   * @throws IOException thrown if the files cannot be copied
+   */
+  public static Path copyStandardLibrary() throws IOException {
+    Path directory = Files.createTempDirectory("shadow-benchmark");
+    Path source = directory.resolve("src");
+    Path binary = directory.resolve("bin");
+    Path library = resolve("src").resolve("shadow");
+
+    try (Stream<Path> files = Files.walk(library)) {
+      for (Path file : (Iterable<Path>) files::iterator) {
+        Path copy = source.resolve("shadow").resolve(library.relativize(file).toString());
+        if (Files.isDirectory(file)) Files.createDirectories(copy);
+        else if (file.toString().endsWith(".shadow")) Files.copy(file, copy);
+      }
+    }
+    Files.createDirectories(binary);
+
+    Path config = directory.resolve("benchmark.json");
+    Files.writeString(
+        config,
+        "{\n  \"import\": {"
+            + quote(source)
+            + ": "
+            + quote(binary)
+            + "},\n  \"system\": ["
+            + quote(source)
+            + ", "
+            + quote(resolve("include"))
+            + ", "
+            + quote(binary)
+            + "]\n}\n");
+    return config;
+  }
+
+  private static String quote(Path path) {
+    return "\"" + path.toString().replace('\\', '/') + "\"";
+  }
+
+  /**
+   * Gets a file in a copy of the standard library made by {@link #copyStandardLibrary()}.
+   *
+   * @param config configuration file of the copy
+   * @param path path within the library, such as <code>standard/Object.shadow</code>
+   * @return path to the copied file
+   */
+  public static Path getLibraryFile(Path config, String path) {
+    return config.resolveSibling("src").resolve("shadow").resolve(path);
+  }
+
+  /**
+   * Creates a compilation that uses the given configuration.
+   *
+   * @param main main file of the compilation
+   * @param config configuration file
+   * @return new compilation context
+   */
+  public static CompilationContext createCompilation(Path main, Path config)
+      throws ConfigurationException, IOException {
+    CompilationContext compilation = new CompilationContext();
+    Configuration.buildConfiguration(compilation, main.toString(), config.toString(), false);
+    return compilation;
+  }
+
+  /**
+   * Type-checks a file and evaluates constants, leaving the classes ready for TAC generation, as
+   * {@link shadow.Main} does before generating code.
+   *
+   * @param compilation compilation that has been entered on this thread
+   * @param main file to check
+   * @return nodes of the outer classes that were checked, including those from .meta files
+   */
+  public static List<Context> typeCheck(CompilationContext compilation, Path main)
+      throws ShadowException, IOException, ConfigurationException {
+    ErrorReporter reporter = new ErrorReporter(Loggers.TYPE_CHECKER);
+    TypeChecker.TypeCheckerOutput output =
+        TypeChecker.typeCheck(List.of(main), reporter, false, compilation);
+    reporter.printAndReportErrors();
+
+    List<Type> types = new ArrayList<>();
+    for (Context node : output.nodes) {
+      types.add(node.getType());
+      types.addAll(node.getType().recursivelyGetInnerTypes());
+    }
+    ConstantFieldInterpreter.evaluateConstants(output.packageTree, types);
+    return output.nodes;
+  }
+
+  /**
+   * Finds the node of a class checked by {@link #typeCheck(CompilationContext, Path)}.
+   *
+   * @param nodes nodes of the checked classes
+   * @param name name of the class with its package, such as <code>shadow:standard@String</code>
+   * @return node of the class
+   */
+  public static Context findClass(List<Context> nodes, String name) {
+    for (Context node : nodes) if (node.getType().toString(Type.PACKAGES).equals(name)) return node;
+
+    throw new IllegalArgumentException("Class " + name + " was not checked");
+  }
+
+  /**
+   * Deletes a directory made by {@link #copyStandardLibrary()}.
+   *
+   * @param config configuration file of the copy
+   */
+  public static void delete(Path config) throws IOException {
+    try (Stream<Path> files = Files.walk(config.getParent())) {
+      for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator)
+        Files.delete(file);
+    }
+  }
+}
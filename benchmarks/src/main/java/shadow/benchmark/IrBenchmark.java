@@ -0,0 +1,44 @@
+package shadow.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import shadow.CompilationContext;
+import shadow.Loggers;
+import shadow.Main;
+import shadow.ShadowException;
+import shadow.output.llvm.IrOutput;
+import shadow.tac.TACBuilder;
+import shadow.tac.TACModule;
+import shadow.typecheck.ErrorReporter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/** Measures writing the LLVM IR for a single class, discarding the output. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IrBenchmark {
+  private TACModule module;
+
+  @Setup
+  public void setup(CheckedClass checked) {
+    try (CompilationContext.Scope ignored = checked.getCompilation().enter()) {
+      module = new TACBuilder(checked.getCompilation()).build(checked.getNode());
+      Main.optimizeTAC(module, new ErrorReporter(Loggers.TAC));
+    }
+  }
+
+  @Benchmark
+  public void writeIr(CheckedClass checked) throws IOException, ShadowException {
+    CompilationContext compilation = checked.getCompilation();
+    try (CompilationContext.Scope ignored = compilation.enter()) {
+      IrOutput output = new IrOutput(OutputStream.nullOutputStream(), compilation);
+      output.build(module);
+      output.close();
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package shadow.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import shadow.Loggers;
+import shadow.parse.ParseChecker;
+import shadow.parse.ShadowParser.CompilationUnitContext;
+import shadow.typecheck.ErrorReporter;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/** Measures parsing a single file from source already in memory. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParseBenchmark {
+  @Param({
+    "src/shadow/standard/String.shadow",
+    "src/shadow/utility/HashMap.shadow",
+    "tests/typechecker/Method.shadow"
+  })
+  public String file;
+
+  private Path path;
+  private String source;
+
+  @Setup
+  public void setup() throws IOException {
+    path = Fixtures.resolve(file);
+    source = Files.readString(path);
+  }
+
+  @Benchmark
+  public CompilationUnitContext parse() {
+    ParseChecker checker = new ParseChecker(new ErrorReporter(Loggers.PARSER));
+    return checker.getCompilationUnit(source, path);
+  }
+}
@@ -0,0 +1,29 @@
+package shadow.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import shadow.CompilationContext;
+import shadow.Loggers;
+import shadow.Main;
+import shadow.tac.TACBuilder;
+import shadow.tac.TACModule;
+import shadow.typecheck.ErrorReporter;
+
+import java.util.concurrent.TimeUnit;
+
+/** Measures building and optimizing the TAC for a single class. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TacBenchmark {
+
+  @Benchmark
+  public TACModule buildAndOptimize(CheckedClass checked) {
+    CompilationContext compilation = checked.getCompilation();
+    try (CompilationContext.Scope ignored = compilation.enter()) {
+      TACModule module = new TACBuilder(compilation).build(checked.getNode());
+      return Main.optimizeTAC(module, new ErrorReporter(Loggers.TAC));
+    }
+  }
+}
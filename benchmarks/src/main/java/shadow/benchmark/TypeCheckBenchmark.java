@@ -0,0 +1,47 @@
+package shadow.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import shadow.CompilationContext;
+import shadow.Loggers;
+import shadow.typecheck.ErrorReporter;
+import shadow.typecheck.TypeChecker;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures type-checking the whole standard library from source, including parsing, type
+ * collection, type updating, and statement checking.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TypeCheckBenchmark {
+  private Path config;
+  private Path main;
+  private CompilationContext compilation;
+
+  @Setup
+  public void setup() throws Exception {
+    config = Fixtures.copyStandardLibrary();
+    main = Fixtures.getLibraryFile(config, "standard/Object.shadow");
+    compilation = Fixtures.createCompilation(main, config);
+  }
+
+  @TearDown
+  public void tearDown() throws Exception {
+    Fixtures.delete(config);
+  }
+
+  @Benchmark
+  public TypeChecker.TypeCheckerOutput typeCheckStandardLibrary() throws Exception {
+    try (CompilationContext.Scope ignored = compilation.enter()) {
+      ErrorReporter reporter = new ErrorReporter(Loggers.TYPE_CHECKER);
+      return TypeChecker.typeCheck(List.of(main), reporter, true, compilation);
+    }
+  }
+}
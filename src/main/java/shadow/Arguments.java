@@ -1,7 +1,8 @@
 package shadow;
 
 import org.apache.commons.cli.*;
-import org.apache.logging.log4j.Level;
+import java.io.PrintStream;
+import java.io.PrintWriter;
 
 /**
  * Represents any information given on the command line. Parses, processes, and provides access to
@@ -20,6 +21,7 @@ public class Arguments {
   public static final String INFORMATION = "i";
   public static final String WARNING = "w";
   public static final String READABLE = "r";
+  public static final String JOBS = "j";
 
   // Recognized long arguments
   private static final String CONFIG_LONG = "config";
@@ -32,6 +34,16 @@ public class Arguments {
   private static final String INFORMATION_LONG = "information";
   private static final String WARNING_LONG = "warning";
   public static final String READABLE_LONG = "human-readable";
+  private static final String JOBS_LONG = "jobs";
+
+  // Recognized arguments without single-character versions
+  public static final String BATCH = "batch";
+  public static final String DAEMON = "daemon";
+  public static final String BINARY_META = "binary-meta";
+  public static final String STATS = "stats";
+  public static final String ELIDE_REFERENCE_COUNTS = "elide-reference-counts";
+  public static final String INLINE = "inline";
+  public static final String DEVIRTUALIZE = "devirtualize";
 
   private final CommandLine commandLine;
 
@@ -42,9 +54,6 @@ public class Arguments {
     // Parse the command line arguments
     CommandLineParser parser = new DefaultParser();
     commandLine = parser.parse(compilerOptions, args);
-
-    // Increase logging level if VERBOSE is set
-    if (hasOption(VERBOSE)) Loggers.setAllToLevel(Level.INFO);
   }
 
   public boolean hasOption(String option) {
@@ -67,6 +76,18 @@ public class Arguments {
     return commandLine.getOptionValue(WARNING);
   }
 
+  public String getJobsArg() {
+    return commandLine.getOptionValue(JOBS);
+  }
+
+  public String getDaemonPortArg() {
+    return commandLine.getOptionValue(DAEMON);
+  }
+
+  public String getStatsFileArg() {
+    return commandLine.getOptionValue(STATS);
+  }
+
   public static Options getOptions() {
     return compilerOptions;
   }
@@ -100,9 +121,18 @@ public class Arguments {
             .desc("Specify warning flags")
             .build();
 
+    Option jobsOption =
+        Option.builder(JOBS)
+            .longOpt(JOBS_LONG)
+            .hasArg()
+            .argName("N")
+            .desc("Parse files, check classes, and generate code for up to <N> classes in parallel")
+            .build();
+
     options.addOption(configOption);
     options.addOption(outputOption);
     options.addOption(warningOption);
+    options.addOption(jobsOption);
 
     // Build/add simple options
 
@@ -128,20 +158,79 @@ public class Arguments {
             "Display information about the compiler and exit"));
     options.addOption(
         new Option(READABLE, READABLE_LONG, false, "Generate human-readable IR code"));
+    options.addOption(
+        Option.builder()
+            .longOpt(BATCH)
+            .desc("Write IR for all classes first, then compile it with a single clang process")
+            .build());
+    options.addOption(
+        Option.builder()
+            .longOpt(BINARY_META)
+            .desc("Load .meta files from binary images without parsing, writing missing images")
+            .build());
+    options.addOption(
+        Option.builder()
+            .longOpt(ELIDE_REFERENCE_COUNTS)
+            .desc("Remove reference count changes for locals whose values are held elsewhere")
+            .build());
+    options.addOption(
+        Option.builder()
+            .longOpt(INLINE)
+            .desc(
+                "Replace calls to small non-virtual methods with their bodies\n"
+                    + "Bodies come from any class compiled from source in the same build")
+            .build());
+    options.addOption(
+        Option.builder()
+            .longOpt(DEVIRTUALIZE)
+            .desc("Call methods directly when no class in the linked program overrides them")
+            .build());
+    options.addOption(
+        Option.builder()
+            .longOpt(STATS)
+            .hasArg()
+            .argName("file")
+            .desc(
+                "Print the time and memory used by each compiler phase\n"
+                    + "Writes the same statistics as JSON to <file>, or to standard output if <file> is -")
+            .build());
+    options.addOption(
+        Option.builder()
+            .longOpt(DAEMON)
+            .hasArg()
+            .optionalArg(true)
+            .argName("port")
+            .desc(
+                "Run as a warm compiler server for shadow.CompilerClient\n"
+                    + "Compiles requests concurrently in a single JVM, keeping the standard library collected\n"
+                    + "Listens on port "
+                    + CompilerDaemon.DEFAULT_PORT
+                    + " of localhost if <port> is not given")
+            .build());
 
     return options;
   }
 
-  public static void printHelp() {
-    new HelpFormatter()
-        .printHelp(
-            "shadowc <mainSource.shadow> [-o <output>] [-c <config.xml>]", Arguments.getOptions());
+  public static void printHelp(PrintStream out) {
+    HelpFormatter formatter = new HelpFormatter();
+    // The stream is left open, since it belongs to the compilation
+    PrintWriter writer = new PrintWriter(out);
+    formatter.printHelp(
+        writer,
+        formatter.getWidth(),
+        "shadowc <mainSource.shadow> [-o <output>] [-c <config.xml>]",
+        null,
+        Arguments.getOptions(),
+        formatter.getLeftPadding(),
+        formatter.getDescPadding(),
+        null);
+    writer.flush();
   }
 
-  public static void printInformation() {
-    System.out.println("Shadow Information:");
-    System.out.println("  shadowc version " + Main.VERSION);
-    System.out.println();
-    System.out.println(Configuration.getClangInformation());
+  public static void printInformation(PrintStream out) {
+    out.println("Shadow Information:");
+    out.println("  shadowc version " + Main.VERSION);
+    out.println();
+    out.println(Configuration.getClangInformation());
   }
 }
@@ -0,0 +1,387 @@
+package shadow;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Records which inputs were used to produce each build output (.meta files and object files), so
+ * that up-to-date outputs can be reused without relying on file modification times. Each output
+ * directory (the binary directory of an import) gets its own manifest file, mapping every output
+ * to a hash of the contents of its inputs, the compiler version, and the relevant flags, along with
+ * a hash of the output itself. An output can also depend on other files, such as the sources of
+ * methods inlined into an object file, whose contents are then part of its fingerprint.
+ *
+ * <p>Outputs recorded in the manifest stay valid after a checkout or a cache restore changes their
+ * timestamps, as long as their contents and inputs are unchanged.
+ *
+ * <p>The manifests and hashes loaded so far belong to the {@link CompilationContext} of the
+ * compilation that loaded them, so compilations running in one JVM never see each other's
+ * changes until they are saved. Saving merges the changes of a compilation into the manifest on
+ * disk, keeping the entries that other compilations have saved since it was read.
+ */
+public class BuildManifest {
+  public static final String MANIFEST_NAME = "shadow.manifest";
+
+  // Manifests of one directory can be saved by several compilations at the same time
+  private static final Object saveLock = new Object();
+
+  private final Path directory;
+  private final Map<String, Entry> entries = new TreeMap<>();
+  // Outputs updated by this compilation, which are kept when merging with the manifest on disk
+  private final Set<String> changed = new HashSet<>();
+
+  /*
+   * Input fingerprint and output hash for a single output file, with the
+   * other files it depends on relative to the manifest directory.
+   */
+  private static class Entry {
+    private final String fingerprint;
+    private final String hash;
+    private final List<String> dependencies;
+
+    public Entry(String fingerprint, String hash, List<String> dependencies) {
+      this.fingerprint = fingerprint;
+      this.hash = hash;
+      this.dependencies = dependencies;
+    }
+  }
+
+  private BuildManifest(Path directory) {
+    this.directory = directory;
+  }
+
+  /**
+   * Computes a fingerprint for a .meta file generated from the given .shadow file.
+   *
+   * @param shadowFile source file
+   * @return fingerprint of the source and compiler version
+   * @throws IOException thrown if the source cannot be read
+   */
+  public static String metaFingerprint(Path shadowFile) throws IOException {
+    return fingerprint("meta", shadowFile);
+  }
+
+  /**
+   * Computes a fingerprint for object code compiled from the given .shadow or LLVM IR file with the
+   * current configuration.
+   *
+   * @param source source file
+   * @return fingerprint of the source, compiler versions, code generation flags, and optional
+   *     passes
+   * @throws IOException thrown if the source cannot be read
+   * @throws ConfigurationException thrown if there's a problem with Configuration
+   */
+  public static String objectFingerprint(Path source) throws IOException, ConfigurationException {
+    return fingerprint(getCompilerFlags(), source);
+  }
+
+  /**
+   * Computes a fingerprint for an output produced from a single input file.
+   *
+   * @param flags description of the tools and flags used to produce the output
+   * @param input input file
+   * @return hash of the flags, the Shadow compiler version, and the contents of the input
+   * @throws IOException thrown if the input cannot be read
+   */
+  public static String fingerprint(String flags, Path input) throws IOException {
+    MessageDigest digest = newDigest();
+    digest.update((Main.VERSION + "\n" + flags + "\n").getBytes(StandardCharsets.UTF_8));
+    digest.update(hashContents(input).getBytes(StandardCharsets.UTF_8));
+    return toHex(digest.digest());
+  }
+
+  private static String getCompilerFlags() throws ConfigurationException {
+    CompilationContext compilation = CompilationContext.current();
+    String flags = compilation.getCompilerFlags();
+    if (flags == null) {
+      Configuration config = Configuration.getConfiguration();
+      flags =
+          String.join(
+              " ",
+              config.getClang(),
+              Configuration.getClangVersion(),
+              config.getTarget(),
+              config.getOs(),
+              config.getOptimizationLevel());
+      compilation.setCompilerFlags(flags);
+    }
+
+    return flags + getOptimizationFlags();
+  }
+
+  // Optional passes change the generated code, but they are chosen for each compilation
+  private static String getOptimizationFlags() {
+    CompilationContext compilation = CompilationContext.current();
+    StringBuilder flags = new StringBuilder();
+    if (compilation.elidesReferenceCounts()) flags.append(" --elide-reference-counts");
+    if (compilation.inlinesCalls()) flags.append(" --inline");
+    // Devirtualized calls are only right for the classes of one program
+    Path program = compilation.getDevirtualizedProgram();
+    if (program != null) flags.append(" --devirtualize ").append(program);
+
+    return flags.toString();
+  }
+
+  /**
+   * Checks whether an output exists and was produced from inputs with the given fingerprint.
+   *
+   * @param output output file
+   * @param fingerprint fingerprint of the current inputs
+   * @return <code>true</code> if the output can be reused
+   * @throws IOException thrown if the manifest or output cannot be read
+   * @throws ConfigurationException thrown if there's a problem with Configuration
+   */
+  public static boolean isCurrent(Path output, String fingerprint)
+      throws IOException, ConfigurationException {
+    if (!Files.exists(output)) return false;
+
+    synchronized (getManifests()) {
+      BuildManifest manifest = getManifest(output);
+      Entry entry = manifest.entries.get(manifest.getKey(output));
+      if (entry == null || !entry.hash.equals(hashContents(output))) return false;
+
+      // The dependencies recorded last time must still exist and be unchanged
+      List<Path> dependencies = new ArrayList<>(entry.dependencies.size());
+      for (String dependency : entry.dependencies) {
+        Path path = manifest.directory.resolve(dependency).normalize();
+        if (!Files.exists(path)) return false;
+        dependencies.add(path);
+      }
+
+      return entry.fingerprint.equals(addDependencies(fingerprint, dependencies));
+    }
+  }
+
+  /**
+   * Records that an output was produced from inputs with the given fingerprint. The output must
+   * already exist.
+   *
+   * @param output output file
+   * @param fingerprint fingerprint of the inputs used to produce the output
+   * @throws IOException thrown if the manifest or output cannot be read
+   * @throws ConfigurationException thrown if there's a problem with Configuration
+   */
+  public static void update(Path output, String fingerprint)
+      throws IOException, ConfigurationException {
+    update(output, fingerprint, Collections.emptySet());
+  }
+
+  /**
+   * Records that an output was produced from inputs with the given fingerprint and from other
+   * files. The output is only current while the other files keep their contents.
+   *
+   * @param output output file
+   * @param fingerprint fingerprint of the inputs used to produce the output
+   * @param dependencies other files that the output depends on
+   * @throws IOException thrown if the manifest, output, or dependencies cannot be read
+   * @throws ConfigurationException thrown if there's a problem with Configuration
+   */
+  public static void update(Path output, String fingerprint, Collection<Path> dependencies)
+      throws IOException, ConfigurationException {
+    synchronized (getManifests()) {
+      BuildManifest manifest = getManifest(output);
+      List<String> keys = new ArrayList<>(dependencies.size());
+      for (Path dependency : dependencies) keys.add(manifest.getKey(dependency));
+      Collections.sort(keys);
+
+      List<Path> paths = new ArrayList<>(keys.size());
+      for (String key : keys) paths.add(manifest.directory.resolve(key).normalize());
+
+      String key = manifest.getKey(output);
+      manifest.entries.put(
+          key, new Entry(addDependencies(fingerprint, paths), hashContents(output), keys));
+      manifest.changed.add(key);
+    }
+  }
+
+  // Dependencies are given in the order their keys are stored
+  private static String addDependencies(String fingerprint, List<Path> dependencies)
+      throws IOException {
+    if (dependencies.isEmpty()) return fingerprint;
+
+    MessageDigest digest = newDigest();
+    digest.update(fingerprint.getBytes(StandardCharsets.UTF_8));
+    for (Path dependency : dependencies)
+      digest.update(("\n" + hashContents(dependency)).getBytes(StandardCharsets.UTF_8));
+    return toHex(digest.digest());
+  }
+
+  /**
+   * Writes all manifests changed by the current compilation and forgets everything it has loaded
+   * so far, so that its next build starts from what is on disk. Other compilations keep what they
+   * have loaded.
+   *
+   * @throws IOException thrown if a manifest cannot be written
+   */
+  public static void save() throws IOException {
+    CompilationContext compilation = CompilationContext.current();
+    Map<Path, BuildManifest> manifests = compilation.getManifests();
+    synchronized (manifests) {
+      try {
+        for (BuildManifest manifest : manifests.values())
+          if (!manifest.changed.isEmpty()) manifest.write();
+      } finally {
+        manifests.clear();
+        Map<String, String> contentHashes = compilation.getContentHashes();
+        synchronized (contentHashes) {
+          contentHashes.clear();
+        }
+        compilation.setCompilerFlags(null);
+      }
+    }
+  }
+
+  // Manifests loaded by the current compilation, by directory, guarded by the map itself
+  private static Map<Path, BuildManifest> getManifests() {
+    return CompilationContext.current().getManifests();
+  }
+
+  private static BuildManifest getManifest(Path output) throws IOException, ConfigurationException {
+    Path directory = getDirectory(output.toAbsolutePath().normalize());
+    Map<Path, BuildManifest> manifests = getManifests();
+    BuildManifest manifest = manifests.get(directory);
+    if (manifest == null) {
+      manifest = new BuildManifest(directory);
+      manifest.read(manifest.entries);
+      manifests.put(directory, manifest);
+    }
+
+    return manifest;
+  }
+
+  /*
+   * Outputs are grouped by the binary directory of the innermost import that
+   * contains them (.meta files live next to their sources). Imports that
+   * compile in place, like the current directory when no imports are
+   * configured, have no binary directory of their own. Their outputs, and
+   * outputs outside every import, are recorded in the system binary directory
+   * so that manifests are never written among sources.
+   */
+  private static Path getDirectory(Path output) throws ConfigurationException {
+    Configuration config = Configuration.getConfiguration();
+    Path system = config.getSystem().get(Configuration.BINARY).toAbsolutePath().normalize();
+    Path directory = system;
+    int depth = -1;
+    for (Map.Entry<Path, Path> _import : config.getImport().entrySet()) {
+      Path source = _import.getKey().toAbsolutePath().normalize();
+      Path binary = _import.getValue().toAbsolutePath().normalize();
+      for (Path root : List.of(binary, source)) {
+        if (output.startsWith(root) && root.getNameCount() > depth) {
+          directory = binary.equals(source) ? system : binary;
+          depth = root.getNameCount();
+        }
+      }
+    }
+
+    return directory;
+  }
+
+  private String getKey(Path output) {
+    return directory.relativize(output.toAbsolutePath().normalize()).toString().replace('\\', '/');
+  }
+
+  private void read(Map<String, Entry> entries) throws IOException {
+    Path file = directory.resolve(MANIFEST_NAME);
+    if (!Files.exists(file)) return;
+
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        String[] parts = line.split(" ", 3);
+        // Malformed lines are ignored, which only causes a rebuild
+        if (parts.length == 3) {
+          // Dependencies follow the output, separated by tabs
+          String[] paths = parts[2].split("\t");
+          List<String> dependencies = Arrays.asList(paths).subList(1, paths.length);
+          entries.put(paths[0], new Entry(parts[0], parts[1], dependencies));
+        }
+      }
+    }
+  }
+
+  /*
+   * Writes the entries this compilation changed over the manifest that is
+   * on disk now, which might hold entries saved by other compilations since
+   * this one read it.
+   */
+  private void write() throws IOException {
+    synchronized (saveLock) {
+      Map<String, Entry> merged = new TreeMap<>();
+      read(merged);
+      for (String key : changed) merged.put(key, entries.get(key));
+
+      Files.createDirectories(directory);
+      Path temporary = Files.createTempFile(directory, MANIFEST_NAME, ".tmp");
+      try (BufferedWriter writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+        for (Map.Entry<String, Entry> entry : merged.entrySet()) {
+          // Outputs that were deleted, like those of tests in temporary directories, are dropped
+          if (!Files.exists(directory.resolve(entry.getKey()))) continue;
+
+          writer.write(
+              entry.getValue().fingerprint + " " + entry.getValue().hash + " " + entry.getKey());
+          for (String dependency : entry.getValue().dependencies) writer.write("\t" + dependency);
+          writer.newLine();
+        }
+      }
+
+      Files.move(
+          temporary, directory.resolve(MANIFEST_NAME), StandardCopyOption.REPLACE_EXISTING);
+    }
+    changed.clear();
+  }
+
+  private static String hashContents(Path file) throws IOException {
+    // Timestamps are only used to avoid hashing the same file repeatedly
+    FileTime modified = Files.getLastModifiedTime(file);
+    String key = file.toAbsolutePath() + "|" + Files.size(file) + "|" + modified.toMillis();
+    Map<String, String> contentHashes = CompilationContext.current().getContentHashes();
+    synchronized (contentHashes) {
+      String hash = contentHashes.get(key);
+      if (hash == null) {
+        MessageDigest digest = newDigest();
+        try (InputStream input = Files.newInputStream(file)) {
+          byte[] buffer = new byte[8192];
+          int read;
+          while ((read = input.read(buffer)) >= 0) digest.update(buffer, 0, read);
+        }
+        hash = toHex(digest.digest());
+        contentHashes.put(key, hash);
+      }
+
+      return hash;
+    }
+  }
+
+  private static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // Every Java platform is required to support SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static String toHex(byte[] bytes) {
+    StringBuilder builder = new StringBuilder(bytes.length * 2);
+    for (byte b : bytes) builder.append(String.format("%02x", b));
+    return builder.toString();
+  }
+}
@@ -0,0 +1,601 @@
+package shadow;
+
+import org.apache.logging.log4j.Level;
+import shadow.tac.analysis.ClassHierarchy;
+import shadow.typecheck.StandardLibraryCache;
+import shadow.typecheck.type.*;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Holds everything that belongs to a single compilation: its configuration, its warning settings,
+ * the build manifests it has loaded, and the standard types that the compiler refers to directly,
+ * such as <code>Object</code> and <code>String</code>. Each compilation gets its own context, so independent compilations can run
+ * at the same time in one JVM.
+ *
+ * <p>The checkers, the TAC builder, and the LLVM output are given a context when they are created.
+ * Types, TAC nodes, and interpreted values are shared objects without a reference back to their
+ * compilation, so they use {@link #current()}, which returns the context the running thread has
+ * entered with {@link #enter()}.
+ */
+public class CompilationContext {
+  // Versions of type caches are drawn from one sequence, see methodVersion
+  private static final AtomicInteger cacheVersions = new AtomicInteger();
+  // Used by threads that have not entered a context, such as single compilations in tests
+  private static final CompilationContext defaultContext = new CompilationContext();
+  private static final ThreadLocal<CompilationContext> currentContext = new ThreadLocal<>();
+
+  private volatile Configuration configuration = null;
+  private volatile boolean warningsAreErrors = false;
+  private volatile boolean binaryMeta = false;
+  private volatile boolean elideReferenceCounts = false;
+  private volatile boolean inlineCalls = false;
+  private volatile Path devirtualizedProgram = null;
+  private volatile ClassHierarchy classHierarchy = null;
+  private volatile int jobs = 1;
+  private volatile CompilerStats stats = CompilerStats.NONE;
+  private volatile SequenceType exceptionType = null;
+  private volatile boolean typesUpdated = false;
+  private final ImportIndex importIndex = new ImportIndex();
+  // Stream for everything printed by this compilation, or null for the standard streams
+  private volatile PrintStream output = null;
+  private volatile Level logLevel = null;
+  private volatile StandardLibraryCache standardLibraryCache = null;
+
+  /*
+   * Versions of the caches that types keep for this compilation: overload sets and resolved calls,
+   * ancestor ids, and names. Each moves to a new value when the types its caches depend on change,
+   * so changes in one compilation never throw away the caches of another. New values come from a
+   * sequence shared by all compilations, so the caches of types that every compilation shares,
+   * such as Type.UNKNOWN, are never current for the wrong one.
+   */
+  private volatile int methodVersion = cacheVersions.incrementAndGet();
+  private volatile int hierarchyVersion = cacheVersions.incrementAndGet();
+  private volatile int nameVersion = cacheVersions.incrementAndGet();
+
+  // Dense ids for the distinct type names of this compilation, see Type.getId()
+  private final Map<String, Integer> typeIds = new ConcurrentHashMap<>();
+  private final AtomicInteger nextTypeId = new AtomicInteger(Type.RESERVED_IDS);
+
+  // Build manifests loaded so far, by directory, and hashes of the files they were checked against
+  private final Map<Path, BuildManifest> manifests = new HashMap<>();
+  private final Map<String, String> contentHashes = new HashMap<>();
+  // Code generation flags of the configuration, computed when first needed by BuildManifest
+  private volatile String compilerFlags = null;
+
+  /*
+   * Predefined system types needed for Shadow, populated during type collection
+   */
+
+  public ClassType OBJECT = null;
+  public ClassType CLASS = null; // meta class for holding normal :class variables
+  public ClassType GENERIC_CLASS = null; // meta class for holding generic :class variables
+  public ClassType ARRAY = null; // object representation of all array types
+  public ClassType ARRAY_NULLABLE = null; // object representation of nullable array types
+
+  public ClassType METHOD = null; // used to hold method references
+  public ClassType METHOD_TABLE =
+      null; // really just a pointer for method tables, but we sometimes act like it is a class
+
+  public ClassType ENUM = null; // weirdly, the base class for enum is not an EnumType
+  public ClassType ATTRIBUTE = null; // similarly for attributes
+  public ExceptionType EXCEPTION = null;
+  public ExceptionType CAST_EXCEPTION = null;
+  public ExceptionType INDEX_OUT_OF_BOUNDS_EXCEPTION = null;
+  public ExceptionType ASSERT_EXCEPTION = null;
+  public ExceptionType UNEXPECTED_NULL_EXCEPTION = null;
+  public ExceptionType INTERFACE_CREATE_EXCEPTION = null;
+
+  public ClassType BOOLEAN = null;
+  public ClassType BYTE = null;
+  public ClassType CODE = null;
+  public ClassType DOUBLE = null;
+  public ClassType FLOAT = null;
+  public ClassType INT = null;
+  public ClassType LONG = null;
+  public ClassType SHORT = null;
+
+  public ClassType UBYTE = null;
+  public ClassType UINT = null;
+  public ClassType ULONG = null;
+  public ClassType USHORT = null;
+
+  public ClassType STRING = null;
+  public ClassType ADDRESS_MAP = null; // used for copying
+
+  public ClassType POINTER = null;
+  public ClassType THREAD = null;
+  public SingletonType THREAD_CURRENT = null;
+
+  /*
+   * Predefined interfaces needed for Shadow
+   */
+
+  public InterfaceType CAN_COMPARE = null;
+  public InterfaceType CAN_EQUAL = null;
+  public InterfaceType CAN_INDEX = null;
+  public InterfaceType CAN_INDEX_NULLABLE = null;
+  public InterfaceType CAN_INDEX_STORE = null;
+  public InterfaceType CAN_INDEX_STORE_NULLABLE = null;
+  public InterfaceType CAN_ITERATE = null;
+  public InterfaceType CAN_ITERATE_NULLABLE = null;
+  public InterfaceType ITERATOR = null;
+  public InterfaceType ITERATOR_NULLABLE = null;
+  public InterfaceType NUMBER = null;
+  public InterfaceType INTEGER = null;
+  public InterfaceType CAN_ADD = null;
+  public InterfaceType CAN_SUBTRACT = null;
+  public InterfaceType CAN_MULTIPLY = null;
+  public InterfaceType CAN_DIVIDE = null;
+  public InterfaceType CAN_MODULUS = null;
+  public InterfaceType CAN_NEGATE = null;
+  public InterfaceType CAN_RUN = null;
+
+  /*
+   * First-party attribute types referenced during compilation
+   */
+
+  public AttributeType IMPORT_ASSEMBLY = null;
+  public AttributeType EXPORT_ASSEMBLY = null;
+  public AttributeType IMPORT_NATIVE = null;
+  public AttributeType EXPORT_NATIVE = null;
+
+  /** Restores the context that was current before {@link #enter()} was called. */
+  public static class Scope implements AutoCloseable {
+    private final CompilationContext previous;
+
+    private Scope(CompilationContext previous) {
+      this.previous = previous;
+    }
+
+    @Override
+    public void close() {
+      if (previous == null) currentContext.remove();
+      else currentContext.set(previous);
+    }
+  }
+
+  /**
+   * Gets the context of the compilation running on this thread.
+   *
+   * @return context entered by this thread, or a shared default context if there is none
+   */
+  public static CompilationContext current() {
+    CompilationContext context = currentContext.get();
+    return context == null ? defaultContext : context;
+  }
+
+  /**
+   * Makes this context the current one for this thread until the returned scope is closed.
+   *
+   * @return scope that restores the previous context when closed
+   */
+  public Scope enter() {
+    Scope scope = new Scope(currentContext.get());
+    currentContext.set(this);
+    return scope;
+  }
+
+  public Configuration getConfiguration() {
+    return configuration;
+  }
+
+  public void setConfiguration(Configuration configuration) {
+    this.configuration = configuration;
+    compilerFlags = null;
+  }
+
+  public boolean warningsAreErrors() {
+    return warningsAreErrors;
+  }
+
+  public void setWarningsAsErrors(boolean value) {
+    warningsAreErrors = value;
+  }
+
+  /**
+   * Checks whether .meta files are loaded from binary images.
+   *
+   * @return <code>true</code> if {@link shadow.parse.MetaImage} files are used and written
+   */
+  public boolean usesBinaryMeta() {
+    return binaryMeta;
+  }
+
+  public void setBinaryMeta(boolean value) {
+    binaryMeta = value;
+  }
+
+  /**
+   * Checks whether reference count changes that cancel out are removed when optimizing TAC.
+   *
+   * @return <code>true</code> if {@link
+   *     shadow.tac.analysis.ControlFlowGraph#elideReferenceCounts()} is run on every method
+   */
+  public boolean elidesReferenceCounts() {
+    return elideReferenceCounts;
+  }
+
+  public void setElideReferenceCounts(boolean value) {
+    elideReferenceCounts = value;
+  }
+
+  /**
+   * Checks whether calls to small methods are replaced by their bodies when optimizing TAC.
+   *
+   * @return <code>true</code> if {@link shadow.tac.analysis.Inliner} is run on every module
+   */
+  public boolean inlinesCalls() {
+    return inlineCalls;
+  }
+
+  public void setInlineCalls(boolean value) {
+    inlineCalls = value;
+  }
+
+  /**
+   * Gets the main file of the program whose classes are used to change calls when optimizing TAC.
+   * Objects compiled this way only fit that program.
+   *
+   * @return absolute main file of the linked program, or <code>null</code> if calls are not
+   *     devirtualized
+   */
+  public Path getDevirtualizedProgram() {
+    return devirtualizedProgram;
+  }
+
+  public void setDevirtualizedProgram(Path mainFile) {
+    devirtualizedProgram = mainFile;
+  }
+
+  /**
+   * Gets the classes of the program being linked, which are used to call methods directly when
+   * optimizing TAC.
+   *
+   * @return class hierarchy, or <code>null</code> if calls are not devirtualized
+   */
+  public ClassHierarchy getClassHierarchy() {
+    return classHierarchy;
+  }
+
+  public void setClassHierarchy(ClassHierarchy classHierarchy) {
+    this.classHierarchy = classHierarchy;
+  }
+
+  /**
+   * Gets the stream that this compilation prints its results to, such as statistics and help.
+   *
+   * @return stream given to {@link #setOutput(PrintStream)}, or standard output
+   */
+  public PrintStream getOutput() {
+    PrintStream stream = output;
+    return stream == null ? System.out : stream;
+  }
+
+  /**
+   * Gets the stream that this compilation reports problems to.
+   *
+   * @return stream given to {@link #setOutput(PrintStream)}, or standard error
+   */
+  public PrintStream getErrorOutput() {
+    PrintStream stream = output;
+    return stream == null ? System.err : stream;
+  }
+
+  /**
+   * Checks whether this compilation prints to its own stream instead of the standard streams of
+   * the process.
+   *
+   * @return <code>true</code> if a stream was given to {@link #setOutput(PrintStream)}
+   */
+  public boolean hasOwnOutput() {
+    return output != null;
+  }
+
+  /**
+   * Sends everything this compilation prints to one stream, including its log messages and the
+   * error output of the tools it runs. Other compilations in the same process are not affected.
+   * Log messages only reach the stream after {@link Loggers#routeToCompilations(boolean)}.
+   *
+   * @param output stream to print to, or <code>null</code> for the standard streams
+   */
+  public void setOutput(PrintStream output) {
+    this.output = output;
+  }
+
+  /**
+   * Gets the lowest level of log messages that this compilation prints.
+   *
+   * @return level, or <code>null</code> for the configured level
+   */
+  public Level getLogLevel() {
+    return logLevel;
+  }
+
+  public void setLogLevel(Level level) {
+    logLevel = level;
+  }
+
+  /**
+   * Gets the cache that type checking takes an already collected standard library from.
+   *
+   * @return cache shared by the compilations of a daemon, or <code>null</code> if there is none
+   */
+  public StandardLibraryCache getStandardLibraryCache() {
+    return standardLibraryCache;
+  }
+
+  public void setStandardLibraryCache(StandardLibraryCache cache) {
+    standardLibraryCache = cache;
+  }
+
+  /**
+   * Gets the number of threads that parsing, statement checking, and code generation may use.
+   *
+   * @return number of jobs, at least 1
+   */
+  public int getJobs() {
+    return jobs;
+  }
+
+  public void setJobs(int jobs) {
+    this.jobs = jobs;
+  }
+
+  /**
+   * Gets the statistics recorded for this compilation.
+   *
+   * @return statistics, which are {@link CompilerStats#NONE} unless requested
+   */
+  public CompilerStats getStats() {
+    return stats;
+  }
+
+  public void setStats(CompilerStats stats) {
+    this.stats = stats;
+  }
+
+  /**
+   * Checks whether the type updater has finished with the current types. Until then, the names and
+   * parents of types can still change, so nothing derived from them should be kept.
+   *
+   * @return <code>true</code> if types have been fully updated
+   */
+  public boolean areTypesUpdated() {
+    return typesUpdated;
+  }
+
+  public void setTypesUpdated(boolean value) {
+    typesUpdated = value;
+  }
+
+  /**
+   * Gets the id of a type in this compilation. The same hash name always gets the same id, and ids
+   * start after those reserved for the placeholder types that every compilation shares.
+   *
+   * @param hashName hash name of the type
+   * @return id of the type
+   */
+  public int getTypeId(String hashName) {
+    return typeIds.computeIfAbsent(hashName, name -> nextTypeId.getAndIncrement());
+  }
+
+  public int getMethodVersion() {
+    return methodVersion;
+  }
+
+  /** Invalidates the overload sets and resolved calls cached on types for this compilation. */
+  public void invalidateMethodCaches() {
+    methodVersion = cacheVersions.incrementAndGet();
+  }
+
+  public int getHierarchyVersion() {
+    return hierarchyVersion;
+  }
+
+  /** Invalidates the ancestor ids cached on types for this compilation. */
+  public void invalidateHierarchies() {
+    hierarchyVersion = cacheVersions.incrementAndGet();
+  }
+
+  public int getNameVersion() {
+    return nameVersion;
+  }
+
+  /** Invalidates the names cached on types and signatures for this compilation. */
+  public void invalidateNames() {
+    nameVersion = cacheVersions.incrementAndGet();
+  }
+
+  /**
+   * Gets the index of the directories that imports are found in, which is filled in as the
+   * directories are first used.
+   *
+   * @return import index of this compilation
+   */
+  public ImportIndex getImportIndex() {
+    return importIndex;
+  }
+
+  /*
+   * The state of the build manifests belongs to each compilation, so that
+   * saving the manifests of one compilation never throws away what another
+   * has loaded. It is only used by BuildManifest.
+   */
+
+  Map<Path, BuildManifest> getManifests() {
+    return manifests;
+  }
+
+  // Keyed by path, size, and modification time
+  Map<String, String> getContentHashes() {
+    return contentHashes;
+  }
+
+  String getCompilerFlags() {
+    return compilerFlags;
+  }
+
+  void setCompilerFlags(String flags) {
+    compilerFlags = flags;
+  }
+
+  public SequenceType getExceptionType() {
+    SequenceType type = exceptionType;
+    if (type == null) {
+      // Fully built before publication, since modules can be generated concurrently
+      type = new SequenceType();
+      type.add(new SimpleModifiedType(new PointerType()));
+      type.add(new SimpleModifiedType(INT));
+      exceptionType = type;
+    }
+    return type;
+  }
+
+  /**
+   * Takes over the standard types and type ids of another compilation, so that this one can go on
+   * using the types it collected. Must be called before this compilation gives out any type ids,
+   * and the other compilation must not be used afterward.
+   *
+   * @param other compilation whose types are taken
+   */
+  public void takeTypes(CompilationContext other) {
+    typesUpdated = other.typesUpdated;
+    typeIds.putAll(other.typeIds);
+    nextTypeId.set(other.nextTypeId.get());
+
+    OBJECT = other.OBJECT;
+    METHOD = other.METHOD;
+    METHOD_TABLE = other.METHOD_TABLE;
+    CAST_EXCEPTION = other.CAST_EXCEPTION;
+    INDEX_OUT_OF_BOUNDS_EXCEPTION = other.INDEX_OUT_OF_BOUNDS_EXCEPTION;
+    UNEXPECTED_NULL_EXCEPTION = other.UNEXPECTED_NULL_EXCEPTION;
+    INTERFACE_CREATE_EXCEPTION = other.INTERFACE_CREATE_EXCEPTION;
+    ASSERT_EXCEPTION = other.ASSERT_EXCEPTION;
+    CLASS = other.CLASS;
+    ARRAY = other.ARRAY;
+    ARRAY_NULLABLE = other.ARRAY_NULLABLE;
+    ENUM = other.ENUM;
+    ATTRIBUTE = other.ATTRIBUTE;
+    EXCEPTION = other.EXCEPTION;
+    GENERIC_CLASS = other.GENERIC_CLASS;
+    BOOLEAN = other.BOOLEAN;
+    BYTE = other.BYTE;
+    CODE = other.CODE;
+    DOUBLE = other.DOUBLE;
+    FLOAT = other.FLOAT;
+    INT = other.INT;
+    LONG = other.LONG;
+    SHORT = other.SHORT;
+    UBYTE = other.UBYTE;
+    UINT = other.UINT;
+    ULONG = other.ULONG;
+    USHORT = other.USHORT;
+    STRING = other.STRING;
+    ADDRESS_MAP = other.ADDRESS_MAP;
+    CAN_COMPARE = other.CAN_COMPARE;
+    CAN_EQUAL = other.CAN_EQUAL;
+    CAN_INDEX = other.CAN_INDEX;
+    CAN_INDEX_NULLABLE = other.CAN_INDEX_NULLABLE;
+    CAN_INDEX_STORE = other.CAN_INDEX_STORE;
+    CAN_INDEX_STORE_NULLABLE = other.CAN_INDEX_STORE_NULLABLE;
+    CAN_ITERATE = other.CAN_ITERATE;
+    CAN_ITERATE_NULLABLE = other.CAN_ITERATE_NULLABLE;
+    ITERATOR = other.ITERATOR;
+    ITERATOR_NULLABLE = other.ITERATOR_NULLABLE;
+    NUMBER = other.NUMBER;
+    INTEGER = other.INTEGER;
+    CAN_ADD = other.CAN_ADD;
+    CAN_SUBTRACT = other.CAN_SUBTRACT;
+    CAN_MULTIPLY = other.CAN_MULTIPLY;
+    CAN_DIVIDE = other.CAN_DIVIDE;
+    CAN_MODULUS = other.CAN_MODULUS;
+    CAN_NEGATE = other.CAN_NEGATE;
+
+    POINTER = other.POINTER;
+    CAN_RUN = other.CAN_RUN;
+    THREAD = other.THREAD;
+
+    THREAD_CURRENT = other.THREAD_CURRENT;
+
+    IMPORT_ASSEMBLY = other.IMPORT_ASSEMBLY;
+    EXPORT_ASSEMBLY = other.EXPORT_ASSEMBLY;
+    IMPORT_NATIVE = other.IMPORT_NATIVE;
+    EXPORT_NATIVE = other.EXPORT_NATIVE;
+
+    exceptionType = other.exceptionType;
+  }
+
+  /**
+   * Forgets all standard types, so that types from one run of the type checker are not mixed with
+   * types from another run in the same compilation.
+   */
+  public void clearTypes() {
+    typesUpdated = false;
+    OBJECT = null;
+    METHOD = null;
+    METHOD_TABLE = null;
+    CAST_EXCEPTION = null;
+    INDEX_OUT_OF_BOUNDS_EXCEPTION = null;
+    UNEXPECTED_NULL_EXCEPTION = null;
+    INTERFACE_CREATE_EXCEPTION = null;
+    ASSERT_EXCEPTION = null;
+    CLASS = null;
+    ARRAY = null;
+    ARRAY_NULLABLE = null;
+    ENUM = null;
+    ATTRIBUTE = null;
+    EXCEPTION = null;
+    GENERIC_CLASS = null;
+    BOOLEAN = null;
+    BYTE = null;
+    CODE = null;
+    DOUBLE = null;
+    FLOAT = null;
+    INT = null;
+    LONG = null;
+    SHORT = null;
+    UBYTE = null;
+    UINT = null;
+    ULONG = null;
+    USHORT = null;
+    STRING = null;
+    ADDRESS_MAP = null;
+    CAN_COMPARE = null;
+    CAN_EQUAL = null;
+    CAN_INDEX = null;
+    CAN_INDEX_NULLABLE = null;
+    CAN_INDEX_STORE = null;
+    CAN_INDEX_STORE_NULLABLE = null;
+    CAN_ITERATE = null;
+    CAN_ITERATE_NULLABLE = null;
+    ITERATOR = null;
+    ITERATOR_NULLABLE = null;
+    NUMBER = null;
+    INTEGER = null;
+    CAN_ADD = null;
+    CAN_SUBTRACT = null;
+    CAN_MULTIPLY = null;
+    CAN_DIVIDE = null;
+    CAN_MODULUS = null;
+    CAN_NEGATE = null;
+
+    POINTER = null;
+    CAN_RUN = null;
+    THREAD = null;
+
+    THREAD_CURRENT = null;
+
+    IMPORT_ASSEMBLY = null;
+    EXPORT_ASSEMBLY = null;
+    IMPORT_NATIVE = null;
+    EXPORT_NATIVE = null;
+
+    exceptionType = null;
+  }
+}
@@ -0,0 +1,79 @@
+package shadow;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+
+/**
+ * Thin client for {@link CompilerDaemon}. Takes the same arguments as <code>shadowc</code>, sends
+ * them to a daemon running on this machine, prints the output of the compilation, and exits with
+ * its exit code. The port is taken from the <code>SHADOW_DAEMON_PORT</code> environment variable
+ * if it is set.
+ */
+public class CompilerClient {
+  public static final String PORT_VARIABLE = "SHADOW_DAEMON_PORT";
+
+  public static void main(String[] args) {
+    int port = CompilerDaemon.DEFAULT_PORT;
+    String portVariable = System.getenv(PORT_VARIABLE);
+    try {
+      if (portVariable != null) port = CompilerDaemon.parsePort(portVariable);
+    } catch (CommandLineException e) {
+      System.err.println("COMMAND LINE ERROR: " + e.getLocalizedMessage());
+      System.exit(Main.Error.COMMAND_LINE_ERROR.ordinal());
+    }
+
+    System.exit(compile(port, args, System.out));
+  }
+
+  /**
+   * Asks the daemon listening on the given port to compile with the given arguments.
+   *
+   * @param port port of the daemon
+   * @param args command line arguments
+   * @param output stream that receives the output of the compilation
+   * @return ordinal of the {@link Main.Error} describing the outcome
+   */
+  public static int compile(int port, String[] args, PrintStream output) {
+    for (String arg : args) {
+      if (arg.isEmpty() || arg.contains("\n") || arg.contains("\r")) {
+        System.err.println(
+            "COMMAND LINE ERROR: Arguments sent to the daemon must be single, non-empty lines");
+        return Main.Error.COMMAND_LINE_ERROR.ordinal();
+      }
+    }
+
+    try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        PrintWriter writer =
+            new PrintWriter(
+                new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+        BufferedReader reader =
+            new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+      writer.print(Paths.get("").toAbsolutePath() + "\n");
+      for (String arg : args) writer.print(arg + "\n");
+      writer.print("\n");
+      writer.flush();
+
+      String line = reader.readLine();
+      while (line != null) {
+        if (line.startsWith(CompilerDaemon.EXIT_PREFIX))
+          return Integer.parseInt(line.substring(CompilerDaemon.EXIT_PREFIX.length()));
+        output.println(line);
+        line = reader.readLine();
+      }
+
+      System.err.println("DAEMON ERROR: Compiler daemon closed the connection");
+    } catch (IOException e) {
+      System.err.println(
+          "DAEMON ERROR: Cannot reach compiler daemon on port "
+              + port
+              + ": "
+              + e.getLocalizedMessage());
+    }
+
+    return Main.Error.DAEMON_ERROR.ordinal();
+  }
+}
@@ -0,0 +1,183 @@
+package shadow;
+
+import org.apache.logging.log4j.Logger;
+import shadow.typecheck.StandardLibraryCache;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Warm compiler server started with <code>shadowc --daemon</code>. Requests sent by {@link
+ * CompilerClient} are compiled inside one long-running JVM, so loaded classes, JIT-compiled code,
+ * and the parser's prediction caches stay warm from one compilation to the next. Between requests,
+ * a {@link StandardLibraryCache} collects the standard library from its .meta files, so that the
+ * next request only collects its own files. A library is not used if any of its files changed.
+ *
+ * <p>Each connection carries one request: the client's working directory, one command line
+ * argument per line, and an empty line. Everything the compilation prints is sent back, followed
+ * by a final line holding the exit code. Requests are compiled concurrently, each in its own
+ * {@link CompilationContext} that prints to its connection, including its log messages.
+ */
+public class CompilerDaemon implements Closeable {
+  public static final int DEFAULT_PORT = 7437;
+
+  // Starts the last line of a response, which holds the exit code
+  static final String EXIT_PREFIX = "\0exit ";
+
+  private static final Logger logger = Loggers.SHADOW;
+
+  private final ServerSocket server;
+  private final ExecutorService connections;
+  private final ExecutorService preparation;
+  private final StandardLibraryCache libraries;
+
+  // Relative paths in requests are resolved against the directory the daemon was started in
+  private final Path workingDirectory = Paths.get("").toAbsolutePath().normalize();
+
+  /**
+   * Creates a daemon listening on the loopback interface.
+   *
+   * @param port port to listen on, or 0 for any free port
+   * @throws IOException thrown if the port cannot be bound
+   */
+  public CompilerDaemon(int port) throws IOException {
+    server = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    connections =
+        Executors.newCachedThreadPool(
+            task -> {
+              Thread thread = new Thread(task, "Shadow daemon connection");
+              thread.setDaemon(true);
+              return thread;
+            });
+    preparation =
+        Executors.newSingleThreadExecutor(
+            task -> {
+              Thread thread = new Thread(task, "Shadow daemon standard library");
+              thread.setDaemon(true);
+              return thread;
+            });
+    libraries = new StandardLibraryCache(preparation);
+    Loggers.routeToCompilations(true);
+  }
+
+  /**
+   * Starts a daemon and serves requests until the process is stopped.
+   *
+   * @param portArg port given on the command line, or <code>null</code> for the default
+   * @return ordinal of the {@link Main.Error} describing why the daemon stopped
+   * @throws CommandLineException thrown if the port is not valid
+   */
+  static int serve(String portArg) throws CommandLineException {
+    int port = portArg == null ? DEFAULT_PORT : parsePort(portArg);
+    try (CompilerDaemon daemon = new CompilerDaemon(port)) {
+      System.out.println(
+          "Shadow compiler daemon listening on port "
+              + daemon.getPort()
+              + " for requests from "
+              + daemon.workingDirectory);
+      daemon.run();
+    } catch (IOException e) {
+      System.err.println("DAEMON ERROR: " + e.getLocalizedMessage());
+      return Main.Error.DAEMON_ERROR.ordinal();
+    }
+
+    return Main.Error.NO_ERROR.ordinal();
+  }
+
+  static int parsePort(String value) throws CommandLineException {
+    try {
+      int port = Integer.parseInt(value.trim());
+      if (port >= 0 && port <= 65535) return port;
+    } catch (NumberFormatException ignored) {
+    }
+
+    throw new CommandLineException("Port must be an integer between 0 and 65535: " + value);
+  }
+
+  public int getPort() {
+    return server.getLocalPort();
+  }
+
+  /**
+   * Accepts connections until the daemon is closed.
+   *
+   * @throws IOException thrown if accepting a connection fails
+   */
+  public void run() throws IOException {
+    while (!server.isClosed()) {
+      Socket socket;
+      try {
+        socket = server.accept();
+      } catch (SocketException e) {
+        if (server.isClosed()) break;
+        throw e;
+      }
+
+      connections.execute(() -> handle(socket));
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    connections.shutdownNow();
+    preparation.shutdownNow();
+    try {
+      server.close();
+    } finally {
+      Loggers.routeToCompilations(false);
+    }
+  }
+
+  private void handle(Socket socket) {
+    try (socket;
+        BufferedReader reader =
+            new BufferedReader(
+                new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        PrintStream output =
+            new PrintStream(socket.getOutputStream(), true, StandardCharsets.UTF_8)) {
+      String directory = reader.readLine();
+      if (directory == null) return;
+
+      List<String> args = new ArrayList<>();
+      String line = reader.readLine();
+      while (line != null && !line.isEmpty()) {
+        args.add(line);
+        line = reader.readLine();
+      }
+
+      int code;
+      if (!workingDirectory.equals(Paths.get(directory).toAbsolutePath().normalize())) {
+        output.println(
+            "DAEMON ERROR: Daemon serves requests from "
+                + workingDirectory
+                + ", not from "
+                + directory);
+        code = Main.Error.DAEMON_ERROR.ordinal();
+      } else if (args.stream().anyMatch(arg -> arg.startsWith("--" + Arguments.DAEMON))) {
+        output.println("COMMAND LINE ERROR: Daemon cannot start another daemon");
+        code = Main.Error.COMMAND_LINE_ERROR.ordinal();
+      } else code = compile(args.toArray(new String[0]), output);
+
+      output.println(EXIT_PREFIX + code);
+    } catch (IOException e) {
+      logger.warn("Lost connection to compiler client: " + e.getLocalizedMessage());
+    }
+  }
+
+  private int compile(String[] args, PrintStream output) {
+    CompilationContext compilation = new CompilationContext();
+    compilation.setOutput(output);
+    compilation.setStandardLibraryCache(libraries);
+    return Main.compile(args, compilation);
+  }
+}
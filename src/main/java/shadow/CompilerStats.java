@@ -0,0 +1,370 @@
+package shadow;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records where the time and memory of a compilation go. Each phase, such as parsing or building
+ * TAC, is timed on the thread that runs it, measuring wall time, CPU time, and bytes allocated.
+ * Phases that work on one class at a time are also recorded for that class. Counters keep track of
+ * things like the number of files parsed and clang processes started.
+ *
+ * <p>Phases can run on several threads at once, so their totals can add up to more than the
+ * elapsed time of the compilation. Statistics are only kept when requested with <code>--stats
+ * </code>; otherwise, {@link #NONE} ignores everything.
+ */
+public class CompilerStats {
+
+  /** A part of the compilation that is timed. */
+  public enum Phase {
+    PARSE("parse"),
+    COLLECT("collect types"),
+    UPDATE("update types"),
+    CHECK("check statements"),
+    CONSTANTS("evaluate constants"),
+    TAC("build TAC"),
+    OPTIMIZE("optimize TAC"),
+    IR("write IR"),
+    CLANG("clang"),
+    LINK("link");
+
+    private final String name;
+
+    Phase(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+
+    /* Name used in JSON output. */
+    private String getKey() {
+      return name().toLowerCase();
+    }
+  }
+
+  /** Something that is counted during compilation. */
+  public enum Counter {
+    SHADOW_FILES("shadowFiles"),
+    META_FILES("metaFiles"),
+    META_IMAGES("metaImages"),
+    MODULES_GENERATED("modulesGenerated"),
+    OBJECTS_REUSED("objectsReused"),
+    CLANG_PROCESSES("clangProcesses"),
+    INSTANTIATIONS("instantiations"),
+    REFERENCE_COUNTS_REMOVED("referenceCountsRemoved"),
+    CALLS_INLINED("callsInlined"),
+    CALLS_DEVIRTUALIZED("callsDevirtualized");
+
+    private final String name;
+
+    Counter(String name) {
+      this.name = name;
+    }
+
+    @Override
+    public String toString() {
+      return name;
+    }
+  }
+
+  /** Stops timing a phase when closed. */
+  public interface Timer extends AutoCloseable {
+    @Override
+    void close();
+  }
+
+  /** Statistics that are not kept. */
+  public static final CompilerStats NONE = new CompilerStats(false);
+
+  private static final Timer IGNORED = () -> {};
+  private static final int SLOWEST_MODULES = 10;
+  private static final int MOST_INSTANTIATED = 10;
+
+  private static final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+  private static final com.sun.management.ThreadMXBean allocations =
+      threads instanceof com.sun.management.ThreadMXBean
+          ? (com.sun.management.ThreadMXBean) threads
+          : null;
+
+  private final boolean enabled;
+  private final long startTime = System.nanoTime();
+  private final Map<Phase, Measurement> phases = new EnumMap<>(Phase.class);
+  private final Map<String, Map<Phase, Measurement>> modules = new ConcurrentHashMap<>();
+  private final Map<Counter, LongAdder> counters = new EnumMap<>(Counter.class);
+  private final Map<String, LongAdder> instantiations = new ConcurrentHashMap<>();
+
+  /* Totals for a phase, added to from any thread. */
+  private static class Measurement {
+    private final LongAdder wall = new LongAdder();
+    private final LongAdder cpu = new LongAdder();
+    private final LongAdder allocated = new LongAdder();
+    private final LongAdder calls = new LongAdder();
+
+    private ObjectNode toJson(ObjectMapper mapper) {
+      ObjectNode node = mapper.createObjectNode();
+      node.put("wallNanos", wall.sum());
+      node.put("cpuNanos", cpu.sum());
+      node.put("allocatedBytes", allocated.sum());
+      node.put("calls", calls.sum());
+      return node;
+    }
+  }
+
+  /** Creates statistics that are kept for a single compilation. */
+  public CompilerStats() {
+    this(true);
+  }
+
+  private CompilerStats(boolean enabled) {
+    this.enabled = enabled;
+    // Filled in advance so that threads only ever update the measurements
+    for (Phase phase : Phase.values()) phases.put(phase, new Measurement());
+    for (Counter counter : Counter.values()) counters.put(counter, new LongAdder());
+
+    if (enabled) {
+      if (threads.isCurrentThreadCpuTimeSupported()) threads.setThreadCpuTimeEnabled(true);
+      if (allocations != null && allocations.isThreadAllocatedMemorySupported())
+        allocations.setThreadAllocatedMemoryEnabled(true);
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Starts timing a phase on the current thread.
+   *
+   * @param phase phase being timed
+   * @return timer that records the phase when closed
+   */
+  public Timer time(Phase phase) {
+    return time(phase, null);
+  }
+
+  /**
+   * Starts timing a phase for a single class on the current thread.
+   *
+   * @param phase phase being timed
+   * @param module name of the class, or <code>null</code> if the phase is not for one class
+   * @return timer that records the phase when closed
+   */
+  public Timer time(Phase phase, String module) {
+    if (!enabled) return IGNORED;
+
+    long wall = System.nanoTime();
+    long cpu = getCpuTime();
+    long allocated = getAllocatedBytes();
+    return () -> {
+      long wallTime = System.nanoTime() - wall;
+      long cpuTime = getCpuTime() - cpu;
+      long allocatedBytes = getAllocatedBytes() - allocated;
+      record(phases.get(phase), wallTime, cpuTime, allocatedBytes);
+      if (module != null) {
+        Map<Phase, Measurement> measurements =
+            modules.computeIfAbsent(module, key -> createMeasurements());
+        record(measurements.get(phase), wallTime, cpuTime, allocatedBytes);
+      }
+    };
+  }
+
+  /**
+   * Adds one to a counter.
+   *
+   * @param counter counter to increase
+   */
+  public void count(Counter counter) {
+    if (enabled) counters.get(counter).increment();
+  }
+
+  /**
+   * Adds an amount to a counter.
+   *
+   * @param counter counter to increase
+   * @param amount amount to add
+   */
+  public void count(Counter counter, long amount) {
+    if (enabled) counters.get(counter).add(amount);
+  }
+
+  /**
+   * Counts a new instantiation of a generic type, such as <code>Array&lt;String&gt;</code> for
+   * <code>Array&lt;T&gt;</code>.
+   *
+   * @param type name of the generic type
+   */
+  public void countInstantiation(String type) {
+    if (enabled) {
+      counters.get(Counter.INSTANTIATIONS).increment();
+      instantiations.computeIfAbsent(type, key -> new LongAdder()).increment();
+    }
+  }
+
+  public long getCount(Counter counter) {
+    return counters.get(counter).sum();
+  }
+
+  private static Map<Phase, Measurement> createMeasurements() {
+    Map<Phase, Measurement> measurements = new EnumMap<>(Phase.class);
+    for (Phase phase : Phase.values()) measurements.put(phase, new Measurement());
+    return measurements;
+  }
+
+  private static void record(Measurement measurement, long wall, long cpu, long allocated) {
+    measurement.wall.add(wall);
+    measurement.cpu.add(cpu);
+    measurement.allocated.add(allocated);
+    measurement.calls.increment();
+  }
+
+  private static long getCpuTime() {
+    return threads.isCurrentThreadCpuTimeSupported() ? threads.getCurrentThreadCpuTime() : 0;
+  }
+
+  private static long getAllocatedBytes() {
+    return allocations != null && allocations.isThreadAllocatedMemorySupported()
+        ? allocations.getCurrentThreadAllocatedBytes()
+        : 0;
+  }
+
+  private static long total(Map<Phase, Measurement> measurements) {
+    long total = 0;
+    for (Measurement measurement : measurements.values()) total += measurement.wall.sum();
+    return total;
+  }
+
+  /**
+   * Prints a table of the phases, the counters, and the classes that took the longest.
+   *
+   * @param out stream to print to
+   */
+  public void printTable(PrintStream out) {
+    String format = "%-20s %10s %10s %14s %8s%n";
+    out.printf(format, "Phase", "Wall ms", "CPU ms", "Allocated MB", "Calls");
+    for (Map.Entry<Phase, Measurement> entry : phases.entrySet()) {
+      Measurement measurement = entry.getValue();
+      if (measurement.calls.sum() > 0)
+        out.printf(
+            format,
+            entry.getKey(),
+            String.format("%.1f", measurement.wall.sum() / 1e6),
+            String.format("%.1f", measurement.cpu.sum() / 1e6),
+            String.format("%.1f", measurement.allocated.sum() / (1024.0 * 1024.0)),
+            measurement.calls.sum());
+    }
+
+    out.println();
+    out.printf("Elapsed: %.1f ms%n", (System.nanoTime() - startTime) / 1e6);
+    out.println(
+        "Files parsed: "
+            + getCount(Counter.SHADOW_FILES)
+            + " .shadow, "
+            + getCount(Counter.META_FILES)
+            + " .meta ("
+            + getCount(Counter.META_IMAGES)
+            + " from binary images)");
+    out.println(
+        "Classes: "
+            + getCount(Counter.MODULES_GENERATED)
+            + " generated, "
+            + getCount(Counter.OBJECTS_REUSED)
+            + " reused");
+    out.println("clang processes: " + getCount(Counter.CLANG_PROCESSES));
+    out.println("Generic instantiations: " + getCount(Counter.INSTANTIATIONS));
+    out.println("Reference counts removed: " + getCount(Counter.REFERENCE_COUNTS_REMOVED));
+    out.println("Calls inlined: " + getCount(Counter.CALLS_INLINED));
+    out.println("Calls devirtualized: " + getCount(Counter.CALLS_DEVIRTUALIZED));
+
+    if (!instantiations.isEmpty()) {
+      List<Map.Entry<String, LongAdder>> most = new ArrayList<>(instantiations.entrySet());
+      most.sort(
+          Comparator.comparingLong((Map.Entry<String, LongAdder> entry) -> entry.getValue().sum())
+              .reversed()
+              .thenComparing(Map.Entry::getKey));
+
+      out.println();
+      out.println("Most instantiated types:");
+      for (int i = 0; i < Math.min(MOST_INSTANTIATED, most.size()); ++i)
+        out.printf("  %-50s %10d%n", most.get(i).getKey(), most.get(i).getValue().sum());
+    }
+
+    if (!modules.isEmpty()) {
+      List<Map.Entry<String, Map<Phase, Measurement>>> slowest =
+          new ArrayList<>(modules.entrySet());
+      slowest.sort(
+          Comparator.comparingLong(
+                  (Map.Entry<String, Map<Phase, Measurement>> entry) -> total(entry.getValue()))
+              .reversed()
+              .thenComparing(Map.Entry::getKey));
+
+      out.println();
+      out.println("Slowest classes (wall ms):");
+      for (int i = 0; i < Math.min(SLOWEST_MODULES, slowest.size()); ++i)
+        out.printf(
+            "  %-50s %10.1f%n", slowest.get(i).getKey(), total(slowest.get(i).getValue()) / 1e6);
+    }
+  }
+
+  /**
+   * Writes all statistics, including those for every class, as JSON.
+   *
+   * @param file file to write
+   * @throws IOException thrown if the file cannot be written
+   */
+  public void writeJson(Path file) throws IOException {
+    ObjectMapper mapper = new ObjectMapper();
+    mapper.writerWithDefaultPrettyPrinter().writeValue(file.toFile(), toJson(mapper));
+  }
+
+  /**
+   * Prints all statistics, including those for every class, as JSON. The stream is left open.
+   *
+   * @param out stream to print to
+   * @throws IOException thrown if the statistics cannot be converted to JSON
+   */
+  public void printJson(PrintStream out) throws IOException {
+    ObjectMapper mapper = new ObjectMapper();
+    out.println(mapper.writerWithDefaultPrettyPrinter().writeValueAsString(toJson(mapper)));
+  }
+
+  private ObjectNode toJson(ObjectMapper mapper) {
+    ObjectNode root = mapper.createObjectNode();
+    root.put("version", Main.VERSION);
+    root.put("elapsedNanos", System.nanoTime() - startTime);
+
+    ObjectNode phaseNodes = root.putObject("phases");
+    for (Map.Entry<Phase, Measurement> entry : phases.entrySet())
+      phaseNodes.set(entry.getKey().getKey(), entry.getValue().toJson(mapper));
+
+    ObjectNode counterNodes = root.putObject("counters");
+    for (Map.Entry<Counter, LongAdder> entry : counters.entrySet())
+      counterNodes.put(entry.getKey().toString(), entry.getValue().sum());
+
+    ObjectNode instantiationNodes = root.putObject("instantiations");
+    for (String type : new TreeSet<>(instantiations.keySet()))
+      instantiationNodes.put(type, instantiations.get(type).sum());
+
+    // Sorted so that files from different runs are easy to compare
+    ObjectNode moduleNodes = root.putObject("classes");
+    for (String module : new TreeSet<>(modules.keySet())) {
+      ObjectNode moduleNode = moduleNodes.putObject(module);
+      for (Map.Entry<Phase, Measurement> entry : modules.get(module).entrySet())
+        if (entry.getValue().calls.sum() > 0)
+          moduleNode.set(entry.getKey().getKey(), entry.getValue().toJson(mapper));
+    }
+
+    return root;
+  }
+}
@@ -100,8 +100,6 @@ public class Configuration {
     // "odbccp32.lib"
   };
 
-  private static Configuration globalConfig;
-
   private static final Logger logger = Loggers.SHADOW;
 
   // private Path configFile;
@@ -187,31 +185,42 @@ public class Configuration {
   }
 
   /**
-   * Builds the Configuration if necessary. Must be run at least once before getConfiguration() is
-   * called.
+   * Builds the Configuration of the current compilation if necessary. Must be run at least once
+   * before getConfiguration() is called.
    */
   public static Configuration buildConfiguration(
       String mainFilePath, String configFilePath, boolean forceRebuild)
       throws ConfigurationException, IOException {
+    return buildConfiguration(
+        CompilationContext.current(), mainFilePath, configFilePath, forceRebuild);
+  }
 
-    if (globalConfig == null || forceRebuild)
-      globalConfig = readConfiguration(mainFilePath, configFilePath);
+  /** Builds the Configuration of the given compilation if necessary. */
+  public static Configuration buildConfiguration(
+      CompilationContext context,
+      String mainFilePath,
+      String configFilePath,
+      boolean forceRebuild)
+      throws ConfigurationException, IOException {
 
-    return globalConfig;
+    if (context.getConfiguration() == null || forceRebuild)
+      context.setConfiguration(readConfiguration(mainFilePath, configFilePath));
+
+    return context.getConfiguration();
   }
 
-  /** Retrieves the global compiler Configuration */
+  /** Retrieves the Configuration of the current compilation */
   public static Configuration getConfiguration() throws ConfigurationException {
-
-    if (globalConfig == null)
+    Configuration configuration = CompilationContext.current().getConfiguration();
+    if (configuration == null)
       throw new ConfigurationException("Configuration data must be built before being accessed.");
 
-    return globalConfig;
+    return configuration;
   }
 
-  /** Clears the global compiler Configuration */
+  /** Clears the Configuration of the current compilation */
   public static void clearConfiguration() {
-    globalConfig = null;
+    CompilationContext.current().setConfiguration(null);
   }
 
   private static Configuration readConfiguration(String mainFilePath, String configFilePath)
@@ -422,7 +431,9 @@ public class Configuration {
 
       return configuration;
     } catch (IOException e) {
-      System.err.println("ERROR PARSING CONFIGURATION FILE: " + configFile.toAbsolutePath());
+      CompilationContext.current()
+          .getErrorOutput()
+          .println("ERROR PARSING CONFIGURATION FILE: " + configFile.toAbsolutePath());
       throw e;
     }
   }
@@ -0,0 +1,120 @@
+package shadow;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Remembers the contents of the directories that imports are found in, such as the import roots
+ * from {@link Configuration#getImport()} and the packages inside them. Each directory is listed
+ * the first time it is needed, and that listing answers every later question about it, so finding
+ * the <code>.shadow</code> or <code>.meta</code> file for an import does not touch the file system
+ * again. Every compilation has its own index, which is kept in its {@link CompilationContext}.
+ *
+ * <p>Listings are not updated when files are written, so the index is only used for files that
+ * exist before the compilation starts, such as sources, <code>.meta</code> files, and object files
+ * that are reused. Type collection clears the index when it starts, in case earlier builds in the
+ * same compilation context have written files since.
+ */
+public class ImportIndex {
+  private static final Directory MISSING = new Directory(List.of());
+
+  private final Map<Path, Directory> directories = new ConcurrentHashMap<>();
+
+  /** The names of the files and directories in a directory. */
+  public static class Directory {
+    private final List<String> names;
+    private final Set<String> lookup;
+
+    private Directory(List<String> names) {
+      this.names = Collections.unmodifiableList(names);
+      this.lookup = new HashSet<>(names);
+    }
+
+    /**
+     * Gets the names of everything in the directory, in the order they were listed.
+     *
+     * @return file and directory names
+     */
+    public List<String> getNames() {
+      return names;
+    }
+
+    /**
+     * Checks whether the directory contains a file or directory.
+     *
+     * @param name name without any parent directories, such as <code>String.shadow</code>
+     * @return <code>true</code> if the name is in the directory
+     */
+    public boolean contains(String name) {
+      return lookup.contains(name);
+    }
+  }
+
+  /**
+   * Gets the contents of a directory, listing it if it has not been listed before.
+   *
+   * @param directory path to the directory
+   * @return contents of the directory or <code>null</code> if it is not a readable directory
+   */
+  public Directory getDirectory(Path directory) {
+    Path key = directory.toAbsolutePath().normalize();
+    Directory contents = directories.get(key);
+    if (contents == null) {
+      contents = list(key);
+      Directory previous = directories.putIfAbsent(key, contents);
+      if (previous != null) contents = previous;
+    }
+
+    return contents == MISSING ? null : contents;
+  }
+
+  private static Directory list(Path directory) {
+    List<String> names = new ArrayList<>();
+    try (Stream<Path> files = Files.list(directory)) {
+      files.forEach(file -> names.add(file.getFileName().toString()));
+    } catch (IOException | SecurityException e) {
+      return MISSING;
+    }
+
+    return new Directory(names);
+  }
+
+  /**
+   * Checks whether a path is a directory.
+   *
+   * @param directory path to check
+   * @return <code>true</code> if the path is a readable directory
+   */
+  public boolean isDirectory(Path directory) {
+    return getDirectory(directory) != null;
+  }
+
+  /**
+   * Checks whether a file exists, using the listing of the directory that contains it.
+   *
+   * @param file path to check
+   * @return <code>true</code> if the file (or a directory with the same name) exists
+   */
+  public boolean exists(Path file) {
+    Path absolute = file.toAbsolutePath().normalize();
+    Path parent = absolute.getParent();
+    if (parent == null) return isDirectory(absolute);
+
+    Directory directory = getDirectory(parent);
+    return directory != null && directory.contains(absolute.getFileName().toString());
+  }
+
+  /** Forgets all directory listings, so that files written since they were made can be found. */
+  public void clear() {
+    directories.clear();
+  }
+}
@@ -3,8 +3,19 @@ package shadow;
 import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.core.Appender;
+import org.apache.logging.log4j.core.Layout;
+import org.apache.logging.log4j.core.LogEvent;
 import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.appender.AbstractAppender;
 import org.apache.logging.log4j.core.config.LoggerConfig;
+import org.apache.logging.log4j.core.config.Property;
+import org.apache.logging.log4j.core.layout.PatternLayout;
+
+import java.io.PrintStream;
+import java.io.Serializable;
+import java.util.HashMap;
+import java.util.Map;
 
 public class Loggers {
   public static final Logger SHADOW = LogManager.getLogger("Shadow");
@@ -14,7 +25,10 @@ public class Loggers {
   public static final Logger TAC = LogManager.getLogger("Shadow TAC");
   public static final Logger DOC_TOOL = LogManager.getLogger("Shadow Documentation Tool");
 
-  private static boolean warningsAreErrors = false;
+  // Appenders and level configured for the process, kept while log messages are routed
+  private static Map<String, Appender> defaultAppenders = null;
+  private static Level defaultLevel = null;
+  private static int routes = 0;
 
   public static void setAllToLevel(Level level) {
     LoggerContext context = (LoggerContext) LogManager.getContext(false);
@@ -24,11 +38,101 @@ public class Loggers {
     context.updateLoggers();
   }
 
+  /**
+   * Sets the lowest level of log messages printed by a compilation. While messages are routed to
+   * compilations, other compilations keep their own levels. Otherwise, the level of every logger
+   * is changed, since the process runs only one compilation.
+   *
+   * @param compilation compilation whose messages are filtered
+   * @param level lowest level printed
+   */
+  public static synchronized void setLevel(CompilationContext compilation, Level level) {
+    compilation.setLogLevel(level);
+    if (defaultAppenders == null) setAllToLevel(level);
+  }
+
+  /**
+   * Starts or stops sending each log message to the output of the compilation that logged it, as
+   * given by {@link CompilationContext#setOutput(java.io.PrintStream)}. Messages from compilations
+   * without their own output, and from threads outside of any compilation, still go to the
+   * configured appenders. Used by the daemon, which runs many compilations in one process. Calls
+   * nest, so the configured appenders come back once every call that started routing has been
+   * matched by one that stops it.
+   *
+   * @param route <code>true</code> to route messages to compilations, <code>false</code> to
+   *     restore the configured appenders
+   */
+  public static synchronized void routeToCompilations(boolean route) {
+    if (route) {
+      if (routes++ > 0) return;
+    } else if (routes == 0 || --routes > 0) return;
+
+    LoggerContext context = (LoggerContext) LogManager.getContext(false);
+    org.apache.logging.log4j.core.config.Configuration config = context.getConfiguration();
+    LoggerConfig loggerConfig = config.getLoggerConfig(LogManager.ROOT_LOGGER_NAME);
+
+    Map<String, Appender> appenders = new HashMap<>(loggerConfig.getAppenders());
+    for (String name : appenders.keySet()) loggerConfig.removeAppender(name);
+
+    if (route) {
+      defaultAppenders = appenders;
+      defaultLevel = loggerConfig.getLevel();
+      Appender appender =
+          new CompilationAppender(
+              PatternLayout.newBuilder()
+                  .withConfiguration(config)
+                  .withPattern("[%-5p] %m%n")
+                  .build());
+      appender.start();
+      loggerConfig.addAppender(appender, null, null);
+      // Compilations filter messages themselves, and none prints anything below INFO
+      loggerConfig.setLevel(Level.INFO);
+    } else {
+      for (Appender appender : appenders.values()) appender.stop();
+      for (Appender appender : defaultAppenders.values())
+        loggerConfig.addAppender(appender, null, null);
+      loggerConfig.setLevel(defaultLevel);
+      defaultAppenders = null;
+      defaultLevel = null;
+    }
+
+    context.updateLoggers();
+  }
+
+  /*
+   * Prints each message to the output of the compilation running on the
+   * logging thread, if it has one and the message is at its level.
+   */
+  private static class CompilationAppender extends AbstractAppender {
+    private final Map<String, Appender> appenders = defaultAppenders;
+    private final Level level = defaultLevel;
+
+    public CompilationAppender(Layout<? extends Serializable> layout) {
+      super("Compilations", null, layout, true, Property.EMPTY_ARRAY);
+    }
+
+    @Override
+    public void append(LogEvent event) {
+      CompilationContext compilation = CompilationContext.current();
+      Level lowest = compilation.getLogLevel();
+      if (!event.getLevel().isMoreSpecificThan(lowest == null ? level : lowest)) return;
+
+      if (compilation.hasOwnOutput()) {
+        PrintStream output = compilation.getOutput();
+        byte[] message = getLayout().toByteArray(event);
+        synchronized (output) {
+          output.write(message, 0, message.length);
+          output.flush();
+        }
+      } else for (Appender appender : appenders.values()) appender.append(event);
+    }
+  }
+
   public static boolean warningsAreErrors() {
-    return warningsAreErrors;
+    return CompilationContext.current().warningsAreErrors();
   }
 
   public static void setWarningsAsErrors(boolean value) {
-    warningsAreErrors = value;
+    CompilationContext.current().setWarningsAsErrors(value);
   }
 }
@@ -1,6 +1,9 @@
 package shadow;
 
+import org.apache.logging.log4j.Level;
 import org.apache.logging.log4j.Logger;
+import shadow.CompilerStats.Counter;
+import shadow.CompilerStats.Phase;
 import shadow.doctool.tag.TagManager.BlockTagType;
 import shadow.interpreter.ConstantFieldInterpreter;
 import shadow.output.llvm.IrOutput;
@@ -10,7 +13,9 @@ import shadow.parse.ShadowParser;
 import shadow.parse.ShadowParser.VariableDeclaratorContext;
 import shadow.tac.TACBuilder;
 import shadow.tac.TACModule;
+import shadow.tac.analysis.ClassHierarchy;
 import shadow.tac.analysis.ControlFlowGraph;
+import shadow.tac.analysis.Inliner;
 import shadow.typecheck.*;
 import shadow.typecheck.type.*;
 
@@ -21,8 +26,15 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -48,7 +60,8 @@ public class Main {
     COMPILE_ERROR,
     COMMAND_LINE_ERROR,
     CONFIGURATION_ERROR,
-    DOCUMENTATION_ERROR
+    DOCUMENTATION_ERROR,
+    DAEMON_ERROR
   }
 
   private static final Logger logger = Loggers.SHADOW;
@@ -57,6 +70,10 @@ public class Main {
   // Data for the current compilation
 
   private final Configuration config;
+  private final CompilationContext compilation;
+  private final List<Pipe> outputPipes = new ArrayList<>();
+  // Files of every class in the program, recorded as dependencies of devirtualized objects
+  private final Set<Path> programSources = new HashSet<>();
 
 
   /** The linker command used to specify an output file */
@@ -66,8 +83,15 @@ public class Main {
   private final boolean checkOnly; // Run only parser and type-checker
   private final boolean link; // Compile the given file, but do not link
   private final boolean humanReadable;
+  private final int jobs; // Number of files to parse or classes to compile concurrently
+  private final boolean batch; // Compile all IR with a single clang process
   private final List<Path> files = new ArrayList<>();
 
+  // In batch mode, IR files waiting to be compiled, mapped to their object files
+  private final Map<Path, BatchObject> batchFiles =
+      Collections.synchronizedMap(new LinkedHashMap<>());
+  private Path batchDirectory;
+
   // Metadata related to a Shadow program's main class
   private String mainClass;
   private boolean mainArguments;
@@ -82,34 +106,60 @@ public class Main {
    * @param args Command line arguments to control the compiler
    */
   public static void main(String[] args) {
-    try {
-      new Main(args).run();
+    System.exit(compile(args));
+  }
+
+  /**
+   * Runs a single compilation, reporting problems on standard error.
+   *
+   * @param args command line arguments
+   * @return ordinal of the {@link Error} describing the outcome
+   */
+  public static int compile(String[] args) {
+    return compile(args, new CompilationContext());
+  }
+
+  /**
+   * Runs a single compilation in the given context, reporting problems on its error output.
+   *
+   * @param args command line arguments
+   * @param compilation context to compile in, which can have its own output
+   * @return ordinal of the {@link Error} describing the outcome
+   */
+  public static int compile(String[] args, CompilationContext compilation) {
+    PrintStream err = compilation.getErrorOutput();
+    try (CompilationContext.Scope ignored = compilation.enter()) {
+      Arguments arguments = new Arguments(args);
+      if (arguments.hasOption(Arguments.DAEMON))
+        return CompilerDaemon.serve(arguments.getDaemonPortArg());
+
+      new Main(arguments, compilation).run();
     } catch (FileNotFoundException e) {
-      System.err.println("FILE NOT FOUND: " + e.getLocalizedMessage());
-      System.exit(Error.FILE_NOT_FOUND_ERROR.ordinal());
+      err.println("FILE NOT FOUND: " + e.getLocalizedMessage());
+      return Error.FILE_NOT_FOUND_ERROR.ordinal();
     } catch (ParseException e) {
-      System.exit(Error.PARSE_ERROR.ordinal());
+      return Error.PARSE_ERROR.ordinal();
     } catch (IOException e) {
-      System.err.println("FILE DEPENDENCY ERROR: " + e.getLocalizedMessage());
-      System.exit(Error.TYPE_CHECK_ERROR.ordinal());
+      err.println("FILE DEPENDENCY ERROR: " + e.getLocalizedMessage());
+      return Error.TYPE_CHECK_ERROR.ordinal();
     } catch (org.apache.commons.cli.ParseException | CommandLineException e) {
-      System.err.println("COMMAND LINE ERROR: " + e.getLocalizedMessage());
-      Arguments.printHelp();
-      System.exit(Error.COMMAND_LINE_ERROR.ordinal());
+      err.println("COMMAND LINE ERROR: " + e.getLocalizedMessage());
+      Arguments.printHelp(compilation.getOutput());
+      return Error.COMMAND_LINE_ERROR.ordinal();
     } catch (ConfigurationException e) {
-      System.err.println("CONFIGURATION ERROR: " + e.getLocalizedMessage());
-      Arguments.printHelp();
-      System.exit(Error.CONFIGURATION_ERROR.ordinal());
+      err.println("CONFIGURATION ERROR: " + e.getLocalizedMessage());
+      Arguments.printHelp(compilation.getOutput());
+      return Error.CONFIGURATION_ERROR.ordinal();
     } catch (TypeCheckException e) {
-      System.exit(Error.TYPE_CHECK_ERROR.ordinal());
+      return Error.TYPE_CHECK_ERROR.ordinal();
     } catch (CompileException e) {
-      System.err.println("COMPILER ERROR: " + e.getLocalizedMessage());
-      System.exit(Error.COMPILE_ERROR.ordinal());
+      err.println("COMPILER ERROR: " + e.getLocalizedMessage());
+      return Error.COMPILE_ERROR.ordinal();
     } catch (ShadowException e) {
-      System.err.println("ERROR IN FILE: " + e.getLocalizedMessage());
-      System.exit(Error.TYPE_CHECK_ERROR.ordinal());
+      err.println("ERROR IN FILE: " + e.getLocalizedMessage());
+      return Error.TYPE_CHECK_ERROR.ordinal();
     }
-    System.exit(Error.NO_ERROR.ordinal());
+    return Error.NO_ERROR.ordinal();
   }
 
   public Main(String[] args)
@@ -117,15 +167,40 @@ public class Main {
           IOException,
           CommandLineException,
           ConfigurationException {
+    this(new Arguments(args));
+  }
+
+  public Main(Arguments arguments)
+      throws IOException, CommandLineException, ConfigurationException {
+    this(arguments, new CompilationContext());
+  }
+
+  /**
+   * Prepares a compilation that runs in the given context.
+   *
+   * @param arguments command line arguments
+   * @param compilation context for this compilation only, which can have its own output
+   * @throws IOException thrown if a source file cannot be found
+   * @throws CommandLineException thrown if the arguments are not valid
+   * @throws ConfigurationException thrown if there's a problem with Configuration
+   */
+  public Main(Arguments arguments, CompilationContext compilation)
+      throws IOException, CommandLineException, ConfigurationException {
 
     // Detect and establish the current settings and arguments
-    arguments = new Arguments(args);
+    this.arguments = arguments;
+    this.compilation = compilation;
+
+    // Increase logging level if VERBOSE is set
+    if (arguments.hasOption(Arguments.VERBOSE)) Loggers.setLevel(compilation, Level.INFO);
 
     String mainFile = null;
     if (arguments.getFiles().length > 0) mainFile = arguments.getFiles()[0];
 
     // Detect and establish the current settings based on the arguments
-    config = Configuration.buildConfiguration(mainFile, arguments.getConfigFileArg(), false);
+    config =
+        Configuration.buildConfiguration(
+            compilation, mainFile, arguments.getConfigFileArg(), false);
 
     // Check relevant command line flags
     checkOnly = arguments.hasOption(Arguments.TYPECHECK);
@@ -134,15 +209,25 @@ public class Main {
                     && !arguments.hasOption(Arguments.BUILD_SYSTEM)
                     && !checkOnly;
     humanReadable = arguments.hasOption(Arguments.READABLE);
+    jobs = arguments.hasOption(Arguments.JOBS) ? parseJobs(arguments.getJobsArg()) : 1;
+    compilation.setJobs(jobs);
+    batch = arguments.hasOption(Arguments.BATCH);
+    compilation.setBinaryMeta(arguments.hasOption(Arguments.BINARY_META));
+    compilation.setElideReferenceCounts(arguments.hasOption(Arguments.ELIDE_REFERENCE_COUNTS));
+    compilation.setInlineCalls(arguments.hasOption(Arguments.INLINE));
+    // Only a linked program is known to contain every class that could override a method
+    if (link && mainFile != null && arguments.hasOption(Arguments.DEVIRTUALIZE))
+      compilation.setDevirtualizedProgram(Paths.get(mainFile).toAbsolutePath().normalize());
+    if (arguments.hasOption(Arguments.STATS)) compilation.setStats(new CompilerStats());
 
     // Redundant for normal use, but it helps to assume warnings are not errors when running automated tests
-    Loggers.setWarningsAsErrors(false);
+    compilation.setWarningsAsErrors(false);
 
     // Deal with warning flags
     if (arguments.hasOption(Arguments.WARNING)) {
       String flag = arguments.getWarningFlag();
-      if (flag.equals("error")) Loggers.setWarningsAsErrors(true);
-      else System.err.println("Unknown warning flag: " + flag);
+      if (flag.equals("error")) compilation.setWarningsAsErrors(true);
+      else compilation.getErrorOutput().println("Unknown warning flag: " + flag);
     }
 
     String[] fileNames = arguments.getFiles();
@@ -184,14 +269,91 @@ public class Main {
     } else throw new CommandLineException("No input files");
   }
 
+  private static int parseJobs(String value) throws CommandLineException {
+    try {
+      int jobs = Integer.parseInt(value.trim());
+      if (jobs > 0) return jobs;
+    } catch (NumberFormatException ignored) {
+    }
+
+    throw new CommandLineException("Number of jobs must be a positive integer: " + value);
+  }
+
   public void run() throws IOException, ShadowException, ConfigurationException {
+    // Types, TAC nodes, and the configuration find this compilation through its context
+    try (CompilationContext.Scope ignored = compilation.enter()) {
+      build();
+    } finally {
+      joinOutputPipes();
+      reportStats();
+    }
+  }
+
+  /*
+   * Starts a clang process whose errors, and optionally output, reach the user.
+   * Redirect.INHERIT uses the streams of the whole JVM, so a compilation with its
+   * own output (as in the daemon) copies the process streams there instead.
+   */
+  private Process startProcess(ProcessBuilder builder, boolean showOutput) throws IOException {
+    if (!compilation.hasOwnOutput()) {
+      builder.redirectError(Redirect.INHERIT);
+      if (showOutput) builder.redirectOutput(Redirect.INHERIT);
+      return builder.start();
+    }
+
+    if (showOutput) builder.redirectErrorStream(true);
+    Process process = builder.start();
+    Pipe pipe =
+        new Pipe(
+            showOutput ? process.getInputStream() : process.getErrorStream(),
+            compilation.getErrorOutput(),
+            false);
+    synchronized (outputPipes) {
+      outputPipes.add(pipe);
+    }
+    pipe.start();
+    return process;
+  }
+
+  // Output copied from clang must all arrive before the compilation reports its result
+  private void joinOutputPipes() {
+    List<Pipe> pipes;
+    synchronized (outputPipes) {
+      pipes = new ArrayList<>(outputPipes);
+      outputPipes.clear();
+    }
+    try {
+      for (Pipe pipe : pipes) pipe.join();
+    } catch (InterruptedException ignored) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  // Statistics are reported even if compilation fails, since they can show where it stopped
+  private void reportStats() {
+    CompilerStats stats = compilation.getStats();
+    if (stats.isEnabled()) {
+      stats.printTable(compilation.getOutput());
+      String file = arguments.getStatsFileArg();
+      try {
+        // As with many command-line tools, - means standard output rather than a file
+        if (file.equals("-")) stats.printJson(compilation.getOutput());
+        else stats.writeJson(Paths.get(file));
+      } catch (IOException e) {
+        logger.error("Failed to write statistics to " + file + ": " + e.getLocalizedMessage());
+      }
+    }
+  }
+
+  private void build() throws IOException, ShadowException, ConfigurationException {
     // Print information
     // Must come after building configuration, since configuration helps
     // us find the correct clang installation
-    if (arguments.hasOption(Arguments.INFORMATION)) Arguments.printInformation();
+    if (arguments.hasOption(Arguments.INFORMATION))
+      Arguments.printInformation(compilation.getOutput());
 
     // Print help
-    if (arguments.hasOption(Arguments.HELP)) Arguments.printHelp();
+    if (arguments.hasOption(Arguments.HELP)) Arguments.printHelp(compilation.getOutput());
 
     if (arguments.hasOption(Arguments.INFORMATION) || arguments.hasOption(Arguments.HELP))
       return;
@@ -210,15 +372,21 @@ public class Main {
     long startTime = System.currentTimeMillis();
 
     List<Path> cFiles = new ArrayList<>();
-    generateObjectFiles(cFiles);
+    try {
+      generateObjectFiles(cFiles);
 
-    if (isCompile) {
       // Compile and add the C source files to get linked
-      if (!compileCSourceFiles(systemInclude, cFiles)) {
+      if (isCompile && !compileCSourceFiles(systemInclude, cFiles)) {
         logger.error("Failed to compile one or more C source files.");
         throw new CompileException("FAILED TO COMPILE");
       }
+    } finally {
+      deleteBatchDirectory();
+      // Outputs that were produced are recorded even if a later step failed
+      BuildManifest.save();
+    }
 
+    if (isCompile) {
       if (link) {
         logger.info("Building for target \"" + config.getTarget() + "\"");
 
@@ -273,17 +441,17 @@ public class Main {
         logger.info("Linking object files...");
 
         // Usually clang
-        Process link =
-                new ProcessBuilder(linkCommand)
-                        .redirectOutput(Redirect.INHERIT)
-                        .redirectError(Redirect.INHERIT)
-                        .start();
-        try {
-          if (link.waitFor() != 0) throw new CompileException("FAILED TO LINK");
-        } catch (InterruptedException | CompileException ignored) {
-        } finally {
-          link.destroy();
-          Files.delete(temporaryMain);
+        CompilerStats stats = compilation.getStats();
+        try (CompilerStats.Timer ignored = stats.time(Phase.LINK)) {
+          stats.count(Counter.CLANG_PROCESSES);
+          Process link = startProcess(new ProcessBuilder(linkCommand), true);
+          try {
+            if (link.waitFor() != 0) throw new CompileException("FAILED TO LINK");
+          } catch (InterruptedException | CompileException ignored2) {
+          } finally {
+            link.destroy();
+            Files.delete(temporaryMain);
+          }
         }
       }
       logger.info("SUCCESS: Built in " + (System.currentTimeMillis() - startTime) + "ms");
@@ -382,18 +550,26 @@ public class Main {
   // The first is for the output file name
   // The last is for the input file name
   private boolean compileCSourceFile(
-      Path cFile, Path binaryPath, List<String> compileCommand)
-      throws IOException {
+      Path cFile, Path binaryPath, List<String> compileCommand, String flags)
+      throws IOException, ConfigurationException {
 
     String binaryFile = binaryPath.toString();
     linkCommand.add(binaryFile);
 
-    if (!Files.exists(binaryPath)
-        || Files.getLastModifiedTime(binaryPath).compareTo(Files.getLastModifiedTime(cFile)) < 0) {
+    String fingerprint = BuildManifest.fingerprint(flags, cFile);
+    if (!BuildManifest.isCurrent(binaryPath, fingerprint)) {
       logger.info("Generating assembly code for " + cFile.getFileName());
       compileCommand.set(compileCommand.size() - 2, binaryFile);
       compileCommand.set(compileCommand.size() - 1, cFile.toString());
-      return runCCompiler(compileCommand, cFile.getParent());
+      boolean compiled;
+      try (CompilerStats.Timer ignored = compilation.getStats().time(Phase.CLANG)) {
+        compilation.getStats().count(Counter.CLANG_PROCESSES);
+        compiled = runCCompiler(compileCommand, cFile.getParent());
+      }
+      if (!compiled) return false;
+
+      BuildManifest.update(binaryPath, fingerprint);
+      return true;
     }
 
     logger.info("Using pre-existing assembly code for " + binaryPath.getFileName());
@@ -441,22 +617,24 @@ public class Main {
     compileCommand.add(null); // Location for .c file
 
     Map<Path, Path> imports = config.getImport();
+    String flags =
+        String.join(" ", compileCommand.subList(0, compileCommand.size() - 2))
+            + " "
+            + Configuration.getClangVersion();
 
     for (Path cFile : cShadowFiles) {
       Path binaryPath = BaseChecker.addExtension(getBinaryPath(cFile, imports), ".o");
-      if (!compileCSourceFile(cFile, binaryPath, compileCommand)) return false;
+      if (!compileCSourceFile(cFile, binaryPath, compileCommand, flags)) return false;
     }
 
     return true;
   }
 
-  private static boolean runCCompiler(List<String> compileCommand, Path cSourceDirectory)
+  private boolean runCCompiler(List<String> compileCommand, Path cSourceDirectory)
       throws IOException {
     try {
-      return new ProcessBuilder(compileCommand)
-              .directory(cSourceDirectory.toFile())
-              .redirectError(Redirect.INHERIT)
-              .start()
+      return startProcess(
+                  new ProcessBuilder(compileCommand).directory(cSourceDirectory.toFile()), false)
               .waitFor()
           == 0;
     } catch (InterruptedException ignored) {
@@ -502,8 +680,7 @@ public class Main {
     // TypeChecker generates a list of AST nodes corresponding to
     // classes needing compilation
     TypeChecker.TypeCheckerOutput typecheckerOutput =
-        TypeChecker.typeCheck(
-            files, reporter, checkOnly);
+        TypeChecker.typeCheck(files, reporter, checkOnly, compilation);
 
     List<Type> typesIncludingInner =
         typecheckerOutput.nodes.stream().map(Context::getType).collect(Collectors.toList());
@@ -514,7 +691,10 @@ public class Main {
 
     reporter.printAndReportErrors();
 
-    ConstantFieldInterpreter.evaluateConstants(typecheckerOutput.packageTree, typesIncludingInner);
+    try (CompilerStats.Timer ignored = compilation.getStats().time(Phase.CONSTANTS)) {
+      ConstantFieldInterpreter.evaluateConstants(
+          typecheckerOutput.packageTree, typesIncludingInner);
+    }
 
     // TODO: Add enum evaluations here (right after constants?)
 
@@ -522,15 +702,28 @@ public class Main {
       // Set data for main class
       Type mainType = typecheckerOutput.main.getType();
       mainClass = mainType.toString(Type.MANGLE);
-      SequenceType arguments = new SequenceType(new ArrayType(Type.STRING));
+      SequenceType arguments = new SequenceType(new ArrayType(compilation.STRING));
       if (mainType.getMatchingMethod("main", arguments) != null) mainArguments = true;
       else if (mainType.getMatchingMethod("main", new SequenceType()) != null)
         mainArguments = false;
       else
         throw new CompileException(
             "File " + files.get(0) + " does not contain an appropriate main() method");
+
+      if (compilation.getDevirtualizedProgram() != null) {
+        compilation.setClassHierarchy(createClassHierarchy(typesIncludingInner));
+        for (Context node : typecheckerOutput.nodes) programSources.add(node.getSourcePath());
+      }
     }
 
+    // Code for each class is generated independently, possibly on a pool of worker threads,
+    // but results are always added in the original order so that errors and linking are
+    // deterministic
+    ExecutorService executor = jobs > 1 ? Executors.newFixedThreadPool(jobs) : null;
+    List<Future<GeneratedClass>> pending = new ArrayList<>();
+    // Calls can only be inlined between classes once all of them are optimized
+    boolean inline = compilation.inlinesCalls();
+
     try {
       for (Context node : typecheckerOutput.nodes) {
         // As an optimization, print .meta files for the .shadow files being checked
@@ -538,101 +731,282 @@ public class Main {
         // interpreted
         if (!node.isFromMetaFile()) TypeChecker.printMetaFile(node);
 
-        Path file = node.getSourcePath();
-
-        if (checkOnly) {
-          // Performs checks to make sure all paths return, there is
-          // no dead code, etc.
-          // No need to check interfaces or .meta files (no code in
-          // those cases)
-          if (!node.isFromMetaFile() && !(node.getType() instanceof InterfaceType))
-            optimizeTAC(new TACBuilder().build(node), reporter);
-        } else {
-          Path path = BaseChecker.stripExtension(file);
-          Path name = path.getFileName();
-
-          Type type = node.getType();
-          String className = typeToFileName(type);
-          Path cFile = file.resolveSibling(className + ".c");
+        if (!checkOnly) {
+          Path file = node.getSourcePath();
+          Path cFile = file.resolveSibling(typeToFileName(node.getType()) + ".c");
           if (Files.exists(cFile)) cFiles.add(cFile);
+        }
 
-          Path irFile = file.resolveSibling(className + ".ll");
-          Path binaryPath = node.getBinaryPath();
-
-          Path nativeFile = file.resolveSibling(className + ".native.ll");
-          Path nativeObject = BaseChecker.changeExtension(binaryPath, ".native.o");
-
-          // If the LLVM IR bitcode or compiled object code didn't exist, the full .shadow file would
-          // have been used (except for attributes, which are always interpreted)
-          if (node.isFromMetaFile()) {
-            if (node.getType() instanceof AttributeType)
-              logger.info("Interpreting Shadow for " + name);
-            else {
-              logger.info("Using pre-existing object code for " + name);
-              if (Files.exists(binaryPath)) linkCommand.add(binaryPath.toString());
-              else if (Files.exists(irFile))
-                linkCommand.add(compileIrFile(irFile, binaryPath));
-              else throw new CompileException("File not found: " + binaryPath);
-            }
-          } else {
-            if (node.getType() instanceof AttributeType)
-              logger.info("Interpreting Shadow for " + name);
-            else logger.info("Generating object code for " + name);
-            // Gets top level class
-            TACModule module = optimizeTAC(new TACBuilder().build(node), reporter);
-            if (reporter.getErrorList().isEmpty())
-              linkCommand.add(compileShadowFile(file, binaryPath, module));
-          }
+        if (inline) pending.add(submit(executor, () -> optimizeClass(node)));
+        else if (executor == null) addGeneratedClass(generateClass(node), reporter);
+        else pending.add(submit(executor, () -> generateClass(node)));
+      }
 
-          if (Files.exists(nativeFile))
-            linkCommand.add(compileIrFile(nativeFile, nativeObject));
+      if (inline) {
+        List<GeneratedClass> optimized = new ArrayList<>(pending.size());
+        for (Future<GeneratedClass> future : pending) optimized.add(getGeneratedClass(future));
+        pending.clear();
+
+        // Errors are reported before anything is inlined or compiled, stopping at the first
+        // class with errors, as when classes are added one at a time
+        boolean failed = false;
+        for (GeneratedClass generated : optimized)
+          if (!generated.reporter.getErrorList().isEmpty()) failed = true;
+        if (failed)
+          for (GeneratedClass generated : optimized) addGeneratedClass(generated, reporter);
+
+        inlineCalls(typecheckerOutput.nodes, optimized);
+        for (int i = 0; i < optimized.size(); ++i) {
+          Context node = typecheckerOutput.nodes.get(i);
+          GeneratedClass generated = optimized.get(i);
+          pending.add(submit(executor, () -> compileClass(node, generated)));
         }
-
-        reporter.printAndReportErrors();
       }
+
+      for (Future<GeneratedClass> future : pending)
+        addGeneratedClass(getGeneratedClass(future), reporter);
+
+      compileBatch();
     } catch (TypeCheckException e) {
       logger.error(files.get(0) + " FAILED TO TYPE CHECK");
       throw e;
     } catch (RuntimeException e) {
       if (e.getCause() instanceof ShadowException) throw (ShadowException) e.getCause();
       else throw e;
+    } finally {
+      if (executor != null) executor.shutdownNow();
     }
   }
 
-  private Process getCompiler(String objectFile) throws IOException {
-    if (config.getOs().equals("Mac")) {
-      return new ProcessBuilder(
-              config.getClang(),
-              //"--target=" + config.getTarget(),
-              config.getOptimizationLevel(), /*config.getDataLayout(),*/
-              //"-m" + config.getArchitecture(),
-              "-femulated-tls", // needed for Mac
-              "-c",
-              "-x",
-              "ir",
-              // "--filetype=obj",
-              "-w", // Warning: Turns off all warnings
-              "-o",
-              objectFile,
-              "-")
-          .redirectError(Redirect.INHERIT)
-          .start();
+  /*
+   * Results of generating code for a single class: its optimized TAC (if it
+   * was built from a .shadow file), the source files of other classes whose
+   * methods were inlined into it, the object files to link (in order), and
+   * any errors or warnings produced along the way.
+   */
+  private static class GeneratedClass {
+    private TACModule module = null;
+    private final Set<Path> dependencies = new TreeSet<>();
+    private final List<String> objectFiles = new ArrayList<>();
+    private final ErrorReporter reporter = new ErrorReporter(Loggers.TYPE_CHECKER);
+  }
+
+  // Runs a step for a single class on a worker thread, or right away if there are none
+  private Future<GeneratedClass> submit(ExecutorService executor, Callable<GeneratedClass> step) {
+    if (executor == null) {
+      FutureTask<GeneratedClass> task = new FutureTask<>(step);
+      task.run();
+      return task;
+    }
+
+    return executor.submit(
+        () -> {
+          try (CompilationContext.Scope ignored = compilation.enter()) {
+            return step.call();
+          }
+        });
+  }
+
+  private void addGeneratedClass(GeneratedClass generated, ErrorReporter reporter)
+      throws ShadowException {
+    reporter.addAll(generated.reporter);
+    linkCommand.addAll(generated.objectFiles);
+    reporter.printAndReportErrors();
+  }
+
+  private static GeneratedClass getGeneratedClass(Future<GeneratedClass> future)
+      throws IOException, ShadowException, ConfigurationException {
+    try {
+      return future.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CompileException("Interrupted while generating object code");
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) throw (IOException) cause;
+      else if (cause instanceof ShadowException) throw (ShadowException) cause;
+      else if (cause instanceof ConfigurationException) throw (ConfigurationException) cause;
+      else if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+      else if (cause instanceof java.lang.Error) throw (java.lang.Error) cause;
+      else throw new CompileException(String.valueOf(cause));
+    }
+  }
+
+  /*
+   * Builds, optimizes, and (unless only checking) compiles the TAC for a
+   * single class.  Safe to run concurrently for different classes.
+   */
+  private GeneratedClass generateClass(Context node)
+      throws IOException, ShadowException, ConfigurationException {
+    return compileClass(node, optimizeClass(node));
+  }
+
+  /*
+   * Builds and optimizes the TAC for a single class, unless it comes from a
+   * .meta file. Safe to run concurrently for different classes.
+   */
+  private GeneratedClass optimizeClass(Context node) {
+    GeneratedClass generated = new GeneratedClass();
+    if (node.isFromMetaFile()) return generated;
+
+    if (checkOnly) {
+      // Performs checks to make sure all paths return, there is
+      // no dead code, etc.
+      // No need to check interfaces (no code in those cases)
+      if (!(node.getType() instanceof InterfaceType))
+        generated.module = optimizeModule(buildTAC(node), generated.reporter);
     } else {
-      return new ProcessBuilder(
-              config.getClang(),
-              //"--target=" + config.getTarget(),
-              config.getOptimizationLevel(),
-              //"-m" + config.getArchitecture(),
-              "-c",
-              "-x",
-              "ir",
-              // "--filetype=obj",
-              "-w", // Warning: Turns off all warnings
-              "-o",
-              objectFile,
-              "-")
-          .redirectError(Redirect.INHERIT)
-          .start();
+      Path name = BaseChecker.stripExtension(node.getSourcePath()).getFileName();
+      if (node.getType() instanceof AttributeType) logger.info("Interpreting Shadow for " + name);
+      else logger.info("Generating object code for " + name);
+      compilation.getStats().count(Counter.MODULES_GENERATED);
+      generated.module = optimizeModule(buildTAC(node), generated.reporter);
+    }
+
+    return generated;
+  }
+
+  /*
+   * Inlines calls between all classes optimized from .shadow files. Each
+   * class records the sources of the classes whose methods were copied into
+   * it, since its object file must be compiled again when they change.
+   */
+  private void inlineCalls(List<Context> nodes, List<GeneratedClass> classes) {
+    try (CompilerStats.Timer ignored = compilation.getStats().time(Phase.OPTIMIZE)) {
+      List<TACModule> modules = new ArrayList<>();
+      Map<TACModule, Path> sources = new HashMap<>();
+      for (int i = 0; i < classes.size(); ++i) {
+        TACModule module = classes.get(i).module;
+        if (module != null) {
+          modules.add(module);
+          sources.put(module, nodes.get(i).getSourcePath());
+        }
+      }
+
+      Inliner inliner = new Inliner(modules);
+      compilation.getStats().count(Counter.CALLS_INLINED, inliner.inline());
+      for (GeneratedClass generated : classes)
+        if (generated.module != null)
+          for (TACModule module : inliner.getDependencies(generated.module))
+            generated.dependencies.add(sources.get(module));
+    }
+  }
+
+  /*
+   * Compiles the optimized TAC for a single class, or finds the object code
+   * for a class from a .meta file. Does nothing when only checking. Safe to
+   * run concurrently for different classes.
+   */
+  private GeneratedClass compileClass(Context node, GeneratedClass generated)
+      throws IOException, ShadowException, ConfigurationException {
+    if (!checkOnly) {
+      Path file = node.getSourcePath();
+      Path path = BaseChecker.stripExtension(file);
+      Path name = path.getFileName();
+
+      Type type = node.getType();
+      String className = typeToFileName(type);
+
+      Path irFile = file.resolveSibling(className + ".ll");
+      Path binaryPath = node.getBinaryPath();
+
+      Path nativeFile = file.resolveSibling(className + ".native.ll");
+      Path nativeObject = BaseChecker.changeExtension(binaryPath, ".native.o");
+
+      // If the LLVM IR bitcode or compiled object code didn't exist, the full .shadow file would
+      // have been used (except for attributes, which are always interpreted)
+      if (node.isFromMetaFile()) {
+        if (node.getType() instanceof AttributeType)
+          logger.info("Interpreting Shadow for " + name);
+        else {
+          logger.info("Using pre-existing object code for " + name);
+          compilation.getStats().count(Counter.OBJECTS_REUSED);
+          if (compilation.getImportIndex().exists(binaryPath))
+            generated.objectFiles.add(binaryPath.toString());
+          else if (Files.exists(irFile))
+            generated.objectFiles.add(compileIrFile(irFile, binaryPath));
+          else throw new CompileException("File not found: " + binaryPath);
+        }
+      } else if (generated.reporter.getErrorList().isEmpty())
+        generated.objectFiles.add(
+            compileShadowFile(file, binaryPath, generated.module, generated.dependencies));
+
+      if (Files.exists(nativeFile))
+        generated.objectFiles.add(compileIrFile(nativeFile, nativeObject));
+    }
+
+    return generated;
+  }
+
+  // Building and optimizing TAC are timed separately for each class
+  private TACModule buildTAC(Context node) {
+    try (CompilerStats.Timer ignored =
+        compilation.getStats().time(Phase.TAC, getModuleName(node.getType()))) {
+      return new TACBuilder(compilation).build(node);
+    }
+  }
+
+  private TACModule optimizeModule(TACModule module, ErrorReporter reporter) {
+    try (CompilerStats.Timer ignored =
+        compilation.getStats().time(Phase.OPTIMIZE, getModuleName(module.getType()))) {
+      return optimizeTAC(module, reporter);
+    }
+  }
+
+  /**
+   * Creates the class hierarchy that a program is devirtualized with. Tests can leave classes out
+   * of it, as if they were linked in from elsewhere, to check that calls still reach them.
+   *
+   * @param types every type in the program, including inner types
+   * @return hierarchy of the given types
+   */
+  protected ClassHierarchy createClassHierarchy(List<Type> types) {
+    return new ClassHierarchy(types);
+  }
+
+  private static String getModuleName(Type type) {
+    return type.toString(Type.PACKAGES);
+  }
+
+  private List<String> getCompilerCommand() {
+    List<String> command = new ArrayList<>();
+    command.add(config.getClang());
+    //command.add("--target=" + config.getTarget());
+    command.add(config.getOptimizationLevel()); /*config.getDataLayout(),*/
+    //command.add("-m" + config.getArchitecture());
+    if (config.getOs().equals("Mac")) command.add("-femulated-tls"); // needed for Mac
+    command.add("-c");
+    command.add("-x");
+    command.add("ir");
+    // command.add("--filetype=obj");
+    command.add("-w"); // Warning: Turns off all warnings
+    return command;
+  }
+
+  private Process getCompiler(String objectFile) throws IOException {
+    List<String> command = getCompilerCommand();
+    command.add("-o");
+    command.add(objectFile);
+    command.add("-");
+    compilation.getStats().count(Counter.CLANG_PROCESSES);
+    return startProcess(new ProcessBuilder(command), false);
+  }
+
+  // Writes the IR for a module to a stream, closing it afterward
+  private void writeIr(OutputStream out, TACModule module) throws IOException, ShadowException {
+    try (CompilerStats.Timer ignored =
+            compilation.getStats().time(Phase.IR, getModuleName(module.getType()));
+        OutputStream stream = out) {
+      IrOutput output = new IrOutput(new BufferedOutputStream(stream), compilation);
+      output.build(module);
+      output.close();
+    }
+  }
+
+  // Waits for a clang process, timing how long it takes to finish
+  private boolean waitForCompiler(Process compile, String module) throws InterruptedException {
+    try (CompilerStats.Timer ignored = compilation.getStats().time(Phase.CLANG, module)) {
+      return compile.waitFor() == 0;
     }
   }
 
@@ -650,14 +1024,12 @@ public class Main {
 
     boolean success = false;
     Process compile = null;
-    IrOutput output;
 
     try {
       compile = getCompiler(binaryFile);
-      output = new IrOutput(new BufferedOutputStream(compile.getOutputStream()));
-      output.build(module);
-      output.close();
-      if (compile.waitFor() != 0) throw new CompileException("FAILED TO COMPILE " + binaryFile);
+      writeIr(compile.getOutputStream(), module);
+      if (!waitForCompiler(compile, getModuleName(module.getType())))
+        throw new CompileException("FAILED TO COMPILE " + binaryFile);
       success = true;
     } catch (InterruptedException e) {
       throw new CompileException("FAILED TO COMPILE " + binaryFile);
@@ -685,7 +1057,8 @@ public class Main {
     try {
       compile = getCompiler(binaryFile);
       new Pipe(stream, compile.getOutputStream()).start();
-      if (compile.waitFor() != 0) throw new CompileException("FAILED TO COMPILE " + binaryFile);
+      if (!waitForCompiler(compile, null))
+        throw new CompileException("FAILED TO COMPILE " + binaryFile);
       success = true;
     } catch (InterruptedException e) {
       throw new CompileException("FAILED TO COMPILE " + binaryFile);
@@ -702,31 +1075,168 @@ public class Main {
     return binaryFile;
   }
 
-  private String compileIrFile(Path irPath, Path binaryPath) throws IOException, CompileException {
-      if (Files.exists(binaryPath) && Files.getLastModifiedTime(binaryPath).compareTo(Files.getLastModifiedTime(irPath)) >= 0)
-        return binaryPath.toString();
-      else
-        return compileIrStream(Files.newInputStream(irPath), binaryPath);
+  private String compileIrFile(Path irPath, Path binaryPath)
+      throws IOException, CompileException, ConfigurationException {
+    String fingerprint = BuildManifest.objectFingerprint(irPath);
+    if (BuildManifest.isCurrent(binaryPath, fingerprint)) return binaryPath.toString();
+    else if (batch)
+      return addBatchFile(copyToBatch(irPath), binaryPath, fingerprint, Collections.emptySet());
+
+    String binaryFile = compileIrStream(Files.newInputStream(irPath), binaryPath);
+    BuildManifest.update(binaryPath, fingerprint);
+    return binaryFile;
+  }
+
+  /*
+   * An object file that will be produced by compiling a batch, along
+   * with the fingerprint of its inputs and the other files it depends on
+   * for the build manifest.
+   */
+  private static class BatchObject {
+    private final Path binaryPath;
+    private final String fingerprint;
+    private final Set<Path> dependencies;
+
+    public BatchObject(Path binaryPath, String fingerprint, Set<Path> dependencies) {
+      this.binaryPath = binaryPath;
+      this.fingerprint = fingerprint;
+      this.dependencies = dependencies;
+    }
+  }
+
+  private synchronized Path createBatchFile() throws IOException {
+    if (batchDirectory == null) batchDirectory = Files.createTempDirectory("shadow");
+    return Files.createTempFile(batchDirectory, "module", ".ll");
+  }
+
+  private Path copyToBatch(Path irPath) throws IOException {
+    Path batchFile = createBatchFile();
+    Files.copy(irPath, batchFile, StandardCopyOption.REPLACE_EXISTING);
+    return batchFile;
+  }
+
+  private String addBatchFile(
+      Path batchFile, Path binaryPath, String fingerprint, Set<Path> dependencies)
+      throws IOException {
+    // Don't leave a stale object file around if the batch fails to compile
+    Files.deleteIfExists(binaryPath);
+    batchFiles.put(batchFile, new BatchObject(binaryPath, fingerprint, dependencies));
+    return binaryPath.toString();
+  }
+
+  private String addBatchModule(
+      Path shadowFile,
+      Path binaryPath,
+      TACModule module,
+      String fingerprint,
+      Set<Path> dependencies)
+      throws IOException, CompileException {
+    Path batchFile = createBatchFile();
+    try {
+      writeIr(Files.newOutputStream(batchFile), module);
+    } catch (ShadowException e) {
+      logger.error("FAILED TO COMPILE " + shadowFile);
+      throw new CompileException(e.getMessage());
+    }
+    return addBatchFile(batchFile, binaryPath, fingerprint, dependencies);
   }
 
-  private String compileShadowFile(Path shadowFile, Path binaryPath, TACModule module)
-      throws CompileException, IOException {
+  /*
+   * Compiles all IR collected in batch mode with a single clang process
+   * and moves the resulting object files to their final locations.
+   */
+  private void compileBatch() throws IOException, CompileException, ConfigurationException {
+    if (batchFiles.isEmpty()) return;
+
+    logger.info("Compiling " + batchFiles.size() + " IR files");
+    List<String> command = getCompilerCommand();
+    for (Path batchFile : batchFiles.keySet()) command.add(batchFile.getFileName().toString());
+
+    boolean success = false;
+    Process compile = null;
+
+    try {
+      // Without -o, clang writes each object file to its working directory
+      compilation.getStats().count(Counter.CLANG_PROCESSES);
+      compile = startProcess(new ProcessBuilder(command).directory(batchDirectory.toFile()), false);
+      if (!waitForCompiler(compile, null)) throw new CompileException("FAILED TO COMPILE IR BATCH");
+
+      for (Entry<Path, BatchObject> entry : batchFiles.entrySet()) {
+        Path binaryPath = entry.getValue().binaryPath;
+        createDirectories(binaryPath);
+        Files.move(
+            BaseChecker.changeExtension(entry.getKey(), ".o"),
+            binaryPath,
+            StandardCopyOption.REPLACE_EXISTING);
+        BuildManifest.update(
+            binaryPath, entry.getValue().fingerprint, entry.getValue().dependencies);
+      }
+      success = true;
+    } catch (InterruptedException e) {
+      throw new CompileException("FAILED TO COMPILE IR BATCH");
+    } finally {
+      if (compile != null) compile.destroy();
+      if (!success) {
+        for (BatchObject object : batchFiles.values()) {
+          try {
+            Files.deleteIfExists(object.binaryPath);
+          } catch (IOException ignored) {
+          }
+        }
+      }
+      deleteBatchDirectory();
+    }
+  }
+
+  /*
+   * Removes the temporary directory holding IR for a batch. Also called after
+   * generation fails, when the batch is never compiled.
+   */
+  private void deleteBatchDirectory() {
+    if (batchDirectory != null) {
+      try (Stream<Path> stream = Files.list(batchDirectory)) {
+        for (Path file : stream.collect(Collectors.toList())) Files.deleteIfExists(file);
+        Files.deleteIfExists(batchDirectory);
+      } catch (IOException ignored) {
+      }
+    }
+    batchFiles.clear();
+    batchDirectory = null;
+  }
+
+  private String compileShadowFile(
+      Path shadowFile, Path binaryPath, TACModule module, Set<Path> dependencies)
+      throws CompileException, IOException, ConfigurationException {
+    // Recorded against the .shadow file, which is what the type collector checks
+    String fingerprint = BuildManifest.objectFingerprint(shadowFile);
+    if (compilation.getClassHierarchy() != null) {
+      // Devirtualized calls depend on every class in the program, so the object is only reused
+      // while the files of all of them are unchanged. A new class can only join the program
+      // through a change to a file that uses it.
+      dependencies = new HashSet<>(dependencies);
+      dependencies.addAll(programSources);
+    }
+    String binaryFile;
 
     if (humanReadable) {
+      Path irFile = BaseChecker.changeExtension(shadowFile, ".ll");
       try {
         // Generate LLVM IR
-        Path irFile = BaseChecker.changeExtension(shadowFile, ".ll");
-        OutputStream out = Files.newOutputStream(irFile);
-        IrOutput output = new IrOutput(new BufferedOutputStream(out));
-        output.build(module);
-        output.close();
-        out.close();
-        return compileIrFile(irFile, binaryPath);
+        writeIr(Files.newOutputStream(irFile), module);
       } catch (ShadowException e) {
         logger.error("FAILED TO COMPILE " + shadowFile);
         throw new CompileException(e.getMessage());
       }
-    } else return compileIrModule(shadowFile, binaryPath, module);
+
+      if (batch) return addBatchFile(copyToBatch(irFile), binaryPath, fingerprint, dependencies);
+      binaryFile = compileIrStream(Files.newInputStream(irFile), binaryPath);
+    } else if (batch)
+      return addBatchModule(shadowFile, binaryPath, module, fingerprint, dependencies);
+    else binaryFile = compileIrModule(shadowFile, binaryPath, module);
+
+    // Sources of inlined methods are part of the fingerprint of the object
+    BuildManifest.update(binaryPath, fingerprint, dependencies);
+    return binaryFile;
   }
 
   /*
@@ -808,6 +1318,16 @@ public class Main {
           }
         }
       }
+
+      // Done after the checks above, which should see the calls as written
+      CompilationContext compilation = CompilationContext.current();
+      ClassHierarchy hierarchy = compilation.getClassHierarchy();
+      if (hierarchy != null) {
+        int devirtualized = 0;
+        for (ControlFlowGraph graph : graphs)
+          devirtualized += hierarchy.devirtualize(graph.getMethod());
+        compilation.getStats().count(Counter.CALLS_DEVIRTUALIZED, devirtualized);
+      }
     }
 
     return module;
@@ -820,10 +1340,16 @@ public class Main {
   private static class Pipe extends Thread {
     private final InputStream input;
     private final OutputStream output;
+    private final boolean closeOutput;
 
     public Pipe(InputStream inputStream, OutputStream outputStream) {
+      this(inputStream, outputStream, true);
+    }
+
+    public Pipe(InputStream inputStream, OutputStream outputStream, boolean closeOutput) {
       input = inputStream;
       output = outputStream;
+      this.closeOutput = closeOutput;
     }
 
     @Override
@@ -833,7 +1359,10 @@ public class Main {
           byte[] buffer = new byte[8096];
           int read = input.read(buffer);
           while (read >= 0) {
-            output.write(buffer, 0, read);
+            // Other threads can share an output that isn't closed
+            synchronized (output) {
+              output.write(buffer, 0, read);
+            }
             read = input.read(buffer);
           }
         } finally {
@@ -845,9 +1374,11 @@ public class Main {
             output.flush();
           } catch (IOException ignored) {
           }
-          try {
-            output.close();
-          } catch (IOException ignored) {
+          if (closeOutput) {
+            try {
+              output.close();
+            } catch (IOException ignored) {
+            }
           }
         }
       } catch (IOException ignored) {
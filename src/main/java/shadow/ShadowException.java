@@ -7,21 +7,30 @@ import java.io.FileReader;
 import java.io.IOException;
 import java.nio.file.Path;
 
+/**
+ * Base class for the errors that the compiler reports about Shadow code.
+ *
+ * <p>These exceptions are diagnostics rather than signs of a bug in the compiler, so they do not
+ * record a Java stack trace. Their messages can also be given as a format with operands, such as
+ * types, which is only turned into text when the message is read. Many errors are created while
+ * trying out possibilities (such as overloads) and then thrown away without ever being shown.
+ */
 @SuppressWarnings("unused")
 public abstract class ShadowException extends Exception {
   private static final String EOL = System.getProperty("line.separator", "\n");
 
   private Context context;
   private final ShadowExceptionErrorKind kind;
+  private String message;
+  private final Object[] operands;
+  private boolean rendered = false;
 
   public ShadowException(String message) {
     this(message, null);
   }
 
   public ShadowException(String message, Context context) {
-    super(message);
-    this.context = context;
-    this.kind = null;
+    this(null, message, null, context);
   }
 
   public ShadowException(ShadowExceptionErrorKind kind, Context context) {
@@ -33,8 +42,23 @@ public abstract class ShadowException extends Exception {
   }
 
   public ShadowException(ShadowExceptionErrorKind kind, String message, Context context) {
-    super(message);
+    this(kind, message, null, context);
+  }
+
+  /**
+   * Creates an exception whose message is built from a format the first time it is needed.
+   *
+   * @param kind kind of error
+   * @param format message format, with <code>%s</code> for each operand
+   * @param operands values for the format, or <code>null</code> if the format is the message
+   * @param context context of error
+   */
+  public ShadowException(
+      ShadowExceptionErrorKind kind, String format, Object[] operands, Context context) {
+    super(null, null, true, false);
     this.kind = kind;
+    this.message = format;
+    this.operands = operands;
     this.context = context;
   }
 
@@ -43,8 +67,12 @@ public abstract class ShadowException extends Exception {
     return this;
   }
 
-  public String getMessageText() {
-    return super.getMessage();
+  public synchronized String getMessageText() {
+    if (operands != null && message != null && !rendered) {
+      message = String.format(message, operands);
+      rendered = true;
+    }
+    return message;
   }
 
   @Override
@@ -65,7 +93,7 @@ public abstract class ShadowException extends Exception {
       else message.append(" ");
 
       if (kind != null) message.append(kind.getName()).append(": ");
-      message.append(super.getMessage());
+      message.append(getMessageText());
 
       message.append(
           showCode(
@@ -76,7 +104,7 @@ public abstract class ShadowException extends Exception {
               context.columnEnd()));
     } else {
       if (kind != null) message.append(kind.getName()).append(": ");
-      message.append(super.getMessage());
+      message.append(getMessageText());
     }
 
     return message.toString();
@@ -100,7 +128,7 @@ public abstract class ShadowException extends Exception {
       else message.append(" ");
 
       if (kind != null) message.append(kind.getName()).append(": ");
-      message.append(super.getLocalizedMessage());
+      message.append(getMessageText());
 
       message.append(
           showCode(
@@ -111,7 +139,7 @@ public abstract class ShadowException extends Exception {
               context.columnEnd()));
     } else {
       if (kind != null) message.append(kind.getName()).append(": ");
-      message.append(super.getLocalizedMessage());
+      message.append(getMessageText());
     }
 
     return message.toString();
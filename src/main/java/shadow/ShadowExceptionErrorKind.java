@@ -11,6 +11,20 @@ public interface ShadowExceptionErrorKind {
 
   ShadowException getException(String message, Context context);
 
+  /**
+   * Gets an exception whose message is built from a format and its operands. Kinds of errors that
+   * are often created and then discarded can override this method to delay building the message
+   * until it is read.
+   *
+   * @param format message format, with <code>%s</code> for each operand
+   * @param operands values for the format
+   * @param context context of error
+   * @return exception for this kind of error
+   */
+  default ShadowException getException(String format, Object[] operands, Context context) {
+    return getException(String.format(format, operands), context);
+  }
+
   default ShadowException getException(String message) {
     return getException(message, null);
   }
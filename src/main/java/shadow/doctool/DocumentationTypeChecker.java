@@ -53,7 +53,8 @@ public class DocumentationTypeChecker {
     ErrorReporter reporter = new ErrorReporter(Loggers.DOC_TOOL);
 
     /* Collector looks over all files and creates types for everything needed. */
-    TypeCollector collector = new TypeCollector(packageTree, reporter, true);
+    CompilationContext compilation = CompilationContext.current();
+    TypeCollector collector = new TypeCollector(packageTree, reporter, true, compilation);
     /* Its return value maps all the types to their AST nodes. */
     Map<Type, Context> typeTable = collector.collectTypes(files);
 
@@ -66,7 +67,7 @@ public class DocumentationTypeChecker {
      *  All types with type parameters (except for declarations) are UninitializedTypes
      *  Extends and implements lists
      */
-    TypeUpdater updater = new TypeUpdater(packageTree, reporter, fileTable);
+    TypeUpdater updater = new TypeUpdater(packageTree, reporter, fileTable, compilation);
     updater.update(typeTable);
 
     /* Filter out only those types associated with the files being documented. */
@@ -1,6 +1,7 @@
 package shadow.doctool.output;
 
 import org.antlr.v4.runtime.tree.ParseTree;
+import shadow.CompilationContext;
 import shadow.ShadowException;
 import shadow.doctool.Documentation;
 import shadow.doctool.DocumentationException;
@@ -180,7 +181,7 @@ public class ClassOrInterfacePage extends Page {
         ArrayList<Type> bounds = new ArrayList<>();
         // Only put in class bound if not Object
         ClassType classType = param.getClassBound();
-        if (!classType.equals(Type.OBJECT)) bounds.add(classType);
+        if (!classType.equals(CompilationContext.current().OBJECT)) bounds.add(classType);
         for (Type bound : param.getBounds()) if (bound instanceof InterfaceType) bounds.add(bound);
 
         int j = 0;
@@ -2,6 +2,7 @@ package shadow.interpreter;
 
 import org.antlr.v4.runtime.CommonToken;
 import org.antlr.v4.runtime.Token;
+import shadow.CompilationContext;
 import shadow.ShadowException;
 import shadow.interpreter.InterpreterException.Error;
 import shadow.parse.Context;
@@ -31,7 +32,8 @@ public class ASTInterpreter extends ScopedChecker {
   private ShadowObject curObject;
 
   public ASTInterpreter(Package packageTree, ErrorReporter reporter) {
-    super(packageTree, reporter);
+    // Constants are interpreted while the compilation that needs them is running
+    super(packageTree, reporter, CompilationContext.current());
   }
 
   // Converts a Context object to a single "token" containing the same text.
@@ -525,7 +527,7 @@ public class ASTInterpreter extends ScopedChecker {
     ShadowValue value = ShadowValue.INVALID;
     Context parent = (Context) ctx.getParent();
 
-    if (prefixType.equals(Type.STRING)) {
+    if (prefixType.equals(compilation.STRING)) {
       if (ctx.conditionalExpression().size() == 0) value = new ShadowString("");
       else if (ctx.conditionalExpression().size() == 1
           && ctx.conditionalExpression(0).getInterpretedValue() instanceof ShadowString)
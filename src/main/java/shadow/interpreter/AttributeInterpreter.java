@@ -30,7 +30,12 @@ public class AttributeInterpreter extends ASTInterpreter {
     return ctx.getInterpretedValue();
   }
 
-  public static ShadowObject getAttributeInvocation(
+  /*
+   * Interpreting an invocation visits the nodes of the attribute's create, which are shared by
+   * every class that uses the attribute, so classes that are checked or generated concurrently
+   * take turns.
+   */
+  public static synchronized ShadowObject getAttributeInvocation(
       AttributeInvocation attribute, Package packageTree, ErrorReporter errorReporter)
       throws InterpreterException {
     if (attribute.getInvocationContext().getInterpretedValue() != null)
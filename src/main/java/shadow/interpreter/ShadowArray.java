@@ -1,5 +1,6 @@
 package shadow.interpreter;
 
+import shadow.CompilationContext;
 import shadow.Loggers;
 import shadow.typecheck.ErrorReporter;
 import shadow.typecheck.type.*;
@@ -52,7 +53,7 @@ public class ShadowArray extends ShadowObject {
       throws InterpreterException {
 
     if (method.equals("index") && values.length >= 1) {
-      ShadowInteger index = (ShadowInteger) values[0].cast(Type.INT);
+      ShadowInteger index = (ShadowInteger) values[0].cast(CompilationContext.current().INT);
       int location = index.getValue().intValue();
 
       if (location >= 0 && location < data.length) {
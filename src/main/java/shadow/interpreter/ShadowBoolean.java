@@ -1,5 +1,6 @@
 package shadow.interpreter;
 
+import shadow.CompilationContext;
 import shadow.typecheck.type.Modifiers;
 import shadow.typecheck.type.Type;
 
@@ -15,7 +16,7 @@ public class ShadowBoolean extends ShadowValue {
 
   @Override
   public Type getType() {
-    return Type.BOOLEAN;
+    return CompilationContext.current().BOOLEAN;
   }
 
   public boolean getValue() {
@@ -28,7 +29,7 @@ public class ShadowBoolean extends ShadowValue {
 
   @Override
   public ShadowValue cast(Type type) throws InterpreterException {
-    if (type.equals(Type.BOOLEAN)) return this;
+    if (type.equals(CompilationContext.current().BOOLEAN)) return this;
     throw new UnsupportedOperationException("Cannot cast " + getType() + " to " + type);
   }
 
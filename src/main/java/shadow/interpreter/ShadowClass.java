@@ -1,5 +1,6 @@
 package shadow.interpreter;
 
+import shadow.CompilationContext;
 import shadow.typecheck.type.*;
 
 import java.util.HashMap;
@@ -14,7 +15,9 @@ public class ShadowClass extends ShadowObject {
   private ShadowClass(Type representedType, boolean hasTypeParameters) {
     // TODO: Fill out all class fields?
     super(
-        hasTypeParameters ? Type.GENERIC_CLASS : Type.CLASS,
+        hasTypeParameters
+            ? CompilationContext.current().GENERIC_CLASS
+            : CompilationContext.current().CLASS,
         hasTypeParameters ? new ShadowClass(representedType, false) : ShadowObject.makeObject(),
         new HashMap<>());
     this.representedType = representedType;
@@ -52,12 +55,13 @@ public class ShadowClass extends ShadowObject {
   }
 
   public ShadowValue parent() throws InterpreterException {
+    CompilationContext compilation = CompilationContext.current();
     if (representedType instanceof ClassType classType) {
-      if (classType.getExtendType() == null) return new ShadowNull(Type.CLASS);
+      if (classType.getExtendType() == null) return new ShadowNull(compilation.CLASS);
       else return new ShadowClass(classType.getExtendType());
     }
 
-    return new ShadowNull(Type.CLASS);
+    return new ShadowNull(compilation.CLASS);
   }
 
   public ShadowBoolean isInterface() {
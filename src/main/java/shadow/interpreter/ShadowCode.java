@@ -1,5 +1,6 @@
 package shadow.interpreter;
 
+import shadow.CompilationContext;
 import shadow.interpreter.InterpreterException.Error;
 import shadow.typecheck.type.Modifiers;
 import shadow.typecheck.type.Type;
@@ -17,7 +18,7 @@ public class ShadowCode extends ShadowNumber {
 
   @Override
   public Type getType() {
-    return Type.CODE;
+    return CompilationContext.current().CODE;
   }
 
   public int getValue() {
@@ -26,18 +27,26 @@ public class ShadowCode extends ShadowNumber {
 
   @Override
   public ShadowValue cast(Type type) throws InterpreterException {
-    if (type.equals(Type.CODE)) return this;
-    if (type.equals(Type.BYTE)) return new ShadowInteger(BigInteger.valueOf(getValue()), 1, true);
-    if (type.equals(Type.SHORT)) return new ShadowInteger(BigInteger.valueOf(getValue()), 2, true);
-    if (type.equals(Type.INT)) return new ShadowInteger(BigInteger.valueOf(getValue()), 4, true);
-    if (type.equals(Type.LONG)) return new ShadowInteger(BigInteger.valueOf(getValue()), 8, true);
-    if (type.equals(Type.UBYTE)) return new ShadowInteger(BigInteger.valueOf(getValue()), 1, false);
-    if (type.equals(Type.USHORT))
+    CompilationContext compilation = CompilationContext.current();
+    if (type.equals(compilation.CODE)) return this;
+    if (type.equals(compilation.BYTE))
+      return new ShadowInteger(BigInteger.valueOf(getValue()), 1, true);
+    if (type.equals(compilation.SHORT))
+      return new ShadowInteger(BigInteger.valueOf(getValue()), 2, true);
+    if (type.equals(compilation.INT))
+      return new ShadowInteger(BigInteger.valueOf(getValue()), 4, true);
+    if (type.equals(compilation.LONG))
+      return new ShadowInteger(BigInteger.valueOf(getValue()), 8, true);
+    if (type.equals(compilation.UBYTE))
+      return new ShadowInteger(BigInteger.valueOf(getValue()), 1, false);
+    if (type.equals(compilation.USHORT))
       return new ShadowInteger(BigInteger.valueOf(getValue()), 2, false);
-    if (type.equals(Type.UINT)) return new ShadowInteger(BigInteger.valueOf(getValue()), 4, false);
-    if (type.equals(Type.ULONG)) return new ShadowInteger(BigInteger.valueOf(getValue()), 8, false);
-    if (type.equals(Type.FLOAT)) return new ShadowFloat(getValue());
-    if (type.equals(Type.DOUBLE)) return new ShadowDouble(getValue());
+    if (type.equals(compilation.UINT))
+      return new ShadowInteger(BigInteger.valueOf(getValue()), 4, false);
+    if (type.equals(compilation.ULONG))
+      return new ShadowInteger(BigInteger.valueOf(getValue()), 8, false);
+    if (type.equals(compilation.FLOAT)) return new ShadowFloat(getValue());
+    if (type.equals(compilation.DOUBLE)) return new ShadowDouble(getValue());
     throw new UnsupportedOperationException("Cannot cast " + getType() + " to " + type);
   }
 
@@ -1,5 +1,6 @@
 package shadow.interpreter;
 
+import shadow.CompilationContext;
 import shadow.interpreter.InterpreterException.Error;
 import shadow.typecheck.type.Modifiers;
 import shadow.typecheck.type.Type;
@@ -17,7 +18,7 @@ public class ShadowDouble extends ShadowNumeric {
 
   @Override
   public Type getType() {
-    return Type.DOUBLE;
+    return CompilationContext.current().DOUBLE;
   }
 
   public double getValue() {
@@ -48,18 +49,19 @@ public class ShadowDouble extends ShadowNumeric {
 
   @Override
   public ShadowValue cast(Type type) throws InterpreterException {
+    CompilationContext compilation = CompilationContext.current();
     BigInteger integer = BigInteger.valueOf(Math.round(value));
-    if (type.equals(Type.BYTE)) return new ShadowInteger(integer, 1, true);
-    if (type.equals(Type.SHORT)) return new ShadowInteger(integer, 2, true);
-    if (type.equals(Type.INT)) return new ShadowInteger(integer, 4, true);
-    if (type.equals(Type.LONG)) return new ShadowInteger(integer, 8, true);
-    if (type.equals(Type.UBYTE)) return new ShadowInteger(integer, 1, false);
-    if (type.equals(Type.USHORT)) return new ShadowInteger(integer, 2, false);
-    if (type.equals(Type.UINT)) return new ShadowInteger(integer, 4, false);
-    if (type.equals(Type.ULONG)) return new ShadowInteger(integer, 8, false);
-    if (type.equals(Type.FLOAT)) return new ShadowFloat((float) getValue());
-    if (type.equals(Type.DOUBLE)) return this;
-    if (type.equals(Type.CODE)) return new ShadowCode(integer.intValue());
+    if (type.equals(compilation.BYTE)) return new ShadowInteger(integer, 1, true);
+    if (type.equals(compilation.SHORT)) return new ShadowInteger(integer, 2, true);
+    if (type.equals(compilation.INT)) return new ShadowInteger(integer, 4, true);
+    if (type.equals(compilation.LONG)) return new ShadowInteger(integer, 8, true);
+    if (type.equals(compilation.UBYTE)) return new ShadowInteger(integer, 1, false);
+    if (type.equals(compilation.USHORT)) return new ShadowInteger(integer, 2, false);
+    if (type.equals(compilation.UINT)) return new ShadowInteger(integer, 4, false);
+    if (type.equals(compilation.ULONG)) return new ShadowInteger(integer, 8, false);
+    if (type.equals(compilation.FLOAT)) return new ShadowFloat((float) getValue());
+    if (type.equals(compilation.DOUBLE)) return this;
+    if (type.equals(compilation.CODE)) return new ShadowCode(integer.intValue());
     return this;
   }
 
@@ -214,7 +216,7 @@ public class ShadowDouble extends ShadowNumeric {
 
   @Override
   public ShadowDouble power(ShadowNumber number) throws InterpreterException {
-    double exponent = ((ShadowDouble) number.cast(Type.DOUBLE)).getValue();
+    double exponent = ((ShadowDouble) number.cast(CompilationContext.current().DOUBLE)).getValue();
     return new ShadowDouble(Math.pow(value, exponent));
   }
 
@@ -240,13 +242,13 @@ public class ShadowDouble extends ShadowNumeric {
 
   @Override
   public ShadowDouble max(ShadowNumber number) throws InterpreterException {
-    double other = ((ShadowDouble) number.cast(Type.DOUBLE)).getValue();
+    double other = ((ShadowDouble) number.cast(CompilationContext.current().DOUBLE)).getValue();
     return new ShadowDouble(Math.max(value, other));
   }
 
   @Override
   public ShadowDouble min(ShadowNumber number) throws InterpreterException {
-    double other = ((ShadowDouble) number.cast(Type.DOUBLE)).getValue();
+    double other = ((ShadowDouble) number.cast(CompilationContext.current().DOUBLE)).getValue();
     return new ShadowDouble(Math.min(value, other));
   }
 
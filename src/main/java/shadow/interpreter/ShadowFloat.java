@@ -1,5 +1,6 @@
 package shadow.interpreter;
 
+import shadow.CompilationContext;
 import shadow.interpreter.InterpreterException.Error;
 import shadow.typecheck.type.Modifiers;
 import shadow.typecheck.type.Type;
@@ -17,7 +18,7 @@ public class ShadowFloat extends ShadowNumeric {
 
   @Override
   public Type getType() {
-    return Type.FLOAT;
+    return CompilationContext.current().FLOAT;
   }
 
   public float getValue() {
@@ -48,19 +49,20 @@ public class ShadowFloat extends ShadowNumeric {
 
   @Override
   public ShadowValue cast(Type type) throws InterpreterException {
+    CompilationContext compilation = CompilationContext.current();
     BigInteger integer = BigInteger.valueOf(Math.round((double) value));
 
-    if (type.equals(Type.BYTE)) return new ShadowInteger(integer, 1, true);
-    if (type.equals(Type.SHORT)) return new ShadowInteger(integer, 2, true);
-    if (type.equals(Type.INT)) return new ShadowInteger(integer, 4, true);
-    if (type.equals(Type.LONG)) return new ShadowInteger(integer, 8, true);
-    if (type.equals(Type.UBYTE)) return new ShadowInteger(integer, 1, false);
-    if (type.equals(Type.USHORT)) return new ShadowInteger(integer, 2, false);
-    if (type.equals(Type.UINT)) return new ShadowInteger(integer, 4, false);
-    if (type.equals(Type.ULONG)) return new ShadowInteger(integer, 8, false);
-    if (type.equals(Type.FLOAT)) return this;
-    if (type.equals(Type.DOUBLE)) return new ShadowDouble(getValue());
-    if (type.equals(Type.CODE)) return new ShadowCode(integer.intValue());
+    if (type.equals(compilation.BYTE)) return new ShadowInteger(integer, 1, true);
+    if (type.equals(compilation.SHORT)) return new ShadowInteger(integer, 2, true);
+    if (type.equals(compilation.INT)) return new ShadowInteger(integer, 4, true);
+    if (type.equals(compilation.LONG)) return new ShadowInteger(integer, 8, true);
+    if (type.equals(compilation.UBYTE)) return new ShadowInteger(integer, 1, false);
+    if (type.equals(compilation.USHORT)) return new ShadowInteger(integer, 2, false);
+    if (type.equals(compilation.UINT)) return new ShadowInteger(integer, 4, false);
+    if (type.equals(compilation.ULONG)) return new ShadowInteger(integer, 8, false);
+    if (type.equals(compilation.FLOAT)) return this;
+    if (type.equals(compilation.DOUBLE)) return new ShadowDouble(getValue());
+    if (type.equals(compilation.CODE)) return new ShadowCode(integer.intValue());
 
     throw new UnsupportedOperationException("Cannot cast " + getType() + " to " + type);
   }
@@ -215,7 +217,7 @@ public class ShadowFloat extends ShadowNumeric {
 
   @Override
   public ShadowFloat power(ShadowNumber number) throws InterpreterException {
-    double exponent = ((ShadowDouble) number.cast(Type.DOUBLE)).getValue();
+    double exponent = ((ShadowDouble) number.cast(CompilationContext.current().DOUBLE)).getValue();
     return new ShadowFloat((float) Math.pow(value, exponent));
   }
 
@@ -241,13 +243,13 @@ public class ShadowFloat extends ShadowNumeric {
 
   @Override
   public ShadowFloat max(ShadowNumber number) throws InterpreterException {
-    float other = ((ShadowFloat) number.cast(Type.FLOAT)).getValue();
+    float other = ((ShadowFloat) number.cast(CompilationContext.current().FLOAT)).getValue();
     return new ShadowFloat(Math.max(value, other));
   }
 
   @Override
   public ShadowFloat min(ShadowNumber number) throws InterpreterException {
-    float other = ((ShadowFloat) number.cast(Type.FLOAT)).getValue();
+    float other = ((ShadowFloat) number.cast(CompilationContext.current().FLOAT)).getValue();
     return new ShadowFloat(Math.min(value, other));
   }
 
@@ -1,5 +1,6 @@
 package shadow.interpreter;
 
+import shadow.CompilationContext;
 import shadow.interpreter.InterpreterException.Error;
 import shadow.typecheck.type.Modifiers;
 import shadow.typecheck.type.Type;
@@ -129,27 +130,28 @@ public class ShadowInteger extends ShadowNumeric {
 
   @Override
   public Type getType() {
+    CompilationContext compilation = CompilationContext.current();
     if (signed) {
       switch (size) {
         case 1:
-          return Type.BYTE;
+          return compilation.BYTE;
         case 2:
-          return Type.SHORT;
+          return compilation.SHORT;
         case 4:
-          return Type.INT;
+          return compilation.INT;
         case 8:
-          return Type.LONG;
+          return compilation.LONG;
       }
     } else {
       switch (size) {
         case 1:
-          return Type.UBYTE;
+          return compilation.UBYTE;
         case 2:
-          return Type.USHORT;
+          return compilation.USHORT;
         case 4:
-          return Type.UINT;
+          return compilation.UINT;
         case 8:
-          return Type.ULONG;
+          return compilation.ULONG;
       }
     }
 
@@ -198,18 +200,19 @@ public class ShadowInteger extends ShadowNumeric {
 
   @Override
   public ShadowValue cast(Type type) throws InterpreterException {
+    CompilationContext compilation = CompilationContext.current();
     if (type.equals(getType())) return this;
-    if (type.equals(Type.BYTE)) return new ShadowInteger(value, 1, true);
-    if (type.equals(Type.SHORT)) return new ShadowInteger(value, 2, true);
-    if (type.equals(Type.INT)) return new ShadowInteger(value, 4, true);
-    if (type.equals(Type.LONG)) return new ShadowInteger(value, 8, true);
-    if (type.equals(Type.UBYTE)) return new ShadowInteger(value, 1, false);
-    if (type.equals(Type.USHORT)) return new ShadowInteger(value, 2, false);
-    if (type.equals(Type.UINT)) return new ShadowInteger(value, 4, false);
-    if (type.equals(Type.ULONG)) return new ShadowInteger(value, 8, false);
-    if (type.equals(Type.DOUBLE)) return new ShadowDouble(value.doubleValue());
-    if (type.equals(Type.FLOAT)) return new ShadowFloat(value.floatValue());
-    if (type.equals(Type.CODE)) return new ShadowCode(value.intValue());
+    if (type.equals(compilation.BYTE)) return new ShadowInteger(value, 1, true);
+    if (type.equals(compilation.SHORT)) return new ShadowInteger(value, 2, true);
+    if (type.equals(compilation.INT)) return new ShadowInteger(value, 4, true);
+    if (type.equals(compilation.LONG)) return new ShadowInteger(value, 8, true);
+    if (type.equals(compilation.UBYTE)) return new ShadowInteger(value, 1, false);
+    if (type.equals(compilation.USHORT)) return new ShadowInteger(value, 2, false);
+    if (type.equals(compilation.UINT)) return new ShadowInteger(value, 4, false);
+    if (type.equals(compilation.ULONG)) return new ShadowInteger(value, 8, false);
+    if (type.equals(compilation.DOUBLE)) return new ShadowDouble(value.doubleValue());
+    if (type.equals(compilation.FLOAT)) return new ShadowFloat(value.floatValue());
+    if (type.equals(compilation.CODE)) return new ShadowCode(value.intValue());
     throw new InterpreterException(
         Error.MISMATCHED_TYPE, "Cannot cast " + getType() + " to " + type);
   }
@@ -415,12 +418,14 @@ public class ShadowInteger extends ShadowNumeric {
 
   @Override
   public ShadowInteger hash() throws InterpreterException {
-    if (size < 8) return (ShadowInteger) cast(Type.UINT);
+    CompilationContext compilation = CompilationContext.current();
+    if (size < 8) return (ShadowInteger) cast(compilation.UINT);
 
-    ShadowInteger first = (ShadowInteger) cast(Type.UINT);
+    ShadowInteger first = (ShadowInteger) cast(compilation.UINT);
     ShadowInteger second =
         (ShadowInteger)
-            bitShiftRight(new ShadowInteger(BigInteger.valueOf(32), 4, false)).cast(Type.UINT);
+            bitShiftRight(new ShadowInteger(BigInteger.valueOf(32), 4, false))
+                .cast(compilation.UINT);
 
     return first.bitwiseXor(second);
   }
@@ -501,7 +506,7 @@ public class ShadowInteger extends ShadowNumeric {
 
   @Override
   public ShadowDouble power(ShadowNumber number) throws InterpreterException {
-    double exponent = ((ShadowDouble) number.cast(Type.DOUBLE)).getValue();
+    double exponent = ((ShadowDouble) number.cast(CompilationContext.current().DOUBLE)).getValue();
     return new ShadowDouble(Math.pow(value.doubleValue(), exponent));
   }
 
@@ -1,5 +1,6 @@
 package shadow.interpreter;
 
+import shadow.CompilationContext;
 import shadow.typecheck.type.Type;
 
 public abstract class ShadowNumber extends ShadowValue {
@@ -48,47 +49,47 @@ public abstract class ShadowNumber extends ShadowValue {
   }
 
   public ShadowNumber toByte() throws InterpreterException {
-    return (ShadowNumber) cast(Type.BYTE);
+    return (ShadowNumber) cast(CompilationContext.current().BYTE);
   }
 
   public ShadowNumber toUByte() throws InterpreterException {
-    return (ShadowNumber) cast(Type.UBYTE);
+    return (ShadowNumber) cast(CompilationContext.current().UBYTE);
   }
 
   public ShadowNumber toShort() throws InterpreterException {
-    return (ShadowNumber) cast(Type.SHORT);
+    return (ShadowNumber) cast(CompilationContext.current().SHORT);
   }
 
   public ShadowNumber toUShort() throws InterpreterException {
-    return (ShadowNumber) cast(Type.USHORT);
+    return (ShadowNumber) cast(CompilationContext.current().USHORT);
   }
 
   public ShadowNumber toInt() throws InterpreterException {
-    return (ShadowNumber) cast(Type.INT);
+    return (ShadowNumber) cast(CompilationContext.current().INT);
   }
 
   public ShadowNumber toUInt() throws InterpreterException {
-    return (ShadowNumber) cast(Type.UINT);
+    return (ShadowNumber) cast(CompilationContext.current().UINT);
   }
 
   public ShadowNumber toLong() throws InterpreterException {
-    return (ShadowNumber) cast(Type.LONG);
+    return (ShadowNumber) cast(CompilationContext.current().LONG);
   }
 
   public ShadowNumber toULong() throws InterpreterException {
-    return (ShadowNumber) cast(Type.ULONG);
+    return (ShadowNumber) cast(CompilationContext.current().ULONG);
   }
 
   public ShadowNumber toCode() throws InterpreterException {
-    return (ShadowNumber) cast(Type.CODE);
+    return (ShadowNumber) cast(CompilationContext.current().CODE);
   }
 
   public ShadowNumber toFloat() throws InterpreterException {
-    return (ShadowNumber) cast(Type.FLOAT);
+    return (ShadowNumber) cast(CompilationContext.current().FLOAT);
   }
 
   public ShadowNumber toDouble() throws InterpreterException {
-    return (ShadowNumber) cast(Type.DOUBLE);
+    return (ShadowNumber) cast(CompilationContext.current().DOUBLE);
   }
 
   public ShadowNumber max(ShadowNumber number) throws InterpreterException {
@@ -1,5 +1,6 @@
 package shadow.interpreter;
 
+import shadow.CompilationContext;
 import shadow.Loggers;
 import shadow.interpreter.InterpreterException.Error;
 import shadow.typecheck.ErrorReporter;
@@ -13,7 +14,7 @@ public class ShadowObject extends ShadowValue {
   private final ShadowObject parent;
 
   public static ShadowObject makeObject() {
-    return new ShadowObject(Type.OBJECT, null, new HashMap<>());
+    return new ShadowObject(CompilationContext.current().OBJECT, null, new HashMap<>());
   }
 
   public ShadowObject(ClassType type, ShadowObject parent, Map<String, ShadowValue> fields) {
@@ -89,7 +90,7 @@ public class ShadowObject extends ShadowValue {
       throw new InterpreterException(
           Error.INVALID_METHOD, "Method " + method + "." + arguments + " not interpretable");
 
-    if (signature.getOuter().equals(Type.OBJECT) && values.length == 0) {
+    if (signature.getOuter().equals(CompilationContext.current().OBJECT) && values.length == 0) {
       switch (method) {
         case "getClass":
           return new ShadowClass[] {new ShadowClass(type)};
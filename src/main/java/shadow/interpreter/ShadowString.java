@@ -1,5 +1,6 @@
 package shadow.interpreter;
 
+import shadow.CompilationContext;
 import shadow.interpreter.InterpreterException.Error;
 import shadow.tac.nodes.TACCall;
 import shadow.tac.nodes.TACLiteral;
@@ -18,7 +19,7 @@ public class ShadowString extends ShadowObject {
   private final String value;
 
   public ShadowString(String value) {
-    super(Type.STRING, makeObject(), new HashMap<>());
+    super(CompilationContext.current().STRING, makeObject(), new HashMap<>());
     this.value = value;
   }
 
@@ -27,21 +28,28 @@ public class ShadowString extends ShadowObject {
   }
 
   public ShadowValue convert(Type type) throws InterpreterException {
-    if (type.equals(Type.STRING)) return this;
+    CompilationContext compilation = CompilationContext.current();
+    if (type.equals(compilation.STRING)) return this;
 
-    if (type.equals(Type.BYTE)) return new ShadowInteger(new BigInteger(value), 1, true);
-    else if (type.equals(Type.SHORT)) return new ShadowInteger(new BigInteger(value), 2, true);
-    else if (type.equals(Type.INT)) return new ShadowInteger(new BigInteger(value), 4, true);
-    else if (type.equals(Type.LONG)) return new ShadowInteger(new BigInteger(value), 8, true);
-    else if (type.equals(Type.UBYTE)) return new ShadowInteger(new BigInteger(value), 1, false);
-    else if (type.equals(Type.USHORT)) return new ShadowInteger(new BigInteger(value), 2, false);
-    else if (type.equals(Type.UINT)) return new ShadowInteger(new BigInteger(value), 4, false);
-    else if (type.equals(Type.ULONG)) return new ShadowInteger(new BigInteger(value), 8, false);
-    else if (type.equals(Type.DOUBLE)) return new ShadowDouble(Double.parseDouble(value));
-    else if (type.equals(Type.FLOAT)) return new ShadowFloat(Float.parseFloat(value));
+    if (type.equals(compilation.BYTE)) return new ShadowInteger(new BigInteger(value), 1, true);
+    else if (type.equals(compilation.SHORT))
+      return new ShadowInteger(new BigInteger(value), 2, true);
+    else if (type.equals(compilation.INT)) return new ShadowInteger(new BigInteger(value), 4, true);
+    else if (type.equals(compilation.LONG))
+      return new ShadowInteger(new BigInteger(value), 8, true);
+    else if (type.equals(compilation.UBYTE))
+      return new ShadowInteger(new BigInteger(value), 1, false);
+    else if (type.equals(compilation.USHORT))
+      return new ShadowInteger(new BigInteger(value), 2, false);
+    else if (type.equals(compilation.UINT))
+      return new ShadowInteger(new BigInteger(value), 4, false);
+    else if (type.equals(compilation.ULONG))
+      return new ShadowInteger(new BigInteger(value), 8, false);
+    else if (type.equals(compilation.DOUBLE)) return new ShadowDouble(Double.parseDouble(value));
+    else if (type.equals(compilation.FLOAT)) return new ShadowFloat(Float.parseFloat(value));
 
     throw new InterpreterException(
-        Error.MISMATCHED_TYPE, "Cannot convert type " + Type.STRING + " to " + type);
+        Error.MISMATCHED_TYPE, "Cannot convert type " + compilation.STRING + " to " + type);
   }
 
   @Override
@@ -131,7 +139,8 @@ public class ShadowString extends ShadowObject {
   }
 
   public static boolean isSupportedMethod(MethodSignature signature) {
-    if (signature.getOuter().equals(Type.STRING)) {
+    CompilationContext compilation = CompilationContext.current();
+    if (signature.getOuter().equals(compilation.STRING)) {
       switch (signature.getSymbol()) {
         case "index":
         case "size":
@@ -156,7 +165,7 @@ public class ShadowString extends ShadowObject {
           return true;
 
         case "concatenate":
-          return signature.getParameterTypes().get(0).getType().equals(Type.STRING);
+          return signature.getParameterTypes().get(0).getType().equals(compilation.STRING);
       }
     }
 
@@ -166,6 +175,7 @@ public class ShadowString extends ShadowObject {
   @Override
   public ShadowValue[] callMethod(String method, ShadowValue... arguments)
       throws InterpreterException {
+    CompilationContext compilation = CompilationContext.current();
     if (arguments.length == 0) {
       switch (method) {
         case "size":
@@ -179,25 +189,25 @@ public class ShadowString extends ShadowObject {
         case "toString":
           return new ShadowString[] {this};
         case "toByte":
-          return new ShadowValue[] {convert(Type.BYTE)};
+          return new ShadowValue[] {convert(compilation.BYTE)};
         case "toUByte":
-          return new ShadowValue[] {convert(Type.UBYTE)};
+          return new ShadowValue[] {convert(compilation.UBYTE)};
         case "toShort":
-          return new ShadowValue[] {convert(Type.SHORT)};
+          return new ShadowValue[] {convert(compilation.SHORT)};
         case "toUShort":
-          return new ShadowValue[] {convert(Type.USHORT)};
+          return new ShadowValue[] {convert(compilation.USHORT)};
         case "toInt":
-          return new ShadowValue[] {convert(Type.INT)};
+          return new ShadowValue[] {convert(compilation.INT)};
         case "toUInt":
-          return new ShadowValue[] {convert(Type.UINT)};
+          return new ShadowValue[] {convert(compilation.UINT)};
         case "toLong":
-          return new ShadowValue[] {convert(Type.LONG)};
+          return new ShadowValue[] {convert(compilation.LONG)};
         case "toULong":
-          return new ShadowValue[] {convert(Type.ULONG)};
+          return new ShadowValue[] {convert(compilation.ULONG)};
         case "toFloat":
-          return new ShadowValue[] {convert(Type.FLOAT)};
+          return new ShadowValue[] {convert(compilation.FLOAT)};
         case "toDouble":
-          return new ShadowValue[] {convert(Type.DOUBLE)};
+          return new ShadowValue[] {convert(compilation.DOUBLE)};
       }
     } else if (arguments.length == 1) {
       switch (method) {
@@ -1,5 +1,6 @@
 package shadow.interpreter;
 
+import shadow.CompilationContext;
 import shadow.interpreter.InterpreterException.Error;
 import shadow.typecheck.type.ModifiedType;
 import shadow.typecheck.type.Modifiers;
@@ -280,22 +281,29 @@ public abstract class ShadowValue implements ModifiedType {
    * @throws InterpreterException thrown if no default value is supported
    */
   public static ShadowValue getDefault(ModifiedType modifiedType) throws InterpreterException {
+    CompilationContext compilation = CompilationContext.current();
     if (modifiedType.getModifiers().isNullable()) return new ShadowNull(modifiedType.getType());
 
     Type type = modifiedType.getType();
 
-    if (type.equals(Type.BOOLEAN)) return new ShadowBoolean(false);
-    else if (type.equals(Type.CODE)) return new ShadowCode(0);
-    else if (type.equals(Type.DOUBLE)) return new ShadowDouble(0.0);
-    else if (type.equals(Type.FLOAT)) return new ShadowFloat(0.0f);
-    else if (type.equals(Type.BYTE)) return new ShadowInteger(BigInteger.valueOf(0), 1, true);
-    else if (type.equals(Type.SHORT)) return new ShadowInteger(BigInteger.valueOf(0), 2, true);
-    else if (type.equals(Type.INT)) return new ShadowInteger(0);
-    else if (type.equals(Type.LONG)) return new ShadowInteger(0L);
-    else if (type.equals(Type.UBYTE)) return new ShadowInteger(BigInteger.valueOf(0), 1, false);
-    else if (type.equals(Type.USHORT)) return new ShadowInteger(BigInteger.valueOf(0), 2, false);
-    else if (type.equals(Type.UINT)) return new ShadowInteger(BigInteger.valueOf(0), 4, false);
-    else if (type.equals(Type.ULONG)) return new ShadowInteger(BigInteger.valueOf(0), 8, false);
+    if (type.equals(compilation.BOOLEAN)) return new ShadowBoolean(false);
+    else if (type.equals(compilation.CODE)) return new ShadowCode(0);
+    else if (type.equals(compilation.DOUBLE)) return new ShadowDouble(0.0);
+    else if (type.equals(compilation.FLOAT)) return new ShadowFloat(0.0f);
+    else if (type.equals(compilation.BYTE))
+      return new ShadowInteger(BigInteger.valueOf(0), 1, true);
+    else if (type.equals(compilation.SHORT))
+      return new ShadowInteger(BigInteger.valueOf(0), 2, true);
+    else if (type.equals(compilation.INT)) return new ShadowInteger(0);
+    else if (type.equals(compilation.LONG)) return new ShadowInteger(0L);
+    else if (type.equals(compilation.UBYTE))
+      return new ShadowInteger(BigInteger.valueOf(0), 1, false);
+    else if (type.equals(compilation.USHORT))
+      return new ShadowInteger(BigInteger.valueOf(0), 2, false);
+    else if (type.equals(compilation.UINT))
+      return new ShadowInteger(BigInteger.valueOf(0), 4, false);
+    else if (type.equals(compilation.ULONG))
+      return new ShadowInteger(BigInteger.valueOf(0), 8, false);
 
     throw new InterpreterException(Error.INVALID_TYPE, "Unsupported type " + type);
   }
@@ -1,5 +1,6 @@
 package shadow.interpreter;
 
+import shadow.CompilationContext;
 import shadow.ShadowException;
 import shadow.interpreter.InterpreterException.Error;
 import shadow.tac.TACAbstractVisitor;
@@ -38,8 +39,20 @@ public class TACInterpreter extends TACAbstractVisitor {
   }
 
   public static ShadowValue evaluate(TACUnary node) throws ShadowException {
+    return evaluate(node, value(TACOperand.value(node.getOperand())));
+  }
+
+  /**
+   * Evaluates a unary operation on a value that is already known, such as a constant found while
+   * optimizing.
+   *
+   * @param node operation to evaluate
+   * @param op value of its operand
+   * @return result of the operation
+   * @throws ShadowException thrown if the operation cannot be performed on the value
+   */
+  public static ShadowValue evaluate(TACUnary node, ShadowValue op) throws ShadowException {
     ShadowValue data = null;
-    ShadowValue op = value(TACOperand.value(node.getOperand()));
 
     switch (node.getOperation()) {
       case "-" -> data = op.negate();
@@ -57,9 +70,25 @@ public class TACInterpreter extends TACAbstractVisitor {
   }
 
   public static ShadowValue evaluate(TACBinary node) throws ShadowException {
+    return evaluate(
+        node,
+        value(TACOperand.value(node.getFirst())),
+        value(TACOperand.value(node.getSecond())));
+  }
+
+  /**
+   * Evaluates a binary operation on values that are already known, such as constants found while
+   * optimizing.
+   *
+   * @param node operation to evaluate
+   * @param left value of its first operand
+   * @param right value of its second operand
+   * @return result of the operation
+   * @throws ShadowException thrown if the operation cannot be performed on the values
+   */
+  public static ShadowValue evaluate(TACBinary node, ShadowValue left, ShadowValue right)
+      throws ShadowException {
     ShadowValue data = null;
-    ShadowValue left = value(TACOperand.value(node.getFirst())),
-        right = value(TACOperand.value(node.getSecond()));
 
     switch (node.getOperation()) {
       case "+", "-", "*", "/", "%", "|", "&", "^", "==", "===", "!=", "<", "<=", ">", ">=" -> {
@@ -204,7 +233,7 @@ public class TACInterpreter extends TACAbstractVisitor {
       if (signature.isCreate()) {
 
         // must be String
-        if (!signature.getOuter().equals(Type.STRING))
+        if (!signature.getOuter().equals(CompilationContext.current().STRING))
           throw new InterpreterException(
               Error.UNSUPPORTED_OPERATION, "Cannot call method " + signature);
         else {
@@ -235,7 +264,7 @@ public class TACInterpreter extends TACAbstractVisitor {
 
   @Override
   public void visit(TACNewObject node) throws ShadowException {
-    if (!node.getClassType().equals(Type.STRING))
+    if (!node.getClassType().equals(CompilationContext.current().STRING))
       throw new InterpreterException(
           Error.INVALID_CREATE, "Cannot create non-String type " + node.getClassType());
   }
@@ -1,5 +1,6 @@
 package shadow.output.llvm;
 
+import shadow.CompilationContext;
 import shadow.Configuration;
 import shadow.ShadowException;
 import shadow.interpreter.*;
@@ -23,17 +24,27 @@ public class IrOutput extends AbstractOutput {
   private int classCounter = 0;
   private final HashSet<MethodSignature> usedSignatures = new HashSet<>();
   private final Set<ExceptionType> exceptions = new TreeSet<>();
+  // Interface calls that check for their expected methods, with names for their blocks
+  private final Map<TACCall, String> guards = new HashMap<>();
+  // Blocks split by those checks, with the last checked call in each
+  private final Map<TACLabel, TACCall> guardedBlocks = new HashMap<>();
+  private int guardCounter = 0;
+  // Label of the block being written
+  private TACLabel currentLabel = null;
 
   private TACModule module;
   private boolean skipMethod = false;
+  private final CompilationContext compilation;
 
   @SuppressWarnings("unused")
-  public IrOutput(Path file) throws ShadowException {
+  public IrOutput(Path file, CompilationContext compilation) throws ShadowException {
     super(file);
+    this.compilation = compilation;
   }
 
-  public IrOutput(OutputStream stream) {
+  public IrOutput(OutputStream stream, CompilationContext compilation) {
     super(stream);
+    this.compilation = compilation;
   }
 
   private String temp(int offset) {
@@ -85,13 +96,17 @@ public class IrOutput extends AbstractOutput {
     writer.write("%double = type double");
   }
 
-  private Set<Type> writeUsedTypes() throws ShadowException {
+  /*
+   * Returns the ids of the unparameterized generic types that have been defined, since each one
+   * only needs to be defined once per module.
+   */
+  private BitSet writeUsedTypes() throws ShadowException {
     writePrimitiveTypes();
 
     Type moduleType = module.getType();
 
     // type references for regular types
-    HashSet<Type> definedGenerics = new HashSet<>();
+    BitSet definedGenerics = new BitSet();
     for (Type type : moduleType.getUsedTypes()) {
       if (!type.isParameterized()
           && !(type instanceof ArrayType)
@@ -100,7 +115,7 @@ public class IrOutput extends AbstractOutput {
 
         // external stuff for types outside of this file
         if (!moduleType.encloses(type)) {
-          writer.write(classOf(type) + " = external constant %" + raw(Type.CLASS));
+          writer.write(classOf(type) + " = external constant %" + raw(compilation.CLASS));
           if (type instanceof ClassType)
             writer.write(
                 methodTable(type) + " = external constant " + methodTableType(type, false));
@@ -119,7 +134,7 @@ public class IrOutput extends AbstractOutput {
     return definedGenerics;
   }
 
-  private void writeMentionedTypes(Set<Type> definedGenerics) throws ShadowException {
+  private void writeMentionedTypes(BitSet definedGenerics) throws ShadowException {
     Type moduleType = module.getType();
 
     for (Type type : moduleType.getMentionedTypes()) {
@@ -132,11 +147,12 @@ public class IrOutput extends AbstractOutput {
 
           // external stuff for types outside of this file
           if (!moduleType.encloses(type))
-            writer.write(classOf(type) + " = external constant %" + raw(Type.CLASS));
+            writer.write(classOf(type) + " = external constant %" + raw(compilation.CLASS));
         } else {
           Type unparameterizedType = type.getTypeWithoutTypeArguments();
           // If unparameterized version has not been declared yet, do it
-          if (definedGenerics.add(unparameterizedType)) writeTypeDeclaration(unparameterizedType);
+          if (define(unparameterizedType, definedGenerics))
+            writeTypeDeclaration(unparameterizedType);
         }
       }
     }
@@ -172,10 +188,10 @@ public class IrOutput extends AbstractOutput {
 
         // First thing in every object is the reference count
         sb.append('%').append(raw(type)).append(" = type { ");
-        sb.append(type(Type.ULONG)).append(", ");
+        sb.append(type(compilation.ULONG)).append(", ");
 
         // Ssecond thing in every object is the class
-        sb.append(type(Type.CLASS)).append(", ");
+        sb.append(type(compilation.CLASS)).append(", ");
 
         // Then the method table
         sb.append(methodTableType(type));
@@ -238,51 +254,51 @@ public class IrOutput extends AbstractOutput {
       // but they do share interfaceData (the actual methods)
       interfaceData
           .append("unnamed_addr constant { %ulong, ")
-          .append(type(Type.GENERIC_CLASS))
+          .append(type(compilation.GENERIC_CLASS))
           .append(",")
-          .append(methodTableType(Type.ARRAY))
+          .append(methodTableType(compilation.ARRAY))
           .append(", %long, [")
           .append(interfaceCount)
           .append(" x ")
-          .append(type(Type.METHOD_TABLE))
+          .append(type(compilation.METHOD_TABLE))
           .append("]} { %ulong -1, ")
-          .append(type(Type.GENERIC_CLASS))
+          .append(type(compilation.GENERIC_CLASS))
           .append(" ")
-          .append(classOf(new ArrayType(Type.METHOD_TABLE)))
+          .append(classOf(new ArrayType(compilation.METHOD_TABLE)))
           .append(", ")
-          .append(methodTableType(Type.ARRAY))
+          .append(methodTableType(compilation.ARRAY))
           .append(" ")
-          .append(methodTable(Type.ARRAY))
+          .append(methodTable(compilation.ARRAY))
           .append(", ")
           .append(typeLiteral(interfaceCount))
           .append(", [")
           .append(interfaceCount)
           .append(" x ")
-          .append(type(Type.METHOD_TABLE))
+          .append(type(compilation.METHOD_TABLE))
           .append("] [");
       StringBuilder interfaceClasses = new StringBuilder(interfaces(moduleType) + " = private ");
 
       interfaceClasses
           .append("unnamed_addr constant { %ulong, ")
-          .append(type(Type.GENERIC_CLASS))
+          .append(type(compilation.GENERIC_CLASS))
           .append(",")
-          .append(methodTableType(Type.ARRAY))
+          .append(methodTableType(compilation.ARRAY))
           .append(", %long, [")
           .append(interfaceCount)
           .append(" x ")
-          .append(type(Type.CLASS))
+          .append(type(compilation.CLASS))
           .append("]} { %ulong -1, ")
-          .append(typeText(Type.GENERIC_CLASS, classOf(new ArrayType(Type.CLASS))))
+          .append(typeText(compilation.GENERIC_CLASS, classOf(new ArrayType(compilation.CLASS))))
           .append(", ")
-          .append(methodTableType(Type.ARRAY))
+          .append(methodTableType(compilation.ARRAY))
           .append(" ")
-          .append(methodTable(Type.ARRAY))
+          .append(methodTable(compilation.ARRAY))
           .append(", ")
           .append(typeLiteral(interfaceCount))
           .append(", [")
           .append(interfaceCount)
           .append(" x ")
-          .append(type(Type.CLASS))
+          .append(type(compilation.CLASS))
           .append("] [");
 
       boolean firstData = true;
@@ -304,13 +320,13 @@ public class IrOutput extends AbstractOutput {
           if (firstData) firstData = false;
           else interfaceData.append(", ");
           interfaceData
-              .append(type(Type.METHOD_TABLE))
+              .append(type(compilation.METHOD_TABLE))
               .append(" bitcast ({ ")
               .append(methodsType)
               .append(" }* @_class")
               .append(classCounter)
               .append(" to ")
-              .append(type(Type.METHOD_TABLE))
+              .append(type(compilation.METHOD_TABLE))
               .append(")");
         }
 
@@ -320,15 +336,15 @@ public class IrOutput extends AbstractOutput {
         if (type.isFullyInstantiated())
           interfaceClasses.append(
               typeText(
-                  Type.CLASS,
+                  compilation.CLASS,
                   "bitcast ("
-                      + type(Type.GENERIC_CLASS)
+                      + type(compilation.GENERIC_CLASS)
                       + " "
                       + classOf(type)
                       + " to "
-                      + type(Type.CLASS)
+                      + type(compilation.CLASS)
                       + ")"));
-        else interfaceClasses.append(typeText(Type.CLASS, classOf(type)));
+        else interfaceClasses.append(typeText(compilation.CLASS, classOf(type)));
         classCounter++;
       }
       writer.write(interfaceData.append("]}").toString());
@@ -365,59 +381,59 @@ public class IrOutput extends AbstractOutput {
         writer.write(
             classOf(moduleType)
                 + " = unnamed_addr constant %"
-                + raw(Type.CLASS)
+                + raw(compilation.CLASS)
                 + " { "
-                + type(Type.ULONG)
+                + type(compilation.ULONG)
                 + " "
                 + literal(-1)
                 + ", "
                 + // reference count
-                type(Type.CLASS)
+                type(compilation.CLASS)
                 + " "
-                + classOf(Type.CLASS)
+                + classOf(compilation.CLASS)
                 + ", "
                 + // class
-                methodTableType(Type.CLASS)
+                methodTableType(compilation.CLASS)
                 + " "
-                + methodTable(Type.CLASS)
+                + methodTable(compilation.CLASS)
                 + ", "
                 + // methods
-                type(Type.ARRAY)
+                type(compilation.ARRAY)
                 + " bitcast ({%ulong, "
-                + type(Type.GENERIC_CLASS)
+                + type(compilation.GENERIC_CLASS)
                 + ", "
-                + methodTableType(Type.ARRAY)
+                + methodTableType(compilation.ARRAY)
                 + ", %long, ["
                 + interfaceCount
                 + " x "
-                + type(Type.METHOD_TABLE)
+                + type(compilation.METHOD_TABLE)
                 + "]}* "
                 + interfaceData(moduleType)
                 + " to "
-                + type(Type.ARRAY)
+                + type(compilation.ARRAY)
                 + "), "
-                + type(Type.ARRAY)
+                + type(compilation.ARRAY)
                 + // interfaces
                 (moduleType.isParameterized()
                     ? " null, "
                     : "bitcast ({%ulong, "
-                        + type(Type.GENERIC_CLASS)
+                        + type(compilation.GENERIC_CLASS)
                         + ", "
-                        + methodTableType(Type.ARRAY)
+                        + methodTableType(compilation.ARRAY)
                         + ", %long, ["
                         + interfaceCount
                         + " x "
-                        + type(Type.CLASS)
+                        + type(compilation.CLASS)
                         + "]}* "
                         + interfaces(moduleType)
                         + " to "
-                        + type(Type.ARRAY)
+                        + type(compilation.ARRAY)
                         + "), ")
                 + typeLiteral(moduleType.toString(Type.PACKAGES))
                 + ", "
                 + // name
                 typeText(
-                    Type.CLASS,
+                    compilation.CLASS,
                     parentType != null
                         ? // parent class
                         classOf(parentType)
@@ -426,7 +442,7 @@ public class IrOutput extends AbstractOutput {
                 + typeLiteral(flags)
                 + ", "
                 + // flags
-                typeText(Type.INT, sizeof(moduleType))
+                typeText(compilation.INT, sizeof(moduleType))
                 + // size
                 " }");
       }
@@ -438,38 +454,38 @@ public class IrOutput extends AbstractOutput {
         writer.write(
             classOf(moduleType)
                 + " = unnamed_addr constant %"
-                + raw(Type.CLASS)
+                + raw(compilation.CLASS)
                 + " { "
-                + type(Type.ULONG)
+                + type(compilation.ULONG)
                 + " "
                 + literal(-1)
                 + ", "
                 + // reference count
-                type(Type.CLASS)
+                type(compilation.CLASS)
                 + " "
-                + classOf(Type.CLASS)
+                + classOf(compilation.CLASS)
                 + ", "
                 + // class
-                methodTableType(Type.CLASS)
+                methodTableType(compilation.CLASS)
                 + " "
-                + methodTable(Type.CLASS)
+                + methodTable(compilation.CLASS)
                 + ", "
                 + // methods
-                type(Type.ARRAY)
+                type(compilation.ARRAY)
                 + " null, "
                 + // interfaceTables
-                type(Type.ARRAY)
+                type(compilation.ARRAY)
                 + " null, "
                 + // interfaces
                 typeLiteral(moduleType.toString(Type.PACKAGES))
                 + ", "
                 + // name
-                type(Type.CLASS)
+                type(compilation.CLASS)
                 + " null, "
                 + // parent
                 typeLiteral(flags)
                 + ", "
-                + typeText(Type.INT, sizeof(moduleType))
+                + typeText(compilation.INT, sizeof(moduleType))
                 + // size
                 " }");
       }
@@ -490,7 +506,7 @@ public class IrOutput extends AbstractOutput {
   }
 
   private void writeExceptions() throws ShadowException {
-    writer.write("declare i32 @__exceptionFilter(i8*, i8*, " + type(Type.CLASS) + ")");
+    writer.write("declare i32 @__exceptionFilter(i8*, i8*, " + type(compilation.CLASS) + ")");
 
     for (ExceptionType exceptionType : exceptions) {
       writer.write(exceptionComdat(exceptionType) + " = comdat any");
@@ -501,7 +517,7 @@ public class IrOutput extends AbstractOutput {
       writer.indent();
       writer.write(
           "%3 = call i32 @__exceptionFilter(i8* %0, i8* %1, "
-              + type(Type.CLASS)
+              + type(compilation.CLASS)
               + " "
               + classOf(exceptionType)
               + ")");
@@ -511,7 +527,7 @@ public class IrOutput extends AbstractOutput {
     }
   }
 
-  private void writeGenericClasses(Set<Type> definedGenerics) throws ShadowException {
+  private void writeGenericClasses(BitSet definedGenerics) throws ShadowException {
     Set<Type> genericClasses = new HashSet<>();
     Type moduleType = module.getType();
     TreeSet<Type> startingClasses = new TreeSet<>(moduleType.getUsedTypes());
@@ -525,8 +541,8 @@ public class IrOutput extends AbstractOutput {
 
       if ((type instanceof ArrayType && !((ArrayType) type).containsUnboundTypeParameters())
           || (type.isFullyInstantiated()
-              && !type.getTypeWithoutTypeArguments().equals(Type.ARRAY)
-              && !type.getTypeWithoutTypeArguments().equals(Type.ARRAY_NULLABLE))) {
+              && !type.getTypeWithoutTypeArguments().equals(compilation.ARRAY)
+              && !type.getTypeWithoutTypeArguments().equals(compilation.ARRAY_NULLABLE))) {
         genericClasses.add(type);
 
         SequenceType dependencies = null;
@@ -539,9 +555,9 @@ public class IrOutput extends AbstractOutput {
           for (ModifiedType modifiedType : dependencies) {
             Type dependency = modifiedType.getType();
             // arrays are in their "generic" form and should be turned back
-            if (dependency.getTypeWithoutTypeArguments().equals(Type.ARRAY))
+            if (dependency.getTypeWithoutTypeArguments().equals(compilation.ARRAY))
               dependency = new ArrayType(dependency.getTypeParameters().getType(0));
-            else if (dependency.getTypeWithoutTypeArguments().equals(Type.ARRAY_NULLABLE))
+            else if (dependency.getTypeWithoutTypeArguments().equals(compilation.ARRAY_NULLABLE))
               dependency = new ArrayType(dependency.getTypeParameters().getType(0), true);
 
             if (!genericClasses.contains(dependency)) {
@@ -552,8 +568,8 @@ public class IrOutput extends AbstractOutput {
       }
     }
 
-    writeUnparameterizedGeneric(Type.ARRAY, definedGenerics);
-    writeUnparameterizedGeneric(Type.ARRAY_NULLABLE, definedGenerics);
+    writeUnparameterizedGeneric(compilation.ARRAY, definedGenerics);
+    writeUnparameterizedGeneric(compilation.ARRAY_NULLABLE, definedGenerics);
 
     for (Type type : genericClasses) {
       // write type and method table declarations (even for current types!)
@@ -566,11 +582,20 @@ public class IrOutput extends AbstractOutput {
     writer.write();
   }
 
-  private void writeUnparameterizedGeneric(Type type, Set<Type> definedGenerics)
+  /* Marks a type as defined, returning true if it had not been defined before. */
+  private static boolean define(Type type, BitSet definedGenerics) {
+    int id = type.getId();
+    if (definedGenerics.get(id)) return false;
+
+    definedGenerics.set(id);
+    return true;
+  }
+
+  private void writeUnparameterizedGeneric(Type type, BitSet definedGenerics)
       throws ShadowException {
     Type unparameterizedType = type.getTypeWithoutTypeArguments();
 
-    if (definedGenerics.add(unparameterizedType)) {
+    if (define(unparameterizedType, definedGenerics)) {
       writeTypeDefinition(unparameterizedType);
 
       if (!module.getType().encloses(unparameterizedType)) {
@@ -578,13 +603,13 @@ public class IrOutput extends AbstractOutput {
           writer.write(
               interfaceData(unparameterizedType)
                   + " = external constant { %ulong, "
-                  + type(Type.GENERIC_CLASS)
+                  + type(compilation.GENERIC_CLASS)
                   + ", "
-                  + methodTableType(Type.ARRAY)
+                  + methodTableType(compilation.ARRAY)
                   + ", %long, ["
                   + unparameterizedType.getAllInterfaces().size()
                   + " x "
-                  + type(Type.METHOD_TABLE)
+                  + type(compilation.METHOD_TABLE)
                   + "]}");
           writer.write(
               methodTable(unparameterizedType)
@@ -602,7 +627,7 @@ public class IrOutput extends AbstractOutput {
     if (module.getType() instanceof AttributeType) return;
 
     // Write all regular types including (non-generic) class objects and method tables
-    Set<Type> definedGenerics = writeUsedTypes();
+    BitSet definedGenerics = writeUsedTypes();
 
     // Write generic and array classes
     writeGenericClasses(definedGenerics);
@@ -614,10 +639,12 @@ public class IrOutput extends AbstractOutput {
     // Methods for exception handling
     if (Configuration.isWindows()) {
       writer.write("declare i32 @__C_specific_handler(...)");
-      writer.write("@__exceptionStorage = external thread_local global " + type(Type.EXCEPTION));
+      writer.write(
+          "@__exceptionStorage = external thread_local global " + type(compilation.EXCEPTION));
     } else {
       writer.write("declare i32 @__shadow_personality_v0(...)");
-      writer.write("declare " + type(Type.EXCEPTION) + " @__shadow_catch(i8* nocapture) nounwind");
+      writer.write(
+          "declare " + type(compilation.EXCEPTION) + " @__shadow_catch(i8* nocapture) nounwind");
       writer.write("declare i32 @llvm.eh.typeid.for(i8*) nounwind readnone");
     }
 
@@ -626,7 +653,7 @@ public class IrOutput extends AbstractOutput {
     writer.write("declare void @llvm.localescape(...) nounwind");
     writer.write("declare i8* @llvm.localrecover(i8*, i8*, i32) nounwind readnone");
 
-    writer.write("declare void @__shadow_throw(" + type(Type.OBJECT) + ") noreturn");
+    writer.write("declare void @__shadow_throw(" + type(compilation.OBJECT) + ") noreturn");
     // memcopy
     writer.write("declare void @llvm.memcpy.p0i8.p0i8.i64(i8*, i8*, i64, i32, i1)");
 
@@ -666,11 +693,11 @@ public class IrOutput extends AbstractOutput {
 
     final String UBYTE_ARRAY_CLASS =
         "bitcast ("
-            + type(Type.GENERIC_CLASS)
+            + type(compilation.GENERIC_CLASS)
             + " "
-            + classOf(new ArrayType(Type.UBYTE))
+            + classOf(new ArrayType(compilation.UBYTE))
             + " to "
-            + type(Type.CLASS)
+            + type(compilation.CLASS)
             + ")";
 
     for (String literal : stringLiterals) {
@@ -692,25 +719,25 @@ public class IrOutput extends AbstractOutput {
               + stringIndex
               + " = private unnamed_addr "
               + "constant {%ulong, "
-              + type(Type.CLASS)
+              + type(compilation.CLASS)
               + ", "
-              + methodTableType(Type.ARRAY)
+              + methodTableType(compilation.ARRAY)
               + ", %long, ["
               + data.length
               + " x "
-              + type(Type.UBYTE)
+              + type(compilation.UBYTE)
               + "]} { %ulong -1, "
-              + typeText(Type.CLASS, UBYTE_ARRAY_CLASS)
+              + typeText(compilation.CLASS, UBYTE_ARRAY_CLASS)
               + ", "
-              + methodTableType(Type.ARRAY)
+              + methodTableType(compilation.ARRAY)
               + " "
-              + methodTable(Type.ARRAY)
+              + methodTable(compilation.ARRAY)
               + ", "
               + typeLiteral((long) data.length)
               + ", ["
               + data.length
               + " x "
-              + type(Type.UBYTE)
+              + type(compilation.UBYTE)
               + "] c\""
               + sb
               + "\" }");
@@ -719,35 +746,35 @@ public class IrOutput extends AbstractOutput {
               + stringIndex
               + " = private unnamed_addr "
               + "constant %"
-              + raw(Type.STRING)
+              + raw(compilation.STRING)
               + " { "
-              + type(Type.ULONG)
+              + type(compilation.ULONG)
               + " "
               + literal(-1)
               + ", "
-              + type(Type.CLASS)
+              + type(compilation.CLASS)
               + " "
-              + classOf(Type.STRING)
+              + classOf(compilation.STRING)
               + ", "
-              + methodTableType(Type.STRING)
+              + methodTableType(compilation.STRING)
               + " "
-              + methodTable(Type.STRING)
+              + methodTable(compilation.STRING)
               + ", "
-              + type(Type.ARRAY)
+              + type(compilation.ARRAY)
               + " bitcast ("
               + "{%ulong, "
-              + type(Type.CLASS)
+              + type(compilation.CLASS)
               + ", "
-              + methodTableType(Type.ARRAY)
+              + methodTableType(compilation.ARRAY)
               + ", %long, ["
               + data.length
               + " x "
-              + type(Type.UBYTE)
+              + type(compilation.UBYTE)
               + "]}* "
               + "@_array"
               + stringIndex
               + " to "
-              + type(Type.ARRAY)
+              + type(compilation.ARRAY)
               + "), "
               + typeLiteral(ascii)
               + " }");
@@ -784,6 +811,7 @@ public class IrOutput extends AbstractOutput {
       SequenceType parameters =
           signature.getSignatureWithoutTypeArguments().getFullParameterTypes();
       tempCounter = parameters.size();
+      findGuards(method.getNode());
       writer.write(
           "define "
               + methodToString(method)
@@ -800,6 +828,30 @@ public class IrOutput extends AbstractOutput {
     }
   }
 
+  /*
+   * Finds the calls that check for an expected method before calling it
+   * directly. Each check splits the block it's in, so phis that name the block
+   * must name the part that ends it instead. Almost every call can unwind, and
+   * then both of its branches are predecessors of the landing pad.
+   */
+  private void findGuards(TACNode start) {
+    guards.clear();
+    guardedBlocks.clear();
+    TACLabel label = null;
+    for (TACNode node = start.getNext(); node != start; node = node.getNext()) {
+      if (node instanceof TACLabel) label = (TACLabel) node;
+      else if (label != null
+          && node instanceof TACCall call
+          && call.getUpdatedValue() == null
+          && !call.isInlined()
+          && call.getMethodRef() instanceof TACMethodName name
+          && name.getExpectedMethod() != null) {
+        guards.put(call, "_guard" + guardCounter++);
+        guardedBlocks.put(label, call);
+      }
+    }
+  }
+
   private static String name(TACVariable variable) {
     return '%' + variable.getName();
   }
@@ -856,7 +908,7 @@ public class IrOutput extends AbstractOutput {
     writer.write(
         nextTemp(node)
             + " = inttoptr "
-            + type(Type.ULONG)
+            + type(compilation.ULONG)
             + " "
             + symbol(node.getOperand(0))
             + " to "
@@ -870,7 +922,7 @@ public class IrOutput extends AbstractOutput {
             + " = ptrtoint "
             + typeSymbol(node.getOperand(0))
             + " to "
-            + type(Type.ULONG));
+            + type(compilation.ULONG));
   }
 
   @Override
@@ -978,15 +1030,7 @@ public class IrOutput extends AbstractOutput {
       String back1 = temp(0);
       writer.write(
           nextTemp(node) + " = load " + methodType(node) + ", " + methodType(node) + "* " + back1);
-    } else if (node.hasPrefix()
-        &&
-        // Devirtualization conditions below
-        !node.getOuterType().isPrimitive()
-        && !node.getOuterType().getModifiers().isLocked()
-        && !node.getType().getModifiers().isLocked()
-        && !(node.getOuterType() instanceof SingletonType)
-        && !node.getType().getModifiers().isPrivate()
-        && !node.isSuper()) {
+    } else if (!node.isDirect()) {
       writer.write(
           nextTemp()
               + " = getelementptr inbounds %"
@@ -1086,7 +1130,7 @@ public class IrOutput extends AbstractOutput {
                         + " = insertvalue "
                         + type(node)
                         + " zeroinitializer, "
-                        + type(Type.OBJECT)
+                        + type(compilation.OBJECT)
                         + " null, 1");
         case OBJECT_TO_INTERFACE -> {
           // operand 1 is the interface method table
@@ -1106,7 +1150,11 @@ public class IrOutput extends AbstractOutput {
                           + temp(1)
                           + ", 0");
           writer.write(
-                  nextTemp() + " = bitcast " + typeSymbol(source) + " to " + type(Type.OBJECT));
+                  nextTemp()
+                      + " = bitcast "
+                      + typeSymbol(source)
+                      + " to "
+                      + type(compilation.OBJECT));
           back1 = temp(0);
           back2 = temp(1);
           writer.write(
@@ -1114,7 +1162,7 @@ public class IrOutput extends AbstractOutput {
                           + " = insertvalue "
                           + typeText(destType, back2)
                           + ", "
-                          + typeText(Type.OBJECT, back1)
+                          + typeText(compilation.OBJECT, back1)
                           + ", 1");
         }
         case OBJECT_TO_ARRAY, OBJECT_TO_OBJECT -> {
@@ -1153,25 +1201,30 @@ public class IrOutput extends AbstractOutput {
           writer.write(
                   nextTemp()
                           + " = call noalias "
-                          + type(Type.OBJECT)
+                          + type(compilation.OBJECT)
                           + " @__allocate("
-                          + type(Type.CLASS)
+                          + type(compilation.CLASS)
                           + ' '
                           + classOf(srcType)
                           + ", "
-                          + methodTableType(Type.OBJECT)
+                          + methodTableType(compilation.OBJECT)
                           + " bitcast("
                           + methodTableType(srcType)
                           + " "
                           + methodTable(srcType)
                           + " to "
-                          + methodTableType(Type.OBJECT)
+                          + methodTableType(compilation.OBJECT)
                           + ")"
                           + ")");
           back1 = temp(0);
           String result = nextTemp(node);
           writer.write(
-                  result + " = bitcast " + typeText(Type.OBJECT, back1) + " to %" + raw(srcType) + "*");
+                  result
+                      + " = bitcast "
+                      + typeText(compilation.OBJECT, back1)
+                      + " to %"
+                      + raw(srcType)
+                      + "*");
           writer.write(
                   nextTemp()
                           + " = getelementptr inbounds %"
@@ -1258,7 +1311,7 @@ public class IrOutput extends AbstractOutput {
       writer.write(
           nextTemp()
               + " = bitcast "
-              + type(Type.METHOD_TABLE)
+              + type(compilation.METHOD_TABLE)
               + " "
               + symbol(methods)
               + " to "
@@ -1273,18 +1326,18 @@ public class IrOutput extends AbstractOutput {
               + " "
               + symbol(methods)
               + " to "
-              + methodTableType(Type.OBJECT));
+              + methodTableType(compilation.OBJECT));
     String back1 = temp(0);
     writer.write(
         nextTemp(node)
             + " = call noalias "
-            + type(Type.OBJECT)
+            + type(compilation.OBJECT)
             + " @__allocate("
-            + type(Type.CLASS)
+            + type(compilation.CLASS)
             + " "
             + symbol(_class)
             + ", "
-            + methodTableType(Type.OBJECT)
+            + methodTableType(compilation.OBJECT)
             + " "
             + back1
             + " )");
@@ -1298,33 +1351,33 @@ public class IrOutput extends AbstractOutput {
       writer.write(
           nextTemp()
               + " = call noalias "
-              + type(Type.ARRAY)
+              + type(compilation.ARRAY)
               + " @__allocateArray("
               + allocationClass
               + ", "
               + typeSymbol(node.getSize())
               + ", "
-              + typeText(Type.BOOLEAN, "true")
+              + typeText(compilation.BOOLEAN, "true")
               + ')');
 
       String last = temp(0);
       writer.write(
           nextTemp(node)
               + " = bitcast "
-              + typeText(Type.ARRAY, last)
+              + typeText(compilation.ARRAY, last)
               + " to "
-              + type(Type.ARRAY_NULLABLE));
+              + type(compilation.ARRAY_NULLABLE));
     } else
       writer.write(
           nextTemp(node)
               + " = call noalias "
-              + type(Type.ARRAY)
+              + type(compilation.ARRAY)
               + " @__allocateArray("
               + allocationClass
               + ", "
               + typeSymbol(node.getSize())
               + ", "
-              + typeText(Type.BOOLEAN, "false")
+              + typeText(compilation.BOOLEAN, "false")
               + ')');
   }
 
@@ -1415,10 +1468,15 @@ public class IrOutput extends AbstractOutput {
         writer.write(nextTemp() + " = extractvalue " + typeText(reference, name) + ", 1");
       else
         writer.write(
-            nextTemp() + " = bitcast " + typeText(reference, name) + " to " + type(Type.OBJECT));
+            nextTemp()
+                + " = bitcast "
+                + typeText(reference, name)
+                + " to "
+                + type(compilation.OBJECT));
 
       // same increment for both cases
-      writer.write("call void @__incrementRef(" + typeText(Type.OBJECT, temp(0)) + ") nounwind");
+      writer.write(
+          "call void @__incrementRef(" + typeText(compilation.OBJECT, temp(0)) + ") nounwind");
     } else {
       if (node.isField()) {
         assert field != null;
@@ -1451,10 +1509,15 @@ public class IrOutput extends AbstractOutput {
         writer.write(nextTemp() + " = extractvalue " + typeText(reference, name) + ", 1");
       else
         writer.write(
-            nextTemp() + " = bitcast " + typeText(reference, name) + " to " + type(Type.OBJECT));
+            nextTemp()
+                + " = bitcast "
+                + typeText(reference, name)
+                + " to "
+                + type(compilation.OBJECT));
 
       // same decrement for these two cases
-      writer.write("call void @__decrementRef(" + typeText(Type.OBJECT, temp(0)) + ") nounwind");
+      writer.write(
+          "call void @__decrementRef(" + typeText(compilation.OBJECT, temp(0)) + ") nounwind");
     }
   }
 
@@ -1497,7 +1560,7 @@ public class IrOutput extends AbstractOutput {
       writer.write(nextTemp() + " = extractvalue " + typeSymbol(node.getOperand(0)) + ", 1");
       String back1 = temp(0);
       String back2 = temp(1);
-      writer.write(nextTemp(node) + " = icmp eq" + type(Type.OBJECT) + back2 + ", " + back1);
+      writer.write(nextTemp(node) + " = icmp eq" + type(compilation.OBJECT) + back2 + ", " + back1);
     } else {
       String op = type.isFloating() ? "fcmp oeq " : "icmp eq ";
       writer.write(
@@ -1700,7 +1763,7 @@ public class IrOutput extends AbstractOutput {
     } else if (reference instanceof TACFieldRef fieldRef) {
       Type prefixType = fieldRef.getPrefix().getType();
       if (prefixType instanceof ArrayType) prefixType = ((ArrayType) prefixType).convertToGeneric();
-      else if (prefixType instanceof MethodType) prefixType = Type.METHOD;
+      else if (prefixType instanceof MethodType) prefixType = compilation.METHOD;
       writer.write(
           nextTemp()
               + " = getelementptr inbounds "
@@ -1841,8 +1904,10 @@ public class IrOutput extends AbstractOutput {
       throws ShadowException {
 
     if (increment && !value.isNull()) {
-      writer.write(nextTemp() + " = bitcast " + typeSymbol(value) + " to " + type(Type.OBJECT));
-      writer.write("call void @__incrementRef(" + typeText(Type.OBJECT, temp(0)) + ") nounwind");
+      writer.write(
+          nextTemp() + " = bitcast " + typeSymbol(value) + " to " + type(compilation.OBJECT));
+      writer.write(
+          "call void @__incrementRef(" + typeText(compilation.OBJECT, temp(0)) + ") nounwind");
     }
 
     // decrement old value in variable
@@ -1863,10 +1928,10 @@ public class IrOutput extends AbstractOutput {
               + " "
               + temp(1)
               + " to "
-              + type(Type.OBJECT));
+              + type(compilation.OBJECT));
       writer.write(
           "call void @__decrementRef("
-              + typeText(Type.OBJECT, temp(0))
+              + typeText(compilation.OBJECT, temp(0))
               + ") nounwind"
               + funcletData(catchPad));
     }
@@ -1887,7 +1952,7 @@ public class IrOutput extends AbstractOutput {
       writer.write(nextTemp() + " = extractvalue " + typeSymbol(value) + ", 1");
       writer.write(
           "call void @__incrementRef("
-              + typeText(Type.OBJECT, temp(0))
+              + typeText(compilation.OBJECT, temp(0))
               + ") nounwind"
               + funcletData(catchPad));
     }
@@ -1904,12 +1969,12 @@ public class IrOutput extends AbstractOutput {
       writer.write(
           nextTemp()
               + " = load "
-              + type(Type.OBJECT)
+              + type(compilation.OBJECT)
               + ", "
-              + typeText(Type.OBJECT, temp(1), true));
+              + typeText(compilation.OBJECT, temp(1), true));
       writer.write(
           "call void @__decrementRef("
-              + typeText(Type.OBJECT, temp(0))
+              + typeText(compilation.OBJECT, temp(0))
               + ") nounwind"
               + funcletData(catchPad));
     }
@@ -1950,12 +2015,31 @@ public class IrOutput extends AbstractOutput {
       if (values.size() > 1) {
         StringBuilder sb =
             new StringBuilder(name(node)).append(" = phi ").append(type(node)).append(" ");
-        for (Map.Entry<TACLabel, TACOperand> entry : values.entrySet())
-          sb.append("[ ")
-              .append(symbol(entry.getValue()))
-              .append(", ")
-              .append(symbol(entry.getKey()))
-              .append(" ],");
+        for (Map.Entry<TACLabel, TACOperand> entry : values.entrySet()) {
+          TACCall guarded = guardedBlocks.get(entry.getKey());
+          if (guarded == null)
+            sb.append("[ ")
+                .append(symbol(entry.getValue()))
+                .append(", ")
+                .append(symbol(entry.getKey()))
+                .append(" ],");
+          else if (currentLabel == guarded.getBlock().getUnwind()) {
+            // Both calls of a guard unwind here
+            String guard = guards.get(guarded);
+            for (String branch : new String[] {".direct", ".table"})
+              sb.append("[ ")
+                  .append(symbol(entry.getValue()))
+                  .append(", %")
+                  .append(guard)
+                  .append(branch)
+                  .append(" ],");
+          } else
+            sb.append("[ ")
+                .append(symbol(entry.getValue()))
+                .append(", %")
+                .append(guards.get(guarded))
+                .append(" ],");
+        }
         writer.write(sb.deleteCharAt(sb.length() - 1).toString());
       } else if (values.size() == 1) node.setData(values.values().iterator().next().getData());
     }
@@ -1990,6 +2074,7 @@ public class IrOutput extends AbstractOutput {
 
   @Override
   public void visit(TACLabel node) throws ShadowException {
+    currentLabel = node;
     writer.writeLeft(name(node) + ':');
   }
 
@@ -1999,7 +2084,8 @@ public class IrOutput extends AbstractOutput {
     TACLabel unwindLabel = node.getBlock().getUnwind();
 
     // No precomputation done
-    if (value == null) {
+    if (guards.containsKey(node)) writeGuardedCall(node, guards.get(node));
+    else if (value == null && !node.isInlined()) {
       StringBuilder sb = new StringBuilder(unwindLabel != null ? "invoke" : "call").append(' ');
       TACMethodRef method = node.getMethodRef();
       if (method instanceof TACMethodName methodName) {
@@ -2027,11 +2113,81 @@ public class IrOutput extends AbstractOutput {
         writer.outdent(2);
       }
     } else {
-      node.setData(value.getData());
+      // Inlined calls without return values have nothing to stand for
+      if (value != null) node.setData(value.getData());
       if (unwindLabel != null) writer.write("br label " + symbol(node.getNoExceptionLabel()));
     }
   }
 
+  /*
+   * Compares the method loaded from an interface method table with the only
+   * method it can be in the program. The direct call in the matching branch
+   * can then be inlined by clang, and the other branch calls through the table
+   * in case the program is linked with classes that weren't analyzed. Both
+   * branches join in a block named after the guard, which then continues to
+   * where the original call would have.
+   */
+  private void writeGuardedCall(TACCall node, String guard) throws ShadowException {
+    TACMethodName method = (TACMethodName) node.getMethodRef();
+    MethodSignature expected = method.getExpectedMethod();
+    if (!module.getType().encloses(expected.getOuter()))
+      usedSignatures.add(expected.getSignatureWithoutTypeArguments());
+
+    TACLabel unwindLabel = node.getBlock().getUnwind();
+    String type = methodType(method);
+    String target = "bitcast (" + methodType(expected) + " " + name(expected) + " to " + type + ")";
+    String returnType = methodToString(method, false);
+    StringBuilder parameters = new StringBuilder("(");
+    boolean first = true;
+    for (TACOperand param : node.getParameters())
+      if (first) {
+        first = false;
+        parameters.append(typeSymbol(param));
+      } else parameters.append(", ").append(typeSymbol(param));
+    parameters.append(')');
+
+    writer.write(nextTemp() + " = icmp eq " + type + " " + symbol(method) + ", " + target);
+    writer.write(
+        "br i1 " + temp(0) + ", label %" + guard + ".direct, label %" + guard + ".table");
+
+    boolean isVoid = method.getReturnTypes().isEmpty();
+    String[] results = new String[2];
+    String[] callees = {target, symbol(method)};
+    String[] branches = {".direct", ".table"};
+    for (int i = 0; i < 2; ++i) {
+      writer.writeLeft(guard + branches[i] + ':');
+      results[i] = isVoid ? "" : nextTemp();
+      writer.write(
+          (isVoid ? "" : results[i] + " = ")
+              + (unwindLabel != null ? "invoke " : "call ")
+              + returnType
+              + callees[i]
+              + parameters);
+      if (unwindLabel != null) {
+        writer.indent(2);
+        writer.write(" to label %" + guard + " unwind label " + symbol(unwindLabel));
+        writer.outdent(2);
+      } else writer.write("br label %" + guard);
+    }
+
+    writer.writeLeft(guard + ':');
+    if (!isVoid)
+      writer.write(
+          nextTemp(node)
+              + " = phi "
+              + returnType.trim()
+              + " [ "
+              + results[0]
+              + ", %"
+              + guard
+              + ".direct ], [ "
+              + results[1]
+              + ", %"
+              + guard
+              + ".table ]");
+    if (unwindLabel != null) writer.write("br label " + symbol(node.getNoExceptionLabel()));
+  }
+
   @Override
   public void visit(TACCallFinallyFunction node) throws ShadowException {
     TACFinallyFunction function = node.getFinallyFunction();
@@ -2056,8 +2212,13 @@ public class IrOutput extends AbstractOutput {
   @Override
   public void visit(TACThrow node) throws ShadowException {
     writer.write(
-        nextTemp() + " = bitcast " + typeSymbol(node.getException()) + " to " + type(Type.OBJECT));
-    writer.write("call void @__incrementRef(" + typeText(Type.OBJECT, temp(0)) + ") nounwind");
+        nextTemp()
+            + " = bitcast "
+            + typeSymbol(node.getException())
+            + " to "
+            + type(compilation.OBJECT));
+    writer.write(
+        "call void @__incrementRef(" + typeText(compilation.OBJECT, temp(0)) + ") nounwind");
     TACLabel unwindLabel = node.getBlock().getUnwind();
 
     writer.write(
@@ -2132,15 +2293,15 @@ public class IrOutput extends AbstractOutput {
     writer.write(
         nextTemp()
             + " = load "
-            + type(Type.EXCEPTION)
+            + type(compilation.EXCEPTION)
             + ", "
-            + type(Type.EXCEPTION)
+            + type(compilation.EXCEPTION)
             + "* @__exceptionStorage");
     int offset = node.hasLocalStore() ? 0 : 1;
     writer.write(
         nextTemp(node)
             + " = bitcast "
-            + type(Type.EXCEPTION)
+            + type(compilation.EXCEPTION)
             + " "
             + temp(offset)
             + " to "
@@ -2181,7 +2342,7 @@ public class IrOutput extends AbstractOutput {
       }
 
       for (TACCatch catch_ : catches)
-        writer.write("catch " + type(Type.CLASS) + ' ' + classOf(catch_.getType()));
+        writer.write("catch " + type(compilation.CLASS) + ' ' + classOf(catch_.getType()));
     }
 
     writer.outdent(2);
@@ -2193,7 +2354,7 @@ public class IrOutput extends AbstractOutput {
     writer.write(
         nextTemp()
             + " = call "
-            + type(Type.EXCEPTION)
+            + type(compilation.EXCEPTION)
             + " @__shadow_catch(i8* "
             + symbol(node.getOperand(0))
             + ") nounwind");
@@ -2201,7 +2362,7 @@ public class IrOutput extends AbstractOutput {
     writer.write(
         nextTemp(node)
             + " = bitcast "
-            + type(Type.EXCEPTION)
+            + type(compilation.EXCEPTION)
             + ' '
             + temp(offset)
             + " to "
@@ -2214,23 +2375,23 @@ public class IrOutput extends AbstractOutput {
   }
 
   private static String interfaceData(Type type) {
-    return "@_interfaceData" + type.toString(Type.MANGLE);
+    return "@_interfaceData" + type.getMangledName();
   }
 
   private static String exceptionComdat(ExceptionType type) {
-    return "$_exceptionMethod" + type.toString(Type.MANGLE);
+    return "$_exceptionMethod" + type.getMangledName();
   }
 
   private static String exceptionMethod(ExceptionType type) {
-    return "@_exceptionMethod" + type.toString(Type.MANGLE);
+    return "@_exceptionMethod" + type.getMangledName();
   }
 
   private static String interfaces(Type type) {
-    return "@_interfaces" + type.toString(Type.MANGLE);
+    return "@_interfaces" + type.getMangledName();
   }
 
   private static String genericInterfaces(Type type) {
-    return "@_interfaces" + type.toString(Type.MANGLE | Type.TYPE_PARAMETERS);
+    return "@_interfaces" + type.getMangledNameWithArguments();
   }
 
   public static String classOf(Type type) {
@@ -2240,11 +2401,12 @@ public class IrOutput extends AbstractOutput {
   }
 
   public static String methodTable(Type type) {
+    CompilationContext compilation = CompilationContext.current();
     if (type instanceof InterfaceType && type.isFullyInstantiated())
       return "@" + withGenerics(type, "._methods");
     else if (type instanceof ArrayType arrayType) {
-      if (arrayType.isNullable()) return methodTable(Type.ARRAY_NULLABLE);
-      else return methodTable(Type.ARRAY);
+      if (arrayType.isNullable()) return methodTable(compilation.ARRAY_NULLABLE);
+      else return methodTable(compilation.ARRAY);
     }
     return "@" + raw(type, "._methods");
   }
@@ -2254,9 +2416,10 @@ public class IrOutput extends AbstractOutput {
   }
 
   private static String methodTableType(Type type, boolean reference) {
+    CompilationContext compilation = CompilationContext.current();
     if (type instanceof ArrayType arrayType) {
-      if (arrayType.isNullable()) return methodTableType(Type.ARRAY_NULLABLE, reference);
-      else return methodTableType(Type.ARRAY, reference);
+      if (arrayType.isNullable()) return methodTableType(compilation.ARRAY_NULLABLE, reference);
+      else return methodTableType(compilation.ARRAY, reference);
     }
 
     return "%" + raw(type, reference ? "._methods*" : "._methods");
@@ -2299,7 +2462,7 @@ public class IrOutput extends AbstractOutput {
     if (primitiveOrInterfaceCreate) {
       if (signature.getOuter()
           instanceof InterfaceType) // in situations where an interface contains a create
-      sb.append(type(Type.OBJECT));
+      sb.append(type(CompilationContext.current().OBJECT));
       else
         sb.append(
             type(
@@ -2372,8 +2535,9 @@ public class IrOutput extends AbstractOutput {
   }
 
   protected static String type(ArrayType type) {
-    if (type.isNullable()) return type(Type.ARRAY_NULLABLE);
-    else return type(Type.ARRAY);
+    CompilationContext compilation = CompilationContext.current();
+    if (type.isNullable()) return type(compilation.ARRAY_NULLABLE);
+    else return type(compilation.ARRAY);
   }
 
   private static String type(SequenceType type) {
@@ -2390,18 +2554,20 @@ public class IrOutput extends AbstractOutput {
   }
 
   private static String type(AttributeType type) {
-    return '%' + type.toString(Type.MANGLE) + '*';
+    return '%' + type.getMangledName() + '*';
   }
 
   private static String type(ClassType type, boolean nullable) {
+    CompilationContext compilation = CompilationContext.current();
     if (type.isPrimitive() && !nullable) return '%' + type.getTypeName();
 
-    if (type == Type.NULL) return '%' + Type.OBJECT.toString(Type.MANGLE) + '*';
+    if (type == Type.NULL) return '%' + compilation.OBJECT.getMangledName() + '*';
 
-    return '%' + type.toString(Type.MANGLE) + '*';
+    return '%' + type.getMangledName() + '*';
   }
 
   private static String type(MethodType type) {
+    CompilationContext compilation = CompilationContext.current();
     StringBuilder sb = new StringBuilder();
 
     // Should never be a create
@@ -2414,7 +2580,7 @@ public class IrOutput extends AbstractOutput {
     sb.append(" (");
     SequenceType parameterTypes = type.getTypeWithoutTypeArguments().getParameterTypes();
     Type outer = type.getOuter();
-    if (outer == null || outer instanceof InterfaceType) sb.append(type(Type.OBJECT));
+    if (outer == null || outer instanceof InterfaceType) sb.append(type(compilation.OBJECT));
     else sb.append(type(outer));
 
     for (ModifiedType parameterType : parameterTypes) sb.append(", ").append(type(parameterType));
@@ -2425,7 +2591,7 @@ public class IrOutput extends AbstractOutput {
   }
 
   private static String type(InterfaceType type) {
-    return "{ " + methodTableType(type) + ", " + type(Type.OBJECT) + " }";
+    return "{ " + methodTableType(type) + ", " + type(CompilationContext.current().OBJECT) + " }";
   }
 
   private static String type(TypeParameter type) {
@@ -2433,7 +2599,7 @@ public class IrOutput extends AbstractOutput {
   }
 
   private static String type(MethodTableType type) {
-    return '%' + type.toString(Type.MANGLE) + '*';
+    return '%' + type.getMangledName() + '*';
   }
 
   private static String raw(Type type) {
@@ -2441,11 +2607,11 @@ public class IrOutput extends AbstractOutput {
   }
 
   private static String raw(Type type, String extra) {
-    return type.toString(Type.MANGLE) + extra;
+    return type.getMangledName() + extra;
   }
 
   private static String withGenerics(Type type, String extra) {
-    return type.toString(Type.MANGLE | Type.TYPE_PARAMETERS) + extra;
+    return type.getMangledNameWithArguments() + extra;
   }
 
   private String name(TACLabel label) {
@@ -2551,19 +2717,19 @@ public class IrOutput extends AbstractOutput {
   }
 
   private String typeLiteral(boolean value) {
-    return typeText(Type.BOOLEAN, literal(value));
+    return typeText(compilation.BOOLEAN, literal(value));
   }
 
   private static String typeLiteral(int value) {
-    return typeText(Type.INT, literal(value));
+    return typeText(CompilationContext.current().INT, literal(value));
   }
 
   private static String typeLiteral(long value) {
-    return typeText(Type.LONG, literal(value));
+    return typeText(CompilationContext.current().LONG, literal(value));
   }
 
   private String typeLiteral(String value) {
-    return typeText(Type.STRING, literal(value));
+    return typeText(compilation.STRING, literal(value));
   }
 
   private String typeLiteral(ShadowValue value) {
@@ -2622,31 +2788,31 @@ public class IrOutput extends AbstractOutput {
       ArrayList<InterfaceType> interfaceList = genericAsObject.getAllInterfaces();
       interfaceData =
           " bitcast ({ %ulong, "
-              + type(Type.GENERIC_CLASS)
+              + type(compilation.GENERIC_CLASS)
               + ", "
-              + methodTableType(Type.ARRAY)
+              + methodTableType(compilation.ARRAY)
               + ", %long, ["
               + interfaceList.size()
               + " x "
-              + type(Type.METHOD_TABLE)
+              + type(compilation.METHOD_TABLE)
               + "]}* "
               + interfaceData(noArguments)
               + " to "
-              + type(Type.ARRAY)
+              + type(compilation.ARRAY)
               + "), ";
       interfaces =
           " bitcast ({ %ulong, "
-              + type(Type.GENERIC_CLASS)
+              + type(compilation.GENERIC_CLASS)
               + ", "
-              + methodTableType(Type.ARRAY)
+              + methodTableType(compilation.ARRAY)
               + ", %long, ["
               + interfaceList.size()
               + " x "
-              + type(Type.CLASS)
+              + type(compilation.CLASS)
               + "]}* "
               + genericInterfaces(generic)
               + " to "
-              + type(Type.ARRAY)
+              + type(compilation.ARRAY)
               + "), ";
     }
 
@@ -2656,14 +2822,14 @@ public class IrOutput extends AbstractOutput {
       ClassType parent = ((ClassType) genericAsObject).getExtendType();
       if (parent.isFullyInstantiated() || parent instanceof ArrayType)
         parentClass =
-            type(Type.CLASS)
+            type(compilation.CLASS)
                 + " ("
-                + typeText(Type.GENERIC_CLASS, classOf(parent))
+                + typeText(compilation.GENERIC_CLASS, classOf(parent))
                 + " to "
-                + type(Type.CLASS)
+                + type(compilation.CLASS)
                 + ")";
-      else parentClass = typeText(Type.CLASS, classOf(parent));
-    } else parentClass = type(Type.CLASS) + " null";
+      else parentClass = typeText(compilation.CLASS, classOf(parent));
+    } else parentClass = type(compilation.CLASS) + " null";
 
     int classListSize = parameterList.size();
     if (generic instanceof ClassType) {
@@ -2681,24 +2847,24 @@ public class IrOutput extends AbstractOutput {
     writer.write(
         classOf(generic)
             + " = linkonce_odr unnamed_addr constant  %"
-            + raw(Type.GENERIC_CLASS)
+            + raw(compilation.GENERIC_CLASS)
             + " { "
-            + type(Type.ULONG)
+            + type(compilation.ULONG)
             + " "
             + literal(-1)
             + ", "
             + // reference count
-            typeText(Type.CLASS, classOf(Type.GENERIC_CLASS))
+            typeText(compilation.CLASS, classOf(compilation.GENERIC_CLASS))
             + ", "
             + // class
-            methodTableType(Type.GENERIC_CLASS)
+            methodTableType(compilation.GENERIC_CLASS)
             + " "
-            + methodTable(Type.GENERIC_CLASS)
+            + methodTable(compilation.GENERIC_CLASS)
             + ", "
             + // methods
-            typeText(Type.ARRAY, interfaceData)
+            typeText(compilation.ARRAY, interfaceData)
             + // data (method tables)
-            typeText(Type.ARRAY, interfaces)
+            typeText(compilation.ARRAY, interfaces)
             + // interfaces
             typeLiteral(name)
             + ", "
@@ -2709,39 +2875,39 @@ public class IrOutput extends AbstractOutput {
             typeLiteral(flags)
             + ", "
             + // flags
-            typeText(Type.INT, sizeof(noArguments))
+            typeText(compilation.INT, sizeof(noArguments))
             + ", "
             + // size
-            type(Type.ARRAY)
+            type(compilation.ARRAY)
             + " bitcast ( { %ulong, "
-            + type(Type.GENERIC_CLASS)
+            + type(compilation.GENERIC_CLASS)
             + ", "
-            + methodTableType(Type.ARRAY)
+            + methodTableType(compilation.ARRAY)
             + ", %long, ["
             + classListSize
             + " x "
-            + type(Type.CLASS)
+            + type(compilation.CLASS)
             + "]}* "
             + "@_parameters"
-            + generic.toString(Type.MANGLE | Type.TYPE_PARAMETERS)
+            + generic.getMangledNameWithArguments()
             + " to "
-            + type(Type.ARRAY)
+            + type(compilation.ARRAY)
             + "), "
             + // parameters
-            type(Type.ARRAY)
+            type(compilation.ARRAY)
             + " bitcast ( { %ulong, "
-            + type(Type.GENERIC_CLASS)
+            + type(compilation.GENERIC_CLASS)
             + ", "
-            + methodTableType(Type.ARRAY)
+            + methodTableType(compilation.ARRAY)
             + ", %long, ["
             + parameterList.size()
             + " x "
-            + type(Type.METHOD_TABLE)
+            + type(compilation.METHOD_TABLE)
             + "]}* "
             + "@_tables"
-            + generic.toString(Type.MANGLE | Type.TYPE_PARAMETERS)
+            + generic.getMangledNameWithArguments()
             + " to "
-            + type(Type.ARRAY)
+            + type(compilation.ARRAY)
             + ")}, comdat"); // tables
   }
 
@@ -2757,17 +2923,17 @@ public class IrOutput extends AbstractOutput {
       StringBuilder sb =
           new StringBuilder(
               "{ %ulong -1, "
-                  + typeText(Type.GENERIC_CLASS, classOf(new ArrayType(Type.CLASS)))
+                  + typeText(compilation.GENERIC_CLASS, classOf(new ArrayType(compilation.CLASS)))
                   + ", "
-                  + methodTableType(Type.ARRAY)
+                  + methodTableType(compilation.ARRAY)
                   + " "
-                  + methodTable(Type.ARRAY)
+                  + methodTable(compilation.ARRAY)
                   + ", "
                   + typeLiteral((long) interfaces.size())
                   + ", ["
                   + interfaces.size()
                   + " x "
-                  + type(Type.CLASS)
+                  + type(compilation.CLASS)
                   + "] [");
       first = true;
 
@@ -2775,30 +2941,31 @@ public class IrOutput extends AbstractOutput {
         if (first) first = false;
         else sb.append(", ");
         if (_interface.isFullyInstantiated())
-          sb.append(type(Type.CLASS))
+          sb.append(type(compilation.CLASS))
               .append(" bitcast (")
               .append(
                   typeText(
-                      Type.GENERIC_CLASS, classOf(_interface) + " to " + type(Type.CLASS) + ")"));
-        else sb.append(typeText(Type.CLASS, classOf(_interface)));
+                      compilation.GENERIC_CLASS,
+                      classOf(_interface) + " to " + type(compilation.CLASS) + ")"));
+        else sb.append(typeText(compilation.CLASS, classOf(_interface)));
       }
 
       sb.append("]}, comdat");
 
       writer.write(
-          "$_interfaces" + generic.toString(Type.MANGLE | Type.TYPE_PARAMETERS) + " = comdat any");
+          "$_interfaces" + generic.getMangledNameWithArguments() + " = comdat any");
       writer.write(
           genericInterfaces(generic)
               + " = linkonce_odr unnamed_addr constant {%ulong, "
-              + type(Type.GENERIC_CLASS)
+              + type(compilation.GENERIC_CLASS)
               + ", "
-              + methodTableType(Type.ARRAY)
+              + methodTableType(compilation.ARRAY)
               + ", "
-              + type(Type.LONG)
+              + type(compilation.LONG)
               + ", ["
               + interfaces.size()
               + " x "
-              + type(Type.CLASS)
+              + type(compilation.CLASS)
               + "]} "
               + sb);
     }
@@ -2817,32 +2984,33 @@ public class IrOutput extends AbstractOutput {
     StringBuilder parameters =
         new StringBuilder(
             "{ %ulong -1, "
-                + typeText(Type.GENERIC_CLASS, classOf(new ArrayType(Type.CLASS)))
+                + typeText(compilation.GENERIC_CLASS, classOf(new ArrayType(compilation.CLASS)))
                 + ", "
-                + methodTableType(Type.ARRAY)
+                + methodTableType(compilation.ARRAY)
                 + " "
-                + methodTable(Type.ARRAY)
+                + methodTable(compilation.ARRAY)
                 + ", "
                 + typeLiteral((long) classListSize)
                 + ", ["
                 + classListSize
                 + " x "
-                + type(Type.CLASS)
+                + type(compilation.CLASS)
                 + "] [");
     StringBuilder tables =
         new StringBuilder(
             "{ %ulong -1, "
-                + typeText(Type.GENERIC_CLASS, classOf(new ArrayType(Type.METHOD_TABLE)))
+                + typeText(
+                    compilation.GENERIC_CLASS, classOf(new ArrayType(compilation.METHOD_TABLE)))
                 + ", "
-                + methodTableType(Type.ARRAY)
+                + methodTableType(compilation.ARRAY)
                 + " "
-                + methodTable(Type.ARRAY)
+                + methodTable(compilation.ARRAY)
                 + ", "
                 + typeLiteral((long) parameterList.size())
                 + ", ["
                 + parameterList.size()
                 + " x "
-                + type(Type.METHOD_TABLE)
+                + type(compilation.METHOD_TABLE)
                 + "] [");
     first = true;
 
@@ -2857,30 +3025,32 @@ public class IrOutput extends AbstractOutput {
       }
 
       // handle classes
-      parameters.append(type(Type.CLASS)).append(" ");
+      parameters.append(type(compilation.CLASS)).append(" ");
       if (parameterType.isFullyInstantiated() || parameterType instanceof ArrayType)
         parameters
             .append("bitcast (")
-            .append(type(Type.GENERIC_CLASS))
+            .append(type(compilation.GENERIC_CLASS))
             .append(" ")
             .append(classOf(parameterType))
             .append(" to ")
-            .append(type(Type.CLASS))
+            .append(type(compilation.CLASS))
             .append(")");
       else parameters.append(classOf(parameterType));
 
       // handle corresponding method tables
       if (parameterType instanceof InterfaceType)
-        tables.append(type(Type.METHOD_TABLE)).append(" null"); // no method table for interfaces
+        tables
+            .append(type(compilation.METHOD_TABLE))
+            .append(" null"); // no method table for interfaces
       else
         tables
-            .append(type(Type.METHOD_TABLE))
+            .append(type(compilation.METHOD_TABLE))
             .append(" bitcast (")
             .append(methodTableType(parameterWithoutArguments))
             .append(" ")
             .append(methodTable(parameterWithoutArguments))
             .append(" to ")
-            .append(type(Type.METHOD_TABLE))
+            .append(type(compilation.METHOD_TABLE))
             .append(")");
     }
 
@@ -2892,21 +3062,21 @@ public class IrOutput extends AbstractOutput {
           Type parameterType = parameter.getType();
 
           // arrays are in their "generic" form and should be turned back
-          if (parameterType.getTypeWithoutTypeArguments().equals(Type.ARRAY))
+          if (parameterType.getTypeWithoutTypeArguments().equals(compilation.ARRAY))
             parameterType = new ArrayType(parameterType.getTypeParameters().getType(0));
-          else if (parameterType.getTypeWithoutTypeArguments().equals(Type.ARRAY_NULLABLE))
+          else if (parameterType.getTypeWithoutTypeArguments().equals(compilation.ARRAY_NULLABLE))
             parameterType = new ArrayType(parameterType.getTypeParameters().getType(0), true);
 
           parameters.append(", ");
-          parameters.append(type(Type.CLASS)).append(" ");
+          parameters.append(type(compilation.CLASS)).append(" ");
           if (parameterType.isFullyInstantiated() || parameterType instanceof ArrayType)
             parameters
                 .append("bitcast (")
-                .append(type(Type.GENERIC_CLASS))
+                .append(type(compilation.GENERIC_CLASS))
                 .append(" ")
                 .append(classOf(parameterType))
                 .append(" to ")
-                .append(type(Type.CLASS))
+                .append(type(compilation.CLASS))
                 .append(")");
           else parameters.append(classOf(parameterType));
         }
@@ -2917,19 +3087,19 @@ public class IrOutput extends AbstractOutput {
 
     // This comdat stuff is supposed to allow generic classes to be defined in multiple files and
     // merged at link time
-    String mangledGeneric = generic.toString(Type.MANGLE | Type.TYPE_PARAMETERS);
+    String mangledGeneric = generic.getMangledNameWithArguments();
     writer.write("$_parameters" + mangledGeneric + " = comdat any");
     writer.write(
         "@_parameters"
             + mangledGeneric
             + " = linkonce_odr unnamed_addr constant { %ulong, "
-            + type(Type.GENERIC_CLASS)
+            + type(compilation.GENERIC_CLASS)
             + ", "
-            + methodTableType(Type.ARRAY)
+            + methodTableType(compilation.ARRAY)
             + ", %long, ["
             + classListSize
             + " x "
-            + type(Type.CLASS)
+            + type(compilation.CLASS)
             + "] } "
             + parameters);
 
@@ -2938,13 +3108,13 @@ public class IrOutput extends AbstractOutput {
         "@_tables"
             + mangledGeneric
             + " = linkonce_odr unnamed_addr constant { %ulong, "
-            + type(Type.GENERIC_CLASS)
+            + type(compilation.GENERIC_CLASS)
             + ", "
-            + methodTableType(Type.ARRAY)
+            + methodTableType(compilation.ARRAY)
             + ", %long, ["
             + parameterList.size()
             + " x "
-            + type(Type.METHOD_TABLE)
+            + type(compilation.METHOD_TABLE)
             + "] } "
             + tables);
   }
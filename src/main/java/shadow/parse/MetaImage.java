@@ -0,0 +1,365 @@
+package shadow.parse;
+
+import org.antlr.v4.runtime.*;
+import org.antlr.v4.runtime.misc.Pair;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.antlr.v4.runtime.tree.TerminalNodeImpl;
+import shadow.BuildManifest;
+import shadow.ConfigurationException;
+import shadow.parse.ShadowParser.CompilationUnitContext;
+import shadow.typecheck.BaseChecker;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Binary image of a parsed .meta file. An image holds the tokens of the file, a table of their
+ * texts, and the parse tree in preorder, so that it can be memory-mapped and turned back into
+ * {@link Context} objects without running the lexer or the parser. The type collector then builds
+ * types from the tree exactly as it would for a parsed file.
+ *
+ * <p>Images are stored next to their .meta files with the {@link #EXTENSION} extension. They are
+ * recorded in the {@link BuildManifest} with a fingerprint of the .meta file and the grammar, so a
+ * stale image is never loaded.
+ */
+public class MetaImage {
+  public static final String EXTENSION = ".imeta";
+
+  private static final int MAGIC = 0x53484d49; // "SHMI"
+  private static final int FORMAT_VERSION = 1;
+
+  // Marks a rule node in the list of children, where other values are token indexes
+  private static final int RULE_NODE = -1;
+  private static final int NONE = -1;
+
+  // Images are only valid for the grammar that produced them
+  private static final String FLAGS =
+      "imeta " + FORMAT_VERSION + " " + ShadowParser._serializedATN.hashCode();
+
+  private static final RuleClass[] ruleClasses = createRuleClasses();
+
+  private final CommonTokenStream tokens;
+  private final CompilationUnitContext compilationUnit;
+
+  /* Constructor and labeled fields of the context class generated for a grammar rule. */
+  private static class RuleClass {
+    private final Constructor<? extends Context> constructor;
+    private final Field[] fields;
+
+    public RuleClass(Constructor<? extends Context> constructor, Field[] fields) {
+      this.constructor = constructor;
+      this.fields = fields;
+    }
+  }
+
+  private MetaImage(CommonTokenStream tokens, CompilationUnitContext compilationUnit) {
+    this.tokens = tokens;
+    this.compilationUnit = compilationUnit;
+  }
+
+  public CommonTokenStream getTokens() {
+    return tokens;
+  }
+
+  public CompilationUnitContext getCompilationUnit() {
+    return compilationUnit;
+  }
+
+  public static Path getImagePath(Path meta) {
+    return BaseChecker.changeExtension(meta, EXTENSION);
+  }
+
+  /**
+   * Computes the fingerprint that an image of the given .meta file is recorded with.
+   *
+   * @param meta .meta file
+   * @return fingerprint of the file and the grammar
+   * @throws IOException thrown if the file cannot be read
+   */
+  public static String fingerprint(Path meta) throws IOException {
+    return BuildManifest.fingerprint(FLAGS, meta);
+  }
+
+  /*
+   * Generated context classes are named after their rules. Labels such as
+   * operators+='+' become public fields that the parser fills in, so they
+   * have to be stored as well. Fields are sorted by name to keep the order
+   * independent of reflection.
+   */
+  private static RuleClass[] createRuleClasses() {
+    RuleClass[] classes = new RuleClass[ShadowParser.ruleNames.length];
+    for (int i = 0; i < classes.length; ++i) {
+      String name = ShadowParser.ruleNames[i];
+      String className =
+          ShadowParser.class.getName()
+              + "$"
+              + Character.toUpperCase(name.charAt(0))
+              + name.substring(1)
+              + "Context";
+      try {
+        Class<? extends Context> _class = Class.forName(className).asSubclass(Context.class);
+        List<Field> fields = new ArrayList<>();
+        for (Field field : _class.getDeclaredFields()) {
+          int modifiers = field.getModifiers();
+          if (Modifier.isPublic(modifiers) && !Modifier.isStatic(modifiers) && isStored(field))
+            fields.add(field);
+        }
+        fields.sort(Comparator.comparing(Field::getName));
+        classes[i] =
+            new RuleClass(
+                _class.getConstructor(ParserRuleContext.class, int.class),
+                fields.toArray(new Field[0]));
+      } catch (ReflectiveOperationException e) {
+        // The parser is generated with one context class per rule
+        throw new IllegalStateException("No context class for rule " + name, e);
+      }
+    }
+
+    return classes;
+  }
+
+  // Other fields (like locals holding types) are only set after parsing
+  private static boolean isStored(Field field) {
+    Class<?> type = field.getType();
+    return type == boolean.class
+        || type == Token.class
+        || ParserRuleContext.class.isAssignableFrom(type)
+        || type == List.class;
+  }
+
+  private static boolean holdsTokens(Field field) {
+    return ((ParameterizedType) field.getGenericType()).getActualTypeArguments()[0]
+        == Token.class;
+  }
+
+  /**
+   * Writes an image of a parsed .meta file and records it in the build manifest.
+   *
+   * @param image image file
+   * @param fingerprint fingerprint of the .meta file, from {@link #fingerprint(Path)}
+   * @param unit parse tree of the .meta file, which must not contain errors
+   * @param tokens all tokens of the .meta file, including hidden ones
+   * @throws IOException thrown if the image cannot be written
+   * @throws ConfigurationException thrown if there's a problem with Configuration
+   */
+  public static void write(
+      Path image, String fingerprint, CompilationUnitContext unit, List<Token> tokens)
+      throws IOException, ConfigurationException {
+    Map<String, Integer> stringIndexes = new LinkedHashMap<>();
+    for (Token token : tokens) stringIndexes.putIfAbsent(token.getText(), stringIndexes.size());
+
+    Path temporary =
+        Files.createTempFile(image.getParent(), image.getFileName().toString(), ".tmp");
+    try {
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+
+        writeNumber(out, stringIndexes.size());
+        for (String text : stringIndexes.keySet()) {
+          byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+          writeNumber(out, bytes.length);
+          out.write(bytes);
+        }
+
+        writeNumber(out, tokens.size());
+        for (Token token : tokens) {
+          writeNumber(out, token.getType());
+          writeNumber(out, token.getChannel());
+          writeNumber(out, token.getLine());
+          writeNumber(out, token.getCharPositionInLine());
+          writeNumber(out, token.getStartIndex());
+          writeNumber(out, token.getStopIndex());
+          writeNumber(out, stringIndexes.get(token.getText()));
+        }
+
+        writeNode(out, unit);
+      }
+
+      Files.move(temporary, image, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+
+    BuildManifest.update(image, fingerprint);
+  }
+
+  private static void writeNode(DataOutputStream out, ParserRuleContext node) throws IOException {
+    writeNumber(out, node.getRuleIndex());
+    writeNumber(out, node.invokingState);
+    writeNumber(out, indexOf(node.getStart()));
+    writeNumber(out, indexOf(node.getStop()));
+
+    List<ParseTree> children = node.children == null ? List.of() : node.children;
+    writeNumber(out, children.size());
+    for (ParseTree child : children) {
+      if (child instanceof TerminalNode terminal) writeNumber(out, indexOf(terminal.getSymbol()));
+      else {
+        writeNumber(out, RULE_NODE);
+        writeNode(out, (ParserRuleContext) child);
+      }
+    }
+
+    try {
+      for (Field field : ruleClasses[node.getRuleIndex()].fields) {
+        Object value = field.get(node);
+        if (field.getType() == boolean.class) writeNumber(out, (Boolean) value ? 1 : 0);
+        else if (field.getType() == Token.class) writeNumber(out, indexOf((Token) value));
+        else if (field.getType() == List.class) {
+          List<?> list = (List<?>) value;
+          writeNumber(out, list.size());
+          for (Object element : list)
+            writeNumber(
+                out, element instanceof Token token ? indexOf(token) : children.indexOf(element));
+        } else writeNumber(out, value == null ? NONE : children.indexOf(value));
+      }
+    } catch (IllegalAccessException e) {
+      // Only public fields are stored
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /*
+   * Numbers are stored as variable-length unsigned integers, seven bits per
+   * byte, after adding one so that NONE fits. Almost all of them are small.
+   */
+  private static void writeNumber(DataOutputStream out, int value) throws IOException {
+    int remaining = value + 1;
+    while ((remaining & ~0x7f) != 0) {
+      out.writeByte((remaining & 0x7f) | 0x80);
+      remaining >>>= 7;
+    }
+    out.writeByte(remaining);
+  }
+
+  private static int readNumber(ByteBuffer buffer) {
+    int value = 0;
+    int shift = 0;
+    byte next;
+    do {
+      next = buffer.get();
+      value |= (next & 0x7f) << shift;
+      shift += 7;
+    } while (next < 0);
+
+    return value - 1;
+  }
+
+  private static int indexOf(Token token) {
+    return token == null ? NONE : token.getTokenIndex();
+  }
+
+  /**
+   * Loads an image by memory-mapping it.
+   *
+   * @param image image file
+   * @param meta .meta file that the image was made from, used as the source of the tokens
+   * @return tokens and parse tree stored in the image
+   * @throws IOException thrown if the image cannot be read or is malformed
+   */
+  public static MetaImage read(Path image, Path meta) throws IOException {
+    ByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(image, StandardOpenOption.READ)) {
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+
+    try {
+      if (buffer.getInt() != MAGIC || buffer.getInt() != FORMAT_VERSION)
+        throw new IOException("Unrecognized image format in " + image);
+
+      String[] strings = new String[readNumber(buffer)];
+      for (int i = 0; i < strings.length; ++i) {
+        byte[] bytes = new byte[readNumber(buffer)];
+        buffer.get(bytes);
+        strings[i] = new String(bytes, StandardCharsets.UTF_8);
+      }
+
+      // Tokens keep the .meta file as their source, which is where errors are reported
+      Pair<TokenSource, CharStream> source =
+          new Pair<>(null, CharStreams.fromString("", meta.toString()));
+      int size = readNumber(buffer);
+      List<Token> tokens = new ArrayList<>(size);
+      for (int i = 0; i < size; ++i) {
+        int type = readNumber(buffer);
+        int channel = readNumber(buffer);
+        int line = readNumber(buffer);
+        int column = readNumber(buffer);
+        CommonToken token =
+            new CommonToken(source, type, channel, readNumber(buffer), readNumber(buffer));
+        token.setLine(line);
+        token.setCharPositionInLine(column);
+        token.setText(strings[readNumber(buffer)]);
+        token.setTokenIndex(i);
+        tokens.add(token);
+      }
+
+      CompilationUnitContext unit = (CompilationUnitContext) readNode(buffer, null, tokens);
+
+      CommonTokenStream stream =
+          new CommonTokenStream(new ListTokenSource(tokens, meta.toString()));
+      stream.fill();
+      return new MetaImage(stream, unit);
+    } catch (BufferUnderflowException
+        | IndexOutOfBoundsException
+        | ClassCastException
+        | IllegalArgumentException
+        | ReflectiveOperationException e) {
+      throw new IOException("Malformed image " + image, e);
+    }
+  }
+
+  private static Context readNode(ByteBuffer buffer, ParserRuleContext parent, List<Token> tokens)
+      throws ReflectiveOperationException {
+    RuleClass ruleClass = ruleClasses[readNumber(buffer)];
+    Context node = ruleClass.constructor.newInstance(parent, readNumber(buffer));
+    node.start = tokenAt(tokens, readNumber(buffer));
+    node.stop = tokenAt(tokens, readNumber(buffer));
+
+    int size = readNumber(buffer);
+    for (int i = 0; i < size; ++i) {
+      int child = readNumber(buffer);
+      if (child == RULE_NODE) node.addChild(readNode(buffer, node, tokens));
+      else node.addChild(new TerminalNodeImpl(tokens.get(child)));
+    }
+
+    for (Field field : ruleClass.fields) {
+      if (field.getType() == boolean.class) field.setBoolean(node, readNumber(buffer) != 0);
+      else if (field.getType() == Token.class) field.set(node, tokenAt(tokens, readNumber(buffer)));
+      else if (field.getType() == List.class) {
+        boolean holdsTokens = holdsTokens(field);
+        List<Object> list = new ArrayList<>();
+        int count = readNumber(buffer);
+        for (int i = 0; i < count; ++i) {
+          int index = readNumber(buffer);
+          list.add(holdsTokens ? tokens.get(index) : node.getChild(index));
+        }
+        field.set(node, list);
+      } else {
+        int index = readNumber(buffer);
+        field.set(node, index == NONE ? null : node.getChild(index));
+      }
+    }
+
+    return node;
+  }
+
+  private static Token tokenAt(List<Token> tokens, int index) {
+    return index == NONE ? null : tokens.get(index);
+  }
+}
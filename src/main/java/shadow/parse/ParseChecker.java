@@ -2,6 +2,11 @@ package shadow.parse;
 
 import org.antlr.v4.runtime.*;
 import org.antlr.v4.runtime.atn.PredictionMode;
+import shadow.BuildManifest;
+import shadow.CompilationContext;
+import shadow.CompilerStats;
+import shadow.ConfigurationException;
+import shadow.Loggers;
 import shadow.doctool.Documentation;
 import shadow.doctool.DocumentationBuilder;
 import shadow.doctool.DocumentationException;
@@ -35,6 +40,47 @@ public class ParseChecker extends ShadowVisitorErrorReporter {
     return getCompilationUnit(stream);
   }
 
+  /**
+   * Gets the tree for a .meta file. If the file has a current {@link MetaImage}, the tree is loaded
+   * from the image without lexing or parsing. Otherwise, the file is parsed, and an image is
+   * written for later compilations.
+   *
+   * @param path .meta file
+   * @return tree for the file
+   * @throws IOException thrown if the file cannot be read
+   */
+  public CompilationUnitContext getMetaCompilationUnit(Path path) throws IOException {
+    Path image = MetaImage.getImagePath(path);
+    String fingerprint = MetaImage.fingerprint(path);
+    try {
+      if (BuildManifest.isCurrent(image, fingerprint)) {
+        MetaImage loaded = MetaImage.read(image, path);
+        CompilationContext.current().getStats().count(CompilerStats.Counter.META_IMAGES);
+        tokens = loaded.getTokens();
+        docBuilder = new DocumentationBuilder();
+        checkedIndex = -1;
+
+        CompilationUnitContext context = loaded.getCompilationUnit();
+        visit(context);
+        return context;
+      }
+    } catch (IOException | ConfigurationException e) {
+      // A missing or damaged image only means parsing the .meta file again
+      Loggers.PARSER.warn("Cannot load " + image + ": " + e.getLocalizedMessage());
+    }
+
+    CompilationUnitContext context = getCompilationUnit(path);
+    if (getErrorReporter().getErrorList().isEmpty()) {
+      try {
+        MetaImage.write(image, fingerprint, context, tokens.getTokens());
+      } catch (IOException | ConfigurationException e) {
+        Loggers.PARSER.warn("Cannot write " + image + ": " + e.getLocalizedMessage());
+      }
+    }
+
+    return context;
+  }
+
   private CompilationUnitContext getCompilationUnit(CharStream stream) {
     ParseErrorListener listener = new ParseErrorListener(getErrorReporter());
 
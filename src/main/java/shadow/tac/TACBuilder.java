@@ -3,6 +3,7 @@ package shadow.tac;
 import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.RuleNode;
+import shadow.CompilationContext;
 import shadow.Configuration;
 import shadow.Loggers;
 import shadow.interpreter.ConstantFieldInterpreter.FieldKey;
@@ -28,6 +29,16 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
   private boolean explicitSuper;
   private TACBlock block;
   private final Deque<TACModule> moduleStack = new ArrayDeque<>();
+  private final CompilationContext compilation;
+
+  /**
+   * Creates a builder for the classes of one compilation.
+   *
+   * @param compilation context holding the standard types of the compilation
+   */
+  public TACBuilder(CompilationContext compilation) {
+    this.compilation = compilation;
+  }
 
   public TACModule build(Context node) {
     method = null;
@@ -686,7 +697,7 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
         if (currentType.isPrimitive()
             && nextType.isPrimitive()
             && (currentNullable || nextNullable)) {
-          TACVariable var = method.addTempLocal(new SimpleModifiedType(Type.BOOLEAN));
+          TACVariable var = method.addTempLocal(new SimpleModifiedType(compilation.BOOLEAN));
           TACLabel done = new TACLabel(method);
 
           if (currentNullable && nextNullable) {
@@ -787,14 +798,17 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
         // Get class from object
         TACMethodName methodName =
             new TACMethodName(
-                anchor, value, Type.OBJECT.getMatchingMethod("getClass", new SequenceType()));
+                anchor,
+                value,
+                compilation.OBJECT.getMatchingMethod("getClass", new SequenceType()));
         TACOperand valueClass = new TACCall(anchor, methodName, methodName.getPrefix());
 
         methodName =
             new TACMethodName(
                 anchor,
                 valueClass,
-                Type.CLASS.getMatchingMethod("isSubtype", new SequenceType(Type.CLASS)));
+                compilation.CLASS.getMatchingMethod(
+                    "isSubtype", new SequenceType(compilation.CLASS)));
 
         ctx.setOperand(new TACCall(anchor, methodName, methodName.getPrefix(), comparisonClass));
       }
@@ -813,14 +827,14 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
 
   private TACOperand convertToString(TACOperand operand) {
     Type type = resolveType(operand.getType());
-    if (!type.equals(Type.STRING)) {
+    if (!type.equals(compilation.STRING)) {
       if (operand.getModifiers().isNullable()
           && !(type
               instanceof ArrayType)) { // || !type.isPrimitive() && !(type instanceof ArrayType))
         TACLabel nullLabel = new TACLabel(method),
             nonnullLabel = new TACLabel(method),
             doneLabel = new TACLabel(method);
-        TACVariable var = method.addTempLocal(new SimpleModifiedType(Type.STRING));
+        TACVariable var = method.addTempLocal(new SimpleModifiedType(compilation.STRING));
         new TACBranch(
             anchor,
             new TACBinary(
@@ -866,7 +880,8 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
       last =
           new TACCall(
               anchor,
-              new TACMethodName(anchor, Type.STRING.getMethodOverloads("concatenate").get(0)),
+              new TACMethodName(
+                  anchor, compilation.STRING.getMethodOverloads("concatenate").get(0)),
               Arrays.asList(last, next));
     }
 
@@ -970,7 +985,7 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
 
     // Interfaces themselves are value types, so extract the object pointer inside
     if (operand.getType() instanceof InterfaceType)
-      operand = TACCast.cast(anchor, new SimpleModifiedType(Type.OBJECT), operand);
+      operand = TACCast.cast(anchor, new SimpleModifiedType(compilation.OBJECT), operand);
 
     // Branch to the handler, either a recover block or the unexpected null exception
     new TACBranch(
@@ -991,9 +1006,9 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
         visitCleanups(currentBlock);
         new TACBranch(anchor, block.getRecover());
       } else {
-        TACOperand object = new TACNewObject(anchor, Type.UNEXPECTED_NULL_EXCEPTION);
+        TACOperand object = new TACNewObject(anchor, compilation.UNEXPECTED_NULL_EXCEPTION);
         MethodSignature signature =
-            Type.UNEXPECTED_NULL_EXCEPTION.getMatchingMethod("create", new SequenceType());
+            compilation.UNEXPECTED_NULL_EXCEPTION.getMatchingMethod("create", new SequenceType());
         TACCall exception = new TACCall(anchor, new TACMethodName(anchor, signature), object);
 
         new TACThrow(anchor, exception);
@@ -1052,13 +1067,13 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
 
     TACMethodName methodName = new TACMethodName(anchor, prefix, methodType.getKnownSignature());
     TACOperand refAsMethodTable =
-        TACCast.cast(anchor, new SimpleModifiedType(Type.METHOD_TABLE), methodName, false);
+        TACCast.cast(anchor, new SimpleModifiedType(compilation.METHOD_TABLE), methodName, false);
 
     params.add(refAsMethodTable);
     params.add(prefix);
-    params.add(new TACLiteral(anchor, new ShadowNull(new ArrayType(Type.OBJECT))));
+    params.add(new TACLiteral(anchor, new ShadowNull(new ArrayType(compilation.OBJECT))));
 
-    MethodSignature signature = Type.METHOD.recursivelyGetMethodOverloads("create").get(0);
+    MethodSignature signature = compilation.METHOD.recursivelyGetMethodOverloads("create").get(0);
     // internally sets prefix
     return callCreate(signature, params, signature.getOuter());
   }
@@ -1279,9 +1294,10 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
         && !(((ArrayType) prefixType).getBaseType() instanceof TypeParameter)) {
       TACOperand index = ctx.conditionalExpression().appendBefore(anchor);
       Type indexType = index.getType();
-      if (!indexType.equals(Type.LONG))
+      if (!indexType.equals(compilation.LONG))
         index =
-            TACCast.cast(anchor, new SimpleModifiedType(Type.LONG, index.getModifiers()), index);
+            TACCast.cast(
+                anchor, new SimpleModifiedType(compilation.LONG, index.getModifiers()), index);
 
       prefix = new TACLoad(anchor, new TACArrayRef(anchor, prefix, index));
     } else if (ctx.getType() instanceof SubscriptType subscriptType) {
@@ -1536,16 +1552,17 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
     new TACBranch(anchor, condition, doneLabel, errorLabel);
     errorLabel.insertBefore(anchor);
 
-    TACOperand object = new TACNewObject(anchor, Type.ASSERT_EXCEPTION);
+    TACOperand object = new TACNewObject(anchor, compilation.ASSERT_EXCEPTION);
     List<TACOperand> params = new ArrayList<>();
     params.add(object);
     MethodSignature signature;
 
     if (ctx.conditionalExpression().size() > 1) { // has message
       TACOperand message = convertToString(ctx.conditionalExpression(1).appendBefore(anchor));
-      signature = Type.ASSERT_EXCEPTION.getMatchingMethod("create", new SequenceType(message));
+      signature =
+          compilation.ASSERT_EXCEPTION.getMatchingMethod("create", new SequenceType(message));
       params.add(message);
-    } else signature = Type.ASSERT_EXCEPTION.getMatchingMethod("create", new SequenceType());
+    } else signature = compilation.ASSERT_EXCEPTION.getMatchingMethod("create", new SequenceType());
 
     TACCall exception = new TACCall(anchor, new TACMethodName(anchor, signature), params);
     new TACThrow(anchor, exception);
@@ -1888,7 +1905,7 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
       TACLabel updateLabel = block.getContinue(), conditionLabel = new TACLabel(method);
 
       // Make iterator (long index)
-      iterator = method.addTempLocal(new SimpleModifiedType(Type.LONG));
+      iterator = method.addTempLocal(new SimpleModifiedType(compilation.LONG));
       new TACLocalStore(anchor, iterator, new TACLiteral(anchor, new ShadowInteger(0L)));
       TACOperand length = arraySize(anchor, collection, true);
       new TACBranch(anchor, conditionLabel); // init is done, jump to condition
@@ -1918,7 +1935,7 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
           new TACBinary(
               anchor,
               value,
-              Type.LONG.getMatchingMethod("add", new SequenceType(Type.LONG)),
+              compilation.LONG.getMatchingMethod("add", new SequenceType(compilation.LONG)),
               "+",
               one,
               false);
@@ -1934,7 +1951,7 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
           new TACBinary(
               anchor,
               value,
-              Type.LONG.getMatchingMethod("compare", new SequenceType(Type.LONG)),
+              compilation.LONG.getMatchingMethod("compare", new SequenceType(compilation.LONG)),
               "<",
               length,
               true);
@@ -2603,7 +2620,7 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
 
     // Unreachable label
     // Thread  (and its inner classes) are the only mutable classes that should be copied, because there will otherwise be multiple copies of the same thread, which doesn't make sense
-    if (type.getModifiers().isImmutable() || type.equals(Type.THREAD) || Type.THREAD.containsInnerType(type.getTypeName())) {
+    if (type.getModifiers().isImmutable() || type.equals(compilation.THREAD) || compilation.THREAD.containsInnerType(type.getTypeName())) {
       // Local store includes increase of reference count
       new TACLocalStore(
           anchor, method.getLocal("return"), new TACLocalLoad(anchor, method.getThis()));
@@ -2625,7 +2642,8 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
       TACMethodName indexMethod =
           new TACMethodName(
               anchor,
-              Type.ADDRESS_MAP.getMatchingMethod("containsKey", new SequenceType(Type.ULONG)));
+              compilation.ADDRESS_MAP.getMatchingMethod(
+                  "containsKey", new SequenceType(compilation.ULONG)));
       TACOperand test = new TACCall(anchor, indexMethod, map, address);
 
       TACLabel copyLabel = new TACLabel(method), returnLabel = new TACLabel(method);
@@ -2633,20 +2651,22 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
       new TACBranch(anchor, test, returnLabel, copyLabel);
       copyLabel.insertBefore(anchor);
 
-      if (type.getTypeWithoutTypeArguments().equals(Type.ARRAY)
-          || type.getTypeWithoutTypeArguments().equals(Type.ARRAY_NULLABLE)) {
+      if (type.getTypeWithoutTypeArguments().equals(compilation.ARRAY)
+          || type.getTypeWithoutTypeArguments().equals(compilation.ARRAY_NULLABLE)) {
         Type genericArray = type.getTypeWithoutTypeArguments();
-        boolean isNullable = type.getTypeWithoutTypeArguments().equals(Type.ARRAY_NULLABLE);
+        boolean isNullable = type.getTypeWithoutTypeArguments().equals(compilation.ARRAY_NULLABLE);
 
         TACOperand arrayClass =
             TACCast.cast(
                 anchor,
-                new SimpleModifiedType(Type.GENERIC_CLASS, new Modifiers(Modifiers.IMMUTABLE)),
+                new SimpleModifiedType(
+                    compilation.GENERIC_CLASS, new Modifiers(Modifiers.IMMUTABLE)),
                 new TACLoad(
                     anchor,
                     new TACFieldRef(
                         this_,
-                        new SimpleModifiedType(Type.CLASS, new Modifiers(Modifiers.IMMUTABLE)),
+                        new SimpleModifiedType(
+                            compilation.CLASS, new Modifiers(Modifiers.IMMUTABLE)),
                         "class")));
         TACOperand length = arraySize(anchor, this_, true);
 
@@ -2664,7 +2684,7 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
                 new TACFieldRef(
                     arrayClass,
                     new SimpleModifiedType(
-                        new ArrayType(Type.CLASS), new Modifiers(Modifiers.IMMUTABLE)),
+                        new ArrayType(compilation.CLASS), new Modifiers(Modifiers.IMMUTABLE)),
                     "parameters"));
         TACOperand baseClass =
             new TACLoad(
@@ -2680,7 +2700,9 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
 
         TACMethodName isPrimitive =
             new TACMethodName(
-                anchor, baseClass, Type.CLASS.getMatchingMethod("isPrimitive", new SequenceType()));
+                anchor,
+                baseClass,
+                compilation.CLASS.getMatchingMethod("isPrimitive", new SequenceType()));
         TACOperand checkPrimitive = new TACCall(anchor, isPrimitive, isPrimitive.getPrefix());
         new TACBranch(anchor, checkPrimitive, primitive, startLoop);
 
@@ -2689,13 +2711,15 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
 
         TACMethodName getWidth =
             new TACMethodName(
-                anchor, baseClass, Type.CLASS.getMatchingMethod("width", new SequenceType()));
+                anchor,
+                baseClass,
+                compilation.CLASS.getMatchingMethod("width", new SequenceType()));
         TACOperand width = new TACCall(anchor, getWidth, getWidth.getPrefix());
         TACOperand sizeInBytes =
             new TACBinary(
                 anchor,
                 length,
-                Type.LONG.getMatchingMethod("multiply", new SequenceType(Type.LONG)),
+                compilation.LONG.getMatchingMethod("multiply", new SequenceType(compilation.LONG)),
                 "*",
                 width);
 
@@ -2706,7 +2730,7 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
         // start loop
         startLoop.insertBefore(anchor);
 
-        TACVariable i = method.addTempLocal(new SimpleModifiedType(Type.LONG));
+        TACVariable i = method.addTempLocal(new SimpleModifiedType(compilation.LONG));
         new TACLocalStore(anchor, i, new TACLiteral(anchor, new ShadowInteger(0L)));
         new TACBranch(anchor, condition);
 
@@ -2716,7 +2740,7 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
             new TACBinary(
                 anchor,
                 new TACLocalLoad(anchor, i),
-                Type.LONG.getMatchingMethod("compare", new SequenceType(Type.LONG)),
+                compilation.LONG.getMatchingMethod("compare", new SequenceType(compilation.LONG)),
                 "<",
                 length,
                 true);
@@ -2745,7 +2769,8 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
             new TACMethodName(
                 anchor,
                 value,
-                Type.OBJECT.getMatchingMethod("copy", new SequenceType(Type.ADDRESS_MAP)));
+                compilation.OBJECT.getMatchingMethod(
+                    "copy", new SequenceType(compilation.ADDRESS_MAP)));
 
         value = new TACCall(anchor, copy, copy.getPrefix(), map);
         new TACCall(anchor, indexStore, array, new TACLocalLoad(anchor, i), value);
@@ -2759,7 +2784,7 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
             new TACBinary(
                 anchor,
                 new TACLocalLoad(anchor, i),
-                Type.LONG.getMatchingMethod("add", new SequenceType(Type.LONG)),
+                compilation.LONG.getMatchingMethod("add", new SequenceType(compilation.LONG)),
                 "+",
                 new TACLiteral(anchor, new ShadowInteger(1L)),
                 false));
@@ -2775,10 +2800,11 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
 
         // add it to the map of addresses
         SequenceType arguments = new SequenceType();
-        arguments.add(new SimpleModifiedType(Type.ULONG)); // key
-        arguments.add(new SimpleModifiedType(Type.ULONG)); // value
+        arguments.add(new SimpleModifiedType(compilation.ULONG)); // key
+        arguments.add(new SimpleModifiedType(compilation.ULONG)); // value
         indexMethod =
-            new TACMethodName(anchor, Type.ADDRESS_MAP.getMatchingMethod("index", arguments));
+            new TACMethodName(
+                anchor, compilation.ADDRESS_MAP.getMatchingMethod("index", arguments));
         TACOperand newAddress = new TACPointerToLong(anchor, object);
         new TACCall(anchor, indexMethod, map, address, newAddress);
 
@@ -2786,7 +2812,7 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
         TACOperand size = new TACLoad(anchor, new TACFieldRef(object.getClassData(), "size"));
         new TACCopyMemory(anchor, object, this_, size);
 
-        if (type.equals(Type.OBJECT)) duplicate = object;
+        if (type.equals(compilation.OBJECT)) duplicate = object;
         else
           duplicate =
               TACCast.cast(anchor, new SimpleModifiedType(type), object); // casts object to type
@@ -2816,12 +2842,13 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
 
               if (entryType.getType() instanceof InterfaceType) {
                 // cast converts from interface to object
-                field = TACCast.cast(anchor, new SimpleModifiedType(Type.OBJECT), field);
+                field = TACCast.cast(anchor, new SimpleModifiedType(compilation.OBJECT), field);
                 copyMethod =
                     new TACMethodName(
                         anchor,
                         field,
-                        Type.OBJECT.getMatchingMethod("copy", new SequenceType(Type.ADDRESS_MAP)));
+                        compilation.OBJECT.getMatchingMethod(
+                            "copy", new SequenceType(compilation.ADDRESS_MAP)));
               } else // normal object or array
                 copyMethod =
                     new TACMethodName(
@@ -2829,7 +2856,7 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
                         field,
                         entryType
                             .getType()
-                            .getMatchingMethod("copy", new SequenceType(Type.ADDRESS_MAP)));
+                            .getMatchingMethod("copy", new SequenceType(compilation.ADDRESS_MAP)));
 
               TACOperand nullCondition =
                   new TACBinary(
@@ -2870,7 +2897,9 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
 
       indexMethod =
           new TACMethodName(
-              anchor, Type.ADDRESS_MAP.getMatchingMethod("index", new SequenceType(Type.ULONG)));
+              anchor,
+              compilation.ADDRESS_MAP.getMatchingMethod(
+                  "index", new SequenceType(compilation.ULONG)));
       TACOperand index = new TACCall(anchor, indexMethod, map, address);
       TACOperand existingObject = new TACLongToPointer(anchor, index, new SimpleModifiedType(type));
 
@@ -3213,7 +3242,7 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
         // comparisons will always give positive, negative or zero integer
         // must be compared to 0 with regular int comparison to work
         if (isCompare) {
-          TACVariable var = method.addTempLocal(new SimpleModifiedType(Type.INT));
+          TACVariable var = method.addTempLocal(new SimpleModifiedType(compilation.INT));
           new TACLocalStore(
               anchor,
               var,
@@ -3223,7 +3252,7 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
               new TACBinary(
                   anchor,
                   current,
-                  Type.INT.getMatchingMethod("compare", new SequenceType(Type.INT)),
+                  compilation.INT.getMatchingMethod("compare", new SequenceType(compilation.INT)),
                   op,
                   new TACLiteral(anchor, new ShadowInteger(0)),
                   true);
@@ -3247,7 +3276,7 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
         endLabel = new TACLabel(method);
 
     // make iterator (int index)
-    TACVariable iterator = method.addTempLocal(new SimpleModifiedType(Type.LONG));
+    TACVariable iterator = method.addTempLocal(new SimpleModifiedType(compilation.LONG));
     new TACLocalStore(anchor, iterator, new TACLiteral(anchor, new ShadowInteger(0)));
     TACOperand length = arraySize(anchor, array, true);
     new TACBranch(anchor, conditionLabel); // init is done, jump to condition
@@ -3270,7 +3299,7 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
         new TACBinary(
             anchor,
             new TACLocalLoad(anchor, iterator),
-            Type.LONG.getMatchingMethod("add", new SequenceType(Type.LONG)),
+            compilation.LONG.getMatchingMethod("add", new SequenceType(compilation.LONG)),
             "+",
             new TACLiteral(anchor, new ShadowInteger(1)));
     new TACLocalStore(anchor, iterator, value);
@@ -3284,7 +3313,7 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
         new TACBinary(
             anchor,
             value,
-            Type.LONG.getMatchingMethod("compare", new SequenceType(Type.LONG)),
+            compilation.LONG.getMatchingMethod("compare", new SequenceType(compilation.LONG)),
             "<",
             length,
             true);
@@ -3324,7 +3353,7 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
     TACNewArray alloc = new TACNewArray(anchor, type, arrayClassData, sizes.get(dimension));
     if (dimension < sizes.size() - 1) {
       ArrayType baseType = (ArrayType) type.getBaseType();
-      TACVariable index = method.addTempLocal(new SimpleModifiedType(Type.INT));
+      TACVariable index = method.addTempLocal(new SimpleModifiedType(compilation.INT));
       new TACLocalStore(anchor, index, new TACLiteral(anchor, new ShadowInteger(0)));
       TACClass class_ = new TACClass(anchor, baseType);
       TACLabel bodyLabel = new TACLabel(method),
@@ -3343,7 +3372,7 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
           new TACBinary(
               anchor,
               new TACLocalLoad(anchor, index),
-              Type.INT.getMatchingMethod("add", new SequenceType(Type.INT)),
+              compilation.INT.getMatchingMethod("add", new SequenceType(compilation.INT)),
               "+",
               new TACLiteral(anchor, new ShadowInteger(1))));
       new TACBranch(anchor, condLabel);
@@ -3446,10 +3475,10 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
     //TODO: IS THIS FINE??? or are there memory problems?
 
     if (!type.getModifiers().isImmutable()) { // if immutable, do nothing, the old one is fine
-      TACNewObject object = new TACNewObject(anchor, Type.ADDRESS_MAP);
+      TACNewObject object = new TACNewObject(anchor, compilation.ADDRESS_MAP);
       TACMethodName create =
           new TACMethodName(
-              anchor, Type.ADDRESS_MAP.getMatchingMethod("create", new SequenceType()));
+              anchor, compilation.ADDRESS_MAP.getMatchingMethod("create", new SequenceType()));
       TACOperand map = new TACCall(anchor, create, object);
 
       TACMethodName copyMethod;
@@ -3462,7 +3491,7 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
 
       if (type instanceof InterfaceType) {
         // cast converts from interface to object
-        data = TACCast.cast(anchor, new SimpleModifiedType(Type.OBJECT), data);
+        data = TACCast.cast(anchor, new SimpleModifiedType(compilation.OBJECT), data);
         TACOperand nullCondition =
             new TACBinary(anchor, data, new TACLiteral(anchor, new ShadowNull(data.getType())));
         new TACBranch(anchor, nullCondition, nullLabel, copyLabel);
@@ -3471,7 +3500,8 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
             new TACMethodName(
                 anchor,
                 data,
-                Type.OBJECT.getMatchingMethod("copy", new SequenceType(Type.ADDRESS_MAP)));
+                compilation.OBJECT.getMatchingMethod(
+                    "copy", new SequenceType(compilation.ADDRESS_MAP)));
       } else {
         TACOperand nullCondition =
             new TACBinary(anchor, data, new TACLiteral(anchor, new ShadowNull(data.getType())));
@@ -3479,7 +3509,9 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
         copyLabel.insertBefore(anchor);
         copyMethod =
             new TACMethodName(
-                anchor, data, type.getMatchingMethod("copy", new SequenceType(Type.ADDRESS_MAP)));
+                anchor,
+                data,
+                type.getMatchingMethod("copy", new SequenceType(compilation.ADDRESS_MAP)));
       }
 
       TACOperand copy = new TACCall(anchor, copyMethod, data, map);
@@ -3551,16 +3583,16 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
       params.add(child.appendBefore(anchor));
 
     // Get parent thread
-    TACSingletonRef reference = new TACSingletonRef(Type.THREAD_CURRENT);
+    TACSingletonRef reference = new TACSingletonRef(compilation.THREAD_CURRENT);
     TACOperand instance = new TACLoad(anchor, reference);
-    MethodSignature instanceSignature = Type.THREAD_CURRENT.getMatchingMethod("instance", new SequenceType());
+    MethodSignature instanceSignature = compilation.THREAD_CURRENT.getMatchingMethod("instance", new SequenceType());
     TACMethodRef instanceName = new TACMethodName(anchor, instance, instanceSignature);
     TACOperand parent = new TACCall(anchor, instanceName, Collections.singletonList(instance));
 
-    TACOperand newThread = callCreate(ctx.getSignature(), params, Type.THREAD);
+    TACOperand newThread = callCreate(ctx.getSignature(), params, compilation.THREAD);
 
     // Add new thread to parent thread
-    MethodSignature addChildSignature = Type.THREAD.getMatchingMethod("addChild", new SequenceType(newThread));
+    MethodSignature addChildSignature = compilation.THREAD.getMatchingMethod("addChild", new SequenceType(newThread));
     TACMethodRef addChildName = new TACMethodName(anchor, parent, addChildSignature);
     List<TACOperand> parameters = new ArrayList<>();
     parameters.add(parent);
@@ -3578,8 +3610,8 @@ public class TACBuilder extends ShadowBaseVisitor<Void> {
     visitChildren(ctx);
 
     // Get current thread from Thread:Current singleton
-    TACOperand currentThreadSingleton = new TACLoad(anchor, new TACSingletonRef(Type.THREAD_CURRENT));
-    TACMethodName instanceRef = new TACMethodName(anchor, currentThreadSingleton, Type.THREAD_CURRENT.getMatchingMethod("instance", new SequenceType()));
+    TACOperand currentThreadSingleton = new TACLoad(anchor, new TACSingletonRef(compilation.THREAD_CURRENT));
+    TACMethodName instanceRef = new TACMethodName(anchor, currentThreadSingleton, compilation.THREAD_CURRENT.getMatchingMethod("instance", new SequenceType()));
     TACOperand currentThread = new TACCall(anchor, instanceRef, instanceRef.getPrefix());
 
 
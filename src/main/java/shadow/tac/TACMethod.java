@@ -1,5 +1,6 @@
 package shadow.tac;
 
+import shadow.CompilationContext;
 import shadow.Configuration;
 import shadow.ShadowException;
 import shadow.interpreter.ShadowUndefined;
@@ -90,10 +91,11 @@ public class TACMethod {
   }
 
   public TACMethod addParameters(TACNode node, boolean isWrapped) {
+    CompilationContext compilation = CompilationContext.current();
     Type prefixType = signature.getOuter();
     int parameter = 0;
 
-    if (prefixType instanceof InterfaceType) prefixType = Type.OBJECT;
+    if (prefixType instanceof InterfaceType) prefixType = compilation.OBJECT;
 
     ModifiedType modifiedType = new SimpleModifiedType(prefixType);
     // We mark the primitive "this" as nullable, to show that it's the object version of the
@@ -108,7 +110,7 @@ public class TACMethod {
           TACCast.cast(
               node,
               modifiedType,
-              new TACParameter(node, new SimpleModifiedType(Type.OBJECT), parameter++)));
+              new TACParameter(node, new SimpleModifiedType(compilation.OBJECT), parameter++)));
     else if (!signature.isImport())
       new TACLocalStore(
           node,
@@ -1,5 +1,7 @@
 package shadow.tac;
 
+import shadow.CompilationContext;
+import shadow.CompilerStats.Counter;
 import shadow.ShadowException;
 import shadow.output.text.TextOutput;
 import shadow.parse.Context;
@@ -31,6 +33,7 @@ public class TACModule {
   private final List<TACConstant> constants = new ArrayList<>();
   private final List<TACMethod> methods = new ArrayList<>();
   private final List<TACModule> innerClasses = new ArrayList<>();
+  private List<ControlFlowGraph> graphs = Collections.emptyList();
 
   public TACModule(Type moduleType) {
     type = moduleType;
@@ -142,12 +145,15 @@ public class TACModule {
 
         reporter.addAll(graph); // adds errors (if any) to main reporter
 
-        // now keep cycling if there is more unreachable code or
-        // more constants propagated
-        while (changed) {
-          changed = graph.removeUnreachableCode();
-          if (changed) changed = graph.propagateConstants();
-        }
+        // constant branches leave blocks that can no longer be reached,
+        // and propagation already ignored them, so one removal is enough
+        if (changed) graph.removeUnreachableCode();
+
+        CompilationContext compilation = CompilationContext.current();
+        if (compilation.elidesReferenceCounts())
+          compilation
+              .getStats()
+              .count(Counter.REFERENCE_COUNTS_REMOVED, graph.elideReferenceCounts());
 
         method.removeUndefinedStores();
         method.addAllocations();
@@ -156,6 +162,16 @@ public class TACModule {
       }
     }
 
+    this.graphs = graphs;
+    return graphs;
+  }
+
+  /**
+   * Gets the control flow graphs of the methods in this module and its inner classes.
+   *
+   * @return graphs made by {@link #optimizeTAC(ErrorReporter)}, or an empty list before then
+   */
+  public List<ControlFlowGraph> getControlFlowGraphs() {
     return graphs;
   }
 
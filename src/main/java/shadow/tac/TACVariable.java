@@ -1,5 +1,6 @@
 package shadow.tac;
 
+import shadow.CompilationContext;
 import shadow.typecheck.type.*;
 
 public class TACVariable implements ModifiedType {
@@ -89,6 +90,7 @@ public class TACVariable implements ModifiedType {
   }
 
   public boolean needsGarbageCollection() {
+    CompilationContext compilation = CompilationContext.current();
     Type type = getType();
 
     return !getOriginalName().startsWith("_exception")
@@ -96,9 +98,9 @@ public class TACVariable implements ModifiedType {
         && !(type instanceof PointerType)
         && !(type instanceof MethodType)
         && !(type instanceof SingletonType)
-        && !type.equals(Type.CLASS)
-        && !type.equals(Type.GENERIC_CLASS)
-        && !type.equals(Type.METHOD_TABLE)
+        && !type.equals(compilation.CLASS)
+        && !type.equals(compilation.GENERIC_CLASS)
+        && !type.equals(compilation.METHOD_TABLE)
         && (!type.isPrimitive() || getModifiers().isNullable());
   }
 }
@@ -0,0 +1,136 @@
+package shadow.tac.analysis;
+
+import shadow.tac.TACMethod;
+import shadow.tac.nodes.TACCall;
+import shadow.tac.nodes.TACMethodName;
+import shadow.tac.nodes.TACNode;
+import shadow.typecheck.type.*;
+
+import java.util.*;
+
+/**
+ * Holds every class in a program so that calls can skip method tables when only one method can be
+ * reached. A call on a class is made directly when no subclass declares a method with the same
+ * name. A call on an interface is checked against the only method that any class in the program
+ * uses for it, and that method is called directly if the check passes.
+ *
+ * <p>Only a program that is being linked is complete enough for this analysis. Methods of generic
+ * classes are always called through their tables.
+ */
+public class ClassHierarchy {
+  private final List<ClassType> classes = new ArrayList<>();
+  // Names of methods declared below each class
+  private final Map<Type, Set<String>> overridden = new HashMap<>();
+  // Only methods that interface calls can reach, by interface and method index
+  private final Map<Type, Map<Integer, MethodSignature>> expected = new HashMap<>();
+
+  /**
+   * Collects the classes of a program.
+   *
+   * @param types every type in the program, including inner types
+   */
+  public ClassHierarchy(Collection<Type> types) {
+    for (Type type : types)
+      if (type instanceof ClassType classType)
+        classes.add(classType.getTypeWithoutTypeArguments());
+  }
+
+  /**
+   * Marks the calls in a method that can skip method tables.
+   *
+   * @param method method whose calls are changed
+   * @return number of calls changed
+   */
+  public int devirtualize(TACMethod method) {
+    int count = 0;
+    TACNode start = method.getNode();
+    for (TACNode node = start.getNext(); node != start; node = node.getNext()) {
+      if (node instanceof TACCall call
+          && call.getMethodRef() instanceof TACMethodName name
+          && !name.isWrapper()
+          && !name.isDirect()) {
+        MethodSignature signature = name.getSignature();
+        if (name.getOuterType() instanceof InterfaceType) {
+          MethodSignature target = getExpectedMethod(name);
+          if (target != null) {
+            name.setExpectedMethod(target);
+            ++count;
+          }
+        } else if (!signature.isAbstract()
+            && !signature.getOuter().isParameterized()
+            && !isOverridden(signature)) {
+          name.setDevirtualized(true);
+          ++count;
+        }
+      }
+    }
+
+    return count;
+  }
+
+  private synchronized boolean isOverridden(MethodSignature signature) {
+    Type outer = signature.getOuter().getTypeWithoutTypeArguments();
+    Set<String> names = overridden.get(outer);
+    if (names == null) {
+      names = new HashSet<>();
+      for (ClassType type : classes)
+        if (extend(type, outer)) names.addAll(type.getMethodMap().keySet());
+      overridden.put(outer, names);
+    }
+
+    return names.contains(signature.getSymbol());
+  }
+
+  // Checks whether a type is a subclass of another, not counting itself
+  private static boolean extend(ClassType type, Type parent) {
+    for (ClassType current = type.getExtendType();
+        current != null;
+        current = current.getExtendType())
+      if (current.getTypeWithoutTypeArguments().equals(parent)) return true;
+
+    return false;
+  }
+
+  /*
+   * Finds the only method that the interface method tables of any class in
+   * the program hold for a call, or null if there are several or none.
+   * Wrappers that adapt generic types are never expected.
+   */
+  private synchronized MethodSignature getExpectedMethod(TACMethodName name) {
+    Type outer = name.getOuterType().getTypeWithoutTypeArguments();
+    int index = name.getIndex();
+    Map<Integer, MethodSignature> methods = expected.computeIfAbsent(outer, k -> new HashMap<>());
+    if (methods.containsKey(index)) return methods.get(index);
+
+    MethodSignature found = null;
+    boolean several = false;
+    for (ClassType type : classes) {
+      if (type.getModifiers().isAbstract()) continue;
+
+      InterfaceType _interface = getInterface(type, outer);
+      if (_interface != null) {
+        MethodSignature method = _interface.orderAllMethods(type).get(index);
+        if (found == null) found = method;
+        else if (!found.equals(method)) several = true;
+      }
+    }
+
+    if (several
+        || found == null
+        || found.isAbstract()
+        || found.isWrapper()
+        || found.getOuter().isParameterized()) found = null;
+
+    methods.put(index, found);
+    return found;
+  }
+
+  // Gets the interface that a class or its parents implement, with its type arguments
+  private static InterfaceType getInterface(ClassType type, Type _interface) {
+    for (ClassType current = type; current != null; current = current.getExtendType())
+      for (InterfaceType implemented : current.getAllInterfaces())
+        if (implemented.getTypeWithoutTypeArguments().equals(_interface)) return implemented;
+
+    return null;
+  }
+}
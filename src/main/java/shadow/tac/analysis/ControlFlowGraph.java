@@ -2,8 +2,12 @@ package shadow.tac.analysis;
 
 import org.jetbrains.annotations.NotNull;
 import shadow.Loggers;
+import shadow.ShadowException;
 import shadow.interpreter.ShadowBoolean;
 import shadow.interpreter.ShadowNull;
+import shadow.interpreter.ShadowUndefined;
+import shadow.interpreter.ShadowValue;
+import shadow.interpreter.TACInterpreter;
 import shadow.parse.Context;
 import shadow.parse.ShadowParser;
 import shadow.parse.ShadowParser.VariableDeclaratorContext;
@@ -27,6 +31,8 @@ import java.util.Map.Entry;
  */
 public class ControlFlowGraph extends ErrorReporter implements Iterable<ControlFlowGraph.Block> {
   private Block root;
+  // Value in constant propagation that is known to vary
+  private static final Object NOT_CONSTANT = new Object();
   private String cachedString; // Saves toString() from re-walking the graph
   private final Map<TACLabel, Block> nodeBlocks = new LinkedHashMap<>();
   private final TACMethod method;
@@ -432,17 +438,229 @@ public class ControlFlowGraph extends ErrorReporter implements Iterable<ControlF
    * Adds phi nodes to blocks where needed. This method *must* be called in order to create the phi
    * nodes needed for constant propagation, checking for undefined variables, and proper LLVM IR
    * generation.
+   *
+   * <p>Phi nodes are placed on the iterated dominance frontiers of the blocks that store to each
+   * variable, but only where the variable is live, so no phi is added for a value that is never
+   * loaded. Loads are then linked to their stores in one walk over the dominator tree.
    */
   public void addPhiNodes() {
-    Map<Block, Map<TACVariable, TACLocalStorage>> lastDefinitions = new HashMap<>();
+    DominatorTree tree = new DominatorTree(this);
+    List<Block> blocks = tree.getBlocks();
+    int size = blocks.size();
+    if (size == 0) return;
+
+    // Number the local variables and find where each one is stored and loaded
+    Map<TACVariable, Integer> numbers = new HashMap<>();
+    List<TACVariable> variables = new ArrayList<>();
+    BitSet loaded = new BitSet();
+    BitSet[] definitions = new BitSet[size];
+    BitSet[] uses = new BitSet[size]; // Variables loaded before they're stored in the block
+    for (int i = 0; i < size; ++i) {
+      definitions[i] = new BitSet();
+      uses[i] = new BitSet();
+      for (TACNode node : blocks.get(i)) {
+        if (node instanceof TACLocalStorage store) { // both TACLocalStore and TACPhi
+          definitions[i].set(getNumber(store.getVariable(), numbers, variables));
+        } else if (node instanceof TACLocalLoad load) {
+          int number = getNumber(load.getVariable(), numbers, variables);
+          loaded.set(number);
+          if (!definitions[i].get(number)) uses[i].set(number);
+        }
+      }
+    }
+
+    BitSet[] live = findLiveVariables(tree, definitions, uses);
+    BitSet[] stored = findStoredVariables(tree, definitions);
+
+    // Phi nodes added to each block, by variable number
+    List<Map<Integer, TACPhi>> phis = new ArrayList<>(size);
+    for (int i = 0; i < size; ++i) phis.add(new HashMap<>());
+
+    for (int number = loaded.nextSetBit(0); number >= 0; number = loaded.nextSetBit(number + 1)) {
+      TACVariable variable = variables.get(number);
+
+      // A variable loaded before any store gets a phi with no inputs in the root
+      if (live[0].get(number)) phis.get(0).put(number, addPhi(blocks.get(0), variable));
+
+      BitSet queued = new BitSet(size);
+      Deque<Integer> pending = new ArrayDeque<>();
+      for (int i = 0; i < size; ++i)
+        if (definitions[i].get(number)) {
+          queued.set(i);
+          pending.add(i);
+        }
+
+      while (!pending.isEmpty()) {
+        BitSet frontier = tree.getFrontier(pending.pop());
+        for (int i = frontier.nextSetBit(0); i >= 0; i = frontier.nextSetBit(i + 1)) {
+          if (live[i].get(number) && !phis.get(i).containsKey(number)) {
+            phis.get(i).put(number, addPhi(blocks.get(i), variable));
+            if (!queued.get(i)) {
+              queued.set(i);
+              pending.add(i);
+            }
+          }
+        }
+      }
+    }
+
+    renameVariables(tree, numbers, variables.size(), phis, stored);
+  }
+
+  private static int getNumber(
+      TACVariable variable, Map<TACVariable, Integer> numbers, List<TACVariable> variables) {
+    Integer number = numbers.get(variable);
+    if (number == null) {
+      number = variables.size();
+      numbers.put(variable, number);
+      variables.add(variable);
+    }
+
+    return number;
+  }
+
+  private static TACPhi addPhi(Block block, TACVariable variable) {
+    // Inserted right after the label
+    TACPhi phi = new TACPhi(block.getLabel().getNext(), variable);
+    if (variable.needsGarbageCollection()) phi.setGarbageCollected(true);
+    return phi;
+  }
+
+  /*
+   * Finds the variables live at the start of each block, meaning that they
+   * can be loaded before they're stored again.
+   */
+  private static BitSet[] findLiveVariables(
+      DominatorTree tree, BitSet[] definitions, BitSet[] uses) {
+    int size = definitions.length;
+    BitSet[] live = new BitSet[size];
+    BitSet queued = new BitSet(size);
+    Deque<Integer> pending = new ArrayDeque<>();
+    // Postorder converges fastest for a backward problem
+    for (int i = size - 1; i >= 0; --i) {
+      live[i] = (BitSet) uses[i].clone();
+      queued.set(i);
+      pending.add(i);
+    }
+
+    while (!pending.isEmpty()) {
+      int index = pending.pop();
+      queued.clear(index);
+
+      BitSet value = new BitSet();
+      for (int successor : tree.getSuccessors(index)) value.or(live[successor]);
+      value.andNot(definitions[index]);
+      value.or(uses[index]);
+
+      if (!value.equals(live[index])) {
+        live[index] = value;
+        for (int predecessor : tree.getPredecessors(index))
+          if (!queued.get(predecessor)) {
+            queued.set(predecessor);
+            pending.add(predecessor);
+          }
+      }
+    }
+
+    return live;
+  }
 
-    Collection<Block> blocks = nodeBlocks.values();
+  /*
+   * Finds the variables that might have been stored to before the start
+   * of each block, along any path.
+   */
+  private static BitSet[] findStoredVariables(DominatorTree tree, BitSet[] definitions) {
+    int size = definitions.length;
+    BitSet[] stored = new BitSet[size];
+    BitSet queued = new BitSet(size);
+    Deque<Integer> pending = new ArrayDeque<>();
+    for (int i = 0; i < size; ++i) {
+      stored[i] = new BitSet();
+      queued.set(i);
+      pending.add(i);
+    }
 
-    // find the last definition of every variable in every block
-    for (Block block : blocks) lastDefinitions.put(block, block.getLastStores());
+    while (!pending.isEmpty()) {
+      int index = pending.pop();
+      queued.clear(index);
 
-    // use those definitions when constructing phi nodes
-    for (Block block : blocks) block.addPhiNodes(lastDefinitions);
+      BitSet value = new BitSet();
+      for (int predecessor : tree.getPredecessors(index)) {
+        value.or(stored[predecessor]);
+        value.or(definitions[predecessor]);
+      }
+
+      if (!value.equals(stored[index])) {
+        stored[index] = value;
+        for (int successor : tree.getSuccessors(index))
+          if (!queued.get(successor)) {
+            queued.set(successor);
+            pending.add(successor);
+          }
+      }
+    }
+
+    return stored;
+  }
+
+  /*
+   * Walks the dominator tree, linking each load to the store that reaches it
+   * and giving each phi node an input for every predecessor. A stack for
+   * each variable holds the stores that dominate the current block.
+   */
+  private static void renameVariables(
+      DominatorTree tree,
+      Map<TACVariable, Integer> numbers,
+      int count,
+      List<Map<Integer, TACPhi>> phis,
+      BitSet[] stored) {
+    List<Block> blocks = tree.getBlocks();
+    List<Deque<TACLocalStorage>> stacks = new ArrayList<>(count);
+    for (int i = 0; i < count; ++i) stacks.add(new ArrayDeque<>());
+
+    // Negative entries mark blocks whose children are done
+    Deque<Integer> pending = new ArrayDeque<>();
+    pending.push(0);
+    while (!pending.isEmpty()) {
+      int index = pending.pop();
+      if (index < 0) {
+        for (TACNode node : blocks.get(~index))
+          if (node instanceof TACLocalStorage store)
+            stacks.get(numbers.get(store.getVariable())).pop();
+        continue;
+      }
+
+      Map<Integer, TACLocalStorage> lastStores = new HashMap<>();
+      for (TACNode node : blocks.get(index)) {
+        if (node instanceof TACLocalStorage store) {
+          int number = numbers.get(store.getVariable());
+
+          // Useful to know if there was a previous store
+          // primarily for GC: no need to decrement something that was never assigned
+          if (node instanceof TACLocalStore localStore) {
+            TACLocalStorage previous = lastStores.get(number);
+            if (previous != null) {
+              TACOperand value = previous.getValue();
+              if (!(value instanceof TACLiteral)
+                  || !(((TACLiteral) value).getValue() instanceof ShadowNull))
+                localStore.setPreviousStore(true);
+            } else if (stored[index].get(number)) localStore.setPreviousStore(true);
+          }
+
+          lastStores.put(number, store);
+          stacks.get(number).push(store);
+        } else if (node instanceof TACLocalLoad load)
+          load.setPreviousStore(stacks.get(numbers.get(load.getVariable())).peek());
+      }
+
+      TACLabel label = blocks.get(index).getLabel();
+      for (int successor : tree.getSuccessors(index))
+        for (Map.Entry<Integer, TACPhi> entry : phis.get(successor).entrySet())
+          entry.getValue().addPreviousStore(label, stacks.get(entry.getKey()).peek());
+
+      pending.push(~index);
+      for (int child : tree.getChildren(index)) pending.push(child);
+    }
   }
 
   /**
@@ -450,42 +668,504 @@ public class ControlFlowGraph extends ErrorReporter implements Iterable<ControlF
    * optional if we want to produce legal LLVM IR. Propagating constants will also find undefined
    * local variables, adding appropriate error messages to the error list.
    *
-   * @return true if constants propagated more deeply than before
+   * <p>Constants are found by sparse conditional constant propagation, which starts by assuming
+   * that no block runs and that every value is constant, and only revisits a value or block when
+   * something it depends on changes. Branches on constants are simplified, but the blocks they no
+   * longer reach are left for {@link #removeUnreachableCode()}. Afterwards, loads and stores are
+   * linked directly to the values they hold, again only revisiting nodes whose inputs change.
+   *
+   * @return true if some blocks can no longer be reached
    */
   public boolean propagateConstants() {
     List<Block> blocks = getReversePostorder();
+    Map<TACNode, Block> nodes = new HashMap<>();
+    for (Block block : blocks) for (TACNode node : block) nodes.put(node, block);
+
+    ConstantFinder finder = new ConstantFinder(nodes);
+    finder.find();
 
-    boolean done = false;
     boolean changed = false;
-    Set<TACLocalLoad> undefinedLoads = new HashSet<>();
+    Set<TACPhi> constants = new HashSet<>();
+    for (Block block : blocks) {
+      if (!finder.isExecutable(block)) {
+        changed = true;
+        continue;
+      }
 
-    while (!done) {
-      done = true;
-      undefinedLoads.clear();
-      for (Block block : blocks)
-        if (block.propagateValues(undefinedLoads)) {
-          done = false;
-          changed = true;
+      if (block.lastNode instanceof TACBranch branch
+          && branch.isConditional()
+          && finder.getValue(branch.getCondition()) instanceof ShadowBoolean value) {
+        block.foldBranch(branch, value.getValue());
+        changed = true;
+      }
+
+      // Values from blocks that never run can't reach a phi
+      for (Block source : new ArrayList<>(block.incoming))
+        if (!finder.isExecutable(source, block)) block.removePhiInput(source);
+
+      for (TACNode node : block)
+        if (node instanceof TACPhi phi && finder.getValue(phi) instanceof ShadowValue)
+          constants.add(phi);
+    }
+
+    for (TACPhi phi : constants)
+      phi.setValue(new TACLiteral(phi, (ShadowValue) finder.getValue(phi)));
+
+    if (updateValues(blocks, nodes)) changed = true;
+
+    for (Block block : blocks)
+      for (TACNode node : block)
+        if (node instanceof TACLocalLoad undefined && undefined.isUndefined())
+          // _exception is a special variable used only for exception handling
+          // indirect breaks for finally make its value tricky, but it's guaranteed to never
+          // *really* be undefined
+          if (!undefined.getVariable().getOriginalName().startsWith("_exception")
+              && !undefined.getVariable().getOriginalName().equals("return")
+              && !undefined.getVariable().getOriginalName().startsWith("_return"))
+            addError(
+                undefined.getContext(),
+                Error.UNDEFINED_VARIABLE,
+                "Variable "
+                    + undefined.getVariable().getOriginalName()
+                    + " may not have been defined before use");
+
+    return changed;
+  }
+
+  /*
+   * Links loads, stores, and phi nodes to the values they hold and folds what
+   * can be folded, such as calls on string literals. Each node is updated once
+   * and then again only when one of its inputs changes.
+   */
+  private boolean updateValues(List<Block> blocks, Map<TACNode, Block> nodes) {
+    boolean changed = false;
+    Map<TACOperand, Set<TACNode>> users = new HashMap<>();
+    Set<TACUpdate> updates = new HashSet<>();
+    Deque<TACNode> work = new ArrayDeque<>();
+    for (Block block : blocks) {
+      for (TACNode node : block) {
+        if (node instanceof TACUpdate update) updates.add(update);
+        if (node instanceof TACUpdate || node instanceof TACBranch) {
+          addUser(node, users);
+          work.add(node);
         }
+      }
     }
 
-    for (TACLocalLoad undefined : undefinedLoads)
-      // _exception is a special variable used only for exception handling
-      // indirect breaks for finally make its value tricky, but it's guaranteed to never *really* be
-      // undefined
-      if (!undefined.getVariable().getOriginalName().startsWith("_exception")
-          && !undefined.getVariable().getOriginalName().equals("return")
-          && !undefined.getVariable().getOriginalName().startsWith("_return"))
-        addError(
-            undefined.getContext(),
-            Error.UNDEFINED_VARIABLE,
-            "Variable "
-                + undefined.getVariable().getOriginalName()
-                + " may not have been defined before use");
+    Set<TACNode> waiting = new HashSet<>(work);
+    while (!work.isEmpty()) {
+      TACNode node = work.remove();
+      waiting.remove(node);
+      boolean updated = false;
+
+      if (node instanceof TACUpdate update) {
+        // Other nodes in the set aren't updated recursively, since they're updated on their own
+        boolean undefined = isUndefined(update);
+        updates.remove(update);
+        updated = update.update(updates) || undefined != isUndefined(update);
+        updates.add(update);
+      } else if (node instanceof TACBranch branch
+          && branch.isConditional()
+          && TACOperand.value(branch.getCondition()) instanceof TACLiteral literal
+          && literal.getValue() instanceof ShadowBoolean value) {
+        // Phi nodes that lose an input might now hold a single value
+        Block removed = nodes.get(branch).foldBranch(branch, value.getValue());
+        for (TACNode phi : removed) {
+          if (phi instanceof TACPhi) {
+            if (waiting.add(phi)) work.add(phi);
+            for (TACNode user : users.getOrDefault((TACPhi) phi, Collections.emptySet()))
+              if (waiting.add(user)) work.add(user);
+          }
+        }
+        changed = true;
+      }
+
+      if (updated) {
+        addUser(node, users);
+        for (TACNode user : users.getOrDefault((TACOperand) node, Collections.emptySet()))
+          if (waiting.add(user)) work.add(user);
+      }
+    }
 
     return changed;
   }
 
+  private static boolean isUndefined(TACUpdate update) {
+    if (update instanceof TACPhi phi) return phi.isUndefined();
+    if (update instanceof TACLocalLoad load) return load.isUndefined();
+    return false;
+  }
+
+  /*
+   * Records a node as a user of the operands it currently reads its values from.
+   */
+  private static void addUser(TACNode node, Map<TACOperand, Set<TACNode>> users) {
+    for (TACOperand input : getInputs(node))
+      if (input != null) users.computeIfAbsent(input, k -> new LinkedHashSet<>()).add(node);
+  }
+
+  private static Collection<TACOperand> getInputs(TACNode node) {
+    if (node instanceof TACPhi phi) return phi.getPreviousStores().values();
+    if (node instanceof TACLocalLoad load) return Collections.singletonList(load.getPreviousStore());
+    if (node instanceof TACLocalStore store)
+      return Arrays.asList(store.getOperand(0), store.getValue());
+    if (node instanceof TACBranch branch)
+      return branch.isConditional()
+          ? Collections.singletonList(branch.getCondition())
+          : Collections.emptyList();
+
+    List<TACOperand> inputs = new ArrayList<>(node.getNumOperands());
+    for (int i = 0; i < node.getNumOperands(); ++i) inputs.add(node.getOperand(i));
+    return inputs;
+  }
+
+  /*
+   * Finds the blocks that can run and the values that are constant with sparse
+   * conditional constant propagation. Every value starts out unknown (absent
+   * from the map), can become a constant, and finally NOT_CONSTANT, never
+   * moving back up. Edges become executable when the block they come from runs
+   * and its branch can take them. Phi nodes only meet the values coming
+   * along executable edges, which is how constants survive branches and loops
+   * that an ordinary fixed-point iteration would give up on.
+   */
+  private class ConstantFinder {
+    private final Map<TACNode, Block> nodes;
+    private final Map<TACOperand, Object> values = new HashMap<>();
+    // Blocks that run, each with the blocks that branch to it along executable edges
+    private final Map<Block, Set<Block>> executable = new HashMap<>();
+    private final Map<TACOperand, Set<TACNode>> users = new HashMap<>();
+    private final Deque<Block[]> edges = new ArrayDeque<>();
+    private final Deque<TACNode> work = new ArrayDeque<>();
+
+    public ConstantFinder(Map<TACNode, Block> nodes) {
+      this.nodes = nodes;
+      for (TACNode node : nodes.keySet()) addUser(node, users);
+    }
+
+    public void find() {
+      edges.add(new Block[] {null, root});
+      do {
+        while (!edges.isEmpty() || !work.isEmpty()) {
+          if (!edges.isEmpty()) visit(edges.remove());
+          else visit(work.remove());
+        }
+      } while (addUndecidedEdges());
+    }
+
+    public boolean isExecutable(Block block) {
+      return executable.containsKey(block);
+    }
+
+    public boolean isExecutable(Block source, Block target) {
+      Set<Block> sources = executable.get(target);
+      return sources != null && sources.contains(source);
+    }
+
+    /*
+     * Gets the value of an operand: a ShadowValue if it's constant,
+     * NOT_CONSTANT if it isn't, or null if it's still unknown.
+     */
+    public Object getValue(TACOperand operand) {
+      if (operand instanceof TACLiteral literal)
+        return literal.getValue() instanceof ShadowUndefined ? NOT_CONSTANT : literal.getValue();
+      if (isEvaluated(operand)) return values.get(operand);
+      return NOT_CONSTANT;
+    }
+
+    private boolean isEvaluated(TACOperand operand) {
+      if (!nodes.containsKey(operand)) return false;
+      if (operand instanceof TACCast cast)
+        return cast.getKind() == TACCast.Kind.PRIMITIVE_TO_PRIMITIVE;
+      return operand instanceof TACLocalStorage
+          || operand instanceof TACLocalLoad
+          || operand instanceof TACBinary
+          || operand instanceof TACUnary;
+    }
+
+    private void visit(Block[] edge) {
+      Block source = edge[0], target = edge[1];
+      if (target == null) return;
+      boolean reached = executable.containsKey(target);
+      Set<Block> sources = executable.computeIfAbsent(target, k -> new HashSet<>());
+      if (source != null && !sources.add(source)) return;
+
+      if (reached) { // Only phi nodes can change from a new edge
+        for (TACNode node : target) if (node instanceof TACPhi) work.add(node);
+        return;
+      }
+
+      for (TACNode node : target) work.add(node);
+
+      // Edges from calls and other branches are taken whatever a conditional branch does
+      Set<Block> conditional = new HashSet<>();
+      if (target.lastNode instanceof TACBranch branch && branch.isConditional()) {
+        conditional.add(nodeBlocks.get(branch.getTrueLabel()));
+        conditional.add(nodeBlocks.get(branch.getFalseLabel()));
+      }
+      for (Block next : target.outgoing)
+        if (!conditional.contains(next)) edges.add(new Block[] {target, next});
+    }
+
+    private void visit(TACNode node) {
+      Block block = nodes.get(node);
+      if (block == null || !executable.containsKey(block)) return;
+
+      if (node instanceof TACBranch branch) {
+        if (branch.isConditional()) {
+          Object value = getValue(branch.getCondition());
+          if (value instanceof ShadowBoolean condition)
+            addEdge(
+                block, condition.getValue() ? branch.getTrueLabel() : branch.getFalseLabel());
+          else if (value != null) {
+            addEdge(block, branch.getTrueLabel());
+            addEdge(block, branch.getFalseLabel());
+          }
+        }
+      } else if (node instanceof TACOperand operand && isEvaluated(operand)) {
+        Object value = evaluate(operand);
+        Object old = values.get(operand);
+        if (value == null || old == NOT_CONSTANT) return;
+        if (old != null && (value == NOT_CONSTANT || !isSame(old, value))) value = NOT_CONSTANT;
+        else if (old != null) return;
+
+        values.put(operand, value);
+        work.addAll(users.getOrDefault(operand, Collections.emptySet()));
+      }
+    }
+
+    private void addEdge(Block source, TACLabel label) {
+      edges.add(new Block[] {source, nodeBlocks.get(label)});
+    }
+
+    /*
+     * A branch whose condition is still unknown once nothing else changes has
+     * a condition that can't be found, so both of its edges are taken.
+     */
+    private boolean addUndecidedEdges() {
+      for (Block block : executable.keySet())
+        if (block.lastNode instanceof TACBranch branch
+            && branch.isConditional()
+            && getValue(branch.getCondition()) == null) {
+          addEdge(block, branch.getTrueLabel());
+          addEdge(block, branch.getFalseLabel());
+        }
+
+      return !edges.isEmpty();
+    }
+
+    private Object evaluate(TACOperand operand) {
+      if (operand instanceof TACLocalStorage storage
+          && (storage.isGarbageCollected() || storage.getVariable().isFinallyVariable()))
+        return NOT_CONSTANT;
+
+      if (operand instanceof TACPhi phi) {
+        Block block = nodes.get(phi);
+        if (block == root || phi.getPreviousStores().isEmpty()) return NOT_CONSTANT;
+
+        Object value = null;
+        for (Map.Entry<TACLabel, TACOperand> entry : phi.getPreviousStores().entrySet()) {
+          Block source = entry.getKey() == null ? null : nodeBlocks.get(entry.getKey());
+          if (source == null || isExecutable(source, block))
+            value = meet(value, getValue(entry.getValue()));
+        }
+        return value;
+      } else if (operand instanceof TACLocalStore store) return getValue(store.getOperand(0));
+      else if (operand instanceof TACLocalLoad load) {
+        if (load.isGarbageCollected()
+            || load.getVariable().isFinallyVariable()
+            || load.getPreviousStore() == null) return NOT_CONSTANT;
+        return getValue(load.getPreviousStore());
+      }
+
+      // Casts between primitives only convert their first operand
+      int count = operand instanceof TACCast ? 1 : operand.getNumOperands();
+      List<ShadowValue> operands = new ArrayList<>(count);
+      for (int i = 0; i < count; ++i) {
+        Object value = getValue(operand.getOperand(i));
+        if (value == null || value == NOT_CONSTANT) return value;
+        operands.add((ShadowValue) value);
+      }
+
+      try {
+        ShadowValue result = null;
+        if (operand instanceof TACBinary binary)
+          result = TACInterpreter.evaluate(binary, operands.get(0), operands.get(1));
+        else if (operand instanceof TACUnary unary)
+          result = TACInterpreter.evaluate(unary, operands.get(0));
+        else if (operand instanceof TACCast cast) result = operands.get(0).cast(cast.getType());
+
+        return result == null ? NOT_CONSTANT : result;
+      } catch (ShadowException e) {
+        return NOT_CONSTANT; // Failed to evaluate, so it's left for run time
+      }
+    }
+
+    private Object meet(Object first, Object second) {
+      if (first == null) return second;
+      if (second == null) return first;
+      if (first == NOT_CONSTANT || second == NOT_CONSTANT || !isSame(first, second))
+        return NOT_CONSTANT;
+      return first;
+    }
+
+    private boolean isSame(Object first, Object second) {
+      ShadowValue value1 = (ShadowValue) first, value2 = (ShadowValue) second;
+      try {
+        return value1.getType().equals(value2.getType()) && value1.equals(value2);
+      } catch (ShadowException e) {
+        return false;
+      }
+    }
+  }
+
+  /**
+   * Removes reference count changes that cancel out. A garbage-collected local variable doesn't
+   * need a reference of its own if every value stored into it is kept alive by something else for
+   * the rest of the method: a caller, for values passed in as parameters, or a local variable that
+   * is stored only once, outside of any loop, and so holds its value until the method ends. The
+   * increments made when storing into such a variable match the decrements made when it's
+   * overwritten or cleaned up, so both are removed.
+   *
+   * <p>The only reference count changes on local variables that are removed are the decrements
+   * that {@code TACBuilder} adds to the method's cleanup, which runs exactly once whenever the
+   * method exits, normally or by an exception. Each of them is placed before the branch that ends
+   * the cleanup block, so it is never the last node of its block. Any other change on a variable,
+   * that is, an increment or a decrement that ends a block, was not added by the cleanup and has no
+   * matching store, so its variable keeps all of its reference counts. A local variable holds its
+   * value until the cleanup, since locals are not cleaned up at the end of inner blocks. A value
+   * borrowed from another local is therefore held until the method exits, as long as that local is
+   * stored only once. If that local is borrowed as well, its own value is held by where it came
+   * from, and so on until a parameter, a literal, or a local that keeps its reference. Values loaded
+   * from fields, arrays, or calls are never borrowed, since a store elsewhere could free them.
+   *
+   * <p>This method must be called after {@link #addPhiNodes()}, which finds the stores that
+   * overwrite an earlier value.
+   *
+   * @return number of increments and decrements removed
+   */
+  public int elideReferenceCounts() {
+    Set<Block> looping = findLoopingBlocks();
+    Map<TACVariable, List<TACLocalStore>> stores = new HashMap<>();
+    Set<TACVariable> reassigned = new HashSet<>(); // Might be stored more than once
+    Set<TACVariable> kept = new HashSet<>(); // Changed in ways that can't be removed
+    List<TACChangeReferenceCount> changes = new ArrayList<>();
+    for (Block block : nodeBlocks.values()) {
+      for (TACNode node : block) {
+        if (node instanceof TACLocalStore store && store.isGarbageCollected()) {
+          List<TACLocalStore> list =
+              stores.computeIfAbsent(store.getVariable(), k -> new ArrayList<>());
+          list.add(store);
+          if (list.size() > 1 || looping.contains(block)) reassigned.add(store.getVariable());
+        } else if (node instanceof TACChangeReferenceCount change && !change.isField()) {
+          // Only the cleanup's decrements are matched with stores (see above)
+          if (change.isIncrement() || node == block.getLast()) kept.add(change.getVariable());
+          else changes.add(change);
+        }
+      }
+    }
+
+    // Variables whose values are held by a caller or by another local variable
+    Set<TACVariable> borrowed = new HashSet<>();
+    for (Entry<TACVariable, List<TACLocalStore>> entry : stores.entrySet()) {
+      TACVariable variable = entry.getKey();
+      // Return values are handed to the caller with their reference
+      if (variable.isReturn()
+          || variable.getOriginalName().startsWith("_exception")
+          || kept.contains(variable)) continue;
+
+      boolean covered = true;
+      for (TACLocalStore store : entry.getValue())
+        if (!isHeldElsewhere(store.getOperand(0), variable, stores.keySet(), reassigned))
+          covered = false;
+
+      if (covered) borrowed.add(variable);
+    }
+
+    int removed = 0;
+    for (TACVariable variable : borrowed) {
+      for (TACLocalStore store : stores.get(variable)) {
+        if (store.getOperand(0) instanceof TACParameter parameter) {
+          if (parameter.isIncrement()) {
+            parameter.setIncrement(false);
+            ++removed;
+          }
+        } else if (store.isIncrementReference()) {
+          store.setIncrementReference(false);
+          ++removed;
+        }
+
+        if (store.isDecrementReference() && store.hasPreviousStore()) ++removed;
+        store.setDecrementReference(false);
+      }
+    }
+
+    // Decrements done when the method cleans up
+    for (TACChangeReferenceCount change : changes) {
+      if (borrowed.contains(change.getVariable())) {
+        change.remove();
+        ++removed;
+      }
+    }
+
+    if (removed > 0) cachedString = null;
+    return removed;
+  }
+
+  /*
+   * Checks whether a stored value is kept alive without the variable it's
+   * stored into. Casts between objects and interfaces keep the same object.
+   */
+  private static boolean isHeldElsewhere(
+      TACOperand value,
+      TACVariable variable,
+      Set<TACVariable> collected,
+      Set<TACVariable> reassigned) {
+    while (value instanceof TACCast cast
+        && (cast.getKind() == TACCast.Kind.OBJECT_TO_OBJECT
+            || cast.getKind() == TACCast.Kind.OBJECT_TO_INTERFACE
+            || cast.getKind() == TACCast.Kind.INTERFACE_TO_OBJECT)) value = cast.getOperand(0);
+
+    // Literals are never freed, and parameters are held by the caller
+    if (value instanceof TACLiteral || value instanceof TACParameter) return true;
+
+    if (value instanceof TACLocalLoad load) {
+      TACVariable owner = load.getVariable();
+      return owner != variable && collected.contains(owner) && !reassigned.contains(owner);
+    }
+
+    return false;
+  }
+
+  /*
+   * Finds the blocks that are part of a cycle and so might run more than once.
+   * Strongly connected components are found by walking incoming edges from
+   * each block in reverse postorder, claiming blocks no earlier walk reached.
+   */
+  private Set<Block> findLoopingBlocks() {
+    Set<Block> looping = new HashSet<>();
+    Set<Block> claimed = new HashSet<>();
+    List<Block> order = getReversePostorder();
+    Set<Block> reachable = new HashSet<>(order);
+
+    for (Block block : order) {
+      if (!claimed.add(block)) continue;
+
+      List<Block> component = new ArrayList<>();
+      Deque<Block> stack = new ArrayDeque<>();
+      stack.push(block);
+      while (!stack.isEmpty()) {
+        Block current = stack.pop();
+        component.add(current);
+        for (Block previous : current.incoming)
+          if (reachable.contains(previous) && claimed.add(previous)) stack.push(previous);
+      }
+
+      if (component.size() > 1 || block.outgoing.contains(block)) looping.addAll(component);
+    }
+
+    return looping;
+  }
+
   @Override
   public String toString() {
     if (cachedString == null) cachedString = generateString();
@@ -1024,52 +1704,22 @@ public class ControlFlowGraph extends ErrorReporter implements Iterable<ControlF
     }
 
     /*
-     * Propagates constants through updatable nodes.
-     * If a variable is found to be undefined where it's loaded,
-     * adds the load to a list of undefined loads.
+     * Turns a conditional branch whose condition is known into a direct branch,
+     * removing the edge to the block it no longer goes to. Returns that block.
      */
-    public boolean propagateValues(Set<TACLocalLoad> undefinedLoads) {
-      boolean changed = false;
-      Set<TACUpdate> currentlyUpdating = new HashSet<>();
-      // Can't use the iterator because of node removal
-
-      for (TACNode node : this) {
-        if (node instanceof TACUpdate)
-          if (((TACUpdate) node).update(currentlyUpdating)) changed = true;
-
-        if (node instanceof TACLocalLoad load) {
-          if (load.isUndefined()) undefinedLoads.add(load);
-        } else if (node instanceof TACBranch branch) {
-          if (branch.isConditional() && branch.getCondition() instanceof TACUpdate update) {
-            if (update.update(currentlyUpdating)) changed = true;
-
-            // Simplifying branch
-            if (update.getValue() instanceof TACLiteral literal) {
-              boolean value = ((ShadowBoolean) literal.getValue()).getValue();
-              TACLabel trueLabel = branch.getTrueLabel();
-              TACLabel falseLabel = branch.getFalseLabel();
-              if (value) {
-                branch.convertToDirect(trueLabel);
-                Block falseBlock = nodeBlocks.get(falseLabel);
-                outgoing.remove(falseBlock);
-                falseBlock.incoming.remove(this);
-
-                falseBlock.removePhiInput(this);
-              } else {
-                branch.convertToDirect(falseLabel);
-                Block trueBlock = nodeBlocks.get(trueLabel);
-                outgoing.remove(trueBlock);
-                trueBlock.incoming.remove(this);
-
-                trueBlock.removePhiInput(this);
-              }
-              changed = true;
-            }
-          }
-        }
+    private Block foldBranch(TACBranch branch, boolean value) {
+      TACLabel label = value ? branch.getTrueLabel() : branch.getFalseLabel();
+      TACLabel removedLabel = value ? branch.getFalseLabel() : branch.getTrueLabel();
+      branch.convertToDirect(label);
+
+      Block removed = nodeBlocks.get(removedLabel);
+      if (removedLabel != label) {
+        outgoing.remove(removed);
+        removed.incoming.remove(this);
+        removed.removePhiInput(this);
       }
 
-      return changed;
+      return removed;
     }
 
     public void removeEdges() {
@@ -1081,100 +1731,6 @@ public class ControlFlowGraph extends ErrorReporter implements Iterable<ControlF
       this.label = label;
     }
 
-    /*
-     * Finds the last time that each variable in a block is stored to.
-     */
-    public Map<TACVariable, TACLocalStorage> getLastStores() {
-      Map<TACVariable, TACLocalStorage> stores = new HashMap<>();
-      for (TACNode node : this) {
-        if (node instanceof TACLocalStorage store) {
-          stores.put(store.getVariable(), store);
-        }
-      }
-      return stores;
-    }
-
-    /*
-     * Finds the previous time that a variable has been stored to.
-     * If none, a phi node is inserted.
-     */
-    private TACLocalStorage getPreviousStore(
-        TACVariable variable, Map<Block, Map<TACVariable, TACLocalStorage>> lastStores) {
-      Map<TACVariable, TACLocalStorage> stores = lastStores.get(this);
-      TACLocalStorage store = stores.get(variable);
-      // defined by block
-      if (store != null) return store;
-
-      // else insert phi node after label
-      TACPhi phi = new TACPhi(label.getNext(), variable);
-      if (variable.needsGarbageCollection()) phi.setGarbageCollected(true);
-      stores.put(variable, phi);
-      for (Block block : incoming)
-        phi.addPreviousStore(block.getLabel(), block.getPreviousStore(variable, lastStores));
-      return phi;
-    }
-
-    // uses a BFS to see if a variable had a previous assignment
-    public boolean hasPreviousStore(
-        TACVariable variable, Map<Block, Map<TACVariable, TACLocalStorage>> lastStores) {
-      Set<Block> visited = new HashSet<>();
-      Deque<Block> queue = new ArrayDeque<>();
-      queue.addLast(this); // start with current block
-
-      while (!queue.isEmpty()) {
-        Block block = queue.removeFirst();
-        visited.add(block);
-
-        for (Block parent : block.incoming) {
-          if (lastStores.get(parent).containsKey(variable)) return true;
-          else if (!visited.contains(parent)) queue.addLast(parent);
-        }
-      }
-
-      return false;
-    }
-
-    /*
-     * Adds phi nodes as needed to the current block based on the last
-     * definitions of variables in other blocks.
-     */
-    public void addPhiNodes(Map<Block, Map<TACVariable, TACLocalStorage>> lastStores) {
-      Map<TACVariable, TACLocalStorage> stores = lastStores.get(this);
-      Map<TACVariable, TACLocalStorage> predecessors = new HashMap<>();
-
-      for (TACNode node : this) {
-        if (node instanceof TACLocalStorage store) { // both TACLocalStore and TACPhiStore
-          TACVariable variable = store.getVariable();
-
-          // Useful to know if there was a previous store
-          // primarily for GC: no need to decrement something that was never assigned
-          if (node instanceof TACLocalStore localStore) {
-            if (predecessors.get(variable) != null) {
-              TACOperand value = predecessors.get(variable).getValue();
-              if (!(value instanceof TACLiteral)
-                  || !(((TACLiteral) value).getValue() instanceof ShadowNull))
-                localStore.setPreviousStore(true);
-            } else if (hasPreviousStore(variable, lastStores)) localStore.setPreviousStore(true);
-          }
-
-          predecessors.put(variable, store);
-        } else if (node instanceof TACLocalLoad load) {
-          TACVariable variable = load.getVariable();
-          TACOperand store = predecessors.get(variable);
-          if (store == null) {
-            // add phi
-            TACPhi phi = new TACPhi(label.getNext(), variable);
-            if (variable.needsGarbageCollection()) phi.setGarbageCollected(true);
-            if (!stores.containsKey(variable)) stores.put(variable, phi);
-            predecessors.put(variable, phi);
-            for (Block block : incoming)
-              phi.addPreviousStore(block.getLabel(), block.getPreviousStore(variable, lastStores));
-            load.setPreviousStore(phi);
-          } else load.setPreviousStore(store);
-        }
-      }
-    }
-
     /*
      * Changes to phi nodes used for indirect branches may have been taken place.
      * This method updates the incoming and outgoing sets for Blocks based on those changes.
@@ -1215,6 +1771,10 @@ public class ControlFlowGraph extends ErrorReporter implements Iterable<ControlF
       return outgoing;
     }
 
+    public Set<Block> getIncoming() {
+      return incoming;
+    }
+
     /*
      * Removes the TAC nodes from the current block
      * as part of pruning the current block away.
@@ -0,0 +1,243 @@
+package shadow.tac.analysis;
+
+import shadow.tac.analysis.ControlFlowGraph.Block;
+
+import java.util.*;
+
+/**
+ * Holds the immediate dominators and dominance frontiers of the blocks in a control flow graph.
+ * Dominators are found with the iterative algorithm of Cooper, Harvey, and Kennedy, which visits
+ * the blocks in reverse postorder until nothing changes. Only blocks reachable from the root are
+ * included, and each block is identified by its index in reverse postorder, so the root is always
+ * block 0.
+ */
+public class DominatorTree {
+  private final List<Block> blocks;
+  private final Map<Block, Integer> indexes;
+  private final int[][] predecessors;
+  private final int[][] successors;
+  private final int[] dominators;
+  private final List<List<Integer>> children;
+  private final List<BitSet> frontiers;
+
+  /**
+   * Finds the dominators of the blocks in a graph.
+   *
+   * @param graph control flow graph
+   */
+  public DominatorTree(ControlFlowGraph graph) {
+    blocks = graph.getReversePostorder();
+    int size = blocks.size();
+    indexes = new HashMap<>(size * 2);
+    for (int i = 0; i < size; ++i) indexes.put(blocks.get(i), i);
+
+    predecessors = new int[size][];
+    successors = new int[size][];
+    for (int i = 0; i < size; ++i) {
+      predecessors[i] = getIndexes(blocks.get(i).getIncoming());
+      successors[i] = getIndexes(blocks.get(i).getOutgoing());
+    }
+
+    dominators = findDominators();
+    children = findChildren();
+    frontiers = findFrontiers();
+  }
+
+  /**
+   * Finds the dominators of a graph given only by its edges, without any blocks. The blocks must
+   * be numbered in reverse postorder, so the root is block 0.
+   *
+   * @param successors indexes of the blocks that each block branches to
+   */
+  public DominatorTree(int[][] successors) {
+    blocks = Collections.emptyList();
+    indexes = Collections.emptyMap();
+    int size = successors.length;
+    this.successors = new int[size][];
+    List<List<Integer>> incoming = new ArrayList<>(size);
+    for (int i = 0; i < size; ++i) incoming.add(new ArrayList<>());
+    for (int i = 0; i < size; ++i) {
+      this.successors[i] = successors[i].clone();
+      for (int successor : successors[i]) incoming.get(successor).add(i);
+    }
+
+    predecessors = new int[size][];
+    for (int i = 0; i < size; ++i)
+      predecessors[i] = incoming.get(i).stream().mapToInt(Integer::intValue).toArray();
+
+    dominators = findDominators();
+    children = findChildren();
+    frontiers = findFrontiers();
+  }
+
+  /* Unreachable blocks have no index and are left out. */
+  private int[] getIndexes(Set<Block> neighbors) {
+    int[] values = new int[neighbors.size()];
+    int count = 0;
+    for (Block block : neighbors) {
+      Integer index = indexes.get(block);
+      if (index != null) values[count++] = index;
+    }
+
+    return Arrays.copyOf(values, count);
+  }
+
+  private int[] findDominators() {
+    int[] dominators = new int[predecessors.length];
+    Arrays.fill(dominators, -1);
+    if (dominators.length == 0) return dominators;
+
+    dominators[0] = 0;
+    boolean changed = true;
+    while (changed) {
+      changed = false;
+      for (int i = 1; i < dominators.length; ++i) {
+        int dominator = -1;
+        for (int predecessor : predecessors[i])
+          if (dominators[predecessor] != -1)
+            dominator =
+                dominator == -1 ? predecessor : intersect(dominators, predecessor, dominator);
+
+        if (dominator != dominators[i]) {
+          dominators[i] = dominator;
+          changed = true;
+        }
+      }
+    }
+
+    return dominators;
+  }
+
+  /* Walks up from two blocks until they meet at their nearest common dominator. */
+  private static int intersect(int[] dominators, int first, int second) {
+    while (first != second) {
+      while (first > second) first = dominators[first];
+      while (second > first) second = dominators[second];
+    }
+
+    return first;
+  }
+
+  private List<List<Integer>> findChildren() {
+    int size = dominators.length;
+    List<List<Integer>> children = new ArrayList<>(size);
+    for (int i = 0; i < size; ++i) children.add(new ArrayList<>());
+    for (int i = 1; i < size; ++i) children.get(dominators[i]).add(i);
+
+    return children;
+  }
+
+  private List<BitSet> findFrontiers() {
+    int size = dominators.length;
+    List<BitSet> frontiers = new ArrayList<>(size);
+    for (int i = 0; i < size; ++i) frontiers.add(new BitSet());
+
+    for (int i = 0; i < size; ++i) {
+      if (predecessors[i].length > 1) {
+        for (int predecessor : predecessors[i]) {
+          int runner = predecessor;
+          while (runner != dominators[i]) {
+            frontiers.get(runner).set(i);
+            runner = dominators[runner];
+          }
+        }
+      }
+    }
+
+    // The root is also entered from outside the graph, so a branch back to it joins two paths
+    // and every block on the way back, including the root, has the root in its frontier
+    if (size > 0 && predecessors[0].length > 0) {
+      for (int predecessor : predecessors[0])
+        for (int runner = predecessor; runner != 0; runner = dominators[runner])
+          frontiers.get(runner).set(0);
+      frontiers.get(0).set(0);
+    }
+
+    return frontiers;
+  }
+
+  /**
+   * Gets the reachable blocks in reverse postorder.
+   *
+   * @return list of blocks, starting with the root, or an empty list if the tree was made from
+   *     edges alone
+   */
+  public List<Block> getBlocks() {
+    return blocks;
+  }
+
+  /**
+   * Gets the index of a block in reverse postorder.
+   *
+   * @param block block in the graph
+   * @return index of the block, or -1 if it cannot be reached
+   */
+  public int getIndex(Block block) {
+    Integer index = indexes.get(block);
+    return index == null ? -1 : index;
+  }
+
+  /**
+   * Gets the reachable blocks that branch to a block.
+   *
+   * @param index index of the block
+   * @return indexes of its predecessors
+   */
+  public int[] getPredecessors(int index) {
+    return predecessors[index];
+  }
+
+  /**
+   * Gets the reachable blocks that a block branches to.
+   *
+   * @param index index of the block
+   * @return indexes of its successors
+   */
+  public int[] getSuccessors(int index) {
+    return successors[index];
+  }
+
+  /**
+   * Gets the immediate dominator of a block. The root is its own immediate dominator.
+   *
+   * @param index index of the block
+   * @return index of its immediate dominator
+   */
+  public int getImmediateDominator(int index) {
+    return dominators[index];
+  }
+
+  /**
+   * Gets the blocks that a block immediately dominates.
+   *
+   * @param index index of the block
+   * @return indexes of its children in the tree
+   */
+  public List<Integer> getChildren(int index) {
+    return children.get(index);
+  }
+
+  /**
+   * Gets the dominance frontier of a block: the blocks where its dominance ends, which are the
+   * places where a value defined in the block meets values from other paths.
+   *
+   * @param index index of the block
+   * @return indexes of the blocks in its frontier
+   */
+  public BitSet getFrontier(int index) {
+    return frontiers.get(index);
+  }
+
+  /**
+   * Checks whether one block dominates another. Every block dominates itself.
+   *
+   * @param dominator index of the possible dominator
+   * @param index index of the block
+   * @return <code>true</code> if every path from the root to the block goes through the dominator
+   */
+  public boolean dominates(int dominator, int index) {
+    while (index > dominator) index = dominators[index];
+
+    return index == dominator;
+  }
+}
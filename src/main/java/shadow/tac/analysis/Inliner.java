@@ -0,0 +1,305 @@
+package shadow.tac.analysis;
+
+import shadow.tac.TACMethod;
+import shadow.tac.TACModule;
+import shadow.tac.TACVariable;
+import shadow.tac.nodes.*;
+import shadow.typecheck.type.MethodSignature;
+import shadow.typecheck.type.SimpleModifiedType;
+import shadow.typecheck.type.Type;
+
+import java.util.*;
+
+/**
+ * Replaces calls to small methods with copies of their bodies. A call is only replaced when it
+ * never goes through a method table, as with private, locked, and singleton methods, and when the
+ * callee is in one of the modules being compiled, since .meta files keep signatures but not
+ * bodies. A callee qualifies when its optimized body is a single path of at most a few field loads
+ * and stores that ends in a return, like the bodies of properties and other accessors. The copies
+ * are added before the call, which is then marked as inlined so that no call is written for it.
+ *
+ * <p>Bodies are copied between modules only when the caller's module already uses the classes
+ * whose fields they access. Each module records the modules whose bodies were copied into it,
+ * since its code must be generated again whenever one of them changes.
+ *
+ * <p>Methods are visited in the order given by their call graph, with callees before callers, so
+ * that a method whose only calls have been inlined can be inlined in turn.
+ */
+public class Inliner {
+  // Most field loads and stores that a body can have and still be copied
+  private static final int BUDGET = 8;
+
+  private final Map<MethodSignature, ControlFlowGraph> graphs = new LinkedHashMap<>();
+  // Module holding each method
+  private final Map<MethodSignature, TACModule> modules = new HashMap<>();
+  private final CallGraph calls = new CallGraph();
+  // Bodies found so far, with null for methods that cannot be inlined
+  private final Map<MethodSignature, Body> bodies = new HashMap<>();
+  // Other modules whose bodies were copied into each module
+  private final Map<TACModule, Set<TACModule>> dependencies = new HashMap<>();
+
+  /**
+   * Prepares to inline calls between the methods of several modules.
+   *
+   * @param modules optimized modules, whose graphs include those of their inner classes
+   */
+  public Inliner(List<TACModule> modules) {
+    for (TACModule module : modules) {
+      for (ControlFlowGraph graph : module.getControlFlowGraphs()) {
+        MethodSignature signature = graph.getMethod().getSignature();
+        graphs.put(signature, graph);
+        this.modules.put(signature, module);
+        calls.addNode(signature, graph);
+      }
+    }
+
+    for (ControlFlowGraph graph : graphs.values())
+      graph.addCallEdges(calls, graph.getMethod().getSignature().getOuter());
+  }
+
+  /**
+   * Gets the other modules whose method bodies were copied into a module by {@link #inline()}.
+   *
+   * @param module module holding the callers
+   * @return modules holding the callees
+   */
+  public Set<TACModule> getDependencies(TACModule module) {
+    return dependencies.getOrDefault(module, Collections.emptySet());
+  }
+
+  /**
+   * Inlines every call whose callee qualifies.
+   *
+   * @return number of calls replaced
+   */
+  public int inline() {
+    List<MethodSignature> order = new ArrayList<>(graphs.size());
+    Set<MethodSignature> visited = new HashSet<>();
+    for (MethodSignature method : graphs.keySet()) addCalleesFirst(method, visited, order);
+
+    int count = 0;
+    for (MethodSignature method : order) {
+      TACModule module = modules.get(method);
+      TACNode start = graphs.get(method).getMethod().getNode();
+      List<TACCall> found = new ArrayList<>();
+      for (TACNode node = start.getNext(); node != start; node = node.getNext())
+        if (node instanceof TACCall call) found.add(call);
+
+      for (TACCall call : found) {
+        MethodSignature callee = getCallee(call, method);
+        if (callee != null) {
+          bodies.get(callee).copy(call);
+          ++count;
+
+          TACModule calleeModule = modules.get(callee);
+          if (calleeModule != module)
+            dependencies.computeIfAbsent(module, k -> new HashSet<>()).add(calleeModule);
+        }
+      }
+    }
+
+    return count;
+  }
+
+  // Edges go from callee to caller, so the callees of a method are its incoming nodes
+  private void addCalleesFirst(
+      MethodSignature method, Set<MethodSignature> visited, List<MethodSignature> order) {
+    if (visited.add(method)) {
+      for (MethodSignature callee : calls.getIncoming(method))
+        addCalleesFirst(callee, visited, order);
+      order.add(method);
+    }
+  }
+
+  // Gets the method called if its body can be copied into the caller, or null otherwise
+  private MethodSignature getCallee(TACCall call, MethodSignature caller) {
+    if (call.isDelegatedCreate() || call.isInlined() || call.getUpdatedValue() != null)
+      return null;
+
+    if (!(call.getMethodRef() instanceof TACMethodName name)
+        || name.isWrapper()
+        || !name.isDirect()
+        || name.getReturnCount() > 1) return null;
+
+    MethodSignature signature = name.getSignature();
+    ControlFlowGraph graph = graphs.get(signature);
+    if (graph == null || signature.equals(caller)) return null;
+
+    // Generic bodies are shared by every instantiation and can't be copied with specific types
+    for (Type outer = signature.getOuter(); outer != null; outer = outer.getOuter())
+      if (outer.isParameterized()) return null;
+
+    if (!bodies.containsKey(signature)) bodies.put(signature, Body.find(graph.getMethod()));
+    Body body = bodies.get(signature);
+    if (body == null) return null;
+
+    TACModule module = modules.get(caller);
+    if (modules.get(signature) != module && !body.canCopyInto(module.getType())) return null;
+
+    return signature;
+  }
+
+  /*
+   * The nodes of a method body that need to be copied into callers, which are
+   * field loads and stores followed by a return. Local loads, phis, and
+   * precomputed calls are looked through to the values they stand for, which
+   * must be literals, parameters, or earlier loads.
+   */
+  private static class Body {
+    private final List<TACNode> path;
+    private final Map<TACOperand, TACOperand> sources;
+
+    private Body(List<TACNode> path, Map<TACOperand, TACOperand> sources) {
+      this.path = path;
+      this.sources = sources;
+    }
+
+    /*
+     * Follows the nodes from the start of a method to its return, giving up on
+     * anything that branches, calls, or changes reference counts of locals.
+     */
+    private static Body find(TACMethod method) {
+      List<TACNode> path = new ArrayList<>();
+      Map<TACOperand, TACOperand> sources = new HashMap<>();
+      Map<TACVariable, TACOperand> values = new HashMap<>();
+      Set<TACLabel> visited = new HashSet<>();
+      Body body = new Body(path, sources);
+      int size = 0;
+
+      TACNode node = method.getNode();
+      while (true) {
+        if (node instanceof TACLabel label) {
+          if (!visited.add(label)) return null;
+        } else if (node instanceof TACLocalLoad load)
+          sources.put(load, values.get(load.getVariable()));
+        else if (node instanceof TACLocalStore store) {
+          TACVariable variable = store.getVariable();
+          // Stores into the return value are counted by the store the caller already has
+          if (variable.needsGarbageCollection()
+              && !(store.getValue() instanceof TACParameter)
+              && !variable.getOriginalName().equals("return")) return null;
+          values.put(variable, store.getValue());
+        } else if (node instanceof TACLoad load) {
+          if (!(load.getReference() instanceof TACFieldRef field)
+              || !body.canCopy(field.getPrefix())
+              || ++size > BUDGET) return null;
+          path.add(load);
+        } else if (node instanceof TACStore store) {
+          if (!(store.getReference() instanceof TACFieldRef field)
+              || !body.canCopy(field.getPrefix())
+              || !body.canCopy(store.getValue())
+              || ++size > BUDGET) return null;
+          path.add(store);
+        } else if (node instanceof TACCall call) {
+          if (!call.isInlined() && call.getUpdatedValue() == null) return null;
+        } else if (node instanceof TACBranch branch) {
+          if (!branch.isDirect()) return null;
+          node = branch.getLabel();
+          continue;
+        } else if (node instanceof TACReturn return_) {
+          if (return_.hasReturnValue() && !body.canCopy(return_.getReturnValue())) return null;
+          path.add(return_);
+          return body;
+        } else if (!(node instanceof TACLiteral
+            || node instanceof TACParameter
+            || node instanceof TACPhi
+            || node instanceof TACLabelAddress
+            || node instanceof TACAllocateVariable
+            || node instanceof TACMethodName)) return null;
+
+        node = node.getNext();
+      }
+    }
+
+    private TACOperand resolve(TACOperand operand) {
+      while (operand != null) {
+        if (sources.containsKey(operand)) operand = sources.get(operand);
+        else if (operand instanceof TACPhi phi && phi.getValue() != phi) operand = phi.getValue();
+        else if (operand instanceof TACCall call && call.getUpdatedValue() != null)
+          operand = call.getUpdatedValue();
+        else return operand;
+      }
+
+      return null;
+    }
+
+    /*
+     * The IR for a module only defines the layouts of classes it uses, so a
+     * body from another module can be copied only if they include every class
+     * whose fields it accesses.
+     */
+    private boolean canCopyInto(Type moduleType) {
+      for (TACNode node : path) {
+        TACReference reference = null;
+        if (node instanceof TACLoad load) reference = load.getReference();
+        else if (node instanceof TACStore store) reference = store.getReference();
+
+        if (reference instanceof TACFieldRef field) {
+          Type type = field.getPrefix().getType();
+          if (!moduleType.encloses(type) && !moduleType.getUsedTypes().contains(type))
+            return false;
+        }
+      }
+
+      return true;
+    }
+
+    private boolean canCopy(TACOperand operand) {
+      operand = resolve(operand);
+      return operand instanceof TACLiteral
+          || operand instanceof TACParameter
+          || (operand instanceof TACLoad && path.contains(operand));
+    }
+
+    private void copy(TACCall call) {
+      Map<TACNode, TACOperand> copies = new HashMap<>();
+      TACOperand result = null;
+
+      for (TACNode node : path) {
+        if (node instanceof TACLoad load)
+          copies.put(load, new TACLoad(call, copy((TACFieldRef) load.getReference(), call, copies)));
+        else if (node instanceof TACStore store) {
+          TACStore copy =
+              new TACStore(
+                  call,
+                  copy((TACFieldRef) store.getReference(), call, copies),
+                  copy(store.getValue(), call, copies));
+          copy.setGarbageCollected(store.isGarbageCollected());
+          copy.setIncrementReference(store.isIncrementReference());
+          copy.setDecrementReference(store.isDecrementReference());
+        } else if (node instanceof TACReturn return_ && return_.hasReturnValue())
+          result = copy(return_.getReturnValue(), call, copies);
+      }
+
+      if (result != null) {
+        // The store of a returned object no longer gets the increment done by the callee
+        if (call.hasLocalStore()) {
+          TACLocalStore store = call.getLocalStore();
+          if (store.getVariable().needsGarbageCollection()) store.setIncrementReference(true);
+        } else if (call.hasMemoryStore()) {
+          TACStore store = call.getMemoryStore();
+          if (store.getReference().needsGarbageCollection()) store.setIncrementReference(true);
+        }
+
+        call.setUpdatedValue(result);
+      }
+
+      call.setInlined(true);
+    }
+
+    private TACFieldRef copy(TACFieldRef field, TACCall call, Map<TACNode, TACOperand> copies) {
+      return new TACFieldRef(
+          copy(field.getPrefix(), call, copies),
+          new SimpleModifiedType(field.getType(), field.getModifiers()),
+          field.getName());
+    }
+
+    private TACOperand copy(TACOperand operand, TACCall call, Map<TACNode, TACOperand> copies) {
+      operand = resolve(operand);
+      if (operand instanceof TACLiteral literal) return new TACLiteral(call, literal.getValue());
+      else if (operand instanceof TACParameter parameter)
+        return call.getParameter(parameter.getNumber());
+      else return copies.get(operand);
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package shadow.tac.nodes;
 
+import shadow.CompilationContext;
 import shadow.tac.TACBuilder;
 import shadow.tac.TACMethod;
 import shadow.typecheck.type.*;
@@ -22,6 +23,7 @@ public class TACArrayRef extends TACReference {
   }
 
   public TACArrayRef(TACNode node, TACOperand reference, TACOperand index, boolean check) {
+    CompilationContext compilation = CompilationContext.current();
     array = reference;
     this.index = index;
 
@@ -30,15 +32,18 @@ public class TACArrayRef extends TACReference {
       TACLabel throwLabel = new TACLabel(method);
 
       // by casting to unsigned, we don't need to do a negative check
-      TACOperand unsignedLength = TACCast.cast(node, new SimpleModifiedType(Type.ULONG), index);
+      TACOperand unsignedLength =
+          TACCast.cast(node, new SimpleModifiedType(compilation.ULONG), index);
       TACOperand unsignedBound =
           TACCast.cast(
-              node, new SimpleModifiedType(Type.ULONG), TACBuilder.arraySize(node, array, true));
+              node,
+              new SimpleModifiedType(compilation.ULONG),
+              TACBuilder.arraySize(node, array, true));
       TACOperand condition =
           new TACBinary(
               node,
               unsignedLength,
-              Type.ULONG.getMatchingMethod("compare", new SequenceType(Type.ULONG)),
+              compilation.ULONG.getMatchingMethod("compare", new SequenceType(compilation.ULONG)),
               "<",
               unsignedBound,
               true);
@@ -48,12 +53,12 @@ public class TACArrayRef extends TACReference {
 
       throwLabel.insertBefore(node);
 
-      TACOperand object = new TACNewObject(node, Type.INDEX_OUT_OF_BOUNDS_EXCEPTION);
+      TACOperand object = new TACNewObject(node, compilation.INDEX_OUT_OF_BOUNDS_EXCEPTION);
       List<TACOperand> params = new ArrayList<>();
       params.add(object);
       params.add(index);
       MethodSignature signature =
-          Type.INDEX_OUT_OF_BOUNDS_EXCEPTION.getMatchingMethod(
+          compilation.INDEX_OUT_OF_BOUNDS_EXCEPTION.getMatchingMethod(
               "create", new SequenceType(index.getType()));
 
       TACCall exception = new TACCall(node, new TACMethodName(node, signature), params);
@@ -1,5 +1,6 @@
 package shadow.tac.nodes;
 
+import shadow.CompilationContext;
 import shadow.ShadowException;
 import shadow.interpreter.ShadowValue;
 import shadow.interpreter.TACInterpreter;
@@ -44,18 +45,18 @@ public class TACBinary extends TACUpdate {
         "===",
         secondOperand,
         secondOperand,
-        new SimpleModifiedType(Type.BOOLEAN));
+        new SimpleModifiedType(CompilationContext.current().BOOLEAN));
   }
 
   public TACBinary(TACNode node, TACOperand firstOperand, Boolean op, TACOperand secondOperand) {
     this(
         node,
         firstOperand,
-        new SimpleModifiedType(Type.BOOLEAN),
+        new SimpleModifiedType(CompilationContext.current().BOOLEAN),
         op.getName(),
         secondOperand,
-        new SimpleModifiedType(Type.BOOLEAN),
-        new SimpleModifiedType(Type.BOOLEAN));
+        new SimpleModifiedType(CompilationContext.current().BOOLEAN),
+        new SimpleModifiedType(CompilationContext.current().BOOLEAN));
   }
 
   public TACBinary(
@@ -81,7 +82,9 @@ public class TACBinary extends TACUpdate {
         op,
         secondOperand,
         signature.getParameterTypes().get(0),
-        isCompare ? new SimpleModifiedType(Type.BOOLEAN) : signature.getReturnTypes().get(0));
+        isCompare
+            ? new SimpleModifiedType(CompilationContext.current().BOOLEAN)
+            : signature.getReturnTypes().get(0));
   }
 
   private TACBinary(
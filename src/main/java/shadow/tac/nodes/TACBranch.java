@@ -1,5 +1,6 @@
 package shadow.tac.nodes;
 
+import shadow.CompilationContext;
 import shadow.ShadowException;
 import shadow.tac.TACVisitor;
 import shadow.typecheck.type.SimpleModifiedType;
@@ -44,7 +45,7 @@ public class TACBranch extends TACNode {
     kind = Kind.CONDITIONAL;
     trueLabel = trueRef;
     falseLabel = falseRef;
-    operand = check(cond, new SimpleModifiedType(Type.BOOLEAN));
+    operand = check(cond, new SimpleModifiedType(CompilationContext.current().BOOLEAN));
   }
 
   public void convertToDirect(TACLabel label) {
@@ -1,5 +1,6 @@
 package shadow.tac.nodes;
 
+import shadow.CompilationContext;
 import shadow.ShadowException;
 import shadow.interpreter.ShadowString;
 import shadow.interpreter.ShadowValue;
@@ -17,6 +18,7 @@ public class TACCall extends TACUpdate {
   private final List<TACOperand> parameters;
   private TACLabel noExceptionLabel;
   private boolean delegatedCreate; // used to mark calls to super() or this() creates for GC reasons
+  private boolean inlined; // used to mark calls whose bodies were copied in before them
 
   public boolean isDelegatedCreate() {
     return delegatedCreate;
@@ -26,6 +28,14 @@ public class TACCall extends TACUpdate {
     delegatedCreate = value;
   }
 
+  public boolean isInlined() {
+    return inlined;
+  }
+
+  public void setInlined(boolean value) {
+    inlined = value;
+  }
+
   public TACLabel getNoExceptionLabel() {
     return noExceptionLabel;
   }
@@ -150,7 +160,7 @@ public class TACCall extends TACUpdate {
     if (methodRef instanceof TACMethodName methodName) {
       if ((changed || getUpdatedValue() == null)
           && allLiterals
-          && methodName.getSignature().getOuter().equals(Type.STRING)
+          && methodName.getSignature().getOuter().equals(CompilationContext.current().STRING)
           && ShadowString.isSupportedMethod(methodName.getSignature())) {
         try {
           TACLiteral string = (TACLiteral) value(parameters.get(0));
@@ -1,5 +1,6 @@
 package shadow.tac.nodes;
 
+import shadow.CompilationContext;
 import shadow.ShadowException;
 import shadow.interpreter.ShadowValue;
 import shadow.tac.TACVariable;
@@ -48,10 +49,11 @@ public class TACCast extends TACUpdate {
   @SuppressWarnings("incomplete-switch")
   public static TACOperand cast(
       TACNode node, ModifiedType destination, TACOperand op, boolean check) {
+    CompilationContext compilation = CompilationContext.current();
     levels++;
     try {
       if (destination.getType() == Type.NULL)
-        destination = new SimpleModifiedType(Type.OBJECT, new Modifiers(Modifiers.NULLABLE));
+        destination = new SimpleModifiedType(compilation.OBJECT, new Modifiers(Modifiers.NULLABLE));
 
       Format in = typeToFormat(op);
       Type inType = op.getType();
@@ -76,7 +78,7 @@ public class TACCast extends TACUpdate {
             case ARRAY:
               return new TACCast(node, destination, op, Kind.INTERFACE_TO_OBJECT, check);
             case INTERFACE:
-              intermediate = new SimpleModifiedType(Type.OBJECT);
+              intermediate = new SimpleModifiedType(compilation.OBJECT);
               return new TACCast(
                   node,
                   destination,
@@ -84,7 +86,7 @@ public class TACCast extends TACUpdate {
                   Kind.OBJECT_TO_INTERFACE,
                   check);
             case OBJECT:
-              intermediate = new SimpleModifiedType(Type.OBJECT);
+              intermediate = new SimpleModifiedType(compilation.OBJECT);
               // the "same" types, no object cast needed
               if (needsCast(intermediate, destination))
                 return new TACCast(
@@ -286,6 +288,7 @@ public class TACCast extends TACUpdate {
   }
 
   private TACOperand getInterfaceData(TACOperand source, Type destination) {
+    CompilationContext compilation = CompilationContext.current();
     TACOperand srcClass;
     Type sourceType = source.getType();
 
@@ -302,7 +305,8 @@ public class TACCast extends TACUpdate {
     else throw new IllegalArgumentException("Unknown source type: " + sourceType);
 
     TACMethodName methodRef =
-        new TACMethodName(this, srcClass, Type.CLASS.getMethodOverloads("interfaceData").get(0));
+        new TACMethodName(
+            this, srcClass, compilation.CLASS.getMethodOverloads("interfaceData").get(0));
     TACOperand destClass = new TACClass(this, destination).getClassData();
     return new TACCall(this, methodRef, methodRef.getPrefix(), destClass);
   }
@@ -320,9 +324,11 @@ public class TACCast extends TACUpdate {
   }
 
   private void objectToArrayCheck(TACOperand op) {
+    CompilationContext compilation = CompilationContext.current();
     // get class from object
     TACMethodName methodName =
-        new TACMethodName(this, op, Type.OBJECT.getMatchingMethod("getClass", new SequenceType()));
+        new TACMethodName(
+            this, op, compilation.OBJECT.getMatchingMethod("getClass", new SequenceType()));
 
     TACOperand operandClass = new TACCall(this, methodName, methodName.getPrefix());
     TACOperand destinationClass = new TACClass(this, type).getClassData();
@@ -354,13 +360,13 @@ public class TACCast extends TACUpdate {
 
     throwLabel.insertBefore(this);
 
-    TACOperand object = new TACNewObject(this, Type.CAST_EXCEPTION);
+    TACOperand object = new TACNewObject(this, compilation.CAST_EXCEPTION);
     SequenceType params = new SequenceType();
     params.add(operandClass);
     params.add(destinationClass);
 
     MethodSignature signature;
-    signature = Type.CAST_EXCEPTION.getMatchingMethod("create", params);
+    signature = compilation.CAST_EXCEPTION.getMatchingMethod("create", params);
 
     methodName = new TACMethodName(this, signature);
     TACCall exception = new TACCall(this, methodName, object, operandClass, destinationClass);
@@ -371,9 +377,11 @@ public class TACCast extends TACUpdate {
   }
 
   private void objectToObjectCheck(TACOperand op) {
+    CompilationContext compilation = CompilationContext.current();
     // get class from object
     TACMethodName methodName =
-        new TACMethodName(this, op, Type.OBJECT.getMatchingMethod("getClass", new SequenceType()));
+        new TACMethodName(
+            this, op, compilation.OBJECT.getMatchingMethod("getClass", new SequenceType()));
 
     TACOperand operandClass = new TACCall(this, methodName, methodName.getPrefix());
     TACOperand destinationClass = new TACClass(this, type).getClassData();
@@ -382,7 +390,7 @@ public class TACCast extends TACUpdate {
         new TACMethodName(
             this,
             operandClass,
-            Type.CLASS.getMatchingMethod("isSubtype", new SequenceType(Type.CLASS)));
+            compilation.CLASS.getMatchingMethod("isSubtype", new SequenceType(compilation.CLASS)));
 
     TACOperand result = new TACCall(this, methodName, methodName.getPrefix(), destinationClass);
     TACLabel throwLabel = new TACLabel(getMethod());
@@ -392,13 +400,13 @@ public class TACCast extends TACUpdate {
 
     throwLabel.insertBefore(this);
 
-    TACOperand object = new TACNewObject(this, Type.CAST_EXCEPTION);
+    TACOperand object = new TACNewObject(this, compilation.CAST_EXCEPTION);
     SequenceType params = new SequenceType();
     params.add(operandClass);
     params.add(destinationClass);
 
     MethodSignature signature;
-    signature = Type.CAST_EXCEPTION.getMatchingMethod("create", params);
+    signature = compilation.CAST_EXCEPTION.getMatchingMethod("create", params);
 
     methodName = new TACMethodName(this, signature);
     TACCall exception = new TACCall(this, methodName, object, operandClass, destinationClass);
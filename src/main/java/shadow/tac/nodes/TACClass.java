@@ -1,5 +1,6 @@
 package shadow.tac.nodes;
 
+import shadow.CompilationContext;
 import shadow.ShadowException;
 import shadow.interpreter.ShadowInteger;
 import shadow.output.llvm.IrOutput;
@@ -31,9 +32,10 @@ public class TACClass extends TACOperand {
 
     @Override
     public Type getType() {
-      if (type instanceof ArrayType || type.isParameterized()) return Type.GENERIC_CLASS;
+      CompilationContext compilation = CompilationContext.current();
+      if (type instanceof ArrayType || type.isParameterized()) return compilation.GENERIC_CLASS;
 
-      return Type.CLASS;
+      return compilation.CLASS;
     }
 
     @Override
@@ -74,7 +76,7 @@ public class TACClass extends TACOperand {
 
     @Override
     public Type getType() {
-      if (type instanceof InterfaceType) return Type.METHOD_TABLE;
+      if (type instanceof InterfaceType) return CompilationContext.current().METHOD_TABLE;
       else if (type instanceof ArrayType)
         return new MethodTableType(((ArrayType) type).convertToGeneric());
       else return new MethodTableType(type);
@@ -113,6 +115,7 @@ public class TACClass extends TACOperand {
 
   public TACClass(TACNode node, Type classType) {
     super(node);
+    CompilationContext compilation = CompilationContext.current();
     type = classType;
     TACMethod method = getMethod();
     if (type instanceof TypeParameter) {
@@ -138,10 +141,10 @@ public class TACClass extends TACOperand {
               this,
               new TACFieldRef(
                   new TACLocalLoad(this, _this),
-                  new SimpleModifiedType(Type.CLASS, new Modifiers(Modifiers.IMMUTABLE)),
+                  new SimpleModifiedType(compilation.CLASS, new Modifiers(Modifiers.IMMUTABLE)),
                   "class"));
       TACOperand genericClass =
-          TACCast.cast(this, new SimpleModifiedType(Type.GENERIC_CLASS), classValue);
+          TACCast.cast(this, new SimpleModifiedType(compilation.GENERIC_CLASS), classValue);
       TACOperand generics = new TACLoad(this, new TACFieldRef(genericClass, "parameters"));
       TACOperand methodTables = new TACLoad(this, new TACFieldRef(genericClass, "tables"));
       classData =
@@ -177,7 +180,7 @@ public class TACClass extends TACOperand {
                 this,
                 new TACFieldRef(
                     new TACLocalLoad(this, _this),
-                    new SimpleModifiedType(Type.CLASS, new Modifiers(Modifiers.IMMUTABLE)),
+                    new SimpleModifiedType(compilation.CLASS, new Modifiers(Modifiers.IMMUTABLE)),
                     "class"));
       } else // type has uninstantiated generics within it
       classData = lookUpClass(type, outer);
@@ -188,6 +191,7 @@ public class TACClass extends TACOperand {
   }
 
   private TACOperand lookUpClass(Type type, Type outer) {
+    CompilationContext compilation = CompilationContext.current();
     if (outer instanceof ClassType outerClass) {
       Type check = type;
       if (type instanceof ArrayType) check = ((ArrayType) type).convertToGeneric();
@@ -207,10 +211,10 @@ public class TACClass extends TACOperand {
                 this,
                 new TACFieldRef(
                     new TACLocalLoad(this, _this),
-                    new SimpleModifiedType(Type.CLASS, new Modifiers(Modifiers.IMMUTABLE)),
+                    new SimpleModifiedType(compilation.CLASS, new Modifiers(Modifiers.IMMUTABLE)),
                     "class"));
         TACOperand genericClass =
-            TACCast.cast(this, new SimpleModifiedType(Type.GENERIC_CLASS), classValue);
+            TACCast.cast(this, new SimpleModifiedType(compilation.GENERIC_CLASS), classValue);
         TACOperand generics = new TACLoad(this, new TACFieldRef(genericClass, "parameters"));
         TACOperand classData =
             new TACLoad(
@@ -224,7 +228,7 @@ public class TACClass extends TACOperand {
                     false));
 
         // these extra classes are always GenericClasses, so we have to throw in a cast
-        return TACCast.cast(this, new SimpleModifiedType(Type.GENERIC_CLASS), classData);
+        return TACCast.cast(this, new SimpleModifiedType(compilation.GENERIC_CLASS), classData);
       } else
         throw new IllegalArgumentException(
             "Type " + type + " not found in dependency list for class " + outer);
@@ -1,5 +1,6 @@
 package shadow.tac.nodes;
 
+import shadow.CompilationContext;
 import shadow.ShadowException;
 import shadow.tac.TACVisitor;
 import shadow.typecheck.type.SimpleModifiedType;
@@ -26,7 +27,7 @@ public class TACCopyMemory extends TACOperand {
     // checks can remove references
     this.destination = check(destination, destination);
     this.source = check(source, source);
-    this.size = check(size, new SimpleModifiedType(Type.LONG));
+    this.size = check(size, new SimpleModifiedType(CompilationContext.current().LONG));
     this.isArray = isArray;
   }
 
@@ -1,5 +1,6 @@
 package shadow.tac.nodes;
 
+import shadow.CompilationContext;
 import shadow.ShadowException;
 import shadow.tac.TACVisitor;
 import shadow.typecheck.type.ModifiedType;
@@ -20,7 +21,7 @@ public class TACLongToPointer extends TACOperand {
   public TACLongToPointer(TACNode node, TACOperand value, ModifiedType type) {
     super(node);
     // check is used in case the ulong is nullable and must be converted from object form
-    this.value = check(value, new SimpleModifiedType(Type.ULONG));
+    this.value = check(value, new SimpleModifiedType(CompilationContext.current().ULONG));
     this.type = type;
   }
 
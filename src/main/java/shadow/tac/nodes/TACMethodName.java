@@ -9,6 +9,8 @@ public class TACMethodName extends TACOperand implements TACMethodRef {
   private TACMethodRef wrapped;
   private MethodSignature signature;
   private boolean isSuper = false;
+  private boolean devirtualized = false;
+  private MethodSignature expectedMethod;
 
   public TACMethodName(TACNode node, MethodSignature sig) {
     this(node, null, sig);
@@ -49,6 +51,48 @@ public class TACMethodName extends TACOperand implements TACMethodRef {
     return prefix;
   }
 
+  /*
+   * Checks whether the method can be called by name rather than looked up in
+   * the method table of the prefix, since no other method can be called.
+   */
+  public boolean isDirect() {
+    Type outer = getOuterType();
+    if (outer instanceof InterfaceType) return false;
+
+    return !hasPrefix()
+        || outer.isPrimitive()
+        || outer.getModifiers().isLocked()
+        || getType().getModifiers().isLocked()
+        || outer instanceof SingletonType
+        || getType().getModifiers().isPrivate()
+        || isSuper()
+        || isDevirtualized();
+  }
+
+  /*
+   * Marks a method that no subclass in the program overrides, so that it can
+   * be called directly even though it could be overridden.
+   */
+  public void setDevirtualized(boolean value) {
+    devirtualized = value;
+  }
+
+  public boolean isDevirtualized() {
+    return devirtualized;
+  }
+
+  /*
+   * Sets the only method that an interface method can be in the program, which
+   * is called directly after checking the method table.
+   */
+  public void setExpectedMethod(MethodSignature method) {
+    expectedMethod = method;
+  }
+
+  public MethodSignature getExpectedMethod() {
+    return expectedMethod;
+  }
+
   public int getIndex() {
     int index = signature.getOuter().getMethodIndex(signature);
     if (index == -1 || prefix == null) throw new UnsupportedOperationException();
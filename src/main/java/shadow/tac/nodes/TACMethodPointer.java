@@ -1,5 +1,6 @@
 package shadow.tac.nodes;
 
+import shadow.CompilationContext;
 import shadow.ShadowException;
 import shadow.tac.TACVisitor;
 import shadow.typecheck.type.MethodReferenceType;
@@ -32,7 +33,7 @@ public class TACMethodPointer extends TACOperand implements TACMethodRef {
   @Override
   public SequenceType getParameterTypes() {
     SequenceType paramTypes = new SequenceType();
-    paramTypes.add(new SimpleModifiedType(Type.OBJECT));
+    paramTypes.add(new SimpleModifiedType(CompilationContext.current().OBJECT));
     paramTypes.addAll(type.getMethodType().getParameterTypes());
     return paramTypes;
   }
@@ -40,7 +41,7 @@ public class TACMethodPointer extends TACOperand implements TACMethodRef {
   @Override
   public SequenceType getUninstantiatedParameterTypes() {
     SequenceType paramTypes = new SequenceType();
-    paramTypes.add(new SimpleModifiedType(Type.OBJECT));
+    paramTypes.add(new SimpleModifiedType(CompilationContext.current().OBJECT));
     paramTypes.addAll(type.getMethodType().getTypeWithoutTypeArguments().getParameterTypes());
     return paramTypes;
   }
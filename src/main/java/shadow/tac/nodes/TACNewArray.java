@@ -1,5 +1,6 @@
 package shadow.tac.nodes;
 
+import shadow.CompilationContext;
 import shadow.ShadowException;
 import shadow.tac.TACVisitor;
 import shadow.typecheck.type.ArrayType;
@@ -21,10 +22,11 @@ public class TACNewArray extends TACOperand {
 
   public TACNewArray(TACNode node, ArrayType arrayType, TACOperand class_, TACOperand size) {
     super(node);
+    CompilationContext compilation = CompilationContext.current();
     type = arrayType;
     if (arrayType.isNullable()) getModifiers().addModifier(Modifiers.NULLABLE);
-    this.class_ = check(class_, new SimpleModifiedType(Type.GENERIC_CLASS));
-    this.size = check(size, new SimpleModifiedType(Type.LONG));
+    this.class_ = check(class_, new SimpleModifiedType(compilation.GENERIC_CLASS));
+    this.size = check(size, new SimpleModifiedType(compilation.LONG));
   }
 
   public TACOperand getAllocationClass() {
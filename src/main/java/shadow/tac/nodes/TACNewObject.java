@@ -1,5 +1,6 @@
 package shadow.tac.nodes;
 
+import shadow.CompilationContext;
 import shadow.ShadowException;
 import shadow.interpreter.ShadowInteger;
 import shadow.output.llvm.IrOutput;
@@ -19,25 +20,27 @@ public class TACNewObject extends TACOperand {
 
   public TACNewObject(TACNode node, Type type) {
     super(node);
+    CompilationContext compilation = CompilationContext.current();
     this.type = type;
 
     // class needs real type
     TACClass _class = new TACClass(this, type);
     classData = _class.getClassData();
-    if (!classData.getType().equals(Type.CLASS))
-      classData = TACCast.cast(this, new SimpleModifiedType(Type.CLASS), classData);
+    if (!classData.getType().equals(compilation.CLASS))
+      classData = TACCast.cast(this, new SimpleModifiedType(compilation.CLASS), classData);
     methodTable = _class.getMethodTable();
 
     // there's a chance that it could be an interface, which isn't allowed
     if (type instanceof TypeParameter) {
       TACOperand flags =
-          new TACLoad(this, new TACFieldRef(classData, Type.CLASS.getField("flags"), "flags"));
+          new TACLoad(
+              this, new TACFieldRef(classData, compilation.CLASS.getField("flags"), "flags"));
       TACLiteral interfaceFlag = new TACLiteral(this, new ShadowInteger(IrOutput.INTERFACE));
       TACOperand value =
           new TACBinary(
               this,
               flags,
-              Type.INT.getMatchingMethod("bitAnd", new SequenceType(interfaceFlag)),
+              compilation.INT.getMatchingMethod("bitAnd", new SequenceType(interfaceFlag)),
               "&",
               interfaceFlag);
       TACOperand test =
@@ -52,11 +55,12 @@ public class TACNewObject extends TACOperand {
       new TACBranch(this, test, doneLabel, throwLabel);
 
       throwLabel.insertBefore(this);
-      TACOperand object = new TACNewObject(this, Type.INTERFACE_CREATE_EXCEPTION);
+      TACOperand object = new TACNewObject(this, compilation.INTERFACE_CREATE_EXCEPTION);
       TACOperand name =
-          new TACLoad(this, new TACFieldRef(classData, Type.CLASS.getField("name"), "name"));
+          new TACLoad(this, new TACFieldRef(classData, compilation.CLASS.getField("name"), "name"));
       MethodSignature signature =
-          Type.INTERFACE_CREATE_EXCEPTION.getMatchingMethod("create", new SequenceType(name));
+          compilation.INTERFACE_CREATE_EXCEPTION.getMatchingMethod(
+              "create", new SequenceType(name));
 
       TACCall exception = new TACCall(this, new TACMethodName(this, signature), object, name);
       new TACThrow(this, exception);
@@ -79,7 +83,7 @@ public class TACNewObject extends TACOperand {
 
   @Override
   public ClassType getType() {
-    return Type.OBJECT;
+    return CompilationContext.current().OBJECT;
   }
 
   @Override
@@ -1,5 +1,6 @@
 package shadow.tac.nodes;
 
+import shadow.CompilationContext;
 import shadow.ShadowException;
 import shadow.parse.Context;
 import shadow.tac.TACBlock;
@@ -153,6 +154,7 @@ public abstract class TACNode implements Iterable<TACOperand> {
    * return check(operand, type, false); }
    */
   protected final TACOperand check(TACOperand operand, ModifiedType type) {
+    CompilationContext compilation = CompilationContext.current();
     if (type.getType() instanceof TypeParameter parameter
         && !(operand.getType() instanceof TypeParameter)
         && !operand.getType().equals(Type.NULL)) {
@@ -182,7 +184,8 @@ public abstract class TACNode implements Iterable<TACOperand> {
       throw new IllegalArgumentException(
           operandType + " and " + typeType + " are not both sequence types");
 
-    if (operandType.equals(Type.METHOD) && typeType instanceof MethodReferenceType) return operand;
+    if (operandType.equals(compilation.METHOD) && typeType instanceof MethodReferenceType)
+      return operand;
 
     final shadow.typecheck.Package operandPackage = operandType.getPackage();
     final shadow.typecheck.Package typePackage = typeType.getPackage();
@@ -129,6 +129,16 @@ public class TACPhi extends TACLocalStorage {
     return false;
   }
 
+  /*
+   * Replaces all incoming values with one value that holds on every path,
+   * such as a constant found by propagation.
+   */
+  public void setValue(TACOperand value) {
+    previousStores = new HashMap<>();
+    previousStores.put(null, value);
+    undefined = false;
+  }
+
   public Map<TACLabel, TACOperand> getPreviousStores() {
     return previousStores;
   }
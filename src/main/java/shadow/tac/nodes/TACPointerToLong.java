@@ -1,5 +1,6 @@
 package shadow.tac.nodes;
 
+import shadow.CompilationContext;
 import shadow.ShadowException;
 import shadow.tac.TACVisitor;
 import shadow.typecheck.type.Type;
@@ -21,7 +22,7 @@ public class TACPointerToLong extends TACOperand {
 
   @Override
   public Type getType() {
-    return Type.ULONG;
+    return CompilationContext.current().ULONG;
   }
 
   @Override
@@ -1,5 +1,6 @@
 package shadow.tac.nodes;
 
+import shadow.CompilationContext;
 import shadow.typecheck.type.ModifiedType;
 import shadow.typecheck.type.PointerType;
 import shadow.typecheck.type.SingletonType;
@@ -7,6 +8,7 @@ import shadow.typecheck.type.Type;
 
 public abstract class TACReference implements ModifiedType {
   public boolean needsGarbageCollection() {
+    CompilationContext compilation = CompilationContext.current();
     Type type = getType();
 
     // Class objects don't need GC because they're all constants made at compile time
@@ -15,9 +17,9 @@ public abstract class TACReference implements ModifiedType {
 
     return !(type instanceof PointerType)
         && !(type instanceof SingletonType)
-        && !type.equals(Type.CLASS)
-        && !type.equals(Type.GENERIC_CLASS)
-        && !type.equals(Type.METHOD_TABLE)
+        && !type.equals(compilation.CLASS)
+        && !type.equals(compilation.GENERIC_CLASS)
+        && !type.equals(compilation.METHOD_TABLE)
         && (!type.isPrimitive() || type.getModifiers().isNullable());
   }
 }
@@ -1,5 +1,6 @@
 package shadow.tac.nodes;
 
+import shadow.CompilationContext;
 import shadow.ShadowException;
 import shadow.tac.TACVisitor;
 import shadow.typecheck.type.SimpleModifiedType;
@@ -17,7 +18,7 @@ public class TACThrow extends TACNode {
   public TACThrow(TACNode node, TACOperand op) {
     super(node);
     node.getBlock().addUnwindSource();
-    exception = check(op, new SimpleModifiedType(Type.OBJECT));
+    exception = check(op, new SimpleModifiedType(CompilationContext.current().OBJECT));
   }
 
   public TACOperand getException() {
@@ -1,5 +1,6 @@
 package shadow.tac.nodes;
 
+import shadow.CompilationContext;
 import shadow.ShadowException;
 import shadow.tac.TACVisitor;
 import shadow.typecheck.type.Type;
@@ -25,7 +26,7 @@ public class TACTypeId extends TACOperand {
 
   @Override
   public Type getType() {
-    return Type.INT;
+    return CompilationContext.current().INT;
   }
 
   @Override
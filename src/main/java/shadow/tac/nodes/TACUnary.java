@@ -1,5 +1,6 @@
 package shadow.tac.nodes;
 
+import shadow.CompilationContext;
 import shadow.ShadowException;
 import shadow.interpreter.ShadowValue;
 import shadow.interpreter.TACInterpreter;
@@ -25,8 +26,8 @@ public class TACUnary extends TACUpdate {
         node,
         op,
         operand,
-        new SimpleModifiedType(Type.BOOLEAN),
-        new SimpleModifiedType(Type.BOOLEAN));
+        new SimpleModifiedType(CompilationContext.current().BOOLEAN),
+        new SimpleModifiedType(CompilationContext.current().BOOLEAN));
   }
 
   public TACUnary(TACNode node, MethodSignature signature, String op, TACOperand operand) {
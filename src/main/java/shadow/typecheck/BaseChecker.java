@@ -19,6 +19,7 @@ package shadow.typecheck;
 
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.TerminalNode;
+import shadow.CompilationContext;
 import shadow.ShadowException;
 import shadow.parse.Context;
 import shadow.parse.Context.AssignmentKind;
@@ -60,6 +61,7 @@ public abstract class BaseChecker extends ShadowVisitorErrorReporter {
   }
 
   protected final Package packageTree;
+  protected final CompilationContext compilation;
   // Current method is a stack since Shadow allows methods to be defined inside of methods.
   protected final LinkedList<Context> currentMethod = new LinkedList<>();
 
@@ -72,10 +74,13 @@ public abstract class BaseChecker extends ShadowVisitorErrorReporter {
    * Creates a new <code>BaseChecker</code> with the given tree of packages.
    *
    * @param packageTree root of all packages
+   * @param compilation context holding the standard types of the current compilation
    */
-  public BaseChecker(Package packageTree, ErrorReporter reporter) {
+  public BaseChecker(
+      Package packageTree, ErrorReporter reporter, CompilationContext compilation) {
     super(reporter);
     this.packageTree = packageTree;
+    this.compilation = compilation;
   }
 
   /**
@@ -109,6 +114,7 @@ public abstract class BaseChecker extends ShadowVisitorErrorReporter {
       AssignmentKind assignmentKind,
       SubstitutionKind substitutionKind,
       List<ShadowException> errors) {
+    CompilationContext compilation = CompilationContext.current();
     Type leftType = left.getType();
     Type rightType = right.getType();
 
@@ -119,9 +125,9 @@ public abstract class BaseChecker extends ShadowVisitorErrorReporter {
         right = getSetType.getGetType();
         rightType = right.getType();
       } else { // Fail otherwise
-        String kind = (rightType instanceof SubscriptType) ? "Subscript " : "Property ";
-        ErrorReporter.addError(
-            errors, Error.INVALID_ASSIGNMENT, kind + getSetType + " cannot be loaded", rightType);
+        String kind = (rightType instanceof SubscriptType) ? "Subscript" : "Property";
+        ErrorReporter.addFormattedError(
+            errors, Error.INVALID_ASSIGNMENT, "%s %s cannot be loaded", kind, getSetType);
         return false;
       }
     }
@@ -134,7 +140,7 @@ public abstract class BaseChecker extends ShadowVisitorErrorReporter {
         return checkSubstitution(
             propertyType.getSetType(), right, assignmentKind, substitutionKind, errors);
       else {
-        errors.addAll(errorList);
+        if (errors != null) errors.addAll(errorList);
         return false;
       }
     }
@@ -143,10 +149,11 @@ public abstract class BaseChecker extends ShadowVisitorErrorReporter {
     if (leftType instanceof SequenceType sequenceLeft) {
       // Compound assignments not allowed for sequences
       if (!assignmentKind.equals(AssignmentKind.EQUAL)) {
-        ErrorReporter.addError(
+        ErrorReporter.addFormattedError(
             errors,
             Error.INVALID_ASSIGNMENT,
-            "Sequence type " + sequenceLeft + " cannot be assigned with any operator other than =");
+            "Sequence type %s cannot be assigned with any operator other than =",
+            sequenceLeft);
         return false;
       }
 
@@ -164,23 +171,20 @@ public abstract class BaseChecker extends ShadowVisitorErrorReporter {
     if (substitutionKind.equals(SubstitutionKind.TYPE_PARAMETER)) {
       if (leftType instanceof TypeParameter typeParameter) {
         if (!typeParameter.acceptsSubstitution(rightType)) {
-          ErrorReporter.addError(
+          ErrorReporter.addFormattedError(
               errors,
               Error.INVALID_TYPE_ARGUMENTS,
-              "Cannot substitute type argument " + rightType + " for type argument " + leftType,
-              rightType);
+              "Cannot substitute type argument %s for type argument %s",
+              rightType,
+              leftType);
           return false;
         }
       } else {
         // Should never happen
-        ErrorReporter.addError(
+        ErrorReporter.addFormattedError(
             errors,
             Error.INVALID_TYPE_ARGUMENTS,
-            "Cannot substitute type argument "
-                + rightType
-                + " for type "
-                + leftType
-                + " which is not a type parameter",
+            "Cannot substitute type argument %s for type %s which is not a type parameter",
             rightType,
             leftType);
         return false;
@@ -279,7 +283,7 @@ public abstract class BaseChecker extends ShadowVisitorErrorReporter {
             leftType);
     } else if (leftArray) {
       if (leftModifiers.isNullable()
-          && !rightType.getTypeWithoutTypeArguments().equals(Type.ARRAY_NULLABLE))
+          && !rightType.getTypeWithoutTypeArguments().equals(compilation.ARRAY_NULLABLE))
         ErrorReporter.addError(
             errors,
             Error.INVALID_ASSIGNMENT,
@@ -287,7 +291,7 @@ public abstract class BaseChecker extends ShadowVisitorErrorReporter {
             rightType,
             leftType);
       else if (!leftModifiers.isNullable()
-          && rightType.getTypeWithoutTypeArguments().equals(Type.ARRAY_NULLABLE))
+          && rightType.getTypeWithoutTypeArguments().equals(compilation.ARRAY_NULLABLE))
         ErrorReporter.addError(
             errors,
             Error.INVALID_ASSIGNMENT,
@@ -489,19 +493,20 @@ public abstract class BaseChecker extends ShadowVisitorErrorReporter {
    * @return its type
    */
   public static ClassType literalToType(ShadowParser.LiteralContext literal) {
-    if (literal.ByteLiteral() != null) return Type.BYTE;
-    else if (literal.CodeLiteral() != null) return Type.CODE;
-    else if (literal.ShortLiteral() != null) return Type.SHORT;
-    else if (literal.IntLiteral() != null) return Type.INT;
-    else if (literal.LongLiteral() != null) return Type.LONG;
-    else if (literal.FloatLiteral() != null) return Type.FLOAT;
-    else if (literal.DoubleLiteral() != null) return Type.DOUBLE;
-    else if (literal.StringLiteral() != null) return Type.STRING;
-    else if (literal.UByteLiteral() != null) return Type.UBYTE;
-    else if (literal.UShortLiteral() != null) return Type.USHORT;
-    else if (literal.UIntLiteral() != null) return Type.UINT;
-    else if (literal.ULongLiteral() != null) return Type.ULONG;
-    else if (literal.BooleanLiteral() != null) return Type.BOOLEAN;
+    CompilationContext compilation = CompilationContext.current();
+    if (literal.ByteLiteral() != null) return compilation.BYTE;
+    else if (literal.CodeLiteral() != null) return compilation.CODE;
+    else if (literal.ShortLiteral() != null) return compilation.SHORT;
+    else if (literal.IntLiteral() != null) return compilation.INT;
+    else if (literal.LongLiteral() != null) return compilation.LONG;
+    else if (literal.FloatLiteral() != null) return compilation.FLOAT;
+    else if (literal.DoubleLiteral() != null) return compilation.DOUBLE;
+    else if (literal.StringLiteral() != null) return compilation.STRING;
+    else if (literal.UByteLiteral() != null) return compilation.UBYTE;
+    else if (literal.UShortLiteral() != null) return compilation.USHORT;
+    else if (literal.UIntLiteral() != null) return compilation.UINT;
+    else if (literal.ULongLiteral() != null) return compilation.ULONG;
+    else if (literal.BooleanLiteral() != null) return compilation.BOOLEAN;
     else if (literal.NullLiteral() != null) return Type.NULL;
 
     return null;
@@ -514,19 +519,20 @@ public abstract class BaseChecker extends ShadowVisitorErrorReporter {
    * @return its type
    */
   public static ClassType nameToPrimitiveType(String name) {
+    CompilationContext compilation = CompilationContext.current();
     return switch (name) {
-      case "boolean" -> Type.BOOLEAN;
-      case "byte" -> Type.BYTE;
-      case "code" -> Type.CODE;
-      case "double" -> Type.DOUBLE;
-      case "float" -> Type.FLOAT;
-      case "int" -> Type.INT;
-      case "long" -> Type.LONG;
-      case "short" -> Type.SHORT;
-      case "ubyte" -> Type.UBYTE;
-      case "uint" -> Type.UINT;
-      case "ulong" -> Type.ULONG;
-      case "ushort" -> Type.USHORT;
+      case "boolean" -> compilation.BOOLEAN;
+      case "byte" -> compilation.BYTE;
+      case "code" -> compilation.CODE;
+      case "double" -> compilation.DOUBLE;
+      case "float" -> compilation.FLOAT;
+      case "int" -> compilation.INT;
+      case "long" -> compilation.LONG;
+      case "short" -> compilation.SHORT;
+      case "ubyte" -> compilation.UBYTE;
+      case "uint" -> compilation.UINT;
+      case "ulong" -> compilation.ULONG;
+      case "ushort" -> compilation.USHORT;
       default -> null;
     };
   }
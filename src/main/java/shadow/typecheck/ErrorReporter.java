@@ -140,6 +140,11 @@ public class ErrorReporter {
     return false;
   }
 
+  // Operands of errors can be types or other values, such as names
+  private static boolean containsUnknown(Object operand) {
+    return operand instanceof Type type && containsUnknown(type);
+  }
+
   /**
    * Adds an error to the given error list, unless that error refers to unknown types. Unknown type
    * errors are usually symptoms of other errors (like undeclared variables), and are thus
@@ -156,8 +161,82 @@ public class ErrorReporter {
       String reason,
       Type... errorTypes) {
     // Don't add an error if it has an Unknown Type in it.
-    if (containsUnknown(errorTypes)) return;
-    if (errors != null) errors.add(error.getException(reason, null));
+    if (errors != null && !containsUnknown(errorTypes))
+      errors.add(error.getException(reason, null));
+  }
+
+  /*
+   * Versions with one and two types avoid creating an array for every check made with a null error
+   * list, as when overloads are tried out.
+   */
+  public static void addError(
+      List<ShadowException> errors, ShadowExceptionErrorKind error, String reason, Type errorType) {
+    if (errors != null && !containsUnknown(errorType)) errors.add(error.getException(reason, null));
+  }
+
+  public static void addError(
+      List<ShadowException> errors,
+      ShadowExceptionErrorKind error,
+      String reason,
+      Type firstType,
+      Type secondType) {
+    if (errors != null && !containsUnknown(firstType) && !containsUnknown(secondType))
+      errors.add(error.getException(reason, null));
+  }
+
+  /**
+   * Adds an error to the given error list whose message is only built if it is read. Nothing is
+   * created if the list is <code>null</code> or if one of the operands is or contains an unknown
+   * type.
+   *
+   * @param errors list of errors
+   * @param error kind of error
+   * @param format message explaining error, with <code>%s</code> for the operand
+   * @param operand value, usually a type, that the message refers to
+   */
+  public static void addFormattedError(
+      List<ShadowException> errors, ShadowExceptionErrorKind error, String format, Object operand) {
+    if (errors != null && !containsUnknown(operand))
+      errors.add(error.getException(format, new Object[] {operand}, null));
+  }
+
+  /**
+   * Adds an error to the given error list whose message is only built if it is read.
+   *
+   * @param errors list of errors
+   * @param error kind of error
+   * @param format message explaining error, with <code>%s</code> for each operand
+   * @param first value that the message refers to first
+   * @param second value that the message refers to second
+   * @see #addFormattedError(List, ShadowExceptionErrorKind, String, Object)
+   */
+  public static void addFormattedError(
+      List<ShadowException> errors,
+      ShadowExceptionErrorKind error,
+      String format,
+      Object first,
+      Object second) {
+    if (errors != null && !containsUnknown(first) && !containsUnknown(second))
+      errors.add(error.getException(format, new Object[] {first, second}, null));
+  }
+
+  /**
+   * Adds an error to the given error list whose message is only built if it is read.
+   *
+   * @param errors list of errors
+   * @param error kind of error
+   * @param format message explaining error, with <code>%s</code> for each operand
+   * @param operands values that the message refers to
+   * @see #addFormattedError(List, ShadowExceptionErrorKind, String, Object)
+   */
+  public static void addFormattedError(
+      List<ShadowException> errors,
+      ShadowExceptionErrorKind error,
+      String format,
+      Object... operands) {
+    if (errors == null) return;
+    for (Object operand : operands) if (containsUnknown(operand)) return;
+    errors.add(error.getException(format, operands, null));
   }
 
   public void addAll(ErrorReporter other) {
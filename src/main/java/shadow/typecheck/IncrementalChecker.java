@@ -0,0 +1,197 @@
+package shadow.typecheck;
+
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import shadow.CompilationContext;
+import shadow.ConfigurationException;
+import shadow.Loggers;
+import shadow.ShadowException;
+import shadow.parse.Context;
+import shadow.parse.ParseChecker;
+import shadow.parse.ShadowParser;
+import shadow.typecheck.type.Type;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Type-checks a set of files and keeps the resulting types so that edits can be checked again
+ * without starting over. Used for editor integration, where the same files are checked after
+ * almost every change.
+ *
+ * <p>After an edit, only the edited file is parsed, collected, updated, and checked again. The
+ * files that import it are redone as well, but only when its signature changes, that is, when
+ * anything outside of method bodies is different. Everything else keeps its types from earlier
+ * checks. If an edit cannot be applied to the kept types, the next check starts over.
+ */
+public class IncrementalChecker {
+
+  private final List<Path> files;
+  private final CompilationContext compilation;
+  // Unsaved source of files being edited, keyed by .shadow path
+  private final Map<Path, String> activeFiles = new HashMap<>();
+  // Signatures of files collected from source, keyed by path without extension
+  private final Map<Path, String> signatures = new HashMap<>();
+  private Package packageTree = null;
+  private TypeCollector collector = null;
+
+  /**
+   * Creates a checker for the given files. Nothing is checked until {@link #check()} or {@link
+   * #update(Path, String)} is called.
+   *
+   * @param files files to type-check (main file is the first)
+   * @param compilation context holding the configuration to check with
+   */
+  public IncrementalChecker(List<Path> files, CompilationContext compilation) {
+    this.files = new ArrayList<>(files);
+    this.compilation = compilation;
+  }
+
+  /**
+   * Type-checks all the files from the beginning, replacing any types kept from earlier checks.
+   *
+   * @return reporter holding the errors and warnings found
+   * @throws IOException thrown if files aren't accessible
+   * @throws ConfigurationException thrown if there's a problem with Configuration
+   */
+  public ErrorReporter check() throws IOException, ConfigurationException {
+    ErrorReporter reporter = new ErrorReporter(Loggers.TYPE_CHECKER);
+    try (CompilationContext.Scope ignored = compilation.enter()) {
+      packageTree = null;
+      collector = null;
+      signatures.clear();
+
+      compilation.clearTypes();
+      Package tree = new Package();
+      TypeCollector typeCollector = new TypeCollector(tree, reporter, true, compilation);
+      Map<Type, Context> nodeTable = typeCollector.collectTypes(files, activeFiles);
+      nodeTable = update(tree, reporter, typeCollector, nodeTable);
+      check(tree, reporter, nodeTable);
+
+      for (Map.Entry<Path, Context> entry : typeCollector.getFileTable().entrySet())
+        if (!entry.getValue().isFromMetaFile())
+          signatures.put(entry.getKey(), getSignature(entry.getValue()));
+
+      packageTree = tree;
+      collector = typeCollector;
+    } catch (ShadowException e) {
+      addError(reporter, e);
+    }
+
+    return reporter;
+  }
+
+  /**
+   * Type-checks a file again after an edit. The file keeps the given source for this and later
+   * checks until {@link #save(Path)} is called. If the types kept from earlier checks cannot be
+   * used, all files are checked again.
+   *
+   * @param file edited file
+   * @param source unsaved source of the file
+   * @return reporter holding the errors and warnings found in the files checked again
+   * @throws IOException thrown if files aren't accessible
+   * @throws ConfigurationException thrown if there's a problem with Configuration
+   */
+  public ErrorReporter update(Path file, String source)
+      throws IOException, ConfigurationException {
+    Path canonical = BaseChecker.stripExtension(file.toAbsolutePath().normalize());
+    activeFiles.put(BaseChecker.addExtension(canonical, ".shadow"), source);
+    if (collector == null) return check();
+
+    ErrorReporter reporter = new ErrorReporter(Loggers.TYPE_CHECKER);
+    try (CompilationContext.Scope ignored = compilation.enter()) {
+      // Syntax errors are reported before anything kept is changed
+      ParseChecker parser = new ParseChecker(new ErrorReporter(Loggers.PARSER));
+      ShadowParser.CompilationUnitContext node =
+          parser.getCompilationUnit(source, BaseChecker.addExtension(canonical, ".shadow"));
+      if (!parser.getErrorReporter().getErrorList().isEmpty()) {
+        reporter.addAll(parser.getErrorReporter());
+        return reporter;
+      }
+
+      Set<Path> changed = new HashSet<>();
+      changed.add(canonical);
+      String signature = getSignature(node);
+      if (!signature.equals(signatures.get(canonical))) {
+        // Types that every file uses implicitly have no complete list of dependents
+        if (collector.isStandardImport(canonical)) return check();
+        changed.addAll(collector.getDependents(canonical));
+      }
+
+      try {
+        Map<Type, Context> nodeTable = collector.recollectFiles(changed, activeFiles);
+        nodeTable = update(packageTree, reporter, collector, nodeTable);
+        check(packageTree, reporter, nodeTable);
+      } catch (ShadowException e) {
+        // Kept types might now refer to ones that were only partly replaced
+        collector = null;
+        throw e;
+      }
+
+      signatures.put(canonical, signature);
+    } catch (ShadowException e) {
+      addError(reporter, e);
+    }
+
+    return reporter;
+  }
+
+  /**
+   * Stops using unsaved source for a file, once it has been saved or its edits discarded. The
+   * file is not checked again until the next update.
+   *
+   * @param file file that no longer has unsaved source
+   */
+  public void save(Path file) {
+    Path canonical = BaseChecker.stripExtension(file.toAbsolutePath().normalize());
+    activeFiles.remove(BaseChecker.addExtension(canonical, ".shadow"));
+  }
+
+  private Map<Type, Context> update(
+      Package tree, ErrorReporter reporter, TypeCollector typeCollector, Map<Type, Context> nodes)
+      throws ShadowException {
+    TypeUpdater updater =
+        new TypeUpdater(tree, reporter, typeCollector.getFileTable(), compilation);
+    return updater.update(nodes);
+  }
+
+  /*
+   * Checks the statements of every outer type in the node table. Unlike a
+   * compilation, checking goes on past classes with errors so that every
+   * class gets its errors reported.
+   */
+  private void check(Package tree, ErrorReporter reporter, Map<Type, Context> nodeTable) {
+    StatementChecker checker = new StatementChecker(tree, reporter, compilation);
+    for (Context node : TypeChecker.getOuterNodes(nodeTable.values())) checker.visit(node);
+  }
+
+  private static void addError(ErrorReporter reporter, ShadowException exception) {
+    if (!reporter.getErrorList().contains(exception)) reporter.addError(exception);
+  }
+
+  /*
+   * Gets the text of a file without the contents of its method bodies.
+   * Files that import this one only need to be checked again when it changes.
+   */
+  private static String getSignature(ParseTree tree) {
+    StringBuilder signature = new StringBuilder();
+    addSignature(tree, signature);
+    return signature.toString();
+  }
+
+  private static void addSignature(ParseTree tree, StringBuilder signature) {
+    if (tree instanceof TerminalNode) signature.append(tree.getText()).append(' ');
+    else if (isBody(tree)) signature.append("{} ");
+    else for (int i = 0; i < tree.getChildCount(); ++i) addSignature(tree.getChild(i), signature);
+  }
+
+  private static boolean isBody(ParseTree tree) {
+    ParseTree parent = tree.getParent();
+    if (tree instanceof ShadowParser.BlockContext)
+      return parent instanceof ShadowParser.MethodDeclarationContext
+          || parent instanceof ShadowParser.DestroyDeclarationContext;
+
+    return tree instanceof ShadowParser.CreateBlockContext;
+  }
+}
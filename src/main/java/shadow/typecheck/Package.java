@@ -134,6 +134,16 @@ public class Package implements Comparable<Package>, Iterable<Type> {
     } else throw new PackageException("Package " + this + " already contains type " + type);
   }
 
+  /**
+   * Removes a type from the given package, so that a type with the same name can be added again.
+   *
+   * @param type type to be removed from the package
+   * @return <code>true</code> if the package contained the type
+   */
+  public boolean removeType(Type type) {
+    return types.remove(type.toString(Type.NO_OPTIONS), type);
+  }
+
 
   /**
    * Gets all child packages within this package.
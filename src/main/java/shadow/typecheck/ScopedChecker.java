@@ -1,14 +1,17 @@
 package shadow.typecheck;
 
+import shadow.CompilationContext;
 import shadow.interpreter.InterpreterException;
 import shadow.parse.Context;
 import shadow.typecheck.TypeCheckException.Error;
 import shadow.typecheck.type.*;
 
-import java.util.Deque;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 /**
  * Abstract base class for checkers that need information about method and variable scope.
@@ -16,48 +19,51 @@ import java.util.Map;
  * @author Barry Wittman
  */
 public abstract class ScopedChecker extends BaseChecker {
-  private final Deque<Scope> scopes = new LinkedList<>();
-
-  /** Contains all metadata associated with a given scope */
-  private static class Scope {
-    private final Map<String, ModifiedType> symbolTable = new HashMap<>();
-
-    /* Keeps track of the method associated with each scope (sometimes null). */
-    private final Context enclosingMethod;
-
-    public Scope(Context enclosingMethod) {
-      this.enclosingMethod = enclosingMethod;
-    }
-
-    public Context getEnclosingMethod() {
-      return enclosingMethod;
-    }
+  /*
+   * All scopes share one symbol table. Symbols cannot be redefined in any
+   * enclosing scope, so each name has at most one symbol. Names are also
+   * logged in the order they were added, and each open scope remembers
+   * where the log was when it was opened, so closing a scope removes
+   * exactly the symbols added since.
+   */
+  private final Map<String, Symbol> symbols = new HashMap<>();
+  private final List<String> addedNames = new ArrayList<>();
+  private int[] scopeStarts = new int[16];
 
-    public boolean containsSymbol(String name) {
-      return symbolTable.containsKey(name);
-    }
+  /* Keeps track of the method associated with each scope (sometimes null). */
+  private final List<Context> enclosingMethods = new ArrayList<>();
 
-    public ModifiedType getSymbol(String name) {
-      return symbolTable.get(name);
-    }
+  private static class Symbol {
+    private ModifiedType type;
+    private final int depth; // index of the scope that declared the symbol
 
-    public void addSymbol(String name, ModifiedType type) {
-      symbolTable.put(name, type);
+    private Symbol(ModifiedType type, int depth) {
+      this.type = type;
+      this.depth = depth;
     }
   }
 
-  public ScopedChecker(Package packageTree, ErrorReporter reporter) {
-    super(packageTree, reporter);
+  public ScopedChecker(
+      Package packageTree, ErrorReporter reporter, CompilationContext compilation) {
+    super(packageTree, reporter, compilation);
   }
 
   /** Open a new scope inside the current scope. */
   protected void openScope() {
-    scopes.addFirst(new Scope(currentMethod.isEmpty() ? null : currentMethod.getFirst()));
+    int depth = enclosingMethods.size();
+    if (depth == scopeStarts.length) scopeStarts = Arrays.copyOf(scopeStarts, depth * 2);
+    scopeStarts[depth] = addedNames.size();
+    enclosingMethods.add(currentMethod.isEmpty() ? null : currentMethod.getFirst());
   }
 
   /** Close the current scope. */
   protected void closeScope() {
-    scopes.pop();
+    int depth = enclosingMethods.size() - 1;
+    if (depth < 0) throw new NoSuchElementException();
+
+    for (int i = addedNames.size() - 1; i >= scopeStarts[depth]; --i)
+      symbols.remove(addedNames.remove(i));
+    enclosingMethods.remove(depth);
   }
 
   /**
@@ -68,7 +74,7 @@ public abstract class ScopedChecker extends BaseChecker {
    * @param type the modified type of the symbol
    */
   protected void addSymbol(String name, ModifiedType type) {
-    if (scopes.isEmpty()) {
+    if (enclosingMethods.isEmpty()) {
       if (type instanceof Context)
         addError(
             (Context) type,
@@ -79,24 +85,20 @@ public abstract class ScopedChecker extends BaseChecker {
             new TypeCheckException(
                 Error.INVALID_STRUCTURE,
                 "Declaration of " + name + " is illegal outside of a defined scope"));
-    } else {
-      for (Scope scope : scopes) {
-        if (scope.containsSymbol(name)) { // we look at all enclosing scopes
-          if (type instanceof Context)
-            addError(
-                (Context) type,
+    } else if (symbols.containsKey(name)) { // symbols from all enclosing scopes are in the table
+      if (type instanceof Context)
+        addError(
+            (Context) type,
+            Error.MULTIPLY_DEFINED_SYMBOL,
+            "Symbol " + name + " cannot be redefined in this context");
+      else
+        addError(
+            new TypeCheckException(
                 Error.MULTIPLY_DEFINED_SYMBOL,
-                "Symbol " + name + " cannot be redefined in this context");
-          else
-            addError(
-                new TypeCheckException(
-                    Error.MULTIPLY_DEFINED_SYMBOL,
-                    "Symbol " + name + " cannot be redefined in this context"));
-          return;
-        }
-      }
-
-      scopes.getFirst().addSymbol(name, type);
+                "Symbol " + name + " cannot be redefined in this context"));
+    } else {
+      symbols.put(name, new Symbol(type, enclosingMethods.size() - 1));
+      addedNames.add(name);
     }
   }
 
@@ -237,7 +239,7 @@ public abstract class ScopedChecker extends BaseChecker {
    * @param type the modified type of the symbol
    */
   public void setSymbol(String name, ModifiedType type) {
-    if (scopes.isEmpty()) {
+    if (enclosingMethods.isEmpty()) {
       if (type instanceof Context)
         addError(
             (Context) type,
@@ -249,11 +251,10 @@ public abstract class ScopedChecker extends BaseChecker {
                 Error.INVALID_STRUCTURE,
                 "Declaration of " + name + " is illegal outside of a defined scope"));
     } else {
-      for (Scope scope : scopes) {
-        if (scope.containsSymbol(name)) { // we look at all enclosing scopes
-          scope.addSymbol(name, type);
-          return;
-        }
+      Symbol symbol = symbols.get(name);
+      if (symbol != null) {
+        symbol.type = type;
+        return;
       }
       addError(
           new InterpreterException(
@@ -271,23 +272,23 @@ public abstract class ScopedChecker extends BaseChecker {
    *     found
    */
   public ModifiedType findSymbol(String name) {
-    for (Scope scope : scopes) {
-      if (scope.containsSymbol(name)) {
-        //noinspection StatementWithEmptyBody
-        if (scope.getEnclosingMethod() != null
-            && scope.getEnclosingMethod() != scopes.getFirst().getEnclosingMethod()) {
-          // situation where we are pulling a variable from an outer method
-          // it must be final!
-          // local method declarations don't count
-
-          // TODO: add a check to deal with this, even without final
-
-          // if( !(node instanceof ASTLocalMethodDeclaration) && !node.getModifiers().isFinal() )
-          //	addError(Error.INVL_TYP, "Variables accessed by local methods from outer methods must
-          // be marked final");
-        }
-        return scope.getSymbol(name);
+    Symbol symbol = symbols.get(name);
+    if (symbol != null) {
+      Context enclosingMethod = enclosingMethods.get(symbol.depth);
+      //noinspection StatementWithEmptyBody
+      if (enclosingMethod != null
+              && enclosingMethod != enclosingMethods.get(enclosingMethods.size() - 1)) {
+        // situation where we are pulling a variable from an outer method
+        // it must be final!
+        // local method declarations don't count
+
+        // TODO: add a check to deal with this, even without final
+
+        // if( !(node instanceof ASTLocalMethodDeclaration) && !node.getModifiers().isFinal() )
+        //	addError(Error.INVL_TYP, "Variables accessed by local methods from outer methods must
+        // be marked final");
       }
+      return symbol.type;
     }
 
     return null;
@@ -0,0 +1,208 @@
+package shadow.typecheck;
+
+import shadow.BuildManifest;
+import shadow.CompilationContext;
+import shadow.Configuration;
+import shadow.ConfigurationException;
+import shadow.Loggers;
+import shadow.ShadowException;
+import shadow.parse.Context;
+import shadow.typecheck.type.Type;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.Executor;
+
+/**
+ * Keeps the standard library collected, updated, and checked ahead of time, so that a compilation
+ * only has to collect its own files. Used by {@link shadow.CompilerDaemon}, which compiles many
+ * programs against the same standard library.
+ *
+ * <p>Types are changed by the compilations that use them, for example when generic types are
+ * instantiated, so a collected library is only ever given to one compilation. Afterward, another
+ * one is prepared in the background for the next compilation with the same configuration.
+ *
+ * <p>A library is only prepared from up-to-date .meta files. It is not used if any of those files
+ * (or the sources they were generated from) have changed since, or if a compilation would need to
+ * compile any of them from source.
+ */
+public class StandardLibraryCache {
+
+  private final Executor executor;
+  // Libraries ready to be taken and the ones being prepared, both keyed by configuration
+  private final Map<String, Library> libraries = new HashMap<>();
+  private final Set<String> preparing = new HashSet<>();
+
+  /*
+   * The types of a standard library, with everything needed to check that
+   * they still match the files they were collected from.
+   */
+  static class Library {
+    private final CompilationContext compilation;
+    private final TypeCollector collector;
+    // Nodes of all types after updating
+    private final List<Context> nodes;
+    // Nodes in the type table of the collector, which later collections add to
+    private final Set<Context> collectedNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+    // Fingerprint of the contents of each .meta file, keyed by path without extension
+    private final Map<Path, String> metaFiles = new HashMap<>();
+
+    private Library(
+        CompilationContext compilation, TypeCollector collector, Collection<Context> nodes) {
+      this.compilation = compilation;
+      this.collector = collector;
+      this.nodes = new ArrayList<>(nodes);
+    }
+
+    TypeCollector getCollector() {
+      return collector;
+    }
+
+    List<Context> getNodes() {
+      return nodes;
+    }
+
+    boolean isCollected(Context node) {
+      return collectedNodes.contains(node);
+    }
+  }
+
+  /**
+   * Creates a cache that prepares libraries with the given executor.
+   *
+   * @param executor runs the preparation of libraries, usually on a background thread
+   */
+  public StandardLibraryCache(Executor executor) {
+    this.executor = executor;
+  }
+
+  /*
+   * Takes the library prepared for the configuration of the given compilation,
+   * giving its types to the compilation. Returns null if there is none or if
+   * any of its files have changed.
+   */
+  Library take(List<Path> files, boolean typeCheckOnly, CompilationContext compilation)
+      throws ConfigurationException, IOException {
+    Library library;
+    synchronized (this) {
+      library = libraries.remove(getKey(typeCheckOnly, compilation));
+    }
+    if (library == null) return null;
+
+    Set<Path> requested = new HashSet<>();
+    for (Path file : files) requested.add(BaseChecker.stripExtension(file));
+
+    for (Map.Entry<Path, String> entry : library.metaFiles.entrySet()) {
+      Path canonical = entry.getKey();
+      Path meta = BaseChecker.addExtension(canonical, ".meta");
+      Path shadow = BaseChecker.addExtension(canonical, ".shadow");
+      if (requested.contains(canonical)
+          || !Files.exists(meta)
+          || !entry.getValue().equals(BuildManifest.fingerprint("", meta))) return null;
+
+      Path binary = library.collector.getFileTable().get(canonical).getBinaryPath();
+      if (Files.exists(shadow) && !TypeCollector.isMetaCurrent(shadow, binary, typeCheckOnly))
+        return null;
+    }
+
+    compilation.takeTypes(library.compilation);
+    return library;
+  }
+
+  /*
+   * Prepares a library for the next compilation with the same configuration
+   * as the given one, unless one is already ready or being prepared.
+   */
+  void offer(boolean typeCheckOnly, CompilationContext compilation) {
+    String key;
+    try {
+      key = getKey(typeCheckOnly, compilation);
+    } catch (ConfigurationException e) {
+      return;
+    }
+
+    synchronized (this) {
+      if (libraries.containsKey(key) || !preparing.add(key)) return;
+    }
+
+    // Messages from preparing are not for any compilation
+    CompilationContext prepared = new CompilationContext();
+    prepared.setConfiguration(compilation.getConfiguration());
+    prepared.setBinaryMeta(compilation.usesBinaryMeta());
+    prepared.setElideReferenceCounts(compilation.elidesReferenceCounts());
+    prepared.setInlineCalls(compilation.inlinesCalls());
+    prepared.setDevirtualizedProgram(compilation.getDevirtualizedProgram());
+    prepared.setOutput(new PrintStream(OutputStream.nullOutputStream()));
+
+    executor.execute(
+        () -> {
+          try {
+            Library library = prepare(typeCheckOnly, prepared);
+            if (library != null) {
+              synchronized (this) {
+                libraries.put(key, library);
+              }
+            }
+          } finally {
+            synchronized (this) {
+              preparing.remove(key);
+            }
+          }
+        });
+  }
+
+  private static Library prepare(boolean typeCheckOnly, CompilationContext compilation) {
+    try (CompilationContext.Scope ignored = compilation.enter()) {
+      ErrorReporter reporter = new ErrorReporter(Loggers.TYPE_CHECKER);
+      Package packageTree = new Package();
+      TypeCollector collector =
+          new TypeCollector(packageTree, reporter, typeCheckOnly, compilation);
+      Map<Type, Context> typeTable = collector.collectStandardTypes();
+
+      // Files compiled from source would need their object files generated
+      for (Context node : collector.getFileTable().values())
+        if (!node.isFromMetaFile()) return null;
+
+      TypeUpdater updater =
+          new TypeUpdater(packageTree, reporter, collector.getFileTable(), compilation);
+      Map<Type, Context> nodeTable = updater.update(typeTable);
+
+      List<Context> nodes = TypeChecker.getOuterNodes(nodeTable.values());
+      StatementChecker checker = new StatementChecker(packageTree, reporter, compilation);
+      for (Context node : nodes) checker.check(node);
+      reporter.printAndReportErrors();
+
+      Library library = new Library(compilation, collector, nodeTable.values());
+      library.collectedNodes.addAll(typeTable.values());
+      for (Path canonical : collector.getFileTable().keySet())
+        library.metaFiles.put(
+            canonical,
+            BuildManifest.fingerprint("", BaseChecker.addExtension(canonical, ".meta")));
+
+      return library;
+    } catch (ShadowException | IOException | ConfigurationException | RuntimeException e) {
+      // Without a library, the next compilation collects the standard library itself
+      Loggers.TYPE_CHECKER.debug("Failed to prepare standard library: " + e.getLocalizedMessage());
+      return null;
+    }
+  }
+
+  private static String getKey(boolean typeCheckOnly, CompilationContext compilation)
+      throws ConfigurationException {
+    Configuration config = compilation.getConfiguration();
+    if (config == null) throw new ConfigurationException("No configuration to key libraries by");
+
+    return String.join(
+        "\n",
+        config.getSystem().toString(),
+        config.getImport().toString(),
+        config.getTarget(),
+        config.getOs(),
+        Boolean.toString(typeCheckOnly),
+        Boolean.toString(compilation.usesBinaryMeta()));
+  }
+}
@@ -18,6 +18,7 @@ package shadow.typecheck;
 
 import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.tree.ParseTree;
+import shadow.CompilationContext;
 import shadow.ShadowException;
 import shadow.interpreter.*;
 import shadow.parse.Context;
@@ -34,8 +35,9 @@ public class StatementChecker extends ScopedChecker {
   /* Stack for current prefix (needed for arbitrarily long chains of expressions). */
   private final LinkedList<Context> curPrefix = new LinkedList<>();
 
-  public StatementChecker(Package packageTree, ErrorReporter reporter) {
-    super(packageTree, reporter);
+  public StatementChecker(
+      Package packageTree, ErrorReporter reporter, CompilationContext compilation) {
+    super(packageTree, reporter, compilation);
   }
 
   public void check(Context node) throws ShadowException {
@@ -442,7 +444,7 @@ public class StatementChecker extends ScopedChecker {
       Context currentNode = (Context) ctx.getChild(i + 1);
       Type current = currentNode.getType();
 
-      if (result.hasUninstantiatedInterface(Type.CAN_COMPARE)) {
+      if (result.hasUninstantiatedInterface(compilation.CAN_COMPARE)) {
         SequenceType argument = new SequenceType(currentNode);
 
         MethodSignature signature = setMethodType(ctx, result, "compare", argument);
@@ -469,7 +471,7 @@ public class StatementChecker extends ScopedChecker {
         break;
       }
 
-      result = Type.BOOLEAN; // boolean after one comparison
+      result = compilation.BOOLEAN; // boolean after one comparison
     }
 
     ctx.setType(result); // also propagates type up if only one child
@@ -491,7 +493,7 @@ public class StatementChecker extends ScopedChecker {
         result = child.getType();
         first = false;
       } else {
-        result = Type.STRING;
+        result = compilation.STRING;
         if (child.getType() instanceof SequenceType) {
           addError(
               child,
@@ -533,7 +535,7 @@ public class StatementChecker extends ScopedChecker {
           break;
         }
 
-        if (resultType.hasUninstantiatedInterface(Type.CAN_EQUAL)) {
+        if (resultType.hasUninstantiatedInterface(compilation.CAN_EQUAL)) {
           SequenceType argument = new SequenceType();
           argument.add(currentNode);
 
@@ -571,7 +573,7 @@ public class StatementChecker extends ScopedChecker {
         break;
       }
 
-      resultType = Type.BOOLEAN; // boolean after one comparison
+      resultType = compilation.BOOLEAN; // boolean after one comparison
     }
 
     ctx.setType(resultType); // Propagates type up if only one child
@@ -593,39 +595,39 @@ public class StatementChecker extends ScopedChecker {
       switch (operator) {
         case "+" -> {
           methodName = "add";
-          interfaceType = Type.CAN_ADD;
+          interfaceType = compilation.CAN_ADD;
         }
         case "-" -> {
           methodName = "subtract";
-          interfaceType = Type.CAN_SUBTRACT;
+          interfaceType = compilation.CAN_SUBTRACT;
         }
         case "*" -> {
           methodName = "multiply";
-          interfaceType = Type.CAN_MULTIPLY;
+          interfaceType = compilation.CAN_MULTIPLY;
         }
         case "/" -> {
           methodName = "divide";
-          interfaceType = Type.CAN_DIVIDE;
+          interfaceType = compilation.CAN_DIVIDE;
         }
         case "%" -> {
           methodName = "modulus";
-          interfaceType = Type.CAN_MODULUS;
+          interfaceType = compilation.CAN_MODULUS;
         }
         case "<<" -> {
           methodName = "bitShiftLeft";
-          interfaceType = Type.INTEGER;
+          interfaceType = compilation.INTEGER;
         }
         case "<<<" -> {
           methodName = "bitRotateLeft";
-          interfaceType = Type.INTEGER;
+          interfaceType = compilation.INTEGER;
         }
         case ">>" -> {
           methodName = "bitShiftRight";
-          interfaceType = Type.INTEGER;
+          interfaceType = compilation.INTEGER;
         }
         case ">>>" -> {
           methodName = "bitRotateRight";
-          interfaceType = Type.INTEGER;
+          interfaceType = compilation.INTEGER;
         }
       }
 
@@ -748,8 +750,8 @@ public class StatementChecker extends ScopedChecker {
       Type type = ctx.unaryExpression().getType();
 
       switch (operator) {
-        case "-" -> type = visitUnary(ctx, "negate", "unary -", Type.CAN_NEGATE);
-        case "~" -> type = visitUnary(ctx, "bitComplement", "operator ~", Type.INTEGER);
+        case "-" -> type = visitUnary(ctx, "negate", "unary -", compilation.CAN_NEGATE);
+        case "~" -> type = visitUnary(ctx, "bitComplement", "operator ~", compilation.INTEGER);
         case "#" -> {
           if (type instanceof SequenceType) {
             addError(ctx, Error.INVALID_TYPE, "Cannot apply operator # to sequence type " + type);
@@ -757,11 +759,11 @@ public class StatementChecker extends ScopedChecker {
           } else {
             MethodSignature signature = setMethodType(ctx, type, "toString", new SequenceType());
             ctx.addOperation(signature); // should never be null
-            type = Type.STRING;
+            type = compilation.STRING;
           }
         }
         case "!" -> {
-          if (!type.equals(Type.BOOLEAN)) {
+          if (!type.equals(compilation.BOOLEAN)) {
             addError(
                     ctx,
                     Error.INVALID_TYPE,
@@ -795,7 +797,7 @@ public class StatementChecker extends ScopedChecker {
 
       Type t1 = ctx.coalesceExpression().getType();
 
-      if (!t1.equals(Type.BOOLEAN)) {
+      if (!t1.equals(compilation.BOOLEAN)) {
         addError(
             ctx.coalesceExpression(),
             Error.INVALID_TYPE,
@@ -887,7 +889,7 @@ public class StatementChecker extends ScopedChecker {
         Context child = (Context) node.getChild(i);
         result = child.getType();
 
-        if (result != Type.BOOLEAN) {
+        if (result != compilation.BOOLEAN) {
           addError(
               child,
               Error.INVALID_TYPE,
@@ -1001,7 +1003,7 @@ public class StatementChecker extends ScopedChecker {
         default -> "";
       };
 
-      if (result.hasUninstantiatedInterface(Type.INTEGER)) {
+      if (result.hasUninstantiatedInterface(compilation.INTEGER)) {
         SequenceType argument = new SequenceType();
         argument.add(currentNode);
 
@@ -1272,7 +1274,7 @@ public class StatementChecker extends ScopedChecker {
       Type t2 = ctx.type().getType();
 
       if (t1.isSubtype(t2) || t2.isSubtype(t1) || t1 instanceof InterfaceType || t2 instanceof InterfaceType)
-        ctx.setType(Type.BOOLEAN);
+        ctx.setType(compilation.BOOLEAN);
       else {
         addError(
             ctx,
@@ -1490,7 +1492,7 @@ public class StatementChecker extends ScopedChecker {
 
     Type type = ctx.conditionalExpression().getType();
 
-    if (!type.equals(Type.BOOLEAN))
+    if (!type.equals(compilation.BOOLEAN))
       addError(
           ctx.conditionalExpression(),
           Error.INVALID_TYPE,
@@ -1506,7 +1508,7 @@ public class StatementChecker extends ScopedChecker {
 
     Type type = ctx.conditionalExpression().getType();
 
-    if (!type.equals(Type.BOOLEAN))
+    if (!type.equals(compilation.BOOLEAN))
       addError(
           ctx.conditionalExpression(),
           Error.INVALID_TYPE,
@@ -1522,7 +1524,7 @@ public class StatementChecker extends ScopedChecker {
 
     Type type = ctx.conditionalExpression().getType();
 
-    if (!type.equals(Type.BOOLEAN))
+    if (!type.equals(compilation.BOOLEAN))
       addError(
           ctx.conditionalExpression(),
           Error.INVALID_TYPE,
@@ -1559,15 +1561,15 @@ public class StatementChecker extends ScopedChecker {
     if (collectionType instanceof ArrayType array) {
       element = new SimpleModifiedType(array.getBaseType());
       if (array.isNullable()) element.getModifiers().addModifier(Modifiers.NULLABLE);
-    } else if (collectionType.hasUninstantiatedInterface(Type.CAN_ITERATE)) {
+    } else if (collectionType.hasUninstantiatedInterface(compilation.CAN_ITERATE)) {
       for (InterfaceType _interface : collectionType.getAllInterfaces())
-        if (_interface.getTypeWithoutTypeArguments().equals(Type.CAN_ITERATE)) {
+        if (_interface.getTypeWithoutTypeArguments().equals(compilation.CAN_ITERATE)) {
           element = _interface.getTypeParameters().get(0);
           break;
         }
-    } else if (collectionType.hasUninstantiatedInterface(Type.CAN_ITERATE_NULLABLE)) {
+    } else if (collectionType.hasUninstantiatedInterface(compilation.CAN_ITERATE_NULLABLE)) {
       for (InterfaceType _interface : collectionType.getAllInterfaces())
-        if (_interface.getTypeWithoutTypeArguments().equals(Type.CAN_ITERATE_NULLABLE)) {
+        if (_interface.getTypeWithoutTypeArguments().equals(compilation.CAN_ITERATE_NULLABLE)) {
           element = _interface.getTypeParameters().get(0);
           break;
         }
@@ -1578,9 +1580,9 @@ public class StatementChecker extends ScopedChecker {
           "Supplied type "
               + collectionType
               + " does not implement "
-              + Type.CAN_ITERATE
+              + compilation.CAN_ITERATE
               + " or "
-              + Type.CAN_ITERATE_NULLABLE
+              + compilation.CAN_ITERATE_NULLABLE
               + " and cannot be the target of a foreach statement",
           collectionType);
       iterable = false;
@@ -1617,7 +1619,7 @@ public class StatementChecker extends ScopedChecker {
 
     Type type = ctx.conditionalExpression().getType();
 
-    if (!type.equals(Type.BOOLEAN))
+    if (!type.equals(compilation.BOOLEAN))
       addError(
           ctx.conditionalExpression(),
           Error.INVALID_TYPE,
@@ -1957,11 +1959,11 @@ public class StatementChecker extends ScopedChecker {
       ShadowParser.ConditionalExpressionContext child = ctx.conditionalExpression();
       Type childType = child.getType();
 
-      if (!childType.isSubtype(Type.LONG)) {
+      if (!childType.isSubtype(compilation.LONG)) {
         addError(
             child,
             Error.INVALID_SUBSCRIPT,
-            "Subscript type " + childType + " is invalid, must be subtype of " + Type.LONG,
+            "Subscript type " + childType + " is invalid, must be subtype of " + compilation.LONG,
             childType);
         ctx.setType(Type.UNKNOWN);
         return null;
@@ -1986,10 +1988,10 @@ public class StatementChecker extends ScopedChecker {
 
       // nullable array means what you get out is nullable, not the array itself
       if (arrayType.isNullable()) ctx.addModifiers(Modifiers.NULLABLE);
-    } else if (prefixType.hasUninstantiatedInterface(Type.CAN_INDEX)
-        || prefixType.hasUninstantiatedInterface(Type.CAN_INDEX_NULLABLE)
-        || prefixType.hasUninstantiatedInterface(Type.CAN_INDEX_STORE)
-        || prefixType.hasUninstantiatedInterface(Type.CAN_INDEX_STORE_NULLABLE)) {
+    } else if (prefixType.hasUninstantiatedInterface(compilation.CAN_INDEX)
+        || prefixType.hasUninstantiatedInterface(compilation.CAN_INDEX_NULLABLE)
+        || prefixType.hasUninstantiatedInterface(compilation.CAN_INDEX_STORE)
+        || prefixType.hasUninstantiatedInterface(compilation.CAN_INDEX_STORE_NULLABLE)) {
 
       SequenceType arguments = new SequenceType();
       ShadowParser.ConditionalExpressionContext child = ctx.conditionalExpression();
@@ -2023,8 +2025,8 @@ public class StatementChecker extends ScopedChecker {
         else if (prefixNode.getModifiers().isReadonly()) ctx.addModifiers(Modifiers.READONLY);
         else if (prefixNode.getModifiers().isTemporaryReadonly())
           ctx.addModifiers(Modifiers.TEMPORARY_READONLY);
-        else if (prefixType.hasUninstantiatedInterface(Type.CAN_INDEX_STORE)
-            || prefixType.hasUninstantiatedInterface(Type.CAN_INDEX_STORE_NULLABLE))
+        else if (prefixType.hasUninstantiatedInterface(compilation.CAN_INDEX_STORE)
+            || prefixType.hasUninstantiatedInterface(compilation.CAN_INDEX_STORE_NULLABLE))
           ctx.addModifiers(Modifiers.ASSIGNABLE);
       }
     } else {
@@ -2035,13 +2037,13 @@ public class StatementChecker extends ScopedChecker {
           "Subscript is not permitted for type "
               + prefixType
               + " because it does not implement "
-              + Type.CAN_INDEX
+              + compilation.CAN_INDEX
               + ", "
-              + Type.CAN_INDEX_STORE
+              + compilation.CAN_INDEX_STORE
               + ", "
-              + Type.CAN_INDEX_NULLABLE
+              + compilation.CAN_INDEX_NULLABLE
               + ", or "
-              + Type.CAN_INDEX_STORE_NULLABLE,
+              + compilation.CAN_INDEX_STORE_NULLABLE,
           prefixType);
     }
 
@@ -2464,7 +2466,7 @@ public class StatementChecker extends ScopedChecker {
             "Type arguments not supplied for parameterized type " + prefixType);
     } else addError(ctx, Error.NOT_TYPE, "class specifier requires type name for access");
 
-    ctx.setType(Type.CLASS);
+    ctx.setType(compilation.CLASS);
     ctx.addModifiers(Modifiers.IMMUTABLE);
 
     return null;
@@ -2883,7 +2885,7 @@ public class StatementChecker extends ScopedChecker {
 
     Type assertType = ctx.conditionalExpression(0).getType();
 
-    if (!assertType.equals(Type.BOOLEAN)) {
+    if (!assertType.equals(compilation.BOOLEAN)) {
       addError(
           ctx.conditionalExpression(0),
           Error.INVALID_TYPE,
@@ -3245,8 +3247,8 @@ public class StatementChecker extends ScopedChecker {
   public Void visitSpawnExpression(ShadowParser.SpawnExpressionContext ctx) {
     visitChildren(ctx);
 
-    currentType.addUsedType(Type.THREAD);
-    currentType.addUsedType(Type.THREAD_CURRENT);
+    currentType.addUsedType(compilation.THREAD);
+    currentType.addUsedType(compilation.THREAD_CURRENT);
 
     ShadowParser.ConditionalExpressionContext runner;
     SequenceType sequence = new SequenceType();
@@ -3254,8 +3256,9 @@ public class StatementChecker extends ScopedChecker {
     if (ctx.conditionalExpression().size() == 2) { // Optional thread name
       ShadowParser.ConditionalExpressionContext name = ctx.conditionalExpression().get(0);
 
-      if (name.getType() != Type.STRING)
-        addError(name, Error.INVALID_TYPE, "Optional thread name must have type " + Type.STRING);
+      if (name.getType() != compilation.STRING)
+        addError(
+            name, Error.INVALID_TYPE, "Optional thread name must have type " + compilation.STRING);
       else
         sequence.add(name);
 
@@ -3265,14 +3268,14 @@ public class StatementChecker extends ScopedChecker {
       runner = ctx.conditionalExpression().get(0);
 
     Type runnerType = runner.getType();
-    if( !runnerType.isSubtype(Type.CAN_RUN) ) {
+    if( !runnerType.isSubtype(compilation.CAN_RUN) ) {
       addError(
               runner,
           Error.INVALID_SPAWN,
           "Type "
               + runnerType
               + " cannot be spawned because it is not a subtype of the "
-              + Type.CAN_RUN
+              + compilation.CAN_RUN
               + " interface",
               runnerType);
     }
@@ -3281,10 +3284,10 @@ public class StatementChecker extends ScopedChecker {
     }
     else {
       sequence.add(runner);
-      ctx.setSignature(Type.THREAD.getMatchingMethod("create", sequence));
+      ctx.setSignature(compilation.THREAD.getMatchingMethod("create", sequence));
     }
 
-    ctx.setType(Type.THREAD);
+    ctx.setType(compilation.THREAD);
 
     return null;
   }
@@ -3293,7 +3296,7 @@ public class StatementChecker extends ScopedChecker {
   public Void visitSendStatement(SendStatementContext ctx) {
     visitChildren(ctx);
 
-    if (!resolveType(ctx.conditionalExpression(1)).getType().equals(Type.THREAD)) {
+    if (!resolveType(ctx.conditionalExpression(1)).getType().equals(compilation.THREAD)) {
       addError(
           ctx,
           Error.INVALID_ARGUMENTS,
@@ -3310,9 +3313,9 @@ public class StatementChecker extends ScopedChecker {
       List<ShadowException> errors = new ArrayList<>();
 
       MethodSignature sendSignature =
-          Type.THREAD.getMatchingMethod(
+          compilation.THREAD.getMatchingMethod(
               "sendTo",
-              new SequenceType(Arrays.asList(resolveType(ctx.conditionalExpression().get(0)), new SimpleModifiedType(Type.BOOLEAN))),
+              new SequenceType(Arrays.asList(resolveType(ctx.conditionalExpression().get(0)), new SimpleModifiedType(compilation.BOOLEAN))),
               new SequenceType(),
               errors);
       if (sendSignature == null) {
@@ -3337,16 +3340,17 @@ public class StatementChecker extends ScopedChecker {
 
     if(ctx.conditionalExpression() != null) {
       Type type = ctx.conditionalExpression().getType();
-      if (!type.isSubtype(Type.THREAD) || ctx.conditionalExpression().getModifiers().isTypeName())
+      if (!type.isSubtype(compilation.THREAD)
+          || ctx.conditionalExpression().getModifiers().isTypeName())
         addError(
              ctx,
              Error.INVALID_ARGUMENTS,
              "The argument of a receive expression must be a Thread object");
       else {
         receiveSignature =
-                Type.THREAD.getMatchingMethod(
+                compilation.THREAD.getMatchingMethod(
                         "receiveFirstFrom",
-                        new SequenceType(Arrays.asList(new SimpleModifiedType(Type.CLASS), new SimpleModifiedType(Type.THREAD), new SimpleModifiedType(Type.BOOLEAN))),
+                        new SequenceType(Arrays.asList(new SimpleModifiedType(compilation.CLASS), new SimpleModifiedType(compilation.THREAD), new SimpleModifiedType(compilation.BOOLEAN))),
                         new SequenceType(),
                         errors);
         if (receiveSignature == null) {
@@ -3361,9 +3365,9 @@ public class StatementChecker extends ScopedChecker {
     }
     else {
       receiveSignature =
-              Type.THREAD.getMatchingMethod(
+              compilation.THREAD.getMatchingMethod(
                       "receiveFirst",
-                      new SequenceType(Arrays.asList(new SimpleModifiedType(Type.CLASS), new SimpleModifiedType(Type.BOOLEAN))),
+                      new SequenceType(Arrays.asList(new SimpleModifiedType(compilation.CLASS), new SimpleModifiedType(compilation.BOOLEAN))),
                       new SequenceType(),
                       errors);
       if (receiveSignature == null) { // should be impossible
@@ -3373,7 +3377,7 @@ public class StatementChecker extends ScopedChecker {
                 "The receive arguments do not match the syntax receive<type>()");
       }
       else
-        ctx.setType(new SequenceType(Arrays.asList(ctx.type(), new SimpleModifiedType(Type.THREAD))));
+        ctx.setType(new SequenceType(Arrays.asList(ctx.type(), new SimpleModifiedType(compilation.THREAD))));
     }
 
     ctx.setSignature(receiveSignature);
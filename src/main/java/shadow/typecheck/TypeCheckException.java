@@ -147,6 +147,11 @@ public class TypeCheckException extends ShadowException implements Comparable<Ty
     public TypeCheckException getException(String message, Context context) {
       return new TypeCheckException(this, message, context);
     }
+
+    @Override
+    public TypeCheckException getException(String format, Object[] operands, Context context) {
+      return new TypeCheckException(this, format, operands, context);
+    }
   }
 
   /**
@@ -171,6 +176,19 @@ public class TypeCheckException extends ShadowException implements Comparable<Ty
     super(kind, message, ctx);
   }
 
+  /**
+   * Creates a <code>TypeCheckException</code> with a specified kind of error in a particular
+   * context, whose message is only built from the format and operands when it is needed.
+   *
+   * @param kind kind of error
+   * @param format explanatory error message, with <code>%s</code> for each operand
+   * @param operands values, usually types, that the message refers to
+   * @param ctx context of error
+   */
+  public TypeCheckException(Error kind, String format, Object[] operands, Context ctx) {
+    super(kind, format, operands, ctx);
+  }
+
   /**
    * Gets kind of error.
    *
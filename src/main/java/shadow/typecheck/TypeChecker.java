@@ -17,6 +17,10 @@
 
 package shadow.typecheck;
 
+import shadow.BuildManifest;
+import shadow.CompilationContext;
+import shadow.CompilerStats;
+import shadow.CompilerStats.Phase;
 import shadow.ConfigurationException;
 import shadow.Loggers;
 import shadow.ShadowException;
@@ -32,6 +36,13 @@ import java.io.PrintWriter;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Utility class to hold static type-checking methods.
@@ -58,6 +69,7 @@ public class TypeChecker {
    * @param files files to typecheck (main file is the first)
    * @param reporter object used to report errors
    * @param typeCheckOnly whether the source files are only being type-checked
+   * @param compilation context that holds the standard types found while type-checking
    * @return nodes list of AST nodes for the classes to be compile
    * @throws ShadowException thrown if something goes wrong with type-checking
    * @throws ParseException thrown if the parser has a problem
@@ -65,34 +77,95 @@ public class TypeChecker {
    * @throws ConfigurationException thrown if there's a problem with Configuration
    */
   public static TypeCheckerOutput typeCheck(
-      List<Path> files, ErrorReporter reporter, boolean typeCheckOnly)
+      List<Path> files,
+      ErrorReporter reporter,
+      boolean typeCheckOnly,
+      CompilationContext compilation)
       throws ShadowException, IOException, ConfigurationException {
-    Type.clearTypes();
-    Package packageTree = new Package(); // Root of all packages, storing all types
+    // A daemon keeps a standard library collected ahead of time, which only this check uses
+    StandardLibraryCache cache = compilation.getStandardLibraryCache();
+    StandardLibraryCache.Library library =
+        cache == null ? null : cache.take(files, typeCheckOnly, compilation);
 
-    /* Collector looks over all files and creates types for everything needed. */
-    TypeCollector collector =
-        new TypeCollector(packageTree, reporter, typeCheckOnly);
+    Package packageTree;
+    TypeCollector collector;
+    if (library == null) {
+      compilation.clearTypes();
+      packageTree = new Package(); // Root of all packages, storing all types
+
+      /* Collector looks over all files and creates types for everything needed. */
+      collector = new TypeCollector(packageTree, reporter, typeCheckOnly, compilation);
+    } else {
+      collector = new TypeCollector(library.getCollector(), reporter, typeCheckOnly, compilation);
+      packageTree = collector.packageTree;
+    }
 
     /* Its return value maps all the types to the nodes that need compiling. */
     Map<Type, Context> nodeTable = collector.collectTypes(files);
     Map<Path, Context> fileTable = collector.getFileTable();
 
+    // Types of the standard library were already updated and checked
+    if (library != null) {
+      Map<Type, Context> newTable = new HashMap<>();
+      for (Map.Entry<Type, Context> entry : nodeTable.entrySet())
+        if (!library.isCollected(entry.getValue())) newTable.put(entry.getKey(), entry.getValue());
+      nodeTable = newTable;
+    }
+
     /* Updates types, adding:
      *  Fields and methods
      *  Type parameters (including necessary instantiations)
      *  All types with type parameters (except for declarations) are UninitializedTypes
      *  Extends and implements lists
      */
-    TypeUpdater updater = new TypeUpdater(packageTree, reporter, fileTable);
-    nodeTable = updater.update(nodeTable);
+    TypeUpdater updater = new TypeUpdater(packageTree, reporter, fileTable, compilation);
+    try (CompilerStats.Timer ignored = compilation.getStats().time(Phase.UPDATE)) {
+      nodeTable = updater.update(nodeTable);
+    }
 
     /* Select only nodes corresponding to outer types. */
+    List<Context> nodes = getOuterNodes(nodeTable.values());
+
+    /* Do type-checking of statements, i.e., actual code. */
+    // Check all statements for type safety and other features.
+    // Even .meta files need this in order to:
+    //   - Populate types on nodes within constant expressions
+    //   - Collect used types for a node
+    if (compilation.getJobs() > 1) checkConcurrently(nodes, packageTree, reporter, compilation);
+    else {
+      StatementChecker checker = new StatementChecker(packageTree, reporter, compilation);
+      for (Context node : nodes) {
+        try (CompilerStats.Timer ignored = timeCheck(node, compilation)) {
+          checker.check(node);
+        }
+      }
+    }
+
+    // Library types are compiled too, unless their files were dropped while collecting
+    if (library != null) {
+      Set<Path> sources = new HashSet<>();
+      for (Context node : fileTable.values()) sources.add(node.getSourcePath());
+      List<Context> allNodes = new ArrayList<>(nodeTable.values());
+      for (Context node : library.getNodes())
+        if (sources.contains(node.getSourcePath())) allNodes.add(node);
+      nodes = getOuterNodes(allNodes);
+    }
+
+    if (cache != null) cache.offer(typeCheckOnly, compilation);
+
+    // Note that all files in the fileTable have no extension
+    return new TypeCheckerOutput(
+        nodes, packageTree, fileTable.get(BaseChecker.stripExtension(files.get(0))));
+  }
+
+  /*
+   * Selects the nodes of outer types. All attribute types are put first so
+   * that they're typechecked before classes try to interpret them.
+   */
+  static List<Context> getOuterNodes(Collection<Context> declarations) {
     List<Context> nodes = new ArrayList<>();
-    for (Context node : nodeTable.values()) if (!node.getType().hasOuter()) nodes.add(node);
+    for (Context node : declarations) if (!node.getType().hasOuter()) nodes.add(node);
 
-    // Put all attribute types first so that they're typechecked before classes try to interpret
-    // them
     nodes.sort(
         (first, second) -> {
           boolean firstAttribute = first.getType() instanceof AttributeType;
@@ -103,19 +176,93 @@ public class TypeChecker {
           else return 1;
         });
 
-    /* Do type-checking of statements, i.e., actual code. */
-    StatementChecker checker = new StatementChecker(packageTree, reporter);
-    for (Context node : nodes) {
-      // Check all statements for type safety and other features.
-      // Even .meta files need this in order to:
-      //   - Populate types on nodes within constant expressions
-      //   - Collect used types for a node
-      checker.check(node);
+    return nodes;
+  }
+
+  private static CompilerStats.Timer timeCheck(Context node, CompilationContext compilation) {
+    return compilation.getStats().time(Phase.CHECK, node.getType().toString(Type.PACKAGES));
+  }
+
+  /*
+   * Checks statements on several threads. Attribute types are checked first on this
+   * thread, since other classes interpret them. The remaining classes are shared out
+   * to workers, each with its own checker and reporter. Checking a class only changes
+   * that class and its inner classes, apart from generic instantiation and attribute
+   * interpretation, which are locked.
+   *
+   * Errors and warnings are then reported class by class in the original order,
+   * stopping at the first class with errors, so the output is the same as checking
+   * sequentially.
+   */
+  private static void checkConcurrently(
+      List<Context> nodes,
+      Package packageTree,
+      ErrorReporter reporter,
+      CompilationContext compilation)
+      throws ShadowException, IOException {
+    StatementChecker attributeChecker = new StatementChecker(packageTree, reporter, compilation);
+    int attributes = 0;
+    while (attributes < nodes.size() && nodes.get(attributes).getType() instanceof AttributeType) {
+      try (CompilerStats.Timer ignored = timeCheck(nodes.get(attributes), compilation)) {
+        attributeChecker.check(nodes.get(attributes));
+      }
+      ++attributes;
     }
 
-    // Note that all files in the fileTable have no extension
-    return new TypeCheckerOutput(
-        nodes, packageTree, fileTable.get(BaseChecker.stripExtension(files.get(0))));
+    List<Context> classes = nodes.subList(attributes, nodes.size());
+    if (classes.isEmpty()) return;
+
+    ErrorReporter[] reports = new ErrorReporter[classes.size()];
+    RuntimeException[] failures = new RuntimeException[classes.size()];
+    AtomicInteger next = new AtomicInteger();
+    AtomicBoolean failed = new AtomicBoolean();
+
+    Callable<Void> worker =
+        () -> {
+          ErrorReporter workerReporter = new ErrorReporter(Loggers.TYPE_CHECKER);
+          StatementChecker checker =
+              new StatementChecker(packageTree, workerReporter, compilation);
+          try (CompilationContext.Scope ignored = compilation.enter()) {
+            // Classes are taken in order, so every class before a failed one gets checked
+            int index;
+            while (!failed.get() && (index = next.getAndIncrement()) < classes.size()) {
+              Context node = classes.get(index);
+              try (CompilerStats.Timer timer = timeCheck(node, compilation)) {
+                checker.visit(node);
+              } catch (RuntimeException e) {
+                failures[index] = e;
+              }
+
+              ErrorReporter report = new ErrorReporter(Loggers.TYPE_CHECKER);
+              report.addAll(workerReporter);
+              workerReporter.clearErrors();
+              reports[index] = report;
+              if (failures[index] != null || !report.getErrorList().isEmpty()) failed.set(true);
+            }
+          }
+          return null;
+        };
+
+    int jobs = Math.min(compilation.getJobs(), classes.size());
+    ExecutorService workers = Executors.newFixedThreadPool(jobs);
+    try {
+      for (Future<Void> result : workers.invokeAll(Collections.nCopies(jobs, worker)))
+        result.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while checking statements", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof java.lang.Error error) throw error;
+      throw new IOException("Failed to check statements", e.getCause());
+    } finally {
+      workers.shutdownNow();
+    }
+
+    for (int i = 0; i < classes.size(); ++i) {
+      if (failures[i] != null) throw failures[i];
+      reporter.addAll(reports[i]);
+      reporter.printAndReportErrors();
+    }
   }
 
   /*
@@ -128,12 +275,9 @@ public class TypeChecker {
     try {
       Path shadowVersion = BaseChecker.addExtension(file, ".shadow");
       Path metaVersion = BaseChecker.addExtension(file, ".meta");
+      String fingerprint = BuildManifest.metaFingerprint(shadowVersion);
       /* Add meta file if an updated one doesn't already exist. */
-      if (!Files.exists(metaVersion)
-          || (Files.exists(shadowVersion)
-              && Files.getLastModifiedTime(shadowVersion)
-                      .compareTo(Files.getLastModifiedTime(metaVersion))
-                  > 0)) {
+      if (!BuildManifest.isCurrent(metaVersion, fingerprint)) {
         // Because of compiler optimizations, we need a .meta file for all compiled code
         // So we simply copy the normal .shadow file into a .meta for attributes
         BufferedOutputStream outputStream =
@@ -146,8 +290,9 @@ public class TypeChecker {
           out.close();
         }
         outputStream.close();
+        BuildManifest.update(metaVersion, fingerprint);
       }
-    } catch (IOException e) {
+    } catch (IOException | ConfigurationException e) {
       Loggers.SHADOW.error("Failed to create meta file for " + node.getType());
     }
   }
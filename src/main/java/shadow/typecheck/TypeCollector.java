@@ -18,6 +18,8 @@
 package shadow.typecheck;
 
 import shadow.*;
+import shadow.CompilerStats.Counter;
+import shadow.CompilerStats.Phase;
 import shadow.doctool.Documentation;
 import shadow.parse.Context;
 import shadow.parse.ParseChecker;
@@ -28,11 +30,14 @@ import shadow.typecheck.TypeCheckException.Error;
 import shadow.typecheck.type.*;
 
 import java.io.IOException;
-import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -50,6 +55,9 @@ public class TypeCollector extends ScopedChecker {
   private final Map<Type, Context> typeTable;
   // Map of file paths (without extensions) to nodes.
   private final Map<Path, Context> fileTable = new HashMap<>();
+  // Files that collection starts from and the files that each collected file imports.
+  private final Set<Path> rootFiles = new HashSet<>();
+  private final Map<Path, Set<Path>> fileImports = new HashMap<>();
   private final boolean typeCheckOnly;
 
   // Holds all of the imports we know about.
@@ -69,6 +77,7 @@ public class TypeCollector extends ScopedChecker {
   private final Map<String, PathWithContext> standardImportedTypes;
   private final Path standardSourcePath;
   private Path currentFile;
+  private Path mainFile;
   private Type mainType = null;
   private String currentName = "";
 
@@ -136,28 +145,53 @@ public class TypeCollector extends ScopedChecker {
    * Creates a new <code>TypeCollector</code> with the given tree of packages.
    *
    * @param p package tree
+   * @param compilation context that receives the standard types as they are collected
    */
   public TypeCollector(
-      Package p, ErrorReporter reporter, boolean typeCheckOnly)
+      Package p, ErrorReporter reporter, boolean typeCheckOnly, CompilationContext compilation)
       throws ConfigurationException, IOException {
-    super(p, reporter);
+    super(p, reporter, compilation);
     this.typeCheckOnly = typeCheckOnly;
     typeTable = new HashMap<>();
 
-    List<Path> systemPaths = Configuration.getConfiguration().getSystem();
+    List<Path> systemPaths = compilation.getConfiguration().getSystem();
     standardSourcePath =
         systemPaths.get(Configuration.SOURCE).resolve("shadow").resolve("standard");
     standardImportedTypes = getStandardImports(standardSourcePath);
   }
 
+  /*
+   * Creates a collector that goes on from the types of an earlier collection,
+   * which it takes over along with their package tree. Used to collect more
+   * files into a standard library that was collected ahead of time.
+   */
+  TypeCollector(
+      TypeCollector collected,
+      ErrorReporter reporter,
+      boolean typeCheckOnly,
+      CompilationContext compilation) {
+    this(
+        collected.packageTree,
+        collected.typeTable,
+        collected.standardSourcePath,
+        collected.standardImportedTypes,
+        reporter,
+        typeCheckOnly,
+        compilation);
+    fileTable.putAll(collected.fileTable);
+    rootFiles.addAll(collected.rootFiles);
+    fileImports.putAll(collected.fileImports);
+  }
+
   private TypeCollector(
       Package p,
       Map<Type, Context> typeTable,
       Path standardSourcePath,
       Map<String, PathWithContext> standardImportedTypes,
       ErrorReporter reporter,
-      boolean typeCheckOnly) {
-    super(p, reporter);
+      boolean typeCheckOnly,
+      CompilationContext compilation) {
+    super(p, reporter, compilation);
     this.typeTable = typeTable;
     this.typeCheckOnly = typeCheckOnly;
 
@@ -217,23 +251,51 @@ public class TypeCollector extends ScopedChecker {
     return collectTypes(files, new HashMap<>());
   }
 
+  /**
+   * Collects the standard library that every program uses, without a main file. Only files with
+   * up-to-date .meta files are collected from them.
+   *
+   * @return map from types to nodes
+   * @throws ShadowException thrown if there's a problem collecting types
+   * @throws IOException thrown if files are inaccessible
+   * @throws ConfigurationException thrown if there's a problem with Configuration
+   */
+  public Map<Type, Context> collectStandardTypes()
+      throws ShadowException, IOException, ConfigurationException {
+    mainFile = null;
+    compilation.getImportIndex().clear();
+
+    TreeSet<Path> uncheckedFiles = new TreeSet<>();
+    addStandardFiles(uncheckedFiles, new TreeSet<>());
+    rootFiles.addAll(uncheckedFiles);
+    collectFiles(uncheckedFiles, null, new HashMap<>(), new HashSet<>(), null, null);
+    checkDefaultPackage();
+    printAndReportErrors();
+
+    return typeTable;
+  }
+
   /*
-   * Calls the full <code>collectTypes</code> and might call it a second time
-   * if needed to determine what should be recompiled.
+   * Calls the full <code>collectTypes</code> and might collect some files
+   * a second time if needed to determine what should be recompiled.
    */
-  private Map<Type, Context> collectTypes(List<Path> files, Map<Path, String> activeFiles)
+  Map<Type, Context> collectTypes(List<Path> files, Map<Path, String> activeFiles)
       throws ShadowException, IOException, ConfigurationException {
+    mainFile = files.get(0);
     Set<Path> mustCompile = new HashSet<>();
     Map<Path, TreeSet<Path>> dependencies = new HashMap<>();
 
+    // Directories are listed again for each collection, since earlier builds write .meta files
+    compilation.getImportIndex().clear();
+
     // Initial type collection
     collectTypes(files, activeFiles, mustCompile, dependencies);
 
     /* Classes needing recompilation may trigger other files to get
      * recompiled. Changes in the number or organization of methods
      * or class information could invalidate compiled code.  Here, we
-     * figure out which files need (re)compilation and redo the whole type
-     * collection process.
+     * figure out which files need (re)compilation and collect those
+     * files again from source.
      */
     if (getErrorReporter().getErrorList().isEmpty()
         && !mustCompile.isEmpty()) {
@@ -251,10 +313,9 @@ public class TypeCollector extends ScopedChecker {
             }
 
       mustCompile = updatedMustRecompile;
-      clear(); // Clears out all internal representations and types.
 
-      // Collect types again with updated recompilation requirements.
-      collectTypes(files, activeFiles, mustCompile, null);
+      // Collect types again for files that must now be compiled from source.
+      recollectTypes(files.get(0), activeFiles, mustCompile);
     }
 
     // Check packages for errors.
@@ -281,22 +342,29 @@ public class TypeCollector extends ScopedChecker {
 
     if (files.isEmpty()) throw new ConfigurationException("No files provided for typechecking");
 
-    Path mainFile = files.get(0);
-    Path mainSource = null;
-    for (Path file : files) {
-      Path path = stripExtension(file);
-      uncheckedFiles.add(path);
+    for (Path file : files) uncheckedFiles.add(stripExtension(file));
 
-      // Assume the main file is the first file.
-      if (mainSource == null) mainSource = path;
-    }
+    TreeSet<Path> standardDependencies = new TreeSet<>();
+    addStandardFiles(uncheckedFiles, standardDependencies);
+
+    rootFiles.addAll(uncheckedFiles);
+    // Files kept from a standard library collected earlier are not collected again
+    uncheckedFiles.removeAll(fileTable.keySet());
+    collectFiles(
+        uncheckedFiles, files.get(0), activeFiles, mustCompile, dependencies, standardDependencies);
+    checkDefaultPackage();
+  }
 
+  /*
+   * Adds the standard files that every program needs to the files to check,
+   * also recording them as dependencies of every file.
+   */
+  private void addStandardFiles(TreeSet<Path> uncheckedFiles, TreeSet<Path> standardDependencies)
+      throws ConfigurationException {
     // Check standard imports.
     if (!Files.exists(standardSourcePath))
       throw new ConfigurationException("Invalid path to shadow:standard: " + standardSourcePath);
 
-    TreeSet<Path> standardDependencies = new TreeSet<>();
-
     // Adds all files in the standard directory (including sub-directories)
     for (Map.Entry<String, PathWithContext> entry : standardImportedTypes.entrySet()) {
       Path file = entry.getValue().source;
@@ -313,95 +381,225 @@ public class TypeCollector extends ScopedChecker {
     uncheckedFiles.add(ioSource.resolve("File"));
     uncheckedFiles.add(ioSource.resolve("IOException"));
     uncheckedFiles.add(ioSource.resolve("Path"));
+  }
 
-    Map<Path, Path> imports = Configuration.getConfiguration().getImport();
+  /*
+   * Collects files again when they were collected from .meta files but
+   * now need to be compiled from source. All other files keep their parse
+   * trees and types. Files imported only by the new sources are collected
+   * for the first time, and files imported only by the old .meta files are
+   * dropped.
+   */
+  private void recollectTypes(Path mainFile, Map<Path, String> activeFiles, Set<Path> mustCompile)
+      throws ShadowException, IOException, ConfigurationException {
+    TreeSet<Path> uncheckedFiles = new TreeSet<>();
+    for (Path canonical : mustCompile) {
+      Context node = fileTable.get(canonical);
+      if (node != null
+          && node.isFromMetaFile()
+          && compilation.getImportIndex().exists(addExtension(canonical, ".shadow"))) {
+        removeTypes(node.getSourcePath());
+        fileTable.remove(canonical);
+        uncheckedFiles.add(canonical);
+      }
+    }
 
-    // As long as there are unchecked files, remove one and process it.
-    while (!uncheckedFiles.isEmpty()) {
-      Path canonical = uncheckedFiles.first();
-      uncheckedFiles.remove(canonical);
+    if (!uncheckedFiles.isEmpty()) {
+      collectFiles(uncheckedFiles, mainFile, activeFiles, mustCompile, null, null);
 
-      Path canonicalFile = BaseChecker.addExtension(canonical, ".shadow");
-      String source = activeFiles.get(canonicalFile);
-      Path binaryPath = BaseChecker.addExtension(Main.getBinaryPath(canonical, imports), ".o");
+      // A .meta file uses everything it imports, but its source might not.
+      Set<Path> reachable = new HashSet<>();
+      Deque<Path> pending = new ArrayDeque<>(rootFiles);
+      while (!pending.isEmpty()) {
+        Path file = pending.pop();
+        if (reachable.add(file)) pending.addAll(fileImports.getOrDefault(file, Set.of()));
+      }
 
-      // Depending on the circumstances, the compiler may choose to either
-      // compile/recompile source files, or rely on existing binaries.
-      if (Files.exists(canonicalFile)) {
-        Path meta = BaseChecker.addExtension(canonical, ".meta");
+      Iterator<Entry<Path, Context>> files = fileTable.entrySet().iterator();
+      while (files.hasNext()) {
+        Entry<Path, Context> entry = files.next();
+        if (!reachable.contains(entry.getKey())) {
+          removeTypes(entry.getValue().getSourcePath());
+          fileImports.remove(entry.getKey());
+          files.remove();
+        }
+      }
 
-        // If source compilation was not requested and the binaries exist
-        // that are newer than the source, use those binaries.
-        if (!mustCompile.contains(canonical)
-            && source == null
-            &&
-            // Always do the full .shadow file for the main file if typechecking
-            (!typeCheckOnly || !mainFile.equals(canonicalFile))
-            &&
-            // Only use .meta if it's newer than .shadow
-            Files.exists(meta)
-            && Files.getLastModifiedTime(meta).compareTo(Files.getLastModifiedTime(canonicalFile))
-                >= 0
-            &&
-            // Also, only use .meta if we're not going to need to recompile it into an object file
-            (typeCheckOnly
-                || (Files.exists(binaryPath)
-                    && Files.getLastModifiedTime(binaryPath)
-                            .compareTo(Files.getLastModifiedTime(meta))
-                        >= 0))) {
-          canonicalFile = meta;
-        } else mustCompile.add(canonical);
-      } else canonicalFile = BaseChecker.addExtension(canonical, ".meta");
+      checkDefaultPackage();
+    }
+  }
+
+  /**
+   * Collects files again after their source has changed, keeping the types of all other files.
+   * Files that the new versions import for the first time are collected as well. Used by {@link
+   * IncrementalChecker} to bring an earlier collection up to date.
+   *
+   * @param files files (without extensions) to collect again
+   * @param activeFiles unsaved source of files being edited, keyed by <code>.shadow</code> path
+   * @return map from the types declared in the newly collected files to their nodes
+   * @throws ShadowException thrown if there's a problem collecting types
+   * @throws IOException thrown if files are inaccessible
+   * @throws ConfigurationException thrown if there's a problem with Configuration
+   */
+  public Map<Type, Context> recollectFiles(Set<Path> files, Map<Path, String> activeFiles)
+      throws ShadowException, IOException, ConfigurationException {
+    TreeSet<Path> uncheckedFiles = new TreeSet<>();
+    for (Path canonical : files) {
+      Context node = fileTable.remove(canonical);
+      if (node != null) removeTypes(node.getSourcePath());
+      fileImports.remove(canonical);
+      uncheckedFiles.add(canonical);
+    }
 
-      currentFile = canonicalFile;
+    Set<Path> collected = new HashSet<>(fileTable.keySet());
+    collectFiles(uncheckedFiles, mainFile, activeFiles, new HashSet<>(), null, null);
+    checkDefaultPackage();
+    printAndReportErrors();
 
-      // Use the semantic checker to parse the file
-      ParseChecker checker = new ParseChecker(new ErrorReporter(Loggers.PARSER));
-      CompilationUnitContext node;
-      // If there's an updated source, use that
-      // Otherwise, read from the file
-      if (source != null) node = checker.getCompilationUnit(source, currentFile);
-      else node = checker.getCompilationUnit(currentFile);
-      checker.printAndReportErrors();
-
-      node.setBinaryPath(binaryPath);
-
-      // Make another collector to walk the current file.
-      TypeCollector collector =
-          new TypeCollector(
-              packageTree, // Use our existing package
-              typeTable,
-              standardSourcePath,
-              standardImportedTypes,
-              getErrorReporter(),
-              typeCheckOnly);
-
-      // Keeping a current file gives us a file whose directory we can check against.
-      collector.setCurrentFile(currentFile, node);
-      collector.visit(node);
-
-      fileTable.put(canonical, node);
-
-      if (canonical.equals(mainSource)) mainType = node.getType();
-
-      /* Track the dependencies for this file (if dependencies are being used).
-       * If any of its dependencies need to be recompiled, this file will need
-       * to be recompiled.
-       */
-      TreeSet<Path> dependencySet = null;
-
-      if (dependencies != null) {
-        dependencySet = new TreeSet<>(standardDependencies);
-        dependencies.put(canonical, dependencySet);
+    Set<Path> sources = new HashSet<>();
+    for (Entry<Path, Context> entry : fileTable.entrySet())
+      if (!collected.contains(entry.getKey())) sources.add(entry.getValue().getSourcePath());
+
+    Map<Type, Context> types = new HashMap<>();
+    for (Entry<Type, Context> entry : typeTable.entrySet())
+      if (sources.contains(entry.getValue().getSourcePath()))
+        types.put(entry.getKey(), entry.getValue());
+
+    return types;
+  }
+
+  /**
+   * Gets the files that import the given file, directly or through other files.
+   *
+   * @param file file without an extension
+   * @return files (without extensions) that depend on the given one, not including itself
+   */
+  public Set<Path> getDependents(Path file) {
+    Map<Path, Set<Path>> importers = new HashMap<>();
+    for (Entry<Path, Set<Path>> entry : fileImports.entrySet())
+      for (Path _import : entry.getValue())
+        importers.computeIfAbsent(_import, key -> new HashSet<>()).add(entry.getKey());
+
+    Set<Path> dependents = new HashSet<>();
+    Deque<Path> pending = new ArrayDeque<>(importers.getOrDefault(file, Set.of()));
+    while (!pending.isEmpty()) {
+      Path dependent = pending.pop();
+      if (!dependent.equals(file) && dependents.add(dependent))
+        pending.addAll(importers.getOrDefault(dependent, Set.of()));
+    }
+
+    return dependents;
+  }
+
+  /**
+   * Checks whether a file is one of the standard types that every file can use without
+   * importing it. Such uses are not always recorded as imports.
+   *
+   * @param file file without an extension
+   * @return <code>true</code> if the file is a standard import
+   */
+  public boolean isStandardImport(Path file) {
+    for (PathWithContext standard : standardImportedTypes.values())
+      if (standard.source.equals(file)) return true;
+
+    return false;
+  }
+
+  /*
+   * Removes all types declared in the given file from the type table
+   * and the package tree.
+   */
+  private void removeTypes(Path file) {
+    Iterator<Entry<Type, Context>> entries = typeTable.entrySet().iterator();
+    while (entries.hasNext()) {
+      Entry<Type, Context> entry = entries.next();
+      if (file.equals(entry.getValue().getSourcePath())) {
+        Type type = entry.getKey();
+        if (type.getPackage() != null) type.getPackage().removeType(type);
+        entries.remove();
       }
+    }
+  }
+
+  /*
+   * Parses and collects each unchecked file, adding files that they import
+   * until there are none left. If dependencies is not null, the imports of
+   * each file (and the standard library) are recorded as its dependencies.
+   */
+  private void collectFiles(
+      TreeSet<Path> uncheckedFiles,
+      Path mainFile,
+      Map<Path, String> activeFiles,
+      Set<Path> mustCompile,
+      Map<Path, TreeSet<Path>> dependencies,
+      Set<Path> standardDependencies)
+      throws ShadowException, IOException, ConfigurationException {
+    Path mainSource = mainFile == null ? null : stripExtension(mainFile);
+    Map<Path, Path> imports = Configuration.getConfiguration().getImport();
+
+    try (FileParser parser = new FileParser(mainFile, activeFiles, mustCompile, imports)) {
+      for (Path file : uncheckedFiles) parser.start(file);
+
+      // As long as there are unchecked files, remove one and process it.
+      while (!uncheckedFiles.isEmpty()) {
+        Path canonical = uncheckedFiles.pollFirst();
+        ParsedFile parsed = parser.take(canonical);
+        if (parsed.mustCompile) mustCompile.add(canonical);
+
+        currentFile = parsed.file;
+        parsed.checker.printAndReportErrors();
+
+        CompilationUnitContext node = parsed.node;
+        node.setBinaryPath(parsed.binaryPath);
+
+        // Make another collector to walk the current file.
+        TypeCollector collector =
+            new TypeCollector(
+                packageTree, // Use our existing package
+                typeTable,
+                standardSourcePath,
+                standardImportedTypes,
+                getErrorReporter(),
+                typeCheckOnly,
+                compilation);
+
+        // Keeping a current file gives us a file whose directory we can check against.
+        try (CompilerStats.Timer ignored = compilation.getStats().time(Phase.COLLECT)) {
+          collector.setCurrentFile(currentFile, node);
+          collector.visit(node);
+        }
+
+        fileTable.put(canonical, node);
+        fileImports.put(canonical, collector.usedTypes);
+
+        if (canonical.equals(mainSource)) mainType = node.getType();
+
+        /* Track the dependencies for this file (if dependencies are being used).
+         * If any of its dependencies need to be recompiled, this file will need
+         * to be recompiled.
+         */
+        TreeSet<Path> dependencySet = null;
+
+        if (dependencies != null) {
+          dependencySet = new TreeSet<>(standardDependencies);
+          dependencies.put(canonical, dependencySet);
+        }
 
-      for (Path _import : collector.usedTypes) {
-        if (!fileTable.containsKey(_import)) uncheckedFiles.add(_import);
+        for (Path _import : collector.usedTypes) {
+          if (!fileTable.containsKey(_import) && uncheckedFiles.add(_import))
+            parser.start(_import);
 
-        if (dependencySet != null) dependencySet.add(_import);
+          if (dependencySet != null) dependencySet.add(_import);
+        }
       }
     }
+  }
 
+  /*
+   * Checks that types in the default package are not mixed with a main
+   * type that has a package.
+   */
+  private void checkDefaultPackage() {
     Collection<Type> packageLessTypes = packageTree.getTypes();
     if (mainType != null && !packageLessTypes.isEmpty() && !packageLessTypes.contains(mainType)) {
       // Imported class has default package but the main type doesn't.
@@ -421,6 +619,156 @@ public class TypeCollector extends ScopedChecker {
     }
   }
 
+  /* A file chosen for collection, with its parse tree. */
+  private static class ParsedFile {
+    private final Path file; // the .shadow or .meta file that was parsed
+    private final Path binaryPath;
+    private final boolean mustCompile;
+    private final ParseChecker checker;
+    private final CompilationUnitContext node;
+
+    public ParsedFile(
+        Path file,
+        Path binaryPath,
+        boolean mustCompile,
+        ParseChecker checker,
+        CompilationUnitContext node) {
+      this.file = file;
+      this.binaryPath = binaryPath;
+      this.mustCompile = mustCompile;
+      this.checker = checker;
+      this.node = node;
+    }
+  }
+
+  /*
+   * Parses the files to collect. Parsing a file does not depend on any other
+   * file, so with several jobs, files are parsed on worker threads as soon as
+   * they are discovered. Collection itself stays on one thread and visits
+   * files in the same order as before, so types, errors, and the package tree
+   * do not depend on timing.
+   */
+  private class FileParser implements AutoCloseable {
+    private final Path mainFile;
+    private final Map<Path, String> activeFiles;
+    private final Set<Path> mustCompile;
+    private final Map<Path, Path> imports;
+    private final ExecutorService workers;
+    private final Map<Path, Future<ParsedFile>> parses = new HashMap<>();
+
+    public FileParser(
+        Path mainFile,
+        Map<Path, String> activeFiles,
+        Set<Path> mustCompile,
+        Map<Path, Path> imports) {
+      this.mainFile = mainFile;
+      this.activeFiles = activeFiles;
+      this.mustCompile = mustCompile;
+      this.imports = imports;
+      int jobs = compilation.getJobs();
+      workers = jobs > 1 ? Executors.newFixedThreadPool(jobs) : null;
+    }
+
+    /* Starts parsing a file in the background if there are workers. */
+    public void start(Path canonical) {
+      if (workers != null && !parses.containsKey(canonical)) {
+        // Collection state is read here, since it changes while workers run
+        String source = activeFiles.get(addExtension(canonical, ".shadow"));
+        boolean compile = mustCompile.contains(canonical);
+        parses.put(
+            canonical,
+            workers.submit(
+                () -> {
+                  try (CompilationContext.Scope ignored = compilation.enter()) {
+                    return parse(canonical, source, compile);
+                  }
+                }));
+      }
+    }
+
+    /* Gets the parsed file, waiting for it or parsing it on this thread. */
+    public ParsedFile take(Path canonical) throws IOException, ConfigurationException {
+      Future<ParsedFile> parse = parses.remove(canonical);
+      if (parse == null)
+        return parse(
+            canonical,
+            activeFiles.get(addExtension(canonical, ".shadow")),
+            mustCompile.contains(canonical));
+
+      try {
+        return parse.get();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IOException("Interrupted while parsing " + canonical, e);
+      } catch (ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException exception) throw exception;
+        if (cause instanceof ConfigurationException exception) throw exception;
+        if (cause instanceof RuntimeException exception) throw exception;
+        if (cause instanceof java.lang.Error error) throw error;
+        throw new IOException("Failed to parse " + canonical, cause);
+      }
+    }
+
+    private ParsedFile parse(Path canonical, String source, boolean mustCompile)
+        throws IOException, ConfigurationException {
+      Path canonicalFile = BaseChecker.addExtension(canonical, ".shadow");
+      Path binaryPath = BaseChecker.addExtension(Main.getBinaryPath(canonical, imports), ".o");
+
+      // Depending on the circumstances, the compiler may choose to either
+      // compile/recompile source files, or rely on existing binaries.
+      if (compilation.getImportIndex().exists(canonicalFile)) {
+        Path meta = BaseChecker.addExtension(canonical, ".meta");
+
+        // If source compilation was not requested and the binaries exist
+        // that are newer than the source, use those binaries.
+        if (!mustCompile
+            && source == null
+            &&
+            // Always do the full .shadow file for the main file if typechecking
+            (!typeCheckOnly || !canonicalFile.equals(mainFile))
+            && isMetaCurrent(canonicalFile, binaryPath, typeCheckOnly)) {
+          canonicalFile = meta;
+        } else mustCompile = true;
+      } else canonicalFile = BaseChecker.addExtension(canonical, ".meta");
+
+      // Use the semantic checker to parse the file
+      ParseChecker checker = new ParseChecker(new ErrorReporter(Loggers.PARSER));
+      CompilationUnitContext node;
+      boolean isMeta = canonicalFile.toString().endsWith(".meta");
+      CompilerStats stats = compilation.getStats();
+      stats.count(isMeta ? Counter.META_FILES : Counter.SHADOW_FILES);
+      try (CompilerStats.Timer ignored = stats.time(Phase.PARSE)) {
+        // If there's an updated source, use that
+        // Otherwise, read from the file
+        if (source != null) node = checker.getCompilationUnit(source, canonicalFile);
+        else if (compilation.usesBinaryMeta() && isMeta)
+          node = checker.getMetaCompilationUnit(canonicalFile);
+        else node = checker.getCompilationUnit(canonicalFile);
+      }
+
+      return new ParsedFile(canonicalFile, binaryPath, mustCompile, checker, node);
+    }
+
+    @Override
+    public void close() {
+      if (workers != null) workers.shutdownNow();
+    }
+  }
+
+  /*
+   * Checks whether a source file can be collected from its .meta file instead:
+   * the .meta file was generated from the current source and, unless only
+   * type-checking, its object file won't need to be compiled again.
+   */
+  static boolean isMetaCurrent(Path shadowFile, Path binaryPath, boolean typeCheckOnly)
+      throws IOException, ConfigurationException {
+    Path meta = BaseChecker.changeExtension(shadowFile, ".meta");
+    return BuildManifest.isCurrent(meta, BuildManifest.metaFingerprint(shadowFile))
+        && (typeCheckOnly
+            || BuildManifest.isCurrent(binaryPath, BuildManifest.objectFingerprint(shadowFile)));
+  }
+
   private void setCurrentFile(Path currentFile, CompilationUnitContext node)
       throws ConfigurationException {
     this.currentFile = currentFile;
@@ -466,26 +814,19 @@ public class TypeCollector extends ScopedChecker {
    * Add all the files in a directory as imports.
    */
   private boolean addImports(Path directory, NameContext context) {
-    try (Stream<Path> stream = Files.list(directory)) {
-      return stream
-          .filter(
-              file -> {
-                String fileName = file.getFileName().toString();
-                Path noExtension = stripExtension(file);
-                if (fileName.endsWith(".shadow")) {
-                  return true;
-                }
-                if (fileName.endsWith(".meta")) {
-                  String typeName = noExtension.getFileName().toString();
-                  return !Files.exists(file.resolveSibling(typeName + ".shadow"));
-                }
-                return false;
-              })
-          // Yucky stream way to make sure that calling addImport() on all files succeeds
-          .allMatch(file -> addImport(file, context, true));
-    } catch (IOException e) {
-      return false;
+    ImportIndex.Directory contents = compilation.getImportIndex().getDirectory(directory);
+    if (contents == null) return false;
+
+    for (String fileName : contents.getNames()) {
+      boolean isImport = fileName.endsWith(".shadow");
+      if (fileName.endsWith(".meta"))
+        isImport = !contents.contains(stripExtension(fileName) + ".shadow");
+
+      // Stops at the first collision
+      if (isImport && !addImport(directory.resolve(fileName), context, true)) return false;
     }
+
+    return true;
   }
 
   /*
@@ -731,25 +1072,25 @@ public class TypeCollector extends ScopedChecker {
   private void captureInterfaceType(InterfaceType interfaceType, String typeName) {
     if (currentPackage.getQualifiedName().equals("shadow:standard")) {
       switch (typeName) {
-        case "CanAdd" -> Type.CAN_ADD = interfaceType;
-        case "CanCompare" -> Type.CAN_COMPARE = interfaceType;
-        case "CanDivide" -> Type.CAN_DIVIDE = interfaceType;
-        case "CanEqual" -> Type.CAN_EQUAL = interfaceType;
-        case "CanModulus" -> Type.CAN_MODULUS = interfaceType;
-        case "CanMultiply" -> Type.CAN_MULTIPLY = interfaceType;
-        case "CanNegate" -> Type.CAN_NEGATE = interfaceType;
-        case "CanSubtract" -> Type.CAN_SUBTRACT = interfaceType;
-        case "CanIndex" -> Type.CAN_INDEX = interfaceType;
-        case "CanIndexNullable" -> Type.CAN_INDEX_NULLABLE = interfaceType;
-        case "CanIndexStore" -> Type.CAN_INDEX_STORE = interfaceType;
-        case "CanIndexStoreNullable" -> Type.CAN_INDEX_STORE_NULLABLE = interfaceType;
-        case "CanIterate" -> Type.CAN_ITERATE = interfaceType;
-        case "CanIterateNullable" -> Type.CAN_ITERATE_NULLABLE = interfaceType;
-        case "CanRun" -> Type.CAN_RUN = interfaceType;
-        case "Integer" -> Type.INTEGER = interfaceType;
-        case "Iterator" -> Type.ITERATOR = interfaceType;
-        case "IteratorNullable" -> Type.ITERATOR_NULLABLE = interfaceType;
-        case "Number" -> Type.NUMBER = interfaceType;
+        case "CanAdd" -> compilation.CAN_ADD = interfaceType;
+        case "CanCompare" -> compilation.CAN_COMPARE = interfaceType;
+        case "CanDivide" -> compilation.CAN_DIVIDE = interfaceType;
+        case "CanEqual" -> compilation.CAN_EQUAL = interfaceType;
+        case "CanModulus" -> compilation.CAN_MODULUS = interfaceType;
+        case "CanMultiply" -> compilation.CAN_MULTIPLY = interfaceType;
+        case "CanNegate" -> compilation.CAN_NEGATE = interfaceType;
+        case "CanSubtract" -> compilation.CAN_SUBTRACT = interfaceType;
+        case "CanIndex" -> compilation.CAN_INDEX = interfaceType;
+        case "CanIndexNullable" -> compilation.CAN_INDEX_NULLABLE = interfaceType;
+        case "CanIndexStore" -> compilation.CAN_INDEX_STORE = interfaceType;
+        case "CanIndexStoreNullable" -> compilation.CAN_INDEX_STORE_NULLABLE = interfaceType;
+        case "CanIterate" -> compilation.CAN_ITERATE = interfaceType;
+        case "CanIterateNullable" -> compilation.CAN_ITERATE_NULLABLE = interfaceType;
+        case "CanRun" -> compilation.CAN_RUN = interfaceType;
+        case "Integer" -> compilation.INTEGER = interfaceType;
+        case "Iterator" -> compilation.ITERATOR = interfaceType;
+        case "IteratorNullable" -> compilation.ITERATOR_NULLABLE = interfaceType;
+        case "Number" -> compilation.NUMBER = interfaceType;
       }
     }
   }
@@ -757,12 +1098,13 @@ public class TypeCollector extends ScopedChecker {
   private void captureExceptionType(ExceptionType exceptionType, String typeName) {
     if (currentPackage.getQualifiedName().equals("shadow:standard")) {
       switch (typeName) {
-        case "AssertException" -> Type.ASSERT_EXCEPTION = exceptionType;
-        case "CastException" -> Type.CAST_EXCEPTION = exceptionType;
-        case "Exception" -> Type.EXCEPTION = exceptionType;
-        case "IndexOutOfBoundsException" -> Type.INDEX_OUT_OF_BOUNDS_EXCEPTION = exceptionType;
-        case "InterfaceCreateException" -> Type.INTERFACE_CREATE_EXCEPTION = exceptionType;
-        case "UnexpectedNullException" -> Type.UNEXPECTED_NULL_EXCEPTION = exceptionType;
+        case "AssertException" -> compilation.ASSERT_EXCEPTION = exceptionType;
+        case "CastException" -> compilation.CAST_EXCEPTION = exceptionType;
+        case "Exception" -> compilation.EXCEPTION = exceptionType;
+        case "IndexOutOfBoundsException" ->
+            compilation.INDEX_OUT_OF_BOUNDS_EXCEPTION = exceptionType;
+        case "InterfaceCreateException" -> compilation.INTERFACE_CREATE_EXCEPTION = exceptionType;
+        case "UnexpectedNullException" -> compilation.UNEXPECTED_NULL_EXCEPTION = exceptionType;
       }
     }
   }
@@ -771,7 +1113,7 @@ public class TypeCollector extends ScopedChecker {
   private void captureSingletonType(SingletonType singletonType, String typeName) {
     if (currentPackage.getQualifiedName().equals("shadow:standard")) {
       if ("Thread:Current".equals(typeName)) {
-        Type.THREAD_CURRENT = singletonType;
+        compilation.THREAD_CURRENT = singletonType;
       }
     }
   }
@@ -780,35 +1122,35 @@ public class TypeCollector extends ScopedChecker {
   private void captureClassType(ClassType classType, String typeName) {
     if (currentPackage.getQualifiedName().equals("shadow:standard")) {
       switch (typeName) {
-        case "AddressMap" -> Type.ADDRESS_MAP = classType;
-        case "Array" -> Type.ARRAY = classType;
-        case "ArrayNullable" -> Type.ARRAY_NULLABLE = classType;
-        case "Attribute" -> Type.ATTRIBUTE = classType;
-        case "Class" -> Type.CLASS = classType;
-        case "boolean" -> Type.BOOLEAN = classType;
-        case "byte" -> Type.BYTE = classType;
-        case "code" -> Type.CODE = classType;
-        case "double" -> Type.DOUBLE = classType;
-        case "Enum" -> Type.ENUM = classType;
+        case "AddressMap" -> compilation.ADDRESS_MAP = classType;
+        case "Array" -> compilation.ARRAY = classType;
+        case "ArrayNullable" -> compilation.ARRAY_NULLABLE = classType;
+        case "Attribute" -> compilation.ATTRIBUTE = classType;
+        case "Class" -> compilation.CLASS = classType;
+        case "boolean" -> compilation.BOOLEAN = classType;
+        case "byte" -> compilation.BYTE = classType;
+        case "code" -> compilation.CODE = classType;
+        case "double" -> compilation.DOUBLE = classType;
+        case "Enum" -> compilation.ENUM = classType;
         // the base class for enum is not an enum
-        case "float" -> Type.FLOAT = classType;
-        case "GenericClass" -> Type.GENERIC_CLASS = classType;
-        case "int" -> Type.INT = classType;
-        case "long" -> Type.LONG = classType;
-        case "Method" -> Type.METHOD = classType;
-        case "MethodTable" -> Type.METHOD_TABLE = classType;
-        case "Object" -> Type.OBJECT = classType;
-        case "short" -> Type.SHORT = classType;
-        case "String" -> Type.STRING = classType;
-        case "ubyte" -> Type.UBYTE = classType;
-        case "uint" -> Type.UINT = classType;
-        case "ulong" -> Type.ULONG = classType;
-        case "ushort" -> Type.USHORT = classType;
-        case "Thread" -> Type.THREAD = classType;
+        case "float" -> compilation.FLOAT = classType;
+        case "GenericClass" -> compilation.GENERIC_CLASS = classType;
+        case "int" -> compilation.INT = classType;
+        case "long" -> compilation.LONG = classType;
+        case "Method" -> compilation.METHOD = classType;
+        case "MethodTable" -> compilation.METHOD_TABLE = classType;
+        case "Object" -> compilation.OBJECT = classType;
+        case "short" -> compilation.SHORT = classType;
+        case "String" -> compilation.STRING = classType;
+        case "ubyte" -> compilation.UBYTE = classType;
+        case "uint" -> compilation.UINT = classType;
+        case "ulong" -> compilation.ULONG = classType;
+        case "ushort" -> compilation.USHORT = classType;
+        case "Thread" -> compilation.THREAD = classType;
       }
     } else if (currentPackage.getQualifiedName().equals("shadow:natives")) {
       if ("Pointer".equals(typeName)) {
-        Type.POINTER = classType;
+        compilation.POINTER = classType;
       }
     }
   }
@@ -817,10 +1159,10 @@ public class TypeCollector extends ScopedChecker {
   private void captureAttributeType(AttributeType type, String typeName) {
     if (currentPackage.getQualifiedName().equals("shadow:standard:attributes")) {
       switch (typeName) {
-        case "ImportAssembly" -> AttributeType.IMPORT_ASSEMBLY = type;
-        case "ExportAssembly" -> AttributeType.EXPORT_ASSEMBLY = type;
-        case "ImportNative" -> AttributeType.IMPORT_NATIVE = type;
-        case "ExportNative" -> AttributeType.EXPORT_NATIVE = type;
+        case "ImportAssembly" -> compilation.IMPORT_ASSEMBLY = type;
+        case "ExportAssembly" -> compilation.EXPORT_ASSEMBLY = type;
+        case "ImportNative" -> compilation.IMPORT_NATIVE = type;
+        case "ExportNative" -> compilation.EXPORT_NATIVE = type;
       }
     }
   }
@@ -831,41 +1173,36 @@ public class TypeCollector extends ScopedChecker {
    */
 
   private Path findPath(String name) {
-    String separator = FileSystems.getDefault().getSeparator(); // Adds some platform independence.
-    if (separator.equals("\\")) // Hack for Windows to deal with backslash escaping.
-      separator = "\\\\";
-
     int atIndex = name.indexOf('@');
     boolean isDirectory = atIndex == -1;
-    // If there's a colon after the @, we're importing an inner type,
-    // but we only need the outer class for the file name
-    if (atIndex != -1 && name.indexOf(':', atIndex + 1) != -1)
-      name = name.substring(0, name.indexOf(':', atIndex + 1));
-
-    String path = name.replaceAll(":", separator);
-    if (path.startsWith("default@")) path = path.replaceFirst("default@", "");
-    else path = path.replaceFirst("@", separator);
+    String typeName = null;
+    if (!isDirectory) {
+      // If there's a colon after the @, we're importing an inner type,
+      // but we only need the outer class for the file name
+      int colonIndex = name.indexOf(':', atIndex + 1);
+      typeName = name.substring(atIndex + 1, colonIndex == -1 ? name.length() : colonIndex);
+      name = name.substring(0, atIndex);
+      if (name.equals("default")) name = "";
+    }
 
+    // Package names become directories without going through the separator of the platform
+    String[] packages = name.split(":");
+    ImportIndex index = compilation.getImportIndex();
     for (Path importPath : importPaths) {
       // If an import path is relative, resolving it against the
       // current source file will make it absolute.
       // If it's absolute, no change will happen.
-      importPath = currentFile.resolveSibling(importPath);
+      Path directory = currentFile.resolveSibling(importPath);
+      for (String package_ : packages)
+        if (!package_.isEmpty()) directory = directory.resolve(package_);
 
-      if (isDirectory) {
-        Path directory = importPath.resolve(path);
-        if (Files.isDirectory(directory)) {
-          return directory;
-        }
-      } else {
-        Path shadowVersion = importPath.resolve(path + ".shadow");
-        Path metaVersion = importPath.resolve(path + ".meta");
-        if (Files.exists(shadowVersion)) {
-          return shadowVersion;
-        } else if (Files.exists(metaVersion)) {
-          return metaVersion;
-        }
-      }
+      ImportIndex.Directory contents = index.getDirectory(directory);
+      if (contents == null) continue;
+
+      if (isDirectory) return directory;
+      else if (contents.contains(typeName + ".shadow"))
+        return directory.resolve(typeName + ".shadow");
+      else if (contents.contains(typeName + ".meta")) return directory.resolve(typeName + ".meta");
     }
 
     return null;
@@ -885,11 +1222,13 @@ public class TypeCollector extends ScopedChecker {
     currentFile = null;
     mainType = null;
     fileTable.clear();
+    rootFiles.clear();
+    fileImports.clear();
     importedTypes.clear();
 
     typeDeclarations.clear();
 
-    Type.clearTypes();
+    compilation.clearTypes();
   }
 
   /* AST visitor methods below this point. */
@@ -19,6 +19,7 @@ package shadow.typecheck;
 
 import org.antlr.v4.runtime.CommonToken;
 import org.antlr.v4.runtime.Token;
+import shadow.CompilationContext;
 import shadow.ShadowException;
 import shadow.parse.Context;
 import shadow.parse.ShadowParser;
@@ -54,8 +55,12 @@ public class TypeUpdater extends BaseChecker {
    * @param packageTree root of all packages
    * @param fileTable map from file names to AST nodes
    */
-  public TypeUpdater(Package packageTree, ErrorReporter reporter, Map<Path, Context> fileTable) {
-    super(packageTree, reporter);
+  public TypeUpdater(
+      Package packageTree,
+      ErrorReporter reporter,
+      Map<Path, Context> fileTable,
+      CompilationContext compilation) {
+    super(packageTree, reporter, compilation);
 
     // Update so that all the imported names map to types
     for (Type type : packageTree) {
@@ -108,6 +113,7 @@ public class TypeUpdater extends BaseChecker {
    * @throws ShadowException thrown if updates fail
    */
   public Map<Type, Context> update(Map<Type, Context> typeTable) throws ShadowException {
+    compilation.setTypesUpdated(false);
 
     /* Add fields and methods. */
     for (Context declarationNode : typeTable.values()) {
@@ -149,6 +155,9 @@ public class TypeUpdater extends BaseChecker {
      */
     if (getErrorReporter().getErrorList().isEmpty()) updateFieldsAndMethods(nodeList);
 
+    // Signatures were changed in place, so earlier method lookups cannot be reused
+    Type.invalidateMethodCaches();
+
     /*
      * After updating all the types, make sure that method overrides are all
      * legal.
@@ -160,6 +169,11 @@ public class TypeUpdater extends BaseChecker {
 
     printAndReportErrors();
 
+    // Interface lists were changed in place, so earlier ancestors and names are stale
+    Type.invalidateHierarchies();
+    Type.invalidateNames();
+    compilation.setTypesUpdated(true);
+
     return typeTable;
   }
 
@@ -190,58 +204,58 @@ public class TypeUpdater extends BaseChecker {
        */
 
       // Address map for deep copies
-      type.addUsedType(Type.ADDRESS_MAP);
+      type.addUsedType(compilation.ADDRESS_MAP);
 
       // Class management
-      type.addUsedType(Type.CLASS);
-      type.addUsedType(Type.GENERIC_CLASS);
+      type.addUsedType(compilation.CLASS);
+      type.addUsedType(compilation.GENERIC_CLASS);
 
       // Array wrapper classes
-      type.addUsedType(Type.ARRAY);
-      type.addUsedType(Type.ARRAY_NULLABLE);
+      type.addUsedType(compilation.ARRAY);
+      type.addUsedType(compilation.ARRAY_NULLABLE);
 
       // Used for method references
-      type.addUsedType(Type.METHOD);
+      type.addUsedType(compilation.METHOD);
 
       // Iterators for foreach loops
-      type.addUsedType(Type.ITERATOR);
-      type.addUsedType(Type.ITERATOR_NULLABLE);
+      type.addUsedType(compilation.ITERATOR);
+      type.addUsedType(compilation.ITERATOR_NULLABLE);
 
       // Exceptions
-      type.addUsedType(Type.EXCEPTION);
-      type.addUsedType(Type.CAST_EXCEPTION);
-      type.addUsedType(Type.INDEX_OUT_OF_BOUNDS_EXCEPTION);
-      type.addUsedType(Type.INTERFACE_CREATE_EXCEPTION);
-      type.addUsedType(Type.UNEXPECTED_NULL_EXCEPTION);
+      type.addUsedType(compilation.EXCEPTION);
+      type.addUsedType(compilation.CAST_EXCEPTION);
+      type.addUsedType(compilation.INDEX_OUT_OF_BOUNDS_EXCEPTION);
+      type.addUsedType(compilation.INTERFACE_CREATE_EXCEPTION);
+      type.addUsedType(compilation.UNEXPECTED_NULL_EXCEPTION);
 
       // String
-      type.addUsedType(Type.STRING);
+      type.addUsedType(compilation.STRING);
 
       // byte array
-      type.addUsedType(new ArrayType(Type.UBYTE));
+      type.addUsedType(new ArrayType(compilation.UBYTE));
 
       // method table array
-      type.addUsedType(new ArrayType(Type.METHOD_TABLE));
+      type.addUsedType(new ArrayType(compilation.METHOD_TABLE));
 
-      type.addUsedType(new ArrayType(Type.CLASS));
+      type.addUsedType(new ArrayType(compilation.CLASS));
 
       // Adding the self adds parents and interfaces and methods
       type.addUsedType(type);
 
       // Add all primitive types (since their Object versions might be
       // used in casts)
-      type.addUsedType(Type.BOOLEAN);
-      type.addUsedType(Type.BYTE);
-      type.addUsedType(Type.CODE);
-      type.addUsedType(Type.DOUBLE);
-      type.addUsedType(Type.FLOAT);
-      type.addUsedType(Type.INT);
-      type.addUsedType(Type.LONG);
-      type.addUsedType(Type.SHORT);
-      type.addUsedType(Type.UBYTE);
-      type.addUsedType(Type.UINT);
-      type.addUsedType(Type.ULONG);
-      type.addUsedType(Type.USHORT);
+      type.addUsedType(compilation.BOOLEAN);
+      type.addUsedType(compilation.BYTE);
+      type.addUsedType(compilation.CODE);
+      type.addUsedType(compilation.DOUBLE);
+      type.addUsedType(compilation.FLOAT);
+      type.addUsedType(compilation.INT);
+      type.addUsedType(compilation.LONG);
+      type.addUsedType(compilation.SHORT);
+      type.addUsedType(compilation.UBYTE);
+      type.addUsedType(compilation.UINT);
+      type.addUsedType(compilation.ULONG);
+      type.addUsedType(compilation.USHORT);
     }
   }
 
@@ -316,7 +330,7 @@ public class TypeUpdater extends BaseChecker {
       MethodSignature copySignature =
           new MethodSignature(
               classType, "copy", copyNode.getModifiers(), copyNode.getDocumentation(), copyNode);
-      copySignature.addParameter("addresses", new SimpleModifiedType(Type.ADDRESS_MAP));
+      copySignature.addParameter("addresses", new SimpleModifiedType(compilation.ADDRESS_MAP));
       copySignature.addReturn(new SimpleModifiedType(classType));
       copyNode.setSignature(copySignature);
       classType.addMethod(copySignature);
@@ -1091,10 +1105,10 @@ public class TypeUpdater extends BaseChecker {
       String kind;
       if (declarationType instanceof EnumType enumType) {
         kind = "Enum type ";
-        enumType.setExtendType(Type.ENUM);
+        enumType.setExtendType(compilation.ENUM);
       } else if (declarationType instanceof AttributeType attributeType) {
         kind = "Attribute type ";
-        attributeType.setExtendType(Type.ATTRIBUTE);
+        attributeType.setExtendType(compilation.ATTRIBUTE);
       } else kind = "Interface type ";
 
       if (list != null)
@@ -1172,11 +1186,11 @@ public class TypeUpdater extends BaseChecker {
       if (classType.getExtendType() == null) {
         if (classType instanceof ExceptionType) {
           // Special case only for the root of all exceptions.
-          if (classType == Type.EXCEPTION) classType.setExtendType(Type.OBJECT);
-          else classType.setExtendType(Type.EXCEPTION);
+          if (classType == compilation.EXCEPTION) classType.setExtendType(compilation.OBJECT);
+          else classType.setExtendType(compilation.EXCEPTION);
         }
         // The Object class is the only class with a null parent.
-        else if (classType != Type.OBJECT) classType.setExtendType(Type.OBJECT);
+        else if (classType != compilation.OBJECT) classType.setExtendType(compilation.OBJECT);
       }
     }
 
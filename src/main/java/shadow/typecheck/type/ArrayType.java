@@ -1,5 +1,6 @@
 package shadow.typecheck.type;
 
+import shadow.CompilationContext;
 import shadow.ShadowException;
 import shadow.parse.ShadowParser;
 
@@ -10,7 +11,7 @@ import java.util.Set;
 public class ArrayType extends ClassType {
   private final Type baseType;
   private final boolean nullable;
-  private ClassType genericVersion = null;
+  private volatile ClassType genericVersion = null;
 
   @Override
   public int getWidth() {
@@ -52,7 +53,7 @@ public class ArrayType extends ClassType {
         baseType.getDocumentation(),
         baseType.getOuter());
 
-    setExtendType(Type.OBJECT);
+    setExtendType(CompilationContext.current().OBJECT);
 
     if (dimensions == 1) this.baseType = baseType;
     else this.baseType = new ArrayType(baseType, dimensions - 1, nullable);
@@ -134,7 +135,7 @@ public class ArrayType extends ClassType {
   public boolean isSubtype(Type t) {
     if (t == UNKNOWN) return false;
 
-    if (t == OBJECT) return true;
+    if (t == CompilationContext.current().OBJECT) return true;
 
     if (equals(t)) return true;
 
@@ -158,15 +159,11 @@ public class ArrayType extends ClassType {
 
     if (genericVersion == null) {
       Type base = baseType;
+      ClassType array =
+          nullable ? CompilationContext.current().ARRAY_NULLABLE : CompilationContext.current().ARRAY;
 
       try {
-        if (nullable)
-          genericVersion =
-              Type.ARRAY_NULLABLE.replace(
-                  Type.ARRAY_NULLABLE.getTypeParameters(), new SequenceType(base));
-        else
-          genericVersion =
-              Type.ARRAY.replace(Type.ARRAY.getTypeParameters(), new SequenceType(base));
+        genericVersion = array.replace(array.getTypeParameters(), new SequenceType(base));
       } catch (InstantiationException ignored) {
       }
     }
@@ -31,21 +31,6 @@ public class AttributeType extends ClassType {
   public static final AttributeType UNKNOWN_ATTRIBUTE_TYPE =
       new AttributeType("Unknown Attribute", null, null);
 
-  // First-party attribute types referenced during compilation. These are populated during type
-  // collection.
-  public static AttributeType IMPORT_ASSEMBLY;
-  public static AttributeType EXPORT_ASSEMBLY;
-  public static AttributeType IMPORT_NATIVE;
-  public static AttributeType EXPORT_NATIVE;
-
-  /** Called by {@link Type#clearTypes()}. */
-  public static void clearTypes() {
-    IMPORT_ASSEMBLY = null;
-    EXPORT_ASSEMBLY = null;
-    IMPORT_NATIVE = null;
-    EXPORT_NATIVE = null;
-  }
-
   public AttributeType(String typeName, Documentation documentation, Type outer) {
     super(typeName, new Modifiers(), documentation, outer);
   }
@@ -1,5 +1,6 @@
 package shadow.typecheck.type;
 
+import shadow.CompilationContext;
 import shadow.doctool.Documentation;
 import shadow.parse.Context;
 import shadow.parse.ShadowParser;
@@ -24,6 +25,8 @@ public class ClassType extends Type {
   }
 
   public void setExtendType(ClassType extendType) {
+    methodsChanged();
+    hierarchyChanged();
     this.extendType = extendType;
   }
 
@@ -32,6 +35,9 @@ public class ClassType extends Type {
   }
 
   public boolean isDescendantOf(Type type) {
+    BitSet ancestors = getAncestorClasses();
+    if (ancestors != null) return ancestors.get(type.getId());
+
     ClassType parent = getExtendType();
     while (parent != null) {
       if (parent.equals(type)) return true;
@@ -140,7 +146,7 @@ public class ClassType extends Type {
     return list;
   }
 
-  private Map<String, Integer> fieldIndexCache;
+  private volatile Map<String, Integer> fieldIndexCache;
 
   // Returns number of fields, including parent fields
   private int buildFieldIndexCache() {
@@ -218,45 +224,47 @@ public class ClassType extends Type {
   public ClassType replace(List<ModifiedType> values, List<ModifiedType> replacements)
       throws InstantiationException {
     if (isRecursivelyParameterized()) {
-      Type cached = typeWithoutTypeArguments.getInstantiation(this, values, replacements);
-      if (cached != null) return (ClassType) cached;
-
-      ClassType replaced =
-          new ClassType(getTypeName(), getModifiers(), getDocumentation(), getOuter());
-      replaced.setPackage(getPackage());
-      replaced.typeWithoutTypeArguments = typeWithoutTypeArguments;
-      typeWithoutTypeArguments.addInstantiation(this, values, replacements, replaced);
+      synchronized (INSTANTIATION_LOCK) {
+        Type cached = typeWithoutTypeArguments.getInstantiation(this, values, replacements);
+        if (cached != null) return (ClassType) cached;
 
-      replaced.setInnerTypes(getInnerTypes());
+        ClassType replaced =
+            new ClassType(getTypeName(), getModifiers(), getDocumentation(), getOuter());
+        replaced.setPackage(getPackage());
+        replaced.typeWithoutTypeArguments = typeWithoutTypeArguments;
+        typeWithoutTypeArguments.addInstantiation(this, values, replacements, replaced);
 
-      replaced.setExtendType(getExtendType().replace(values, replacements));
+        replaced.setInnerTypes(getInnerTypes());
 
-      for (InterfaceType _interface : getInterfaces())
-        replaced.addInterface(_interface.replace(values, replacements));
+        replaced.setExtendType(getExtendType().replace(values, replacements));
 
-      Map<String, ShadowParser.VariableDeclaratorContext> fields = getFields();
-      for (String name : fields.keySet()) {
-        ShadowParser.VariableDeclaratorContext field = fields.get(name);
-        field = Context.copy(field);
-        field.setType(field.getType().replace(values, replacements));
-        replaced.addField(name, field);
-      }
+        for (InterfaceType _interface : getInterfaces())
+          replaced.addInterface(_interface.replace(values, replacements));
 
-      for (List<MethodSignature> signatures : getMethodMap().values())
-        for (MethodSignature signature : signatures) {
-          MethodSignature replacedSignature = signature.replace(values, replacements);
-          replaced.addMethod(replacedSignature);
+        Map<String, ShadowParser.VariableDeclaratorContext> fields = getFields();
+        for (String name : fields.keySet()) {
+          ShadowParser.VariableDeclaratorContext field = fields.get(name);
+          field = Context.copy(field);
+          field.setType(field.getType().replace(values, replacements));
+          replaced.addField(name, field);
         }
 
-      if (isParameterized())
-        for (ModifiedType modifiedParameter : getTypeParameters()) {
-          Type parameter = modifiedParameter.getType();
-          replaced.addTypeParameter(
-              new SimpleModifiedType(
-                  parameter.replace(values, replacements), modifiedParameter.getModifiers()));
-        }
+        for (List<MethodSignature> signatures : getMethodMap().values())
+          for (MethodSignature signature : signatures) {
+            MethodSignature replacedSignature = signature.replace(values, replacements);
+            replaced.addMethod(replacedSignature);
+          }
 
-      return replaced;
+        if (isParameterized())
+          for (ModifiedType modifiedParameter : getTypeParameters()) {
+            Type parameter = modifiedParameter.getType();
+            replaced.addTypeParameter(
+                new SimpleModifiedType(
+                    parameter.replace(values, replacements), modifiedParameter.getModifiers()));
+          }
+
+        return replaced;
+      }
     }
 
     return this;
@@ -270,67 +278,69 @@ public class ClassType extends Type {
   public ClassType partiallyReplace(List<ModifiedType> values, List<ModifiedType> replacements)
       throws InstantiationException {
     if (isRecursivelyParameterized()) {
-      Type cached = typeWithoutTypeArguments.getInstantiation(this, values, replacements);
-      if (cached != null) return (ClassType) cached;
-
-      ClassType replaced =
-          new ClassType(getTypeName(), getModifiers(), getDocumentation(), getOuter());
-      replaced.setPackage(getPackage());
-      replaced.typeWithoutTypeArguments = typeWithoutTypeArguments;
-      typeWithoutTypeArguments.addInstantiation(this, values, replacements, replaced);
-
-      replaced.setInnerTypes(getInnerTypes());
-
-      replaced.setExtendType(getExtendType().partiallyReplace(values, replacements));
-
-      for (InterfaceType _interface : getInterfaces())
-        replaced.addInterface(_interface.partiallyReplace(values, replacements));
-
-      Map<String, ShadowParser.VariableDeclaratorContext> fields = getFields();
-
-      for (String name : fields.keySet()) {
-        ShadowParser.VariableDeclaratorContext field = fields.get(name);
-        if (field.getType().isParameterized()) {
-          field = Context.copy(field);
-          SequenceType typeArguments = new SequenceType();
-          for (ModifiedType typeParameter : field.getType().getTypeParameters()) {
-            Type type = typeParameter.getType();
-
-            if (type instanceof TypeParameter || type.isParameterized())
-              typeArguments.add(
-                  new SimpleModifiedType(
-                      type.partiallyReplace(values, replacements), typeParameter.getModifiers()));
-            else typeArguments.add(typeParameter);
+      synchronized (INSTANTIATION_LOCK) {
+        Type cached = typeWithoutTypeArguments.getInstantiation(this, values, replacements);
+        if (cached != null) return (ClassType) cached;
+
+        ClassType replaced =
+            new ClassType(getTypeName(), getModifiers(), getDocumentation(), getOuter());
+        replaced.setPackage(getPackage());
+        replaced.typeWithoutTypeArguments = typeWithoutTypeArguments;
+        typeWithoutTypeArguments.addInstantiation(this, values, replacements, replaced);
+
+        replaced.setInnerTypes(getInnerTypes());
+
+        replaced.setExtendType(getExtendType().partiallyReplace(values, replacements));
+
+        for (InterfaceType _interface : getInterfaces())
+          replaced.addInterface(_interface.partiallyReplace(values, replacements));
+
+        Map<String, ShadowParser.VariableDeclaratorContext> fields = getFields();
+
+        for (String name : fields.keySet()) {
+          ShadowParser.VariableDeclaratorContext field = fields.get(name);
+          if (field.getType().isParameterized()) {
+            field = Context.copy(field);
+            SequenceType typeArguments = new SequenceType();
+            for (ModifiedType typeParameter : field.getType().getTypeParameters()) {
+              Type type = typeParameter.getType();
+
+              if (type instanceof TypeParameter || type.isParameterized())
+                typeArguments.add(
+                    new SimpleModifiedType(
+                        type.partiallyReplace(values, replacements), typeParameter.getModifiers()));
+              else typeArguments.add(typeParameter);
+            }
+
+            if (field.getType() instanceof InterfaceType)
+              field.setType(
+                  new UninstantiatedInterfaceType(
+                      (InterfaceType) field.getType(), typeArguments, null));
+            else
+              field.setType(
+                  new UninstantiatedClassType((ClassType) field.getType(), typeArguments, null));
           }
-
-          if (field.getType() instanceof InterfaceType)
-            field.setType(
-                new UninstantiatedInterfaceType(
-                    (InterfaceType) field.getType(), typeArguments, null));
-          else
-            field.setType(
-                new UninstantiatedClassType((ClassType) field.getType(), typeArguments, null));
+          replaced.addField(name, field);
         }
-        replaced.addField(name, field);
-      }
 
-      for (List<MethodSignature> signatures : getMethodMap().values())
-        for (MethodSignature signature : signatures) {
-          MethodSignature replacedSignature = signature.partiallyReplace(values, replacements);
-          replaced.addMethod(replacedSignature);
-          signature.getNode().setSignature(replacedSignature);
-        }
+        for (List<MethodSignature> signatures : getMethodMap().values())
+          for (MethodSignature signature : signatures) {
+            MethodSignature replacedSignature = signature.partiallyReplace(values, replacements);
+            replaced.addMethod(replacedSignature);
+            signature.getNode().setSignature(replacedSignature);
+          }
 
-      if (isParameterized())
-        for (ModifiedType modifiedParameter : getTypeParameters()) {
-          Type parameter = modifiedParameter.getType();
-          replaced.addTypeParameter(
-              new SimpleModifiedType(
-                  parameter.partiallyReplace(values, replacements),
-                  modifiedParameter.getModifiers()));
-        }
+        if (isParameterized())
+          for (ModifiedType modifiedParameter : getTypeParameters()) {
+            Type parameter = modifiedParameter.getType();
+            replaced.addTypeParameter(
+                new SimpleModifiedType(
+                    parameter.partiallyReplace(values, replacements),
+                    modifiedParameter.getModifiers()));
+          }
 
-      return replaced;
+        return replaced;
+      }
     }
 
     return this;
@@ -365,6 +375,7 @@ public class ClassType extends Type {
 
     if (isParameterized()) getTypeParameters().updateFieldsAndMethods();
 
+    methodsChanged();
     invalidateHashName();
   }
 
@@ -372,9 +383,11 @@ public class ClassType extends Type {
   public boolean isSubtype(Type t) {
     if (t == UNKNOWN || this == UNKNOWN) return false;
 
-    if (this == NULL || t == Type.OBJECT || t == Type.VAR || equals(t)) return true;
+    if (this == NULL || t == CompilationContext.current().OBJECT || t == Type.VAR || equals(t))
+      return true;
 
-    if (t instanceof MethodTableType && this == METHOD_TABLE) return true;
+    if (t instanceof MethodTableType && this == CompilationContext.current().METHOD_TABLE)
+      return true;
 
     if (t instanceof TypeParameter) return isSubtype(((TypeParameter) t).getClassBound());
 
@@ -410,6 +423,9 @@ public class ClassType extends Type {
   }
 
   public boolean hasInterface(InterfaceType type) {
+    BitSet ancestors = getAncestorInterfaces();
+    if (ancestors != null) return ancestors.get(type.getId());
+
     ClassType current = this;
     while (current != null) {
       for (InterfaceType interfaceType : current.getInterfaces()) {
@@ -488,7 +504,7 @@ public class ClassType extends Type {
     // extend type
     Type extendType = getExtendType();
     boolean isStarted = false;
-    if (extendType != null && !this.equals(Type.EXCEPTION)) {
+    if (extendType != null && !this.equals(CompilationContext.current().EXCEPTION)) {
       out.print(" is " + extendType.toString(PACKAGES | TYPE_PARAMETERS));
       isStarted = true;
     }
@@ -1,5 +1,6 @@
 package shadow.typecheck.type;
 
+import shadow.CompilationContext;
 import shadow.doctool.Documentation;
 
 import java.io.PrintWriter;
@@ -25,7 +26,7 @@ public class ExceptionType extends ClassType {
 
     if (equals(t)) return true;
 
-    if (t.equals(OBJECT)) return true;
+    if (t.equals(CompilationContext.current().OBJECT)) return true;
 
     if (t instanceof ExceptionType) return isDescendantOf(t);
     else return false;
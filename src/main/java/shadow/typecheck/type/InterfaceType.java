@@ -1,11 +1,13 @@
 package shadow.typecheck.type;
 
+import shadow.CompilationContext;
 import shadow.doctool.Documentation;
 import shadow.parse.Context;
 import shadow.parse.ShadowParser;
 
 import java.io.PrintWriter;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 
@@ -38,6 +40,9 @@ public class InterfaceType extends Type {
   public boolean hasInterface(InterfaceType type) {
     if (this.equals(type)) return true;
 
+    BitSet ancestors = getAncestorInterfaces();
+    if (ancestors != null) return ancestors.get(type.getId());
+
     for (InterfaceType interfaceType : getInterfaces())
       if (interfaceType.hasInterface(type)) return true;
 
@@ -54,6 +59,9 @@ public class InterfaceType extends Type {
   }
 
   public boolean isDescendantOf(Type type) {
+    BitSet ancestors = getAncestorInterfaces();
+    if (ancestors != null) return ancestors.get(type.getId());
+
     for (InterfaceType parent : getInterfaces())
       if (parent.equals(type) || parent.isDescendantOf(type)) return true;
 
@@ -96,7 +104,7 @@ public class InterfaceType extends Type {
 
     // get from Object, too
     if (!methodName.equals("create"))
-      list.addAll(Type.OBJECT.recursivelyGetMethodOverloads(methodName));
+      list.addAll(CompilationContext.current().OBJECT.recursivelyGetMethodOverloads(methodName));
     return list;
   }
 
@@ -104,44 +112,47 @@ public class InterfaceType extends Type {
   public InterfaceType replace(List<ModifiedType> values, List<ModifiedType> replacements)
       throws InstantiationException {
     if (isRecursivelyParameterized()) {
-      Type cached = typeWithoutTypeArguments.getInstantiation(this, values, replacements);
-      if (cached != null) return (InterfaceType) cached;
+      synchronized (INSTANTIATION_LOCK) {
+        Type cached = typeWithoutTypeArguments.getInstantiation(this, values, replacements);
+        if (cached != null) return (InterfaceType) cached;
 
-      InterfaceType replaced = new InterfaceType(getTypeName(), getModifiers(), getDocumentation());
-      replaced.setPackage(getPackage());
+        InterfaceType replaced =
+            new InterfaceType(getTypeName(), getModifiers(), getDocumentation());
+        replaced.setPackage(getPackage());
 
-      replaced.typeWithoutTypeArguments = typeWithoutTypeArguments;
-      typeWithoutTypeArguments.addInstantiation(this, values, replacements, replaced);
+        replaced.typeWithoutTypeArguments = typeWithoutTypeArguments;
+        typeWithoutTypeArguments.addInstantiation(this, values, replacements, replaced);
 
-      replaced.setInnerTypes(getInnerTypes());
+        replaced.setInnerTypes(getInnerTypes());
 
-      for (InterfaceType _interface : getInterfaces())
-        replaced.addInterface(_interface.replace(values, replacements));
+        for (InterfaceType _interface : getInterfaces())
+          replaced.addInterface(_interface.replace(values, replacements));
 
-      // only constant non-parameterized fields in an interface
-      Map<String, ShadowParser.VariableDeclaratorContext> fields = getFields();
+        // only constant non-parameterized fields in an interface
+        Map<String, ShadowParser.VariableDeclaratorContext> fields = getFields();
 
-      for (String name : fields.keySet()) {
-        ShadowParser.VariableDeclaratorContext field = fields.get(name);
-        field = Context.copy(field);
-        field.setType(field.getType());
-        replaced.addField(name, field);
-      }
+        for (String name : fields.keySet()) {
+          ShadowParser.VariableDeclaratorContext field = fields.get(name);
+          field = Context.copy(field);
+          field.setType(field.getType());
+          replaced.addField(name, field);
+        }
+
+        for (List<MethodSignature> signatures : getMethodMap().values())
+          for (MethodSignature signature : signatures) {
+            MethodSignature replacedSignature = signature.replace(values, replacements);
+            replaced.addMethod(replacedSignature);
+          }
 
-      for (List<MethodSignature> signatures : getMethodMap().values())
-        for (MethodSignature signature : signatures) {
-          MethodSignature replacedSignature = signature.replace(values, replacements);
-          replaced.addMethod(replacedSignature);
+        for (ModifiedType modifiedParameter : getTypeParameters()) {
+          Type parameter = modifiedParameter.getType();
+          replaced.addTypeParameter(
+              new SimpleModifiedType(
+                  parameter.replace(values, replacements), modifiedParameter.getModifiers()));
         }
 
-      for (ModifiedType modifiedParameter : getTypeParameters()) {
-        Type parameter = modifiedParameter.getType();
-        replaced.addTypeParameter(
-            new SimpleModifiedType(
-                parameter.replace(values, replacements), modifiedParameter.getModifiers()));
+        return replaced;
       }
-
-      return replaced;
     }
 
     return this;
@@ -151,46 +162,49 @@ public class InterfaceType extends Type {
   public InterfaceType partiallyReplace(List<ModifiedType> values, List<ModifiedType> replacements)
       throws InstantiationException {
     if (isRecursivelyParameterized()) {
-      Type cached = typeWithoutTypeArguments.getInstantiation(this, values, replacements);
-      if (cached != null) return (InterfaceType) cached;
+      synchronized (INSTANTIATION_LOCK) {
+        Type cached = typeWithoutTypeArguments.getInstantiation(this, values, replacements);
+        if (cached != null) return (InterfaceType) cached;
 
-      InterfaceType replaced = new InterfaceType(getTypeName(), getModifiers(), getDocumentation());
-      replaced.setPackage(getPackage());
-      replaced.typeWithoutTypeArguments = typeWithoutTypeArguments;
+        InterfaceType replaced =
+            new InterfaceType(getTypeName(), getModifiers(), getDocumentation());
+        replaced.setPackage(getPackage());
+        replaced.typeWithoutTypeArguments = typeWithoutTypeArguments;
 
-      typeWithoutTypeArguments.addInstantiation(this, values, replacements, replaced);
+        typeWithoutTypeArguments.addInstantiation(this, values, replacements, replaced);
 
-      replaced.setInnerTypes(getInnerTypes());
+        replaced.setInnerTypes(getInnerTypes());
 
-      for (InterfaceType _interface : getInterfaces())
-        replaced.addInterface(_interface.partiallyReplace(values, replacements));
+        for (InterfaceType _interface : getInterfaces())
+          replaced.addInterface(_interface.partiallyReplace(values, replacements));
 
-      // Only constant non-parameterized fields in an interface
-      Map<String, ShadowParser.VariableDeclaratorContext> fields = getFields();
+        // Only constant non-parameterized fields in an interface
+        Map<String, ShadowParser.VariableDeclaratorContext> fields = getFields();
 
-      for (String name : fields.keySet()) {
-        ShadowParser.VariableDeclaratorContext field = fields.get(name);
-        field = Context.copy(field);
-        field.setType(field.getType());
-        replaced.addField(name, field);
-      }
-
-      for (List<MethodSignature> signatures : getMethodMap().values())
-        for (MethodSignature signature : signatures) {
-          MethodSignature replacedSignature = signature.partiallyReplace(values, replacements);
-          replaced.addMethod(replacedSignature);
-        }
-
-      if (isParameterized())
-        for (ModifiedType modifiedParameter : getTypeParameters()) {
-          Type parameter = modifiedParameter.getType();
-          replaced.addTypeParameter(
-              new SimpleModifiedType(
-                  parameter.partiallyReplace(values, replacements),
-                  modifiedParameter.getModifiers()));
+        for (String name : fields.keySet()) {
+          ShadowParser.VariableDeclaratorContext field = fields.get(name);
+          field = Context.copy(field);
+          field.setType(field.getType());
+          replaced.addField(name, field);
         }
 
-      return replaced;
+        for (List<MethodSignature> signatures : getMethodMap().values())
+          for (MethodSignature signature : signatures) {
+            MethodSignature replacedSignature = signature.partiallyReplace(values, replacements);
+            replaced.addMethod(replacedSignature);
+          }
+
+        if (isParameterized())
+          for (ModifiedType modifiedParameter : getTypeParameters()) {
+            Type parameter = modifiedParameter.getType();
+            replaced.addTypeParameter(
+                new SimpleModifiedType(
+                    parameter.partiallyReplace(values, replacements),
+                    modifiedParameter.getModifiers()));
+          }
+
+        return replaced;
+      }
     }
 
     return this;
@@ -210,6 +224,8 @@ public class InterfaceType extends Type {
     for (Type inner : getInnerTypes().values()) inner.updateFieldsAndMethods();
 
     if (isParameterized()) getTypeParameters().updateFieldsAndMethods();
+
+    methodsChanged();
   }
 
   @Override
@@ -225,7 +241,7 @@ public class InterfaceType extends Type {
   public boolean isSubtype(Type t) {
     if (t == UNKNOWN) return false;
 
-    if (equals(t) || t == Type.OBJECT || t == Type.VAR) return true;
+    if (equals(t) || t == CompilationContext.current().OBJECT || t == Type.VAR) return true;
 
     if (t instanceof InterfaceType) return isDescendantOf(t);
     else return false;
@@ -233,7 +249,7 @@ public class InterfaceType extends Type {
 
   @Override
   public int getWidth() {
-    return OBJECT.getWidth() * 2;
+    return CompilationContext.current().OBJECT.getWidth() * 2;
   }
 
   @Override
@@ -1,5 +1,6 @@
 package shadow.typecheck.type;
 
+import shadow.CompilationContext;
 public class MethodReferenceType extends ClassType {
 
   MethodType methodType;
@@ -7,7 +8,7 @@ public class MethodReferenceType extends ClassType {
   public MethodReferenceType(MethodType methodType) {
     super(null, methodType.getModifiers(), null, methodType.getOuter());
     this.methodType = methodType;
-    setExtendType(Type.METHOD);
+    setExtendType(CompilationContext.current().METHOD);
   }
 
   public MethodType getMethodType() {
@@ -16,7 +17,7 @@ public class MethodReferenceType extends ClassType {
 
   @Override
   public String toString(int options) {
-    if ((options & MANGLE) != 0) return Type.METHOD.toString(options);
+    if ((options & MANGLE) != 0) return CompilationContext.current().METHOD.toString(options);
 
     return methodType.toString(options);
   }
@@ -30,7 +31,7 @@ public class MethodReferenceType extends ClassType {
 
   @Override
   public boolean isSubtype(Type t) {
-    if (t == Type.METHOD) return true;
+    if (t == CompilationContext.current().METHOD) return true;
 
     if (t instanceof MethodType) return methodType.isSubtype(t);
 
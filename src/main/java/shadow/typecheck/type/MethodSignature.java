@@ -1,5 +1,6 @@
 package shadow.typecheck.type;
 
+import shadow.CompilationContext;
 import shadow.doctool.Documentation;
 import shadow.parse.Context;
 import shadow.parse.ShadowParser;
@@ -34,6 +35,19 @@ public class MethodSignature implements Comparable<MethodSignature> {
 
   private final Map<AttributeType, AttributeInvocation> attributes = new HashMap<>();
 
+  // Mangled names are used for equality and hashing, so they are kept once type names settle
+  private volatile MangledName mangledName = null;
+
+  private static final class MangledName {
+    private final int version;
+    private final String name;
+
+    private MangledName(int version, String name) {
+      this.version = version;
+      this.name = name;
+    }
+  }
+
   private MethodSignature(
       MethodType type, String symbol, Type outer, Context node, MethodSignature wrapped) {
     this.type = type;
@@ -104,10 +118,11 @@ public class MethodSignature implements Comparable<MethodSignature> {
 
   // These are the true return types that the compiler will use
   public SequenceType getFullReturnTypes() {
+    CompilationContext compilation = CompilationContext.current();
     Type outerType = getOuter();
     if (isCreate()) {
       SimpleModifiedType modified;
-      if (outerType instanceof InterfaceType) modified = new SimpleModifiedType(Type.OBJECT);
+      if (outerType instanceof InterfaceType) modified = new SimpleModifiedType(compilation.OBJECT);
       else modified = new SimpleModifiedType(outerType);
 
       if (outerType.isPrimitive()) modified.getModifiers().addModifier(Modifiers.NULLABLE);
@@ -140,7 +155,7 @@ public class MethodSignature implements Comparable<MethodSignature> {
             instanceof
             InterfaceType) // since actual object is unknown, assume Object for all interface
       // methods
-      paramTypes.add(new SimpleModifiedType(Type.OBJECT));
+      paramTypes.add(new SimpleModifiedType(CompilationContext.current().OBJECT));
     else paramTypes.add(new SimpleModifiedType(outerType)); // this
     // }
 
@@ -175,12 +190,25 @@ public class MethodSignature implements Comparable<MethodSignature> {
       return symbol;
     }
 
+    if (!Type.areNamesSettled()) return buildMangledName();
+
+    int version = Type.getNameVersion();
+    MangledName value = mangledName;
+    if (value == null || value.version != version) {
+      value = new MangledName(version, buildMangledName());
+      mangledName = value;
+    }
+
+    return value.name;
+  }
+
+  private String buildMangledName() {
     StringBuilder sb = new StringBuilder();
 
-    if (isWrapper()) sb.append(getWrapped().getOuter().toString(Type.MANGLE));
+    if (isWrapper()) sb.append(getWrapped().getOuter().getMangledName());
     else if (isImportMethod()) // we set the first parameter as the owner of the method
-    sb.append(getParameterTypes().get(0).getType().toString(Type.MANGLE));
-    else sb.append(getOuter().toString(Type.MANGLE));
+    sb.append(getParameterTypes().get(0).getType().getMangledName());
+    else sb.append(getOuter().getMangledName());
 
     sb.append("..")
         .append(Type.mangle(symbol))
@@ -191,8 +219,7 @@ public class MethodSignature implements Comparable<MethodSignature> {
                         | Type.TYPE_PARAMETERS
                         | (isImportMethod() ? Type.MANGLE_IMPORT_METHOD : 0)));
 
-    if (isWrapper())
-      sb.append("._W").append(getOuter().toString(Type.MANGLE | Type.TYPE_PARAMETERS));
+    if (isWrapper()) sb.append("._W").append(getOuter().getMangledNameWithArguments());
 
     return sb.toString();
   }
@@ -330,6 +357,7 @@ public class MethodSignature implements Comparable<MethodSignature> {
 
   public void setOuter(Type outer) {
     this.outer = outer;
+    mangledName = null;
   }
 
   public boolean hasDocumentation() {
@@ -426,14 +454,15 @@ public class MethodSignature implements Comparable<MethodSignature> {
    * attributes having their fields evaluated.
    */
   public void processAttributeTypes(ErrorReporter errorReporter) {
+    CompilationContext compilation = CompilationContext.current();
     for (AttributeType attributeType : attributes.keySet()) {
-      if (attributeType.equals(AttributeType.IMPORT_NATIVE)) {
+      if (attributeType.equals(compilation.IMPORT_NATIVE)) {
         processImportExportAttributes(true, ImportExportMode.NATIVE, errorReporter);
-      } else if (attributeType.equals(AttributeType.IMPORT_ASSEMBLY)) {
+      } else if (attributeType.equals(compilation.IMPORT_ASSEMBLY)) {
         processImportExportAttributes(true, ImportExportMode.ASSEMBLY, errorReporter);
-      } else if (attributeType.equals(AttributeType.EXPORT_NATIVE)) {
+      } else if (attributeType.equals(compilation.EXPORT_NATIVE)) {
         processImportExportAttributes(false, ImportExportMode.NATIVE, errorReporter);
-      } else if (attributeType.equals(AttributeType.EXPORT_ASSEMBLY)) {
+      } else if (attributeType.equals(compilation.EXPORT_ASSEMBLY)) {
         processImportExportAttributes(false, ImportExportMode.ASSEMBLY, errorReporter);
       }
     }
@@ -454,5 +483,6 @@ public class MethodSignature implements Comparable<MethodSignature> {
     } else {
       exportMode = mode;
     }
+    mangledName = null;
   }
 }
@@ -1,5 +1,7 @@
 package shadow.typecheck.type;
 
+import shadow.CompilationContext;
+
 import java.util.List;
 
 public class MethodTableType extends Type {
@@ -27,7 +29,8 @@ public class MethodTableType extends Type {
 
   @Override
   public boolean isSubtype(Type other) {
-    if (other == OBJECT || other == METHOD_TABLE) return true;
+    CompilationContext compilation = CompilationContext.current();
+    if (other == compilation.OBJECT || other == compilation.METHOD_TABLE) return true;
 
     return equals(other);
   }
@@ -1,5 +1,6 @@
 package shadow.typecheck.type;
 
+import shadow.CompilationContext;
 import shadow.doctool.Documentation;
 
 import java.util.ArrayList;
@@ -183,7 +184,7 @@ public class MethodType extends Type {
   public boolean isSubtype(Type t) {
     if (t == UNKNOWN) return false;
 
-    if (equals(t) || t == Type.OBJECT) return true;
+    if (equals(t) || t == CompilationContext.current().OBJECT) return true;
 
     if (t instanceof MethodType otherMethod) {
       return returns.isSubtype(otherMethod.returns)
@@ -45,13 +45,12 @@ public class SequenceType extends Type implements Iterable<ModifiedType>, List<M
   public boolean canAccept(
       SequenceType inputTypes, SubstitutionKind substitutionType, List<ShadowException> errors) {
     if (types.size() != inputTypes.size()) {
-      ErrorReporter.addError(
+      ErrorReporter.addFormattedError(
           errors,
           Error.INVALID_ASSIGNMENT,
-          "Sequence type "
-              + inputTypes
-              + " does not have the same number of elements as sequence type "
-              + this);
+          "Sequence type %s does not have the same number of elements as sequence type %s",
+          inputTypes,
+          this);
       return false;
     }
 
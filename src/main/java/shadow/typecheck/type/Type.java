@@ -1,5 +1,6 @@
 package shadow.typecheck.type;
 
+import shadow.CompilationContext;
 import shadow.ShadowException;
 import shadow.doctool.Documentation;
 import shadow.parse.Context;
@@ -15,6 +16,7 @@ import shadow.typecheck.TypeCheckException.Error;
 import java.io.PrintWriter;
 import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /** A representation of a Shadow type. */
@@ -48,54 +50,71 @@ public abstract class Type implements Comparable<Type> {
   private final Set<Type> partiallyInstantiatedClasses = new TreeSet<>();
   private final List<Type> typeParameterDependencies = new ArrayList<>();
 
-  private final TypeArgumentCache instantiatedTypes = new TypeArgumentCache();
+  // Guarded by INSTANTIATION_LOCK
+  private final Map<InstantiationKey, Type> instantiatedTypes = new HashMap<>();
+
+  /*
+   * Overload sets and resolved calls depend on the methods of a type and all of its supertypes,
+   * so they are kept until any method table or supertype list that has been read changes, which
+   * moves every cache of the compilation to a new version. Types made by instantiation are filled
+   * in before they can be read, so building them never throws caches away.
+   */
+  private volatile boolean methodsRead = false;
+  private volatile MethodCache methodCache = null;
+
+  /*
+   * Ids of the classes and interfaces that a type inherits from, kept until the parents or name of
+   * a type that has been read change, which moves every set of the compilation to a new version.
+   */
+  private volatile boolean hierarchyRead = false;
+  private volatile Ancestors ancestors = null;
+
+  /*
+   * Names built over and over during code generation, kept until the name of any type changes,
+   * which moves every cached name of the compilation to a new version. Names are only kept once
+   * they are settled: after types have been updated and outside of instantiation.
+   */
+  private volatile Names names = null;
+
+  /*
+   * New instantiations are added to the cache before their members are filled in (so that
+   * recursive references find them), so instantiating is serialized on this lock for when
+   * modules are generated concurrently.
+   */
+  protected static final Object INSTANTIATION_LOCK = new Object();
   private final Map<String, ImportInformation> importedItems = new HashMap<>();
 
-  private String hashName = null;
+  /*
+   * Name, hash code, and id used to hash and compare this type. Built when first needed and
+   * dropped whenever the name changes. Its fields are final, so a type shared between threads
+   * never exposes a half-built identity.
+   */
+  private Identity identity = null;
 
   /*
-   * Predefined system types needed for Shadow
+   * Fixed ids of the placeholder types below, which every compilation shares. Ids of all other
+   * types come from the table of the compilation they belong to.
    */
+  public static final int UNKNOWN_ID = 0;
+  public static final int NULL_ID = 1;
+  public static final int VAR_ID = 2;
+  public static final int RESERVED_IDS = 3;
+
+  private static final class Identity {
+    private final String name;
+    private final int hash;
+    private volatile int id = -1;
+
+    private Identity(String name) {
+      this.name = name;
+      this.hash = name.hashCode();
+    }
+  }
 
-  public static ClassType OBJECT = null;
-  public static ClassType CLASS = null; // meta class for holding normal :class variables
-  public static ClassType GENERIC_CLASS = null; // meta class for holding generic :class variables
-  public static ClassType ARRAY = null; // object representation of all array types
-  public static ClassType ARRAY_NULLABLE = null; // object representation of nullable array types
-
-  public static ClassType METHOD = null; // used to hold method references
-  public static ClassType METHOD_TABLE =
-      null; // really just a pointer for method tables, but we sometimes act like it is a class
-
-  public static ClassType ENUM = null; // weirdly, the base class for enum is not an EnumType
-  public static ClassType ATTRIBUTE = null; // similarly for attributes
-  public static ExceptionType EXCEPTION = null;
-  public static ExceptionType CAST_EXCEPTION = null;
-  public static ExceptionType INDEX_OUT_OF_BOUNDS_EXCEPTION = null;
-  public static ExceptionType ASSERT_EXCEPTION = null;
-  public static ExceptionType UNEXPECTED_NULL_EXCEPTION = null;
-  public static ExceptionType INTERFACE_CREATE_EXCEPTION = null;
-
-  public static ClassType BOOLEAN = null;
-  public static ClassType BYTE = null;
-  public static ClassType CODE = null;
-  public static ClassType DOUBLE = null;
-  public static ClassType FLOAT = null;
-  public static ClassType INT = null;
-  public static ClassType LONG = null;
-  public static ClassType SHORT = null;
-
-  public static ClassType UBYTE = null;
-  public static ClassType UINT = null;
-  public static ClassType ULONG = null;
-  public static ClassType USHORT = null;
-
-  public static ClassType STRING = null;
-  public static ClassType ADDRESS_MAP = null; // used for copying
-
-  public static ClassType POINTER = null;
-  public static ClassType THREAD = null;
-  public static SingletonType THREAD_CURRENT = null;
+  /*
+   * Placeholder types shared by all compilations. The predefined system types needed for Shadow,
+   * such as Object and String, belong to each compilation's CompilationContext.
+   */
 
   public static final ClassType UNKNOWN =
       new ClassType(
@@ -109,30 +128,6 @@ public abstract class Type implements Comparable<Type> {
       new VarType(); // VAR type used for placeholder for variables declared with var, until type is
   // known
 
-  /*
-   * Predefined interfaces needed for Shadow
-   */
-
-  public static InterfaceType CAN_COMPARE = null;
-  public static InterfaceType CAN_EQUAL = null;
-  public static InterfaceType CAN_INDEX = null;
-  public static InterfaceType CAN_INDEX_NULLABLE = null;
-  public static InterfaceType CAN_INDEX_STORE = null;
-  public static InterfaceType CAN_INDEX_STORE_NULLABLE = null;
-  public static InterfaceType CAN_ITERATE = null;
-  public static InterfaceType CAN_ITERATE_NULLABLE = null;
-  public static InterfaceType ITERATOR = null;
-  public static InterfaceType ITERATOR_NULLABLE = null;
-  public static InterfaceType NUMBER = null;
-  public static InterfaceType INTEGER = null;
-  public static InterfaceType CAN_ADD = null;
-  public static InterfaceType CAN_SUBTRACT = null;
-  public static InterfaceType CAN_MULTIPLY = null;
-  public static InterfaceType CAN_DIVIDE = null;
-  public static InterfaceType CAN_MODULUS = null;
-  public static InterfaceType CAN_NEGATE = null;
-  public static InterfaceType CAN_RUN = null;
-
   // constants used for options in toString()
   private static int bits = 0;
   public static final int NO_OPTIONS = 0;
@@ -143,24 +138,232 @@ public abstract class Type implements Comparable<Type> {
   public static final int MANGLE_IMPORT_METHOD = 1 << bits++;
   public static final int NO_NULLABLE = 1 << bits++;
 
-  private static class TypeArgumentCache {
-    public ModifiedType argument;
-    public Type instantiatedType;
-    public List<TypeArgumentCache> children;
+  // Options for the names that are cached
+  private static final int DISPLAY_NAME = 0;
+  private static final int MANGLED_NAME = 1;
+  private static final int MANGLED_NAME_WITH_ARGUMENTS = 2;
+  private static final int[] NAME_OPTIONS = {
+    PACKAGES | TYPE_PARAMETERS, MANGLE, MANGLE | TYPE_PARAMETERS
+  };
+
+  /* Names of a type for one version of all names, indexed by the order of NAME_OPTIONS. */
+  private static final class Names {
+    private final int version;
+    // Strings are immutable, so a race to fill a name in only builds it twice
+    private final String[] values = new String[NAME_OPTIONS.length];
+
+    private Names(int version) {
+      this.version = version;
+    }
+  }
 
-    public String toString() {
-      if (instantiatedType != null) return instantiatedType.toString();
-      else {
-        StringBuilder result =
-            new StringBuilder(argument == null ? "[ROOT]" : argument.getType().toString());
-        if (children != null) {
-          result.append(" children: ");
-          for (TypeArgumentCache cache : children)
-            result.append(cache.argument.getType().toString()).append(" ");
-        }
+  /* Ids of the ancestors of a type for one version of the hierarchy. */
+  private static final class Ancestors {
+    private final int version;
+    private final BitSet classes = new BitSet();
+    private final BitSet interfaces = new BitSet();
+    private boolean complete = true;
 
-        return result.toString();
-      }
+    private Ancestors(int version) {
+      this.version = version;
+    }
+  }
+
+  /* Primitive types, in the order of the rows and columns of PROMOTIONS. */
+  private enum Primitive {
+    BOOLEAN,
+    BYTE,
+    CODE,
+    SHORT,
+    INT,
+    LONG,
+    FLOAT,
+    DOUBLE,
+    UBYTE,
+    UINT,
+    ULONG,
+    USHORT;
+
+    private ClassType getType(CompilationContext compilation) {
+      return switch (this) {
+        case BOOLEAN -> compilation.BOOLEAN;
+        case BYTE -> compilation.BYTE;
+        case CODE -> compilation.CODE;
+        case SHORT -> compilation.SHORT;
+        case INT -> compilation.INT;
+        case LONG -> compilation.LONG;
+        case FLOAT -> compilation.FLOAT;
+        case DOUBLE -> compilation.DOUBLE;
+        case UBYTE -> compilation.UBYTE;
+        case UINT -> compilation.UINT;
+        case ULONG -> compilation.ULONG;
+        case USHORT -> compilation.USHORT;
+      };
+    }
+
+    private boolean isIntegral() {
+      return this != BOOLEAN && this != FLOAT && this != DOUBLE;
+    }
+
+    private boolean isFloating() {
+      return this == FLOAT || this == DOUBLE;
+    }
+  }
+
+  /* PROMOTIONS[from][to] is true if a value of the first type can be used as the second. */
+  private static final boolean[][] PROMOTIONS =
+      new boolean[Primitive.values().length][Primitive.values().length];
+
+  static {
+    promote(
+        Primitive.BYTE,
+        Primitive.SHORT,
+        Primitive.INT,
+        Primitive.LONG,
+        Primitive.FLOAT,
+        Primitive.DOUBLE);
+    promote( // just like uint?
+        Primitive.CODE,
+        Primitive.UINT,
+        Primitive.ULONG,
+        Primitive.LONG,
+        Primitive.FLOAT,
+        Primitive.DOUBLE);
+    promote(Primitive.SHORT, Primitive.INT, Primitive.LONG, Primitive.FLOAT, Primitive.DOUBLE);
+    promote(Primitive.INT, Primitive.LONG, Primitive.FLOAT, Primitive.DOUBLE);
+    promote(Primitive.LONG, Primitive.FLOAT, Primitive.DOUBLE);
+    promote(Primitive.FLOAT, Primitive.DOUBLE);
+    promote(
+        Primitive.UBYTE,
+        Primitive.CODE,
+        Primitive.USHORT,
+        Primitive.UINT,
+        Primitive.ULONG,
+        Primitive.SHORT,
+        Primitive.INT,
+        Primitive.LONG,
+        Primitive.FLOAT,
+        Primitive.DOUBLE);
+    promote(
+        Primitive.UINT,
+        Primitive.CODE,
+        Primitive.ULONG,
+        Primitive.LONG,
+        Primitive.FLOAT,
+        Primitive.DOUBLE);
+    promote(Primitive.ULONG, Primitive.FLOAT, Primitive.DOUBLE);
+    promote(
+        Primitive.USHORT,
+        Primitive.CODE,
+        Primitive.UINT,
+        Primitive.ULONG,
+        Primitive.INT,
+        Primitive.LONG,
+        Primitive.FLOAT,
+        Primitive.DOUBLE);
+  }
+
+  private static void promote(Primitive from, Primitive... to) {
+    for (Primitive primitive : to) PROMOTIONS[from.ordinal()][primitive.ordinal()] = true;
+  }
+
+  /* Overload sets by method name and resolved calls for one version of the method tables. */
+  private static final class MethodCache {
+    private final int version;
+    private final Map<String, List<MethodSignature>> overloads = new ConcurrentHashMap<>();
+    private final Map<Call, Resolution> resolutions = new ConcurrentHashMap<>();
+
+    private MethodCache(int version) {
+      this.version = version;
+    }
+  }
+
+  /*
+   * A call by name with the types and modifiers of its arguments, which is all that overload
+   * resolution looks at for ordinary argument types.
+   */
+  private static final class Call {
+    private final String methodName;
+    private final Type[] types;
+    private final int[] modifiers;
+    private final int hash;
+
+    private Call(String methodName, Type[] types, int[] modifiers) {
+      this.methodName = methodName;
+      this.types = types;
+      this.modifiers = modifiers;
+      int hash = 31 * methodName.hashCode() + Arrays.hashCode(types);
+      this.hash = 31 * hash + Arrays.hashCode(modifiers);
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (!(object instanceof Call other)) return false;
+
+      if (hash != other.hash
+          || !methodName.equals(other.methodName)
+          || !Arrays.equals(modifiers, other.modifiers)
+          || types.length != other.types.length) return false;
+
+      for (int i = 0; i < types.length; ++i)
+        if (types[i] != other.types[i]
+            && !(types[i].getClass() == other.types[i].getClass()
+                && types[i].equals(other.types[i])
+                && types[i].getHashName().equals(other.types[i].getHashName()))) return false;
+
+      return true;
+    }
+  }
+
+  /* Outcome of overload resolution: the chosen method, or why there isn't one. */
+  private static final class Resolution {
+    private final MethodSignature signature;
+    private final boolean ambiguous;
+
+    private Resolution(MethodSignature signature, boolean ambiguous) {
+      this.signature = signature;
+      this.ambiguous = ambiguous;
+    }
+  }
+
+  /*
+   * Type arguments of an instantiation. Hashing uses only the names of the argument types, which
+   * never change, since the full names of types can change while recursive instantiations are
+   * being built.
+   */
+  private static final class InstantiationKey {
+    private final Type[] types;
+    private final int[] modifiers;
+    private final int hash;
+
+    private InstantiationKey(Type[] types, int[] modifiers) {
+      this.types = types;
+      this.modifiers = modifiers;
+      int hash = Arrays.hashCode(modifiers);
+      for (Type type : types) hash = 31 * hash + Objects.hashCode(type.getTypeName());
+      this.hash = hash;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+
+    @Override
+    public boolean equals(Object object) {
+      if (!(object instanceof InstantiationKey other)) return false;
+
+      if (hash != other.hash || !Arrays.equals(modifiers, other.modifiers)) return false;
+
+      for (int i = 0; i < types.length; ++i)
+        if (!other.types[i].equals(types[i])) return false;
+
+      return true;
     }
   }
 
@@ -192,160 +395,97 @@ public abstract class Type implements Comparable<Type> {
     }
   }
 
-  private static List<ModifiedType> getArguments(
+  private static InstantiationKey getKey(
       Type type, List<ModifiedType> values, List<ModifiedType> replacements)
       throws InstantiationException {
-    List<ModifiedType> arguments = new ArrayList<>();
     SequenceType typeParameters = type.getTypeParameters();
+    Type[] types = new Type[typeParameters.size()];
+    int[] modifiers = new int[typeParameters.size()];
+    int count = 0;
 
     for (ModifiedType parameter : typeParameters) {
+      ModifiedType argument = null;
       Type parameterType = parameter.getType();
       if (parameterType instanceof TypeParameter) {
-        boolean found = false;
-        for (int i = 0; i < values.size() && !found; ++i) {
-          if (values.get(i).getType().equals(parameterType)) {
-            arguments.add(replacements.get(i));
-            found = true;
-          }
-        }
+        for (int i = 0; i < values.size() && argument == null; ++i)
+          if (values.get(i).getType().equals(parameterType)) argument = replacements.get(i);
       } else if (parameterType.isParameterized())
-        arguments.add(
+        argument =
             new SimpleModifiedType(
                 parameterType.replace(parameterType.getTypeParameters(), replacements),
-                parameter.getModifiers()));
-      else arguments.add(parameter);
+                parameter.getModifiers());
+      else argument = parameter;
+
+      if (argument != null) {
+        types[count] = argument.getType();
+        modifiers[count] = argument.getModifiers().getModifiers();
+        ++count;
+      }
     }
 
-    return arguments;
+    if (count < types.length) {
+      types = Arrays.copyOf(types, count);
+      modifiers = Arrays.copyOf(modifiers, count);
+    }
+
+    return new InstantiationKey(types, modifiers);
   }
 
   public Type getTypeWithoutTypeArguments() {
     return typeWithoutTypeArguments;
   }
 
+  /**
+   * Finds an instantiation of this generic type made earlier. Must be called while holding {@link
+   * #INSTANTIATION_LOCK}.
+   *
+   * @param type type being instantiated, which may already be partly instantiated
+   * @param values type parameters being replaced
+   * @param replacements type arguments replacing them
+   * @return instantiation, or <code>null</code> if there isn't one yet
+   * @throws InstantiationException thrown if type arguments cannot be instantiated
+   */
   public Type getInstantiation(
       Type type, List<ModifiedType> values, List<ModifiedType> replacements)
       throws InstantiationException {
-    if (type.isParameterized()) {
-      List<ModifiedType> arguments = getArguments(type, values, replacements);
-      TypeArgumentCache types = instantiatedTypes;
-
-      for (ModifiedType argument : arguments) {
-        if (types.children == null) return null;
-
-        boolean found = false;
-        for (int i = 0; !found && i < types.children.size(); ++i) {
-          TypeArgumentCache child = types.children.get(i);
-
-          if (child.argument != null
-              && child.argument.getType().equals(argument.getType())
-              && child.argument.getModifiers().equals(argument.getModifiers())) {
-            types = child;
-            found = true;
-          }
-        }
-
-        if (!found) return null;
-      }
-
-      return types.instantiatedType;
-    }
+    if (type.isParameterized())
+      return instantiatedTypes.get(getKey(type, values, replacements));
 
     return type;
   }
 
+  /**
+   * Records an instantiation of this generic type. Must be called while holding {@link
+   * #INSTANTIATION_LOCK}.
+   *
+   * @param type type being instantiated, which may already be partly instantiated
+   * @param values type parameters being replaced
+   * @param replacements type arguments replacing them
+   * @param newType the instantiation
+   * @throws InstantiationException thrown if type arguments cannot be instantiated
+   */
   public void addInstantiation(
       Type type, List<ModifiedType> values, List<ModifiedType> replacements, Type newType)
       throws InstantiationException {
-    List<ModifiedType> arguments = getArguments(type, values, replacements);
-    TypeArgumentCache types = instantiatedTypes;
-
-    for (ModifiedType argument : arguments) {
-      if (types.children == null) types.children = new ArrayList<>();
-
-      boolean found = false;
-      for (int i = 0; !found && i < types.children.size(); ++i) {
-        TypeArgumentCache child = types.children.get(i);
-
-        if (child.argument != null
-            && child.argument.getType().equals(argument.getType())
-            && child.argument.getModifiers().equals(argument.getModifiers())) {
-          types = child;
-          found = true;
-        }
-      }
+    instantiatedTypes.put(getKey(type, values, replacements), newType);
+    CompilationContext.current().getStats().countInstantiation(toString(PACKAGES));
+  }
 
-      if (!found) {
-        TypeArgumentCache newChild = new TypeArgumentCache();
-        newChild.argument = argument;
-        types.children.add(newChild);
-        types = newChild;
-      }
+  /**
+   * Gets the number of distinct instantiations made of this generic type.
+   *
+   * @return number of instantiations
+   */
+  public int getInstantiationCount() {
+    synchronized (INSTANTIATION_LOCK) {
+      return instantiatedTypes.size();
     }
-
-    types.instantiatedType = newType;
   }
 
   // used to clear out types between runs of the JUnit tests
   // otherwise, types can become mixed between two different runs of the type checker
   public static void clearTypes() {
-    OBJECT = null;
-    METHOD = null;
-    METHOD_TABLE = null;
-    CAST_EXCEPTION = null;
-    INDEX_OUT_OF_BOUNDS_EXCEPTION = null;
-    UNEXPECTED_NULL_EXCEPTION = null;
-    INTERFACE_CREATE_EXCEPTION = null;
-    ASSERT_EXCEPTION = null;
-    CLASS = null;
-    ARRAY = null;
-    ARRAY_NULLABLE = null;
-    ENUM = null;
-    ATTRIBUTE = null;
-    EXCEPTION = null;
-    GENERIC_CLASS = null;
-    BOOLEAN = null;
-    BYTE = null;
-    CODE = null;
-    DOUBLE = null;
-    FLOAT = null;
-    INT = null;
-    LONG = null;
-    SHORT = null;
-    UBYTE = null;
-    UINT = null;
-    ULONG = null;
-    USHORT = null;
-    STRING = null;
-    ADDRESS_MAP = null;
-    CAN_COMPARE = null;
-    CAN_EQUAL = null;
-    CAN_INDEX = null;
-    CAN_INDEX_NULLABLE = null;
-    CAN_INDEX_STORE = null;
-    CAN_INDEX_STORE_NULLABLE = null;
-    CAN_ITERATE = null;
-    CAN_ITERATE_NULLABLE = null;
-    ITERATOR = null;
-    ITERATOR_NULLABLE = null;
-    NUMBER = null;
-    INTEGER = null;
-    CAN_ADD = null;
-    CAN_SUBTRACT = null;
-    CAN_MULTIPLY = null;
-    CAN_DIVIDE = null;
-    CAN_MODULUS = null;
-    CAN_NEGATE = null;
-
-    POINTER = null;
-    CAN_RUN = null;
-    THREAD = null;
-
-    THREAD_CURRENT = null;
-
-    exceptionType = null;
-
-    AttributeType.clearTypes();
+    CompilationContext.current().clearTypes();
   }
 
   /*
@@ -385,18 +525,112 @@ public abstract class Type implements Comparable<Type> {
     return typeName;
   }
 
+  private Identity getIdentity() {
+    Identity value = identity;
+    if (value == null) {
+      value = new Identity(toString(Type.PACKAGES | Type.TYPE_PARAMETERS | Type.MANGLE));
+      identity = value;
+    }
+
+    return value;
+  }
+
   public final String getHashName() {
-    if (hashName == null) hashName = toString(Type.PACKAGES | Type.TYPE_PARAMETERS | Type.MANGLE);
+    return getIdentity().name;
+  }
 
-    return hashName;
+  /**
+   * Gets a small integer that identifies this type by its hash name, suitable for indexing a
+   * {@link java.util.BitSet} or an array. Types with the same hash name have the same id within
+   * a compilation.
+   *
+   * @return id of the type
+   */
+  public final int getId() {
+    if (this == UNKNOWN) return UNKNOWN_ID;
+    if (this == NULL) return NULL_ID;
+    if (this == VAR) return VAR_ID;
+
+    Identity value = getIdentity();
+    int id = value.id;
+    if (id < 0) {
+      id = CompilationContext.current().getTypeId(value.name);
+      value.id = id;
+    }
+
+    return id;
   }
 
   protected final void invalidateHashName() {
-    hashName = null;
+    hierarchyChanged(); // ids of ancestors come from their names
+    identity = null;
+    names = null;
+    // Names of other types, such as instantiations, can include this one
+    if (areNamesSettled()) CompilationContext.current().invalidateNames();
   }
 
   public final String toString() {
-    return toString(PACKAGES | TYPE_PARAMETERS); // no bounds
+    return getName(DISPLAY_NAME); // no bounds
+  }
+
+  /**
+   * Gets the mangled name of this type without type arguments, as used for LLVM types and the
+   * symbols shared by all instantiations. Equivalent to <code>toString(Type.MANGLE)</code>.
+   *
+   * @return mangled name
+   */
+  public final String getMangledName() {
+    return getName(MANGLED_NAME);
+  }
+
+  /**
+   * Gets the mangled name of this type with its type arguments, as used for the symbols of a
+   * single instantiation. Equivalent to <code>toString(Type.MANGLE | Type.TYPE_PARAMETERS)
+   * </code>.
+   *
+   * @return mangled name with type arguments
+   */
+  public final String getMangledNameWithArguments() {
+    return getName(MANGLED_NAME_WITH_ARGUMENTS);
+  }
+
+  /*
+   * Checks whether names can be kept. Until types are updated, names change without notice, and
+   * the types made while instantiating are not finished until the lock is released.
+   */
+  static boolean areNamesSettled() {
+    return CompilationContext.current().areTypesUpdated() && !Thread.holdsLock(INSTANTIATION_LOCK);
+  }
+
+  static int getNameVersion() {
+    return CompilationContext.current().getNameVersion();
+  }
+
+  /**
+   * Invalidates all names cached for the current compilation. Needed after types are updated, since
+   * names can change without notice before then.
+   */
+  public static void invalidateNames() {
+    CompilationContext.current().invalidateNames();
+  }
+
+  private String getName(int index) {
+    if (!areNamesSettled()) return toString(NAME_OPTIONS[index]);
+
+    int version = getNameVersion();
+    Names value = names;
+    if (value == null || value.version != version) {
+      value = new Names(version);
+      names = value;
+    }
+
+    String name = value.values[index];
+    if (name == null) {
+      name = toString(NAME_OPTIONS[index]);
+      value.values[index] = name;
+    }
+
+    return name;
   }
 
   public String toString(int options) {
@@ -467,86 +701,79 @@ public abstract class Type implements Comparable<Type> {
   }
 
   protected boolean isNumericalSubtype(Type t) {
-    if (this.equals(BYTE)) {
-      return t.equals(SHORT)
-          || t.equals(INT)
-          || t.equals(LONG)
-          || t.equals(FLOAT)
-          || t.equals(DOUBLE);
-    } else if (this.equals(CODE)) // just like uint?
-    {
-      return t.equals(UINT)
-          || t.equals(ULONG)
-          || t.equals(LONG)
-          || t.equals(FLOAT)
-          || t.equals(DOUBLE);
-    } else if (this.equals(SHORT)) {
-      return t.equals(INT) || t.equals(LONG) || t.equals(FLOAT) || t.equals(DOUBLE);
-    } else if (this.equals(INT)) {
-      return t.equals(LONG) || t.equals(FLOAT) || t.equals(DOUBLE);
-    } else if (this.equals(LONG)) {
-      return t.equals(FLOAT) || t.equals(DOUBLE);
-    } else if (this.equals(FLOAT)) {
-      return t.equals(DOUBLE);
-    } else if (this.equals(UBYTE)) {
-      return t.equals(CODE)
-          || t.equals(USHORT)
-          || t.equals(UINT)
-          || t.equals(ULONG)
-          || t.equals(SHORT)
-          || t.equals(INT)
-          || t.equals(LONG)
-          || t.equals(FLOAT)
-          || t.equals(DOUBLE);
-    } else if (this.equals(UINT)) {
-      return t.equals(CODE)
-          || t.equals(ULONG)
-          || t.equals(LONG)
-          || t.equals(FLOAT)
-          || t.equals(DOUBLE);
-      // return t.equals(ULONG) || t.equals(LONG) || t.equals(FLOAT) || t.equals(DOUBLE);
-    } else if (this.equals(ULONG)) {
-      return t.equals(FLOAT) || t.equals(DOUBLE);
-    } else if (this.equals(USHORT)) {
-      return t.equals(CODE)
-          || t.equals(UINT)
-          || t.equals(ULONG)
-          || t.equals(INT)
-          || t.equals(LONG)
-          || t.equals(FLOAT)
-          || t.equals(DOUBLE);
-    } else return false;
+    Primitive from = getPrimitive();
+    Primitive to = t.getPrimitive();
+    return from != null && to != null && PROMOTIONS[from.ordinal()][to.ordinal()];
+  }
+
+  /*
+   * Finds which primitive type this is, if any. The name narrows the choice to a single type, so
+   * only one comparison is needed.
+   */
+  private Primitive getPrimitive() {
+    if (getTypeName() == null) return null;
+
+    Primitive primitive =
+        switch (getTypeName()) {
+          case "boolean" -> Primitive.BOOLEAN;
+          case "byte" -> Primitive.BYTE;
+          case "code" -> Primitive.CODE;
+          case "short" -> Primitive.SHORT;
+          case "int" -> Primitive.INT;
+          case "long" -> Primitive.LONG;
+          case "float" -> Primitive.FLOAT;
+          case "double" -> Primitive.DOUBLE;
+          case "ubyte" -> Primitive.UBYTE;
+          case "uint" -> Primitive.UINT;
+          case "ulong" -> Primitive.ULONG;
+          case "ushort" -> Primitive.USHORT;
+          default -> null;
+        };
+
+    if (primitive != null && equals(primitive.getType(CompilationContext.current())))
+      return primitive;
+
+    return null;
   }
 
   public static int getWidth(ModifiedType type) {
+    CompilationContext compilation = CompilationContext.current();
     if (type.getModifiers().isNullable())
-      return OBJECT.getWidth(); // nullable makes a primitive type a reference
+      return compilation.OBJECT.getWidth(); // nullable makes a primitive type a reference
     return type.getType().getWidth();
   }
 
   public int getWidth() {
-    if (this == NULL) return OBJECT.getWidth();
-    if (this.equals(BYTE) || this.equals(UBYTE) || this.equals(BOOLEAN)) return 1;
-    else if (this.equals(SHORT) || this.equals(USHORT)) return 2;
-    else if (this.equals(INT) || this.equals(UINT) || this.equals(CODE) || this.equals(FLOAT))
-      return 4;
-    else if (this.equals(LONG) || this.equals(ULONG) || this.equals(DOUBLE)) return 8;
+    CompilationContext compilation = CompilationContext.current();
+    if (this == NULL) return compilation.OBJECT.getWidth();
+    if (this.equals(compilation.BYTE)
+        || this.equals(compilation.UBYTE)
+        || this.equals(compilation.BOOLEAN)) return 1;
+    else if (this.equals(compilation.SHORT) || this.equals(compilation.USHORT)) return 2;
+    else if (this.equals(compilation.INT)
+        || this.equals(compilation.UINT)
+        || this.equals(compilation.CODE)
+        || this.equals(compilation.FLOAT)) return 4;
+    else if (this.equals(compilation.LONG)
+        || this.equals(compilation.ULONG)
+        || this.equals(compilation.DOUBLE)) return 8;
 
     return 6; // for objects?  So that they're always considered between 4 and 8 bytes and not equal
     // to any primitive?
   }
 
   public boolean isSimpleReference() {
-    return getWidth() == OBJECT.getWidth();
+    CompilationContext compilation = CompilationContext.current();
+    return getWidth() == compilation.OBJECT.getWidth();
   }
 
   @Override
   public final int hashCode() {
-    return getHashName().hashCode();
+    return getIdentity().hash;
   }
 
   public boolean isString() {
-    return this.equals(Type.STRING);
+    return this.equals(CompilationContext.current().STRING);
   }
 
   public boolean hasOuter() {
@@ -626,59 +853,45 @@ public abstract class Type implements Comparable<Type> {
 
   // For math
   public final boolean isNumerical() {
-    return isPrimitive() && !this.equals(BOOLEAN); // Includes CODE
+    Primitive primitive = getPrimitive();
+    return primitive != null && primitive != Primitive.BOOLEAN; // Includes CODE
   }
 
   // For cases where integers are required (bitwise operations, array bounds,
   // switch statements, etc.)
   public final boolean isIntegral() {
-    return this.equals(BYTE)
-        || this.equals(CODE)
-        || this.equals(SHORT)
-        || this.equals(INT)
-        || this.equals(LONG)
-        || this.equals(UBYTE)
-        || this.equals(UINT)
-        || this.equals(ULONG)
-        || this.equals(USHORT);
+    Primitive primitive = getPrimitive();
+    return primitive != null && primitive.isIntegral();
   }
 
   public final boolean isFloating() {
-    return this.equals(FLOAT) || this.equals(DOUBLE);
+    Primitive primitive = getPrimitive();
+    return primitive != null && primitive.isFloating();
   }
 
   public final boolean isPrimitive() {
-    return this.equals(BOOLEAN)
-        || this.equals(BYTE)
-        || this.equals(CODE)
-        || this.equals(SHORT)
-        || this.equals(INT)
-        || this.equals(LONG)
-        || this.equals(FLOAT)
-        || this.equals(DOUBLE)
-        || this.equals(UBYTE)
-        || this.equals(UINT)
-        || this.equals(ULONG)
-        || this.equals(USHORT);
+    return getPrimitive() != null;
   }
 
   public final boolean isSigned() {
-    return this.equals(BOOLEAN)
-        || this.equals(BYTE)
+    CompilationContext compilation = CompilationContext.current();
+    return this.equals(compilation.BOOLEAN)
+        || this.equals(compilation.BYTE)
         ||
         // this.equals(CODE) ||
-        this.equals(SHORT)
-        || this.equals(INT)
-        || this.equals(LONG);
+        this.equals(compilation.SHORT)
+        || this.equals(compilation.INT)
+        || this.equals(compilation.LONG);
   }
 
   public final boolean isUnsigned() {
-    return this.equals(UBYTE)
-        || this.equals(USHORT)
-        || this.equals(CODE)
+    CompilationContext compilation = CompilationContext.current();
+    return this.equals(compilation.UBYTE)
+        || this.equals(compilation.USHORT)
+        || this.equals(compilation.CODE)
         || // right?
-        this.equals(UINT)
-        || this.equals(ULONG);
+        this.equals(compilation.UINT)
+        || this.equals(compilation.ULONG);
   }
 
   public final boolean isImmutable() {
@@ -706,20 +919,20 @@ public abstract class Type implements Comparable<Type> {
               .getMatchingMethod(
                   rightType.getTypeName(), methodType.getParameterTypes(), errors);
         } else
-          ErrorReporter.addError(
-              errors,
-              Error.INVALID_ASSIGNMENT,
-              "Type " + rightType + " is not a subtype of " + this,
-              rightType,
-              this);
+          ErrorReporter.addFormattedError(
+              errors, Error.INVALID_ASSIGNMENT, "Type %s is not a subtype of %s", rightType, this);
       }
 
       return accepts;
     } else if (assignmentType.equals(AssignmentKind.CAT)) {
       accepts = isString();
       if (!accepts)
-        ErrorReporter.addError(
-            errors, Error.INVALID_ASSIGNMENT, "Type " + this + " is not type " + Type.STRING, this);
+        ErrorReporter.addFormattedError(
+            errors,
+            Error.INVALID_ASSIGNMENT,
+            "Type %s is not type %s",
+            this,
+            CompilationContext.current().STRING);
 
       return accepts;
     }
@@ -730,19 +943,19 @@ public abstract class Type implements Comparable<Type> {
 
     switch (assignmentType) {
       case PLUS:
-        interfaceType = Type.CAN_ADD;
+        interfaceType = CompilationContext.current().CAN_ADD;
         break;
       case MINUS:
-        interfaceType = Type.CAN_SUBTRACT;
+        interfaceType = CompilationContext.current().CAN_SUBTRACT;
         break;
       case STAR:
-        interfaceType = Type.CAN_MULTIPLY;
+        interfaceType = CompilationContext.current().CAN_MULTIPLY;
         break;
       case SLASH:
-        interfaceType = Type.CAN_DIVIDE;
+        interfaceType = CompilationContext.current().CAN_DIVIDE;
         break;
       case MOD:
-        interfaceType = Type.CAN_MODULUS;
+        interfaceType = CompilationContext.current().CAN_MODULUS;
         break;
       case AND:
       case OR:
@@ -751,7 +964,7 @@ public abstract class Type implements Comparable<Type> {
       case RIGHT_SHIFT:
       case LEFT_ROTATE:
       case RIGHT_ROTATE:
-        interfaceType = Type.INTEGER;
+        interfaceType = CompilationContext.current().INTEGER;
         break;
       default:
         return false;
@@ -764,40 +977,32 @@ public abstract class Type implements Comparable<Type> {
         Type result = signature.getReturnTypes().getType(0);
         accepts = result.isSubtype(this);
         if (!accepts)
-          ErrorReporter.addError(
-              errors,
-              Error.INVALID_ASSIGNMENT,
-              "Type " + result + " is not a subtype of " + this,
-              result,
-              this);
+          ErrorReporter.addFormattedError(
+              errors, Error.INVALID_ASSIGNMENT, "Type %s is not a subtype of %s", result, this);
         return accepts;
       } else return false;
     } else {
-      ErrorReporter.addError(
+      ErrorReporter.addFormattedError(
           errors,
           Error.INVALID_TYPE,
-          "Cannot apply operator "
-              + operator
-              + " to type "
-              + this
-              + " which does not implement interface "
-              + interfaceType,
-          this);
+          "Cannot apply operator %s to type %s which does not implement interface %s",
+          operator,
+          this,
+          interfaceType);
       return false;
     }
   }
 
+  // Without an error list, failed lookups create no errors at all
   public MethodSignature getMatchingMethod(
       String methodName, SequenceType arguments) {
-    List<ShadowException> errors = new ArrayList<>();
-    return getMatchingMethod(methodName, arguments, errors);
+    return getMatchingMethod(methodName, arguments, null, null);
   }
 
 
   public MethodSignature getMatchingMethod(
           String methodName, SequenceType arguments, SequenceType typeArguments) {
-    List<ShadowException> errors = new ArrayList<>();
-    return getMatchingMethod(methodName, arguments, typeArguments, errors);
+    return getMatchingMethod(methodName, arguments, typeArguments, null);
   }
 
   public MethodSignature getMatchingMethod(
@@ -814,10 +1019,111 @@ public abstract class Type implements Comparable<Type> {
           SequenceType arguments,
           SequenceType typeArguments,
           List<ShadowException> errors) {
+    Resolution resolution;
+    Call call = typeArguments == null ? getCall(methodName, arguments) : null;
+    if (call != null) {
+      MethodCache cache = getMethodCache();
+      resolution = cache.resolutions.get(call);
+      if (resolution == null) {
+        resolution = resolve(methodName, arguments, null);
+        cache.resolutions.putIfAbsent(call, resolution);
+      }
+    } else resolution = resolve(methodName, arguments, typeArguments);
+
+    if (resolution.ambiguous)
+      ErrorReporter.addFormattedError(
+          errors,
+          Error.INVALID_ARGUMENTS,
+          "Ambiguous reference to %s with arguments %s",
+          methodName,
+          arguments);
+    else if (resolution.signature == null)
+      ErrorReporter.addFormattedError(
+          errors,
+          Error.INVALID_METHOD,
+          "No definition of %s with arguments %s in this context",
+          methodName,
+          arguments);
+
+    return resolution.signature;
+  }
+
+  /*
+   * Gets the key for caching the resolution of a call, or null if the arguments include types
+   * that resolution treats specially, such as properties, which are changed by being checked, and
+   * unbound methods, which are resolved against the parameters.
+   */
+  private static Call getCall(String methodName, SequenceType arguments) {
+    Type[] types = new Type[arguments.size()];
+    int[] modifiers = new int[arguments.size() * 2];
+    for (int i = 0; i < types.length; ++i) {
+      ModifiedType argument = arguments.get(i);
+      Type type = argument.getType();
+      if (type == null
+          || type instanceof PropertyType
+          || type instanceof MethodType
+          || type instanceof UnboundMethodType
+          || type instanceof MethodReferenceType
+          || type instanceof SequenceType) return null;
+
+      types[i] = type;
+      modifiers[2 * i] = argument.getModifiers().getModifiers();
+      modifiers[2 * i + 1] = type.getModifiers().getModifiers();
+    }
+
+    return new Call(methodName, types, modifiers);
+  }
+
+  private MethodCache getMethodCache() {
+    int version = CompilationContext.current().getMethodVersion();
+    MethodCache cache = methodCache;
+    if (cache == null || cache.version != version) {
+      cache = new MethodCache(version);
+      methodCache = cache;
+    }
+
+    return cache;
+  }
+
+  /*
+   * Gets every overload visible through this type, in the order of
+   * recursivelyGetMethodOverloads(), without rebuilding the list for every call.
+   */
+  private List<MethodSignature> getCachedMethodOverloads(String methodName) {
+    MethodCache cache = getMethodCache();
+    List<MethodSignature> overloads = cache.overloads.get(methodName);
+    if (overloads == null) {
+      overloads = Collections.unmodifiableList(recursivelyGetMethodOverloads(methodName));
+      cache.overloads.putIfAbsent(methodName, overloads);
+    }
+
+    return overloads;
+  }
+
+  /* Records that caches depend on the methods and supertypes of this type. */
+  protected final void methodsRead() {
+    if (!methodsRead) methodsRead = true;
+  }
+
+  /* Invalidates cached overloads and resolutions if they could depend on this type. */
+  protected final void methodsChanged() {
+    if (methodsRead) CompilationContext.current().invalidateMethodCaches();
+  }
+
+  /**
+   * Invalidates all overload sets and method resolutions cached for the current compilation. Needed
+   * after method signatures are changed in place, as when their types are updated.
+   */
+  public static void invalidateMethodCaches() {
+    CompilationContext.current().invalidateMethodCaches();
+  }
+
+  private Resolution resolve(
+      String methodName, SequenceType arguments, SequenceType typeArguments) {
     boolean hasTypeArguments = typeArguments != null;
     MethodSignature candidate = null;
 
-    for (MethodSignature signature : recursivelyGetMethodOverloads(methodName)) {
+    for (MethodSignature signature : getCachedMethodOverloads(methodName)) {
       MethodType methodType = signature.getMethodType();
 
       if (methodType.isParameterized()) {
@@ -842,25 +1148,12 @@ public abstract class Type implements Comparable<Type> {
                 || (signature.getParameterTypes().isSubtype(candidate.getParameterTypes())
                 && !candidate.getParameterTypes().isSubtype(signature.getParameterTypes())))
           candidate = signature;
-        else if (!candidate.getParameterTypes().isSubtype(signature.getParameterTypes())) {
-          ErrorReporter.addError(
-                  errors,
-                  Error.INVALID_ARGUMENTS,
-                  "Ambiguous reference to " + methodName + " with arguments " + arguments,
-                  arguments);
-          return null;
-        }
+        else if (!candidate.getParameterTypes().isSubtype(signature.getParameterTypes()))
+          return new Resolution(null, true);
       }
     }
 
-    if (candidate == null)
-      ErrorReporter.addError(
-              errors,
-              Error.INVALID_METHOD,
-              "No definition of " + methodName + " with arguments " + arguments + " in this context",
-              arguments);
-
-    return candidate;
+    return new Resolution(candidate, false);
   }
 
 
@@ -1069,6 +1362,7 @@ public abstract class Type implements Comparable<Type> {
   }
 
   public void addMethod(MethodSignature signature) {
+    methodsChanged();
     // makes copy so that changing the outer type doesn't cause a problem
     signature.setOuter(this);
     String name = signature.getSymbol();
@@ -1092,6 +1386,7 @@ public abstract class Type implements Comparable<Type> {
   }
 
   public List<MethodSignature> getMethodOverloads(String methodName) {
+    methodsRead();
     List<MethodSignature> signatures = methodTable.get(methodName);
     if (signatures == null) return new ArrayList<>();
     else return signatures;
@@ -1102,7 +1397,7 @@ public abstract class Type implements Comparable<Type> {
       if (!list.contains(signature)) list.add(signature);
   }
 
-  private Map<MethodSignature, Integer> methodIndexCache;
+  private volatile Map<MethodSignature, Integer> methodIndexCache;
 
   public int getMethodIndex(MethodSignature method) {
     // Lazily load cache
@@ -1297,7 +1592,7 @@ public abstract class Type implements Comparable<Type> {
 
         usedTypes.add(type);
 
-        // Covers Type.ARRAY and all recursive base types
+        // Covers CompilationContext.current().ARRAY and all recursive base types
         // automatically does the right thing for NullableArray
         // must do before adding to usedTypes
         addUsedType(arrayType.convertToGeneric());
@@ -1388,11 +1683,90 @@ public abstract class Type implements Comparable<Type> {
     return false;
   }
 
+  /*
+   * Gets the ids of all ancestors, finding them again if the hierarchy has changed. Returns null
+   * if types have not been updated, since names can still change, or if a parent has not been
+   * instantiated, since its name is not the name of its instantiation.
+   */
+  private Ancestors getAncestors() {
+    if (!CompilationContext.current().areTypesUpdated()) return null;
+
+    int version = CompilationContext.current().getHierarchyVersion();
+    Ancestors value = ancestors;
+    if (value == null || value.version != version) {
+      value = new Ancestors(version);
+      hierarchyRead = true;
+      Type current = this;
+      while (current != null && value.complete) {
+        if (current instanceof UninstantiatedType) value.complete = false;
+        else if (current != this) {
+          current.hierarchyRead = true;
+          value.classes.set(current.getId());
+        }
+        for (InterfaceType interfaceType : current.getInterfaces())
+          addInterface(interfaceType, value);
+
+        current = current instanceof ClassType classType ? classType.getExtendType() : null;
+      }
+      ancestors = value;
+    }
+
+    return value.complete ? value : null;
+  }
+
+  private static void addInterface(Type interfaceType, Ancestors ancestors) {
+    if (interfaceType instanceof UninstantiatedType) ancestors.complete = false;
+    else if (!ancestors.interfaces.get(interfaceType.getId())) {
+      interfaceType.hierarchyRead = true;
+      ancestors.interfaces.set(interfaceType.getId());
+      for (InterfaceType parent : interfaceType.getInterfaces()) addInterface(parent, ancestors);
+    }
+  }
+
+  /**
+   * Gets the ids of every class that this type extends, directly or indirectly, so that ancestors
+   * can be found without walking parents. The type itself is not included.
+   *
+   * @return ids of ancestor classes, which must not be changed, or <code>null</code> if parents
+   *     have to be walked instead
+   */
+  protected final BitSet getAncestorClasses() {
+    Ancestors value = getAncestors();
+    return value == null ? null : value.classes;
+  }
+
+  /**
+   * Gets the ids of every interface that this type or any of its parents implements or extends,
+   * directly or indirectly. The type itself is not included.
+   *
+   * @return ids of ancestor interfaces, which must not be changed, or <code>null</code> if parents
+   *     have to be walked instead
+   */
+  protected final BitSet getAncestorInterfaces() {
+    Ancestors value = getAncestors();
+    return value == null ? null : value.interfaces;
+  }
+
+  /* Invalidates ancestor ids if they could depend on this type. */
+  protected final void hierarchyChanged() {
+    if (hierarchyRead) CompilationContext.current().invalidateHierarchies();
+  }
+
+  /**
+   * Invalidates all ancestor ids cached for the current compilation. Needed after parents are
+   * changed directly in the lists returned by {@link #getInterfaces()}.
+   */
+  public static void invalidateHierarchies() {
+    CompilationContext.current().invalidateHierarchies();
+  }
+
   public boolean hasUninstantiatedInterface(InterfaceType type) {
     return false;
   }
 
   public void addInterface(InterfaceType implementType) {
+    methodsChanged();
+    hierarchyChanged();
     interfaces.add(implementType);
   }
 
@@ -1401,6 +1775,8 @@ public abstract class Type implements Comparable<Type> {
   }
 
   public void setInterfaces(ArrayList<InterfaceType> values) {
+    methodsChanged();
+    hierarchyChanged();
     interfaces = values;
   }
 
@@ -1462,6 +1838,8 @@ public abstract class Type implements Comparable<Type> {
 
   @Override
   public final int compareTo(Type other) {
+    if (this == other) return 0;
+
     return getHashName().compareTo(other.getHashName());
   }
 
@@ -1490,14 +1868,7 @@ public abstract class Type implements Comparable<Type> {
     this.documentation = documentation;
   }
 
-  private static SequenceType exceptionType = null;
-
   public static SequenceType getExceptionType() {
-    if (exceptionType == null) {
-      exceptionType = new SequenceType();
-      exceptionType.add(new SimpleModifiedType(new PointerType()));
-      exceptionType.add(new SimpleModifiedType(Type.INT));
-    }
-    return exceptionType;
+    return CompilationContext.current().getExceptionType();
   }
 }
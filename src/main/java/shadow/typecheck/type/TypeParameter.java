@@ -1,5 +1,7 @@
 package shadow.typecheck.type;
 
+import shadow.CompilationContext;
+
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -12,13 +14,15 @@ public class TypeParameter extends Type {
 
   public TypeParameter(String typeName, Type outer) {
     super(typeName, new Modifiers(), null, outer);
-    classBound = Type.OBJECT;
+    classBound = CompilationContext.current().OBJECT;
   }
 
   public void addBound(Type type) {
     // only one class at a time
-    if (type instanceof ClassType) classBound = ((ClassType) type);
-    else addInterface((InterfaceType) type);
+    if (type instanceof ClassType) {
+      methodsChanged();
+      classBound = ((ClassType) type);
+    } else addInterface((InterfaceType) type);
     invalidateHashName();
   }
 
@@ -53,7 +57,7 @@ public class TypeParameter extends Type {
   }
 
   public boolean isSubtype(Type type) {
-    if (equals(type) || type == Type.OBJECT) return true;
+    if (equals(type) || type == CompilationContext.current().OBJECT) return true;
 
     // one type parameter is a subtype of another only if they're identical
     if (type instanceof TypeParameter) return false;
@@ -108,6 +112,7 @@ public class TypeParameter extends Type {
     if (classBound instanceof UninstantiatedClassType)
       classBound = ((UninstantiatedClassType) classBound).instantiate();
 
+    methodsChanged();
     invalidateHashName();
   }
 
@@ -125,7 +130,7 @@ public class TypeParameter extends Type {
         boolean first = true;
         List<InterfaceType> interfaces = getInterfaces();
 
-        if (classBound != Type.OBJECT) {
+        if (classBound != CompilationContext.current().OBJECT) {
           builder.append(" is ");
           builder.append(classBound.toString(options & ~PARAMETER_BOUNDS));
           first = false;
@@ -149,6 +154,7 @@ public class TypeParameter extends Type {
   }
 
   public List<MethodSignature> getMethodOverloads(String methodName) {
+    methodsRead(); // overloads come from the bounds
     Set<MethodSignature> signatures = new HashSet<>();
 
     if (!methodName.equals("create"))
@@ -1,5 +1,6 @@
 package shadow.typecheck.type;
 
+import shadow.CompilationContext;
 import shadow.doctool.Documentation;
 
 import java.util.List;
@@ -15,11 +16,11 @@ public class UnboundMethodType extends ClassType {
   public UnboundMethodType(
       String typeName, Type outer, Modifiers modifiers, Documentation documentation) {
     super(typeName, modifiers, documentation, outer);
-    setExtendType(Type.OBJECT); // change to UnboundMethod if reinstated?
+    setExtendType(CompilationContext.current().OBJECT); // change to UnboundMethod if reinstated?
   }
 
   public boolean isSubtype(Type t) {
-    if (equals(t) || t == Type.OBJECT) return true;
+    if (equals(t) || t == CompilationContext.current().OBJECT) return true;
 
     if (t instanceof MethodType methodType) {
       MethodSignature signature =
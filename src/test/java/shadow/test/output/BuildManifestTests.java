@@ -0,0 +1,116 @@
+package shadow.test.output;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import shadow.BuildManifest;
+import shadow.CompilationContext;
+import shadow.Configuration;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+public class BuildManifestTests {
+
+  @TempDir Path directory;
+
+  private final CompilationContext compilation = new CompilationContext();
+  private CompilationContext.Scope scope;
+  private Path source;
+  private Path object;
+
+  @BeforeEach
+  public void setup() throws Exception {
+    scope = compilation.enter();
+    Configuration.buildConfiguration(
+        compilation, "tests/typechecker/Arrays.shadow", "tests.json", false);
+
+    source = directory.resolve("Test.shadow");
+    Files.writeString(source, "class Test { }");
+    object = directory.resolve("Test.o");
+    Files.writeString(object, "object");
+    BuildManifest.update(object, BuildManifest.objectFingerprint(source));
+  }
+
+  @AfterEach
+  public void cleanup() throws Exception {
+    // Outputs that no longer exist are left out of the saved manifest
+    Files.deleteIfExists(object);
+    try {
+      BuildManifest.save();
+    } finally {
+      scope.close();
+    }
+  }
+
+  @Test
+  public void testUnchangedObject() throws Exception {
+    Assertions.assertTrue(BuildManifest.isCurrent(object, BuildManifest.objectFingerprint(source)));
+  }
+
+  @Test
+  public void testChangedSource() throws Exception {
+    Files.writeString(source, "class Test { public method() => () { } }");
+    Assertions.assertFalse(
+        BuildManifest.isCurrent(object, BuildManifest.objectFingerprint(source)));
+  }
+
+  @Test
+  public void testElideReferenceCounts() throws Exception {
+    // Objects built without the pass hold reference counts that it would remove
+    compilation.setElideReferenceCounts(true);
+    Assertions.assertFalse(
+        BuildManifest.isCurrent(object, BuildManifest.objectFingerprint(source)));
+
+    compilation.setElideReferenceCounts(false);
+    Assertions.assertTrue(BuildManifest.isCurrent(object, BuildManifest.objectFingerprint(source)));
+  }
+
+  @Test
+  public void testInline() throws Exception {
+    compilation.setInlineCalls(true);
+    Assertions.assertFalse(
+        BuildManifest.isCurrent(object, BuildManifest.objectFingerprint(source)));
+
+    compilation.setInlineCalls(false);
+    Assertions.assertTrue(BuildManifest.isCurrent(object, BuildManifest.objectFingerprint(source)));
+  }
+
+  @Test
+  public void testChangedDependency() throws Exception {
+    // As when a method of another class was inlined into the object
+    Path callee = directory.resolve("Callee.shadow");
+    Files.writeString(callee, "class Callee { }");
+    String fingerprint = BuildManifest.objectFingerprint(source);
+    BuildManifest.update(object, fingerprint, List.of(callee));
+    Assertions.assertTrue(BuildManifest.isCurrent(object, fingerprint));
+
+    Files.writeString(callee, "class Callee { get int value; }");
+    Assertions.assertFalse(BuildManifest.isCurrent(object, fingerprint));
+
+    Files.delete(callee);
+    Assertions.assertFalse(BuildManifest.isCurrent(object, fingerprint));
+  }
+
+  @Test
+  public void testSeparateCompilations() throws Exception {
+    // Another compilation saving its manifest keeps what this one has loaded and changed
+    Path other = directory.resolve("Other.o");
+    Files.writeString(other, "other");
+    CompilationContext otherCompilation = new CompilationContext();
+    try (CompilationContext.Scope ignored = otherCompilation.enter()) {
+      Configuration.buildConfiguration(
+          otherCompilation, "tests/typechecker/Arrays.shadow", "tests.json", false);
+      BuildManifest.update(other, BuildManifest.objectFingerprint(source));
+      BuildManifest.save();
+    }
+
+    Assertions.assertTrue(BuildManifest.isCurrent(object, BuildManifest.objectFingerprint(source)));
+
+    // Saving merges with the manifest on disk, so neither entry is lost
+    BuildManifest.save();
+    Assertions.assertTrue(BuildManifest.isCurrent(object, BuildManifest.objectFingerprint(source)));
+    Assertions.assertTrue(BuildManifest.isCurrent(other, BuildManifest.objectFingerprint(source)));
+    Files.delete(other);
+  }
+}
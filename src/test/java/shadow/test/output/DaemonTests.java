@@ -0,0 +1,84 @@
+package shadow.test.output;
+
+import org.junit.jupiter.api.*;
+import shadow.CompilerClient;
+import shadow.CompilerDaemon;
+import shadow.Configuration;
+import shadow.Main;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class DaemonTests {
+  private static CompilerDaemon daemon;
+  private static Thread server;
+
+  @BeforeAll
+  public static void startDaemon() throws Exception {
+    Configuration.clearConfiguration();
+    daemon = new CompilerDaemon(0);
+    server =
+        new Thread(
+            () -> {
+              try {
+                daemon.run();
+              } catch (Exception ignored) {
+              }
+            });
+    server.start();
+  }
+
+  @AfterAll
+  public static void stopDaemon() throws Exception {
+    daemon.close();
+    server.join();
+    Configuration.clearConfiguration();
+  }
+
+  private static int compile(String file, ByteArrayOutputStream output) {
+    String[] args = {"-c", "tests.json", "--typecheck", file};
+    return CompilerClient.compile(
+        daemon.getPort(), args, new PrintStream(output, true, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  public void testRepeatedRequests() {
+    for (int i = 0; i < 2; ++i)
+      Assertions.assertEquals(
+          Main.Error.NO_ERROR.ordinal(),
+          compile("tests/import/package/testing/Test.shadow", new ByteArrayOutputStream()));
+  }
+
+  @Test
+  public void testErrorOutput() {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    Assertions.assertEquals(
+        Main.Error.FILE_NOT_FOUND_ERROR.ordinal(), compile("tests/import/Missing.shadow", output));
+    Assertions.assertTrue(output.toString(StandardCharsets.UTF_8).contains("FILE NOT FOUND"));
+  }
+
+  // Requests sent together are compiled at the same time, each with only its own output
+  @Test
+  public void testConcurrentRequests() throws Exception {
+    ExecutorService clients = Executors.newFixedThreadPool(2);
+    ByteArrayOutputStream firstOutput = new ByteArrayOutputStream();
+    ByteArrayOutputStream secondOutput = new ByteArrayOutputStream();
+    try {
+      Future<Integer> first =
+          clients.submit(() -> compile("tests/import/package/testing/Test.shadow", firstOutput));
+      Future<Integer> second =
+          clients.submit(() -> compile("tests/import/Missing.shadow", secondOutput));
+      Assertions.assertEquals(Main.Error.NO_ERROR.ordinal(), first.get());
+      Assertions.assertEquals(Main.Error.FILE_NOT_FOUND_ERROR.ordinal(), second.get());
+    } finally {
+      clients.shutdown();
+    }
+
+    Assertions.assertFalse(firstOutput.toString(StandardCharsets.UTF_8).contains("FILE NOT FOUND"));
+    Assertions.assertTrue(secondOutput.toString(StandardCharsets.UTF_8).contains("FILE NOT FOUND"));
+  }
+}
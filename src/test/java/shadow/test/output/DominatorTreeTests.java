@@ -0,0 +1,94 @@
+package shadow.test.output;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import shadow.tac.analysis.DominatorTree;
+
+import java.util.BitSet;
+import java.util.List;
+
+/*
+ * Graphs are given by the successors of each block, with blocks numbered
+ * in reverse postorder as they would be for a real control flow graph.
+ */
+public class DominatorTreeTests {
+
+  private static BitSet blocks(int... indexes) {
+    BitSet set = new BitSet();
+    for (int index : indexes) set.set(index);
+    return set;
+  }
+
+  private static void checkDominators(DominatorTree tree, int... dominators) {
+    for (int i = 0; i < dominators.length; ++i)
+      Assertions.assertEquals(dominators[i], tree.getImmediateDominator(i), "block " + i);
+  }
+
+  @Test
+  public void testDiamond() {
+    // 0 branches to 1 and 2, which both go to 3
+    DominatorTree tree = new DominatorTree(new int[][] {{1, 2}, {3}, {3}, {}});
+    checkDominators(tree, 0, 0, 0, 0);
+    Assertions.assertEquals(List.of(1, 2, 3), tree.getChildren(0));
+
+    Assertions.assertEquals(blocks(), tree.getFrontier(0));
+    Assertions.assertEquals(blocks(3), tree.getFrontier(1));
+    Assertions.assertEquals(blocks(3), tree.getFrontier(2));
+    Assertions.assertEquals(blocks(), tree.getFrontier(3));
+
+    Assertions.assertTrue(tree.dominates(0, 3));
+    Assertions.assertFalse(tree.dominates(1, 3));
+    Assertions.assertFalse(tree.dominates(1, 2));
+  }
+
+  @Test
+  public void testLoop() {
+    // 1 is the loop header, 2 is the body, and 3 comes after the loop
+    DominatorTree tree = new DominatorTree(new int[][] {{1}, {2, 3}, {1}, {}});
+    checkDominators(tree, 0, 0, 1, 1);
+    Assertions.assertEquals(List.of(2, 3), tree.getChildren(1));
+
+    Assertions.assertEquals(blocks(), tree.getFrontier(0));
+    Assertions.assertEquals(blocks(1), tree.getFrontier(1));
+    Assertions.assertEquals(blocks(1), tree.getFrontier(2));
+    Assertions.assertEquals(blocks(), tree.getFrontier(3));
+
+    Assertions.assertTrue(tree.dominates(1, 2));
+    Assertions.assertFalse(tree.dominates(2, 1));
+  }
+
+  @Test
+  public void testNestedLoops() {
+    // 1 is the outer header, 2 is the inner header, 3 is the inner body,
+    // 4 finishes the outer body, and 5 comes after both loops
+    DominatorTree tree = new DominatorTree(new int[][] {{1}, {2, 5}, {3, 4}, {2}, {1}, {}});
+    checkDominators(tree, 0, 0, 1, 2, 2, 1);
+    Assertions.assertEquals(List.of(3, 4), tree.getChildren(2));
+
+    Assertions.assertEquals(blocks(), tree.getFrontier(0));
+    Assertions.assertEquals(blocks(1), tree.getFrontier(1));
+    Assertions.assertEquals(blocks(1, 2), tree.getFrontier(2));
+    Assertions.assertEquals(blocks(2), tree.getFrontier(3));
+    Assertions.assertEquals(blocks(1), tree.getFrontier(4));
+    Assertions.assertEquals(blocks(), tree.getFrontier(5));
+
+    Assertions.assertTrue(tree.dominates(1, 4));
+    Assertions.assertFalse(tree.dominates(3, 4));
+  }
+
+  @Test
+  public void testRootWithBackEdge() {
+    // The root is itself a loop header that 1 branches back to
+    DominatorTree tree = new DominatorTree(new int[][] {{1}, {0, 2}, {}});
+    checkDominators(tree, 0, 0, 1);
+    Assertions.assertArrayEquals(new int[] {1}, tree.getPredecessors(0));
+
+    // Values stored in the loop meet the values that the root was entered with
+    Assertions.assertEquals(blocks(0), tree.getFrontier(0));
+    Assertions.assertEquals(blocks(0), tree.getFrontier(1));
+    Assertions.assertEquals(blocks(), tree.getFrontier(2));
+
+    Assertions.assertTrue(tree.dominates(0, 2));
+    Assertions.assertFalse(tree.dominates(1, 0));
+  }
+}
@@ -1,16 +1,25 @@
 package shadow.test.output;
 
-import org.junit.jupiter.api.AfterEach;
-import org.junit.jupiter.api.BeforeAll;
-import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.*;
+import shadow.Arguments;
+import shadow.CompilationContext;
+import shadow.CompilerStats.Counter;
 import shadow.Configuration;
+import shadow.Loggers;
 import shadow.Main;
+import shadow.tac.analysis.ClassHierarchy;
+import shadow.typecheck.type.Type;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.ArrayList;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 public class TACTests {
 
@@ -18,6 +27,8 @@ public class TACTests {
   private static final Path executable =
       Main.properExecutableName(Paths.get("bin", "shadow", "test", "TacTest"));
 
+  private static final Path testSources = Paths.get("src", "shadow", "test");
+
   private final ArrayList<String> args = new ArrayList<>();
 
   @BeforeAll
@@ -118,4 +129,220 @@ public class TACTests {
     new Main(args.toArray(new String[] {})).run();
     // CAN test, but it's useful to have a testable executable lying around TAC tests
   }
+
+  // Runs the test executable and returns what it prints, with line endings as in the expected text
+  private static String runExecutable() throws IOException, InterruptedException {
+    Process program =
+        new ProcessBuilder(executable.toString())
+            .directory(executable.getParent().toFile())
+            .redirectErrorStream(true)
+            .start();
+    String output = new String(program.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    Assertions.assertTrue(program.waitFor(60, TimeUnit.SECONDS));
+    return output.replace("\r\n", "\n");
+  }
+
+  @Test
+  public void testPhi() throws Exception {
+    args.add("shadow/test/PhiTest.shadow");
+    new Main(args.toArray(new String[] {})).run();
+    // Each load must see the store that reaches it once phi nodes are added
+    Assertions.assertEquals(
+        """
+            a012
+            big
+            4
+            odd 3
+            """,
+        runExecutable());
+  }
+
+  @Test
+  public void testConstantLoop() throws Exception {
+    args.add("shadow/test/ConstantLoopTest.shadow");
+    new Main(args.toArray(new String[] {})).run();
+    Assertions.assertEquals("""
+            10
+            7
+            """, runExecutable());
+
+    // Branches that can never be taken are removed along with their strings
+    String ir = Files.readString(testSources.resolve("ConstantLoopTest.ll"));
+    Assertions.assertFalse(ir.contains("Loop branch kept"));
+    Assertions.assertFalse(ir.contains("Phi branch kept"));
+  }
+
+  private String compileAndRun(String program, String... options) throws Exception {
+    List<String> programArgs = new ArrayList<>(args);
+    Collections.addAll(programArgs, options);
+    programArgs.add(program);
+    new Main(programArgs.toArray(new String[] {})).run();
+    return runExecutable();
+  }
+
+  @Test
+  public void testElideReferenceCounts() throws Exception {
+    // Removing reference counts must not change what is printed, including by destroy methods
+    String[] programs = {
+      "shadow/test/GarbageCollectionTest.shadow",
+      "shadow/test/GarbageCollectionOutputTest.shadow",
+      "shadow/test/CopyTest.shadow",
+      "shadow/test/ArrayTest.shadow",
+      "shadow/test/ArrayCopyTest.shadow",
+      "shadow/test/ArrayOutOfBoundsTest.shadow",
+      "shadow/test/ExceptionTest.shadow",
+      "shadow/test/ComplicatedExceptionTest.shadow",
+      "shadow/test/NestedExceptionTest.shadow",
+      "shadow/test/FinallyTest.shadow",
+      "shadow/test/PhiTest.shadow"
+    };
+    for (String program : programs) {
+      String expected = compileAndRun(program);
+      String elided = compileAndRun(program, "--elide-reference-counts");
+      Assertions.assertEquals(expected, elided, program);
+    }
+  }
+
+  @Test
+  public void testReferenceLifetimes() throws Exception {
+    String program = "shadow/test/ReferenceLifetimeTest.shadow";
+    String expected = compileAndRun(program);
+    checkLifetimes(expected);
+    String elided = compileAndRun(program, "--elide-reference-counts");
+    checkLifetimes(elided);
+    Assertions.assertEquals(expected, elided);
+  }
+
+  // Each object's destroy method prints its name, which must come after its last use
+  private static void checkLifetimes(String output) {
+    List<String> lines = Arrays.asList(output.split("\\R"));
+    for (String name : new String[] {"before", "loop 0", "loop 1", "loop 2", "field", "inner"})
+      Assertions.assertTrue(lines.contains(name), output);
+
+    // Values replaced in a loop are freed as the loop goes on, the last one after it
+    Assertions.assertTrue(lines.indexOf("loop 0") < lines.indexOf("loop 1"), output);
+    Assertions.assertTrue(lines.indexOf("loop 1") < lines.indexOf("after loop 2"), output);
+    Assertions.assertTrue(lines.indexOf("after loop 2") < lines.indexOf("loop 2"), output);
+
+    // Locals copied from a field outlive the field's change
+    Assertions.assertTrue(lines.indexOf("alias field") < lines.indexOf("field"), output);
+
+    // A value returned out of a block outlives the method that created it
+    Assertions.assertTrue(lines.indexOf("returned inner") < lines.indexOf("inner"), output);
+  }
+
+  @Test
+  public void testInline() throws Exception {
+    String expected = """
+            outline
+            1
+            7
+            4
+            """;
+    Assertions.assertEquals(expected, compileAndRun("shadow/test/InlineTest.shadow"));
+    Assertions.assertEquals(
+        expected, compileAndRun("shadow/test/InlineTest.shadow", "--inline"));
+  }
+
+  @Test
+  public void testDevirtualize() throws Exception {
+    // Covers a method that is never overridden, one that is, and a guarded interface call
+    String expected = """
+            animal animal
+            ... woof
+            hello
+            """;
+    Assertions.assertEquals(expected, compileAndRun("shadow/test/DevirtualizeTest.shadow"));
+    Assertions.assertEquals(
+        expected, compileAndRun("shadow/test/DevirtualizeTest.shadow", "--devirtualize"));
+  }
+
+  @Test
+  public void testDevirtualizeGuardFails() throws Exception {
+    // With Goodbye left out, greet() is expected to be Hello's, so Goodbye's call uses the table
+    args.add("--devirtualize");
+    args.add("shadow/test/DevirtualizeGuardTest.shadow");
+    new Main(new Arguments(args.toArray(new String[] {})), new CompilationContext()) {
+      @Override
+      protected ClassHierarchy createClassHierarchy(List<Type> types) {
+        List<Type> analyzed = new ArrayList<>(types);
+        analyzed.removeIf(type -> type.getTypeName().endsWith("Goodbye"));
+        return new ClassHierarchy(analyzed);
+      }
+    }.run();
+    Assertions.assertEquals("hello goodbye\n", runExecutable());
+  }
+
+  @Test
+  public void testDevirtualizedObjectsReused() throws Exception {
+    List<String> programArgs = new ArrayList<>(args);
+    Collections.addAll(
+        programArgs, "--devirtualize", "--stats", "-", "shadow/test/DevirtualizeTest.shadow");
+    new Main(programArgs.toArray(new String[] {})).run();
+
+    // Nothing in the program changed, so every object is used again
+    CompilationContext compilation = new CompilationContext();
+    new Main(new Arguments(programArgs.toArray(new String[] {})), compilation).run();
+    Assertions.assertEquals(0, compilation.getStats().getCount(Counter.MODULES_GENERATED));
+    Assertions.assertTrue(compilation.getStats().getCount(Counter.OBJECTS_REUSED) > 0);
+  }
+
+  @Test
+  public void testParallelJobs() throws Exception {
+    args.add("-r");
+    args.add("shadow/test/SortMain.shadow");
+
+    // Generated IR and diagnostics must not depend on the number of workers
+    String sequentialOutput = compileWithJobs("1");
+    Map<Path, String> sequentialIr = readGeneratedIr();
+    String parallelOutput = compileWithJobs("4");
+    Assertions.assertEquals(sequentialIr, readGeneratedIr());
+    Assertions.assertEquals(sequentialOutput, parallelOutput);
+  }
+
+  private String compileWithJobs(String jobs) throws Exception {
+    // Without their objects, the test classes are generated again
+    deleteFiles(Paths.get("bin", "shadow", "test"), ".o");
+    deleteFiles(testSources, ".ll");
+
+    List<String> jobArgs = new ArrayList<>(args);
+    jobArgs.add(0, "-j");
+    jobArgs.add(1, jobs);
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    CompilationContext compilation = new CompilationContext();
+    compilation.setOutput(new PrintStream(output, true, StandardCharsets.UTF_8));
+    Loggers.routeToCompilations(true);
+    try {
+      new Main(new Arguments(jobArgs.toArray(new String[] {})), compilation).run();
+    } finally {
+      Loggers.routeToCompilations(false);
+    }
+
+    return output.toString(StandardCharsets.UTF_8);
+  }
+
+  private static void deleteFiles(Path directory, String extension) throws IOException {
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : (Iterable<Path>) files::iterator)
+        if (file.toString().endsWith(extension)) Files.delete(file);
+    }
+  }
+
+  private static Map<Path, String> readGeneratedIr() throws IOException {
+    Map<Path, String> ir = new TreeMap<>();
+    try (Stream<Path> files = Files.list(testSources)) {
+      for (Path file : (Iterable<Path>) files::iterator)
+        if (file.toString().endsWith(".ll")) ir.put(file.getFileName(), Files.readString(file));
+    }
+
+    return ir;
+  }
+
+  @Test
+  public void testBatch() throws Exception {
+    args.add("--batch");
+    args.add("shadow/test/SortMain.shadow");
+    new Main(args.toArray(new String[] {})).run();
+    // only checks that compiling all IR with a single clang process succeeds
+  }
 }
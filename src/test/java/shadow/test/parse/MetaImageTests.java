@@ -0,0 +1,107 @@
+package shadow.test.parse;
+
+import org.antlr.v4.runtime.Token;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import shadow.BuildManifest;
+import shadow.Configuration;
+import shadow.Loggers;
+import shadow.Main;
+import shadow.parse.MetaImage;
+import shadow.parse.ParseChecker;
+import shadow.parse.ShadowParser;
+import shadow.parse.ShadowParser.CompilationUnitContext;
+import shadow.typecheck.ErrorReporter;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.List;
+
+public class MetaImageTests {
+
+  @TempDir Path directory;
+
+  @BeforeAll
+  public static void buildConfiguration() throws Exception {
+    Configuration.clearConfiguration();
+    Configuration.buildConfiguration(
+        "tests/parser/attributes/Attributes.shadow", "tests.json", false);
+  }
+
+  @AfterAll
+  public static void clearConfiguration() throws Exception {
+    BuildManifest.save();
+    Configuration.clearConfiguration();
+  }
+
+  private Path copyAsMeta(String source) throws Exception {
+    Path meta = directory.resolve(Paths.get(source).getFileName().toString() + ".meta");
+    Files.copy(Paths.get(source), meta);
+    return meta;
+  }
+
+  private static CompilationUnitContext load(Path meta) throws Exception {
+    ErrorReporter reporter = new ErrorReporter(Loggers.PARSER);
+    CompilationUnitContext unit = new ParseChecker(reporter).getMetaCompilationUnit(meta);
+    Assertions.assertTrue(reporter.getErrorList().isEmpty());
+    return unit;
+  }
+
+  @Test
+  public void testImageMatchesParse() throws Exception {
+    Path meta = copyAsMeta("src/shadow/standard/String.shadow");
+    List<String> ruleNames = Arrays.asList(ShadowParser.ruleNames);
+
+    CompilationUnitContext parsed = load(meta);
+    Assertions.assertTrue(Files.exists(MetaImage.getImagePath(meta)));
+    CompilationUnitContext loaded = load(meta);
+
+    // Tokens loaded from an image are not produced by a lexer
+    Assertions.assertNotNull(parsed.getStart().getTokenSource());
+    Assertions.assertNull(loaded.getStart().getTokenSource());
+
+    Assertions.assertEquals(parsed.toStringTree(ruleNames), loaded.toStringTree(ruleNames));
+    Assertions.assertEquals(meta, loaded.getSourcePath());
+    Assertions.assertEquals(parsed.getStop().getLine(), loaded.getStop().getLine());
+    Assertions.assertEquals(
+        parsed.classOrInterfaceDeclaration().getModifiers().toString(),
+        loaded.classOrInterfaceDeclaration().getModifiers().toString());
+    Assertions.assertNotNull(loaded.classOrInterfaceDeclaration().getDocumentation());
+  }
+
+  @Test
+  public void testRewrittenImageIsIdentical() throws Exception {
+    Path meta = copyAsMeta("tests/parser/attributes/Attributes.shadow");
+    load(meta);
+
+    Path image = MetaImage.getImagePath(meta);
+    MetaImage loaded = MetaImage.read(image, meta);
+    List<Token> tokens = loaded.getTokens().getTokens();
+    Path copy = directory.resolve("Copy" + MetaImage.EXTENSION);
+    MetaImage.write(copy, MetaImage.fingerprint(meta), loaded.getCompilationUnit(), tokens);
+
+    Assertions.assertEquals(-1, Files.mismatch(image, copy));
+  }
+
+  @Test
+  public void testStaleImageIsReplaced() throws Exception {
+    Path meta = copyAsMeta("tests/parser/attributes/Attributes.shadow");
+    load(meta);
+    Path image = MetaImage.getImagePath(meta);
+    byte[] original = Files.readAllBytes(image);
+
+    Files.writeString(meta, Files.readString(meta) + "\n// changed\n");
+    load(meta);
+    Assertions.assertFalse(Arrays.equals(original, Files.readAllBytes(image)));
+  }
+
+  @Test
+  public void testTypeCheckWithBinaryMeta() throws Exception {
+    String[] args = {
+      "--typecheck", "--binary-meta", "-c", "tests.json", "tests/typechecker/Arrays.shadow"
+    };
+    for (int i = 0; i < 2; ++i) new Main(args).run();
+  }
+}
@@ -0,0 +1,124 @@
+package shadow.test.typecheck;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import shadow.CompilationContext;
+import shadow.Main;
+import shadow.parse.ParseException;
+import shadow.typecheck.TypeCheckException;
+import shadow.typecheck.type.Type;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class ConcurrentCompilationTests {
+
+  private static int typeCheck(String file) {
+    return Main.compile(new String[] {"--typecheck", "-c", "tests.json", file});
+  }
+
+  @Test
+  public void testConcurrentTypeChecks() throws Exception {
+    String[] files = {
+      "tests/typechecker/Array.shadow",
+      "tests/typechecker/Assertion.shadow",
+      "tests/typechecker/Arrays.shadow",
+      "tests/import/package/testing/Test.shadow"
+    };
+
+    ExecutorService compilations = Executors.newFixedThreadPool(files.length);
+    try {
+      List<Future<Integer>> results = new ArrayList<>();
+      for (String file : files) results.add(compilations.submit(() -> typeCheck(file)));
+      for (Future<Integer> result : results)
+        Assertions.assertEquals(Main.Error.NO_ERROR.ordinal(), result.get());
+    } finally {
+      compilations.shutdown();
+    }
+  }
+
+  @Test
+  public void testErrorsStayInTheirCompilation() throws Exception {
+    ExecutorService compilations = Executors.newFixedThreadPool(2);
+    try {
+      Future<Integer> failing =
+          compilations.submit(() -> typeCheck("tests/typechecker/NoSuchFile.shadow"));
+      Future<Integer> passing = compilations.submit(() -> typeCheck("tests/typechecker/Var.shadow"));
+      Assertions.assertEquals(Main.Error.FILE_NOT_FOUND_ERROR.ordinal(), failing.get());
+      Assertions.assertEquals(Main.Error.NO_ERROR.ordinal(), passing.get());
+    } finally {
+      compilations.shutdown();
+    }
+  }
+
+  @Test
+  public void testCacheVersionsStayInTheirCompilation() {
+    CompilationContext first = new CompilationContext();
+    CompilationContext second = new CompilationContext();
+    int methods = second.getMethodVersion();
+    int hierarchies = second.getHierarchyVersion();
+    int names = second.getNameVersion();
+
+    try (CompilationContext.Scope ignored = first.enter()) {
+      Type.invalidateMethodCaches();
+      Type.invalidateHierarchies();
+      Type.invalidateNames();
+    }
+
+    Assertions.assertEquals(methods, second.getMethodVersion());
+    Assertions.assertEquals(hierarchies, second.getHierarchyVersion());
+    Assertions.assertEquals(names, second.getNameVersion());
+    // Versions are never reused, so caches made for one compilation are never current in another
+    Assertions.assertNotEquals(first.getMethodVersion(), second.getMethodVersion());
+    Assertions.assertNotEquals(first.getNameVersion(), second.getNameVersion());
+  }
+
+  @Test
+  public void testParallelParsing() {
+    String[] args = {
+      "--typecheck", "-j", "4", "-c", "tests.json", "tests/import/package/testing/Test.shadow"
+    };
+    Assertions.assertEquals(Main.Error.NO_ERROR.ordinal(), Main.compile(args));
+  }
+
+  @Test
+  public void testParallelParsingReportsErrors() {
+    String[] args = {
+      "--typecheck",
+      "-j",
+      "4",
+      "-c",
+      "tests.json",
+      "tests-negative/parser/attribute-modifiers/Test.shadow"
+    };
+    ParseException exception =
+        Assertions.assertThrows(ParseException.class, () -> new Main(args).run());
+    Assertions.assertEquals(ParseException.Error.ILLEGAL_MODIFIER, exception.getError());
+  }
+
+  @Test
+  public void testParallelChecking() {
+    String[] args = {
+      "--typecheck", "-j", "4", "-c", "tests.json", "tests/parser/attributes/Attributes.shadow"
+    };
+    Assertions.assertEquals(Main.Error.NO_ERROR.ordinal(), Main.compile(args));
+  }
+
+  @Test
+  public void testParallelCheckingReportsFirstError() {
+    String[] args = {
+      "--typecheck",
+      "-j",
+      "4",
+      "-c",
+      "tests.json",
+      "tests-negative/typechecker/attribute-invalid-argument/Test.shadow"
+    };
+    TypeCheckException exception =
+        Assertions.assertThrows(TypeCheckException.class, () -> new Main(args).run());
+    Assertions.assertEquals(TypeCheckException.Error.INVALID_METHOD, exception.getError());
+  }
+}
@@ -1,20 +1,27 @@
 package shadow.test.typecheck;
 
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import shadow.CompilationContext;
 import shadow.Configuration;
+import shadow.ImportIndex;
 import shadow.Loggers;
 import shadow.Main;
+import shadow.parse.Context;
 import shadow.typecheck.ErrorReporter;
 import shadow.typecheck.Package;
 import shadow.typecheck.TypeCollector;
 import shadow.typecheck.type.Type;
 
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.TreeSet;
 
 public class ImportTests {
@@ -86,7 +93,7 @@ public class ImportTests {
     Path path = Paths.get(file).toAbsolutePath().normalize();
     Package p = new Package();
     ErrorReporter reporter = new ErrorReporter(Loggers.TYPE_CHECKER);
-    TypeCollector collector = new TypeCollector(p, reporter, false);
+    TypeCollector collector = new TypeCollector(p, reporter, false, CompilationContext.current());
     collector.collectTypes(List.of(path));
     Type testType = collector.getMainType();
     reporter.printAndReportErrors();
@@ -107,4 +114,92 @@ public class ImportTests {
       throw new Exception(
           "Did not expect type " + expectedNames.first() + " to be imported, but it was");
   }
+
+  // A file that imports a changed file is collected again from source instead of its .meta file
+  @Test
+  public void testDependentCollectedFromSource(@TempDir Path directory) throws Exception {
+    Path source = directory.resolve("src");
+    Files.createDirectories(source);
+    Files.writeString(
+        source.resolve("Alpha.shadow"),
+        "class Alpha\n{\n\tpublic value() => ( int )\n\t{\n\t\treturn 3;\n\t}\n}\n");
+    Files.writeString(
+        source.resolve("Beta.shadow"),
+        "class Beta\n{\n\tpublic twice() => ( int )\n\t{\n"
+            + "\t\treturn Alpha:create().value() * 2;\n\t}\n}\n");
+    Files.writeString(
+        source.resolve("Test.shadow"),
+        "class Test\n{\n\tpublic main( String[] args ) => ()\n\t{\n"
+            + "\t\tBeta:create().twice();\n\t}\n}\n");
+
+    Path config = directory.resolve("config.json");
+    Files.writeString(
+        config,
+        "{\"import\": {"
+            + quote(source)
+            + ": "
+            + quote(directory.resolve("bin"))
+            + "}, \"system\": ["
+            + quote(Paths.get("src"))
+            + ", "
+            + quote(Paths.get("include"))
+            + ", "
+            + quote(Paths.get("bin"))
+            + "]}");
+
+    String main = source.resolve("Test.shadow").toString();
+    String[] compile = {"-c", config.toString(), main};
+    Assertions.assertEquals(Main.Error.NO_ERROR.ordinal(), Main.compile(compile));
+    Assertions.assertTrue(Files.exists(source.resolve("Beta.meta")));
+
+    // Only Alpha changes, so Beta is first collected from Beta.meta
+    Path alpha = source.resolve("Alpha.shadow");
+    Files.writeString(alpha, Files.readString(alpha).replace("3", "4"));
+
+    Configuration.clearConfiguration();
+    Configuration.buildConfiguration(main, config.toString(), false);
+    Package p = new Package();
+    ErrorReporter reporter = new ErrorReporter(Loggers.TYPE_CHECKER);
+    TypeCollector collector = new TypeCollector(p, reporter, false, CompilationContext.current());
+    Map<Type, Context> typeTable = collector.collectTypes(List.of(Paths.get(main)));
+    reporter.printAndReportErrors();
+    Configuration.clearConfiguration();
+
+    Context beta = collector.getFileTable().get(source.resolve("Beta"));
+    Assertions.assertFalse(beta.isFromMetaFile());
+    Assertions.assertSame(beta.getType(), p.getType("Beta"));
+    Assertions.assertEquals(
+        source.resolve("Beta.shadow"), typeTable.get(beta.getType()).getSourcePath());
+    Assertions.assertFalse(collector.getFileTable().get(source.resolve("Alpha")).isFromMetaFile());
+    for (Context node : typeTable.values())
+      Assertions.assertNotEquals(source.resolve("Beta.meta"), node.getSourcePath());
+  }
+
+  @Test
+  public void testImportIndex(@TempDir Path directory) throws Exception {
+    Path package_ = Files.createDirectories(directory.resolve("first").resolve("second"));
+    Files.writeString(package_.resolve("Alpha.shadow"), "");
+    Files.writeString(package_.resolve("Beta.meta"), "");
+
+    ImportIndex index = new ImportIndex();
+    Assertions.assertTrue(index.isDirectory(directory.resolve("first")));
+    Assertions.assertTrue(index.exists(package_.resolve("Alpha.shadow")));
+    Assertions.assertTrue(index.exists(package_.resolve("Beta.meta")));
+    Assertions.assertFalse(index.exists(package_.resolve("Beta.shadow")));
+    Assertions.assertFalse(index.isDirectory(package_.resolve("Alpha.shadow")));
+    Assertions.assertNull(index.getDirectory(directory.resolve("missing")));
+    Assertions.assertEquals(
+        new TreeSet<>(List.of("Alpha.shadow", "Beta.meta")),
+        new TreeSet<>(index.getDirectory(package_).getNames()));
+
+    // Listings are kept until cleared
+    Files.writeString(package_.resolve("Beta.shadow"), "");
+    Assertions.assertFalse(index.exists(package_.resolve("Beta.shadow")));
+    index.clear();
+    Assertions.assertTrue(index.exists(package_.resolve("Beta.shadow")));
+  }
+
+  private static String quote(Path path) {
+    return "\"" + path.toAbsolutePath().toString().replace('\\', '/') + "\"";
+  }
 }
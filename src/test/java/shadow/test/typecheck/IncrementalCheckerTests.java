@@ -0,0 +1,66 @@
+package shadow.test.typecheck;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import shadow.CompilationContext;
+import shadow.Configuration;
+import shadow.typecheck.ErrorReporter;
+import shadow.typecheck.IncrementalChecker;
+import shadow.typecheck.TypeCheckException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+public class IncrementalCheckerTests {
+
+  private final Path user = Paths.get("tests/typechecker/PairUser.shadow").toAbsolutePath();
+  private final Path pair = Paths.get("tests/typechecker/Pair.shadow").toAbsolutePath();
+  private IncrementalChecker checker;
+
+  @BeforeEach
+  public void setup() throws Exception {
+    CompilationContext compilation = new CompilationContext();
+    try (CompilationContext.Scope ignored = compilation.enter()) {
+      Configuration.buildConfiguration(compilation, user.toString(), "tests.json", false);
+    }
+    checker = new IncrementalChecker(List.of(user.normalize()), compilation);
+    Assertions.assertTrue(checker.check().getErrorList().isEmpty());
+  }
+
+  @Test
+  public void testBodyEdit() throws Exception {
+    String source = Files.readString(user);
+    String broken = source.replace("pair1.toString()", "pair1.toNothing()");
+
+    ErrorReporter reporter = checker.update(user, broken);
+    Assertions.assertFalse(reporter.getErrorList().isEmpty());
+    Assertions.assertEquals(
+        TypeCheckException.Error.UNDEFINED_SYMBOL,
+        ((TypeCheckException) reporter.getErrorList().get(0)).getError());
+
+    Assertions.assertTrue(checker.update(user, source).getErrorList().isEmpty());
+  }
+
+  @Test
+  public void testSignatureEdit() throws Exception {
+    String source = Files.readString(pair);
+    String hidden = source.replace("public create( Pair<T> pair )", "private create( Pair<T> pair )");
+
+    // PairUser uses Pair, so it is checked again and cannot call the private create
+    Assertions.assertFalse(checker.update(pair, hidden).getErrorList().isEmpty());
+    Assertions.assertTrue(checker.update(pair, source).getErrorList().isEmpty());
+  }
+
+  @Test
+  public void testSyntaxError() throws Exception {
+    String source = Files.readString(user);
+
+    String broken = source.replace("=> ()", "=> (");
+
+    Assertions.assertFalse(checker.update(user, broken).getErrorList().isEmpty());
+    Assertions.assertTrue(checker.update(user, source).getErrorList().isEmpty());
+  }
+}
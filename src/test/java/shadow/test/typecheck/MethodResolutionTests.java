@@ -0,0 +1,131 @@
+package shadow.test.typecheck;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import shadow.CompilationContext;
+import shadow.Configuration;
+import shadow.Loggers;
+import shadow.ShadowException;
+import shadow.typecheck.ErrorReporter;
+import shadow.typecheck.TypeCheckException;
+import shadow.typecheck.TypeChecker;
+import shadow.typecheck.type.MethodSignature;
+import shadow.typecheck.type.Modifiers;
+import shadow.typecheck.type.SequenceType;
+import shadow.typecheck.type.SimpleModifiedType;
+import shadow.typecheck.type.Type;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+public class MethodResolutionTests {
+
+  private final CompilationContext compilation = new CompilationContext();
+  private CompilationContext.Scope scope;
+
+  @BeforeEach
+  public void setup() throws Exception {
+    scope = compilation.enter();
+    String file = "tests/typechecker/Arrays.shadow";
+    Configuration.buildConfiguration(compilation, file, "tests.json", false);
+    Path path = Paths.get(file).toAbsolutePath().normalize();
+    ErrorReporter reporter = new ErrorReporter(Loggers.TYPE_CHECKER);
+    TypeChecker.typeCheck(List.of(path), reporter, true, compilation);
+  }
+
+  @AfterEach
+  public void cleanup() {
+    scope.close();
+  }
+
+  private MethodSignature addMethod(Type type, String name, Type parameter) {
+    MethodSignature signature =
+        new MethodSignature(type, name, new Modifiers(Modifiers.PUBLIC), null, null);
+    signature.addParameter("value", new SimpleModifiedType(parameter));
+    type.addMethod(signature);
+    return signature;
+  }
+
+  @Test
+  public void testRepeatedResolution() {
+    SequenceType arguments = new SequenceType(compilation.INT);
+    List<ShadowException> errors = new ArrayList<>();
+    MethodSignature first = compilation.STRING.getMatchingMethod("index", arguments, null, errors);
+    MethodSignature second =
+        compilation.STRING.getMatchingMethod(
+            "index", new SequenceType(compilation.INT), null, errors);
+
+    Assertions.assertNotNull(first);
+    Assertions.assertSame(first, second);
+    Assertions.assertTrue(errors.isEmpty());
+  }
+
+  @Test
+  public void testRepeatedErrors() {
+    SequenceType arguments = new SequenceType(compilation.INT);
+    for (int i = 1; i <= 2; ++i) {
+      List<ShadowException> errors = new ArrayList<>();
+      Assertions.assertNull(
+          compilation.STRING.getMatchingMethod("resolved", arguments, null, errors));
+      Assertions.assertEquals(1, errors.size());
+      Assertions.assertEquals(
+          TypeCheckException.Error.INVALID_METHOD, ((TypeCheckException) errors.get(0)).getError());
+    }
+  }
+
+  @Test
+  public void testAddedMethodsInvalidate() {
+    SequenceType arguments = new SequenceType(compilation.INT);
+    List<ShadowException> errors = new ArrayList<>();
+    Assertions.assertNull(
+        compilation.STRING.getMatchingMethod("resolved", arguments, null, errors));
+
+    // Methods added to a parent type are seen through the child
+    MethodSignature wider = addMethod(compilation.OBJECT, "resolved", compilation.LONG);
+    errors.clear();
+    Assertions.assertSame(
+        wider, compilation.STRING.getMatchingMethod("resolved", arguments, null, errors));
+    Assertions.assertTrue(errors.isEmpty());
+
+    MethodSignature exact = addMethod(compilation.OBJECT, "resolved", compilation.INT);
+    Assertions.assertSame(
+        exact, compilation.STRING.getMatchingMethod("resolved", arguments, null, errors));
+    Assertions.assertTrue(errors.isEmpty());
+  }
+
+  @Test
+  public void testErrorMessages() {
+    SequenceType arguments = new SequenceType(compilation.INT);
+    List<ShadowException> errors = new ArrayList<>();
+    Assertions.assertNull(
+        compilation.STRING.getMatchingMethod("resolved", arguments, null, errors));
+
+    ShadowException error = errors.get(0);
+    Assertions.assertEquals(
+        "No definition of resolved with arguments " + arguments + " in this context",
+        error.getMessageText());
+    Assertions.assertSame(error.getMessageText(), error.getMessageText());
+    Assertions.assertEquals(0, error.getStackTrace().length);
+  }
+
+  @Test
+  public void testUnknownErrorsSuppressed() {
+    List<ShadowException> errors = new ArrayList<>();
+    ErrorReporter.addFormattedError(
+        errors, TypeCheckException.Error.INVALID_TYPE, "Type %s is invalid", Type.UNKNOWN);
+    ErrorReporter.addFormattedError(
+        errors,
+        TypeCheckException.Error.INVALID_ARGUMENTS,
+        "Arguments %s are invalid",
+        new SequenceType(Type.UNKNOWN));
+    Assertions.assertTrue(errors.isEmpty());
+
+    // Nothing happens without a list
+    ErrorReporter.addFormattedError(
+        null, TypeCheckException.Error.INVALID_TYPE, "Type %s is invalid", compilation.INT);
+  }
+}
@@ -549,6 +549,12 @@ public class NegativeTests {
     enforce(Error.UNDEFINED_VARIABLE);
   }
 
+  @Test
+  public void testUndefinedVariableInLoop() throws Exception {
+    args.add("tests-negative/typechecker/undefined-variable-loop/Test.shadow");
+    enforce(Error.UNDEFINED_VARIABLE);
+  }
+
   @Test
   public void testCircularCreates() throws Exception {
     args.add("tests-negative/typechecker/circular-creates/Test.shadow");
@@ -0,0 +1,81 @@
+package shadow.test.typecheck;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import shadow.*;
+import shadow.CompilerStats.Counter;
+import shadow.typecheck.StandardLibraryCache;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+public class StandardLibraryCacheTests {
+
+  @TempDir Path directory;
+
+  // Libraries are prepared on the checking thread, so they are ready for the next check
+  private final StandardLibraryCache cache = new StandardLibraryCache(Runnable::run);
+
+  @BeforeAll
+  public static void buildStandardLibrary() throws Exception {
+    // Libraries are only prepared from current .meta files, which building writes
+    String os = System.getProperty("os.name").toLowerCase();
+    String config =
+        os.contains("windows") ? "windows.json" : os.contains("mac") ? "mac.json" : "linux.json";
+    Configuration.clearConfiguration();
+    new Main(new String[] {"-c", config, "-b"}).run();
+    Configuration.clearConfiguration();
+  }
+
+  private CompilerStats typeCheck(String file) throws Exception {
+    String[] args = {
+      "--typecheck", "--stats", directory.resolve("stats.json").toString(), "-c", "tests.json", file
+    };
+    CompilationContext compilation = new CompilationContext();
+    compilation.setOutput(new PrintStream(OutputStream.nullOutputStream()));
+    compilation.setStandardLibraryCache(cache);
+    new Main(new Arguments(args), compilation).run();
+    return compilation.getStats();
+  }
+
+  private static long countFiles(CompilerStats stats) {
+    return stats.getCount(Counter.SHADOW_FILES) + stats.getCount(Counter.META_FILES);
+  }
+
+  @Test
+  public void testLibraryReused() throws Exception {
+    CompilerStats cold = typeCheck("tests/typechecker/Arrays.shadow");
+    CompilerStats warm = typeCheck("tests/typechecker/Arrays.shadow");
+
+    // The standard library is not parsed again
+    Assertions.assertTrue(countFiles(warm) < countFiles(cold));
+    Assertions.assertEquals(
+        cold.getCount(Counter.SHADOW_FILES), warm.getCount(Counter.SHADOW_FILES));
+
+    // A library is only used once, but another is prepared for a different program
+    CompilerStats other = typeCheck("tests/typechecker/Var.shadow");
+    Assertions.assertTrue(countFiles(other) < countFiles(cold));
+  }
+
+  @Test
+  public void testChangedMetaFile() throws Exception {
+    CompilerStats cold = typeCheck("tests/typechecker/Arrays.shadow");
+
+    Path meta = Paths.get("src", "shadow", "standard", "Object.meta");
+    byte[] contents = Files.readAllBytes(meta);
+    try {
+      Files.write(meta, "\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+      // The library collected from the old file is dropped
+      CompilerStats changed = typeCheck("tests/typechecker/Arrays.shadow");
+      Assertions.assertEquals(countFiles(cold), countFiles(changed));
+    } finally {
+      Files.write(meta, contents);
+    }
+  }
+}
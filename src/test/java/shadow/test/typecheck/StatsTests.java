@@ -0,0 +1,126 @@
+package shadow.test.typecheck;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import shadow.Main;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class StatsTests {
+
+  @TempDir Path directory;
+
+  @Test
+  public void testTypeCheckStats() throws Exception {
+    Path file = directory.resolve("stats.json");
+    String[] args = {
+      "--typecheck",
+      "--stats",
+      file.toString(),
+      "-c",
+      "tests.json",
+      "tests/typechecker/Arrays.shadow"
+    };
+    new Main(args).run();
+
+    JsonNode stats = new ObjectMapper().readTree(file.toFile());
+    JsonNode phases = stats.get("phases");
+    for (String phase : new String[] {"parse", "collect", "update", "check", "tac", "optimize"})
+      Assertions.assertTrue(phases.get(phase).get("calls").asLong() > 0, phase);
+
+    // Code is not generated when only type-checking
+    Assertions.assertEquals(0, phases.get("ir").get("calls").asLong());
+    Assertions.assertEquals(0, stats.get("counters").get("clangProcesses").asLong());
+
+    JsonNode counters = stats.get("counters");
+    long files = counters.get("shadowFiles").asLong() + counters.get("metaFiles").asLong();
+    Assertions.assertEquals(phases.get("parse").get("calls").asLong(), files);
+    Assertions.assertTrue(stats.get("classes").has("default@Arrays"));
+    Assertions.assertTrue(stats.get("classes").get("default@Arrays").has("check"));
+
+    // Instantiations are counted by generic type
+    JsonNode instantiations = stats.get("instantiations");
+    Assertions.assertTrue(instantiations.get("shadow:standard@Array").asLong() > 0);
+    long total = 0;
+    for (JsonNode count : instantiations) total += count.asLong();
+    Assertions.assertEquals(counters.get("instantiations").asLong(), total);
+  }
+
+  @Test
+  public void testReferenceCountStats() throws Exception {
+    Path file = directory.resolve("stats.json");
+    String[] args = {
+      "--typecheck",
+      "--elide-reference-counts",
+      "--stats",
+      file.toString(),
+      "-c",
+      "tests.json",
+      "tests/typechecker/Arrays.shadow"
+    };
+    new Main(args).run();
+
+    // Arrays are stored into locals that only copy other locals
+    JsonNode counters = new ObjectMapper().readTree(file.toFile()).get("counters");
+    Assertions.assertTrue(counters.get("referenceCountsRemoved").asLong() > 0);
+  }
+
+  @Test
+  public void testInlineStats() throws Exception {
+    Path file = directory.resolve("stats.json");
+    String[] args = {
+      "--typecheck",
+      "--inline",
+      "--stats",
+      file.toString(),
+      "-c",
+      "tests.json",
+      "tests/typechecker/Inline.shadow"
+    };
+    new Main(args).run();
+
+    // Private accessors only load and store fields
+    JsonNode counters = new ObjectMapper().readTree(file.toFile()).get("counters");
+    Assertions.assertTrue(counters.get("callsInlined").asLong() > 0);
+  }
+
+  @Test
+  public void testStatsToStandardOutput() throws Exception {
+    String[] args = {
+      "--typecheck", "--stats", "-", "-c", "tests.json", "tests/typechecker/Arrays.shadow"
+    };
+    PrintStream out = System.out;
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+    try {
+      System.setOut(new PrintStream(buffer, true, StandardCharsets.UTF_8));
+      new Main(args).run();
+    } finally {
+      System.setOut(out);
+    }
+
+    Assertions.assertFalse(Files.exists(Paths.get("-")));
+
+    // The JSON follows the table
+    String output = buffer.toString(StandardCharsets.UTF_8);
+    int start = output.indexOf(System.lineSeparator() + "{");
+    Assertions.assertTrue(start >= 0, output);
+    JsonNode stats = new ObjectMapper().readTree(output.substring(start));
+    Assertions.assertTrue(stats.get("phases").get("check").get("calls").asLong() > 0);
+  }
+
+  @Test
+  public void testNoStatsByDefault() throws Exception {
+    Path file = directory.resolve("stats.json");
+    String[] args = {"--typecheck", "-c", "tests.json", "tests/typechecker/Arrays.shadow"};
+    new Main(args).run();
+    Assertions.assertFalse(file.toFile().exists());
+  }
+}
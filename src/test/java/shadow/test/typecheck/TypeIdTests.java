@@ -0,0 +1,179 @@
+package shadow.test.typecheck;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import shadow.CompilationContext;
+import shadow.Configuration;
+import shadow.Loggers;
+import shadow.typecheck.ErrorReporter;
+import shadow.typecheck.TypeChecker;
+import shadow.typecheck.type.ArrayType;
+import shadow.typecheck.type.ClassType;
+import shadow.typecheck.type.InterfaceType;
+import shadow.typecheck.type.MethodSignature;
+import shadow.typecheck.type.Modifiers;
+import shadow.typecheck.type.SequenceType;
+import shadow.typecheck.type.SimpleModifiedType;
+import shadow.typecheck.type.Type;
+import shadow.typecheck.type.TypeParameter;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+public class TypeIdTests {
+
+  private final CompilationContext compilation = new CompilationContext();
+  private CompilationContext.Scope scope;
+
+  @BeforeEach
+  public void setup() throws Exception {
+    scope = compilation.enter();
+    String file = "tests/typechecker/Arrays.shadow";
+    Configuration.buildConfiguration(compilation, file, "tests.json", false);
+    Path path = Paths.get(file).toAbsolutePath().normalize();
+    ErrorReporter reporter = new ErrorReporter(Loggers.TYPE_CHECKER);
+    TypeChecker.typeCheck(List.of(path), reporter, true, compilation);
+  }
+
+  @AfterEach
+  public void cleanup() {
+    scope.close();
+  }
+
+  @Test
+  public void testArrayIds() {
+    ArrayType first = new ArrayType(compilation.INT);
+    ArrayType second = new ArrayType(compilation.INT);
+    Assertions.assertNotSame(first, second);
+    Assertions.assertEquals(first.getId(), second.getId());
+    Assertions.assertEquals(first.hashCode(), second.hashCode());
+
+    Assertions.assertNotEquals(first.getId(), new ArrayType(compilation.INT, true).getId());
+    Assertions.assertNotEquals(first.getId(), compilation.INT.getId());
+  }
+
+  @Test
+  public void testCompilationIds() {
+    // Placeholders are shared by every compilation, so their ids never change
+    Assertions.assertEquals(Type.UNKNOWN_ID, Type.UNKNOWN.getId());
+    Assertions.assertEquals(Type.NULL_ID, Type.NULL.getId());
+    Assertions.assertEquals(Type.VAR_ID, Type.VAR.getId());
+    Assertions.assertTrue(compilation.INT.getId() >= Type.RESERVED_IDS);
+
+    // Another compilation numbers its types from the start
+    CompilationContext other = new CompilationContext();
+    String name = compilation.STRING.getHashName();
+    Assertions.assertEquals(Type.RESERVED_IDS, other.getTypeId(name));
+    Assertions.assertEquals(Type.RESERVED_IDS, other.getTypeId(name));
+    Assertions.assertEquals(compilation.STRING.getId(), compilation.getTypeId(name));
+  }
+
+  @Test
+  public void testInstantiationIds() throws Exception {
+    ClassType array = compilation.ARRAY;
+    ClassType strings =
+        array.replace(array.getTypeParameters(), new SequenceType(compilation.STRING));
+    ClassType sameStrings =
+        array.replace(array.getTypeParameters(), new SequenceType(compilation.STRING));
+    ClassType ints = array.replace(array.getTypeParameters(), new SequenceType(compilation.INT));
+
+    Assertions.assertSame(strings, sameStrings);
+    Assertions.assertEquals(strings.getId(), sameStrings.getId());
+    Assertions.assertNotEquals(strings.getId(), ints.getId());
+    Assertions.assertNotEquals(strings.getId(), array.getId());
+    Assertions.assertEquals(0, strings.compareTo(sameStrings));
+  }
+
+  @Test
+  public void testAncestors() throws Exception {
+    ClassType string = compilation.STRING;
+    InterfaceType comparable =
+        compilation.CAN_COMPARE.replace(
+            compilation.CAN_COMPARE.getTypeParameters(), new SequenceType(string));
+    InterfaceType equatable =
+        compilation.CAN_EQUAL.replace(
+            compilation.CAN_EQUAL.getTypeParameters(), new SequenceType(string));
+
+    // Asked twice, since the second answer comes from the ancestors found by the first
+    for (int i = 0; i < 2; ++i) {
+      Assertions.assertTrue(string.isSubtype(compilation.OBJECT));
+      Assertions.assertTrue(string.isSubtype(comparable));
+      Assertions.assertTrue(string.isSubtype(equatable)); // through CanCompare<String>
+      Assertions.assertTrue(comparable.isSubtype(equatable));
+      Assertions.assertFalse(equatable.isSubtype(comparable));
+      Assertions.assertFalse(string.isSubtype(compilation.CAN_ITERATE));
+      Assertions.assertTrue(compilation.CAST_EXCEPTION.isSubtype(compilation.EXCEPTION));
+      Assertions.assertFalse(compilation.EXCEPTION.isSubtype(compilation.CAST_EXCEPTION));
+    }
+  }
+
+  @Test
+  public void testAddedInterface() {
+    ClassType type = new ClassType("Added", new Modifiers(), null, null);
+    type.setPackage(compilation.OBJECT.getPackage());
+    type.setExtendType(compilation.OBJECT);
+    InterfaceType iterable = compilation.CAN_ITERATE;
+
+    Assertions.assertFalse(type.isSubtype(iterable));
+    type.addInterface(iterable);
+    Assertions.assertTrue(type.isSubtype(iterable));
+  }
+
+  @Test
+  public void testNumericalSubtypes() {
+    Assertions.assertTrue(compilation.INT.isSubtype(compilation.LONG));
+    Assertions.assertTrue(compilation.INT.isSubtype(compilation.DOUBLE));
+    Assertions.assertFalse(compilation.LONG.isSubtype(compilation.INT));
+    Assertions.assertTrue(compilation.UBYTE.isSubtype(compilation.CODE));
+    Assertions.assertTrue(compilation.CODE.isSubtype(compilation.UINT));
+    Assertions.assertFalse(compilation.ULONG.isSubtype(compilation.LONG));
+    Assertions.assertFalse(compilation.DOUBLE.isSubtype(compilation.FLOAT));
+    Assertions.assertFalse(compilation.BOOLEAN.isSubtype(compilation.INT));
+
+    Assertions.assertTrue(compilation.CODE.isNumerical());
+    Assertions.assertFalse(compilation.BOOLEAN.isNumerical());
+    Assertions.assertTrue(compilation.BOOLEAN.isPrimitive());
+    Assertions.assertTrue(compilation.USHORT.isIntegral());
+    Assertions.assertTrue(compilation.FLOAT.isFloating());
+    Assertions.assertFalse(compilation.STRING.isPrimitive());
+  }
+
+  @Test
+  public void testCachedNames() throws Exception {
+    ClassType strings =
+        compilation.ARRAY.replace(
+            compilation.ARRAY.getTypeParameters(), new SequenceType(compilation.STRING));
+
+    // Asked twice, since the second answer comes from the cache
+    for (int i = 0; i < 2; ++i) {
+      Assertions.assertEquals(strings.toString(Type.MANGLE), strings.getMangledName());
+      Assertions.assertEquals(
+          strings.toString(Type.MANGLE | Type.TYPE_PARAMETERS),
+          strings.getMangledNameWithArguments());
+      Assertions.assertEquals(
+          strings.toString(Type.PACKAGES | Type.TYPE_PARAMETERS), strings.toString());
+    }
+
+    for (MethodSignature signature : compilation.STRING.getAllMethods()) {
+      String mangled = signature.getMangledName();
+      Assertions.assertEquals(mangled, signature.getMangledName());
+      Assertions.assertTrue(mangled.startsWith(compilation.STRING.getMangledName()));
+    }
+  }
+
+  @Test
+  public void testChangedNames() {
+    ClassType type = new ClassType("Named", new Modifiers(), null, null);
+    type.setPackage(compilation.OBJECT.getPackage());
+    String name = type.toString();
+
+    type.addTypeParameter(new SimpleModifiedType(new TypeParameter("T", type)));
+    Assertions.assertNotEquals(name, type.toString());
+    Assertions.assertEquals(type.toString(Type.PACKAGES | Type.TYPE_PARAMETERS), type.toString());
+    Assertions.assertEquals(
+        type.toString(Type.MANGLE | Type.TYPE_PARAMETERS), type.getMangledNameWithArguments());
+  }
+}